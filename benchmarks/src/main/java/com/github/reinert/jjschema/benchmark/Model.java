@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package com.github.reinert.jjschema.benchmark;
+
+import com.github.reinert.jjschema.model.TaskList;
+import com.github.reinert.jjschema.rest.UserResource;
+
+/**
+ * The representative models the generators are measured against.
+ *
+ * @author Danilo Reinert
+ */
+
+public enum Model {
+    /** A class with 10 simple properties */
+    FLAT {
+        @Override
+        Class<?> load() {
+            return SyntheticModels.flat();
+        }
+    },
+    /** A class with 500 properties */
+    WIDE {
+        @Override
+        Class<?> load() {
+            return SyntheticModels.wide(500);
+        }
+    },
+    /** 50 levels of nested custom types */
+    DEEP {
+        @Override
+        Class<?> load() {
+            return SyntheticModels.deep(50);
+        }
+    },
+    /** A hierarchy of 10 classes */
+    INHERITANCE {
+        @Override
+        Class<?> load() {
+            return SyntheticModels.inheritance(10);
+        }
+    },
+    /** Managed and back references (the test TaskList) */
+    REFERENCES {
+        @Override
+        Class<?> load() {
+            return TaskList.class;
+        }
+    },
+    /** A JAX-RS resource (the test UserResource) */
+    RESOURCE {
+        @Override
+        Class<?> load() {
+            return UserResource.class;
+        }
+    };
+
+    abstract Class<?> load();
+}
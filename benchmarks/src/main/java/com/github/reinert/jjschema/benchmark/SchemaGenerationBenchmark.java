@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package com.github.reinert.jjschema.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.reinert.jjschema.JsonSchemaGenerator;
+import com.github.reinert.jjschema.SchemaGeneratorBuilder;
+import com.github.reinert.jjschema.exception.TypeException;
+import com.github.reinert.jjschema.v1.JsonSchemaFactory;
+import com.github.reinert.jjschema.v1.JsonSchemaV4Factory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the v1 factory, the legacy generator and the hyper-schema generator against every {@link Model}.
+ *
+ * @author Danilo Reinert
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchemaGenerationBenchmark {
+
+    private static final OutputStream DISCARD = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    @Param
+    Model model;
+
+    Class<?> type;
+    JsonSchemaFactory factory;
+    JsonSchemaGenerator generator;
+    JsonSchemaGenerator hyperGenerator;
+    ObjectMapper mapper;
+
+    @Setup
+    public void setUp() {
+        type = model.load();
+        factory = new JsonSchemaV4Factory();
+        factory.setAutoPutDollarSchema(true);
+        generator = SchemaGeneratorBuilder.draftV4Schema().build();
+        hyperGenerator = SchemaGeneratorBuilder.draftV4HyperSchema().build();
+        mapper = new ObjectMapper();
+    }
+
+    @Benchmark
+    public JsonNode v1Factory() {
+        return factory.createSchema(type);
+    }
+
+    @Benchmark
+    public void v1FactoryWriteTree() throws IOException {
+        mapper.writeValue(DISCARD, factory.createSchema(type));
+    }
+
+    @Benchmark
+    public void v1FactoryStream() throws IOException {
+        factory.writeSchema(type, DISCARD);
+    }
+
+    @Benchmark
+    public ObjectNode legacyGenerator() throws TypeException {
+        return generator.generateSchema(type);
+    }
+
+    @Benchmark
+    public ObjectNode hyperGenerator() throws TypeException {
+        return hyperGenerator.generateSchema(type);
+    }
+}
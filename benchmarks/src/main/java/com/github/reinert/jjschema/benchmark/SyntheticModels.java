@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.benchmark;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Generates and compiles the source of models whose size makes writing them by hand impractical.
+ * Requires a JDK at benchmark time.
+ *
+ * @author Danilo Reinert
+ */
+
+final class SyntheticModels {
+
+    static final String PACKAGE = "com.github.reinert.jjschema.benchmark.synthetic";
+
+    private static final String[] TYPES = {"int", "String", "java.math.BigDecimal", "boolean", "java.util.List<String>"};
+
+    private SyntheticModels() {}
+
+    /**
+     * A flat class with a handful of simple properties.
+     */
+    static Class<?> flat() {
+        return compile("Flat", wideSource("Flat", 10));
+    }
+
+    /**
+     * A flat class with the given number of properties.
+     */
+    static Class<?> wide(int properties) {
+        return compile("Wide", wideSource("Wide", properties));
+    }
+
+    /**
+     * A chain of classes, each one holding the next as a property.
+     */
+    static Class<?> deep(int levels) {
+        List<String> names = new ArrayList<String>();
+        List<String> sources = new ArrayList<String>();
+        for (int i = 0; i < levels; i++) {
+            String name = "Deep" + i;
+            StringBuilder sb = header(name, null);
+            property(sb, "String", "name", true);
+            property(sb, "int", "level", false);
+            if (i < levels - 1)
+                property(sb, "Deep" + (i + 1), "next", false);
+            sources.add(sb.append("}\n").toString());
+            names.add(name);
+        }
+        return compile(names, sources).get(0);
+    }
+
+    /**
+     * A hierarchy of the given depth, each subclass declaring a few properties of its own.
+     */
+    static Class<?> inheritance(int levels) {
+        List<String> names = new ArrayList<String>();
+        List<String> sources = new ArrayList<String>();
+        for (int i = 0; i < levels; i++) {
+            String name = "Derived" + i;
+            StringBuilder sb = header(name, i == 0 ? null : "Derived" + (i - 1));
+            for (int j = 0; j < 5; j++) {
+                property(sb, TYPES[j % TYPES.length], "level" + i + "Property" + j, j == 0);
+            }
+            sources.add(sb.append("}\n").toString());
+            names.add(name);
+        }
+        List<Class<?>> classes = compile(names, sources);
+        return classes.get(classes.size() - 1);
+    }
+
+    private static String wideSource(String name, int properties) {
+        StringBuilder sb = header(name, null);
+        for (int i = 0; i < properties; i++) {
+            property(sb, TYPES[i % TYPES.length], String.format("property%03d", i), i % 3 == 0);
+        }
+        return sb.append("}\n").toString();
+    }
+
+    private static StringBuilder header(String name, String superclass) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(PACKAGE).append(";\n\n");
+        sb.append("import com.github.reinert.jjschema.Attributes;\n\n");
+        sb.append("public class ").append(name);
+        if (superclass != null)
+            sb.append(" extends ").append(superclass);
+        return sb.append(" {\n");
+    }
+
+    private static void property(StringBuilder sb, String type, String name, boolean annotated) {
+        String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        if (annotated)
+            sb.append("    @Attributes(required = true, description = \"The ").append(name).append("\")\n");
+        sb.append("    private ").append(type).append(' ').append(name).append(";\n");
+        sb.append("    public ").append(type).append(" get").append(capitalized)
+                .append("() { return ").append(name).append("; }\n");
+        sb.append("    public void set").append(capitalized).append('(').append(type)
+                .append(" value) { this.").append(name).append(" = value; }\n");
+    }
+
+    private static Class<?> compile(String name, String source) {
+        return compile(Arrays.asList(name), Arrays.asList(source)).get(0);
+    }
+
+    private static List<Class<?>> compile(List<String> names, List<String> sources) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null)
+            throw new IllegalStateException("Synthetic models require a JDK.");
+        try {
+            File dir = createTempDir();
+            File packageDir = new File(dir, PACKAGE.replace('.', File.separatorChar));
+            if (!packageDir.mkdirs())
+                throw new IOException("Cannot create " + packageDir);
+
+            List<File> files = new ArrayList<File>();
+            for (int i = 0; i < names.size(); i++) {
+                File file = new File(packageDir, names.get(i) + ".java");
+                Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+                try {
+                    writer.write(sources.get(i));
+                } finally {
+                    writer.close();
+                }
+                files.add(file);
+            }
+
+            StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+            try {
+                Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(files);
+                List<String> options = Arrays.asList("-d", dir.getPath(),
+                        "-classpath", System.getProperty("java.class.path"), "-nowarn");
+                if (!compiler.getTask(null, fileManager, null, options, null, units).call())
+                    throw new IllegalStateException("Cannot compile synthetic models " + names);
+            } finally {
+                fileManager.close();
+            }
+
+            ClassLoader loader = new URLClassLoader(new URL[]{dir.toURI().toURL()},
+                    SyntheticModels.class.getClassLoader());
+            List<Class<?>> classes = new ArrayList<Class<?>>();
+            for (String name : names) {
+                classes.add(loader.loadClass(PACKAGE + "." + name));
+            }
+            return classes;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static File createTempDir() throws IOException {
+        File dir = File.createTempFile("jjschema-models", "");
+        if (!dir.delete() || !dir.mkdir())
+            throw new IOException("Cannot create " + dir);
+        dir.deleteOnExit();
+        return dir;
+    }
+}
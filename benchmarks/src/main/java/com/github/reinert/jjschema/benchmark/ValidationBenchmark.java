@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fge.jsonschema.exceptions.ProcessingException;
+import com.github.fge.jsonschema.main.JsonSchema;
+import com.github.fge.jsonschema.report.ProcessingReport;
+import com.github.reinert.jjschema.Attributes;
+import com.github.reinert.jjschema.v1.JsonSchemaV4Factory;
+import com.github.reinert.jjschema.validation.CompiledSchema;
+import com.github.reinert.jjschema.validation.ValidationError;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link CompiledSchema} against the json-schema-validator built on json-schema-core, both validating
+ * the same payloads against the schema generated for {@link Order}.
+ *
+ * @author Danilo Reinert
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    /** The number of lines of the order */
+    @Param({"1", "100"})
+    int lines;
+
+    /** Whether the last line of the order is invalid */
+    @Param({"false", "true"})
+    boolean invalid;
+
+    JsonNode payload;
+    CompiledSchema compiledSchema;
+    JsonSchema fgeSchema;
+
+    @Setup
+    public void setUp() throws ProcessingException {
+        JsonNode schema = new JsonSchemaV4Factory().createSchema(Order.class);
+        compiledSchema = CompiledSchema.compile(schema);
+        fgeSchema = com.github.fge.jsonschema.main.JsonSchemaFactory.byDefault().getJsonSchema(schema);
+
+        Order order = new Order();
+        order.setId(42);
+        order.setCustomer("ACME");
+        order.setStatus("OPEN");
+        List<Line> orderLines = new ArrayList<Line>();
+        for (int i = 0; i < lines; i++) {
+            Line line = new Line();
+            line.setSku("SKU-" + i);
+            line.setQuantity(1 + i % 10);
+            line.setPrice(9.5);
+            orderLines.add(line);
+        }
+        if (invalid)
+            orderLines.get(lines - 1).setQuantity(0);
+        order.setLines(orderLines);
+        payload = new ObjectMapper().valueToTree(order);
+    }
+
+    @Benchmark
+    public boolean compiledIsValid() {
+        return compiledSchema.isValid(payload);
+    }
+
+    @Benchmark
+    public List<ValidationError> compiledValidate() {
+        return compiledSchema.validate(payload);
+    }
+
+    @Benchmark
+    public boolean jsonSchemaCoreIsValid() throws ProcessingException {
+        return fgeSchema.validInstance(payload);
+    }
+
+    @Benchmark
+    public ProcessingReport jsonSchemaCoreValidate() throws ProcessingException {
+        return fgeSchema.validate(payload);
+    }
+
+    public static class Order {
+        @Attributes(required = true, minimum = 1)
+        private long id;
+        @Attributes(required = true, minLength = 1, maxLength = 64)
+        private String customer;
+        @Attributes(required = true, enums = {"OPEN", "PAID", "SHIPPED"})
+        private String status;
+        @Attributes(required = true, minItems = 1)
+        private List<Line> lines;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public String getCustomer() {
+            return customer;
+        }
+
+        public void setCustomer(String customer) {
+            this.customer = customer;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+
+        public List<Line> getLines() {
+            return lines;
+        }
+
+        public void setLines(List<Line> lines) {
+            this.lines = lines;
+        }
+    }
+
+    public static class Line {
+        @Attributes(required = true, pattern = "^SKU-\\d+$")
+        private String sku;
+        @Attributes(required = true, minimum = 1, maximum = 1000)
+        private int quantity;
+        @Attributes(required = true, minimum = 0, exclusiveMinimum = true)
+        private double price;
+
+        public String getSku() {
+            return sku;
+        }
+
+        public void setSku(String sku) {
+            this.sku = sku;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+
+        public void setPrice(double price) {
+            this.price = price;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Selects the classes whose schemas are generated, by package, by annotation or by name.
+ * <p>
+ * A class is selected if it belongs to one of the packages or their subpackages, if it, one of its declared fields
+ * or one of its declared methods carries one of the annotations, or if it is listed by name. Listed classes need
+ * not be in the classes directory; the others are found by scanning it.
+ *
+ * @author Danilo Reinert
+ */
+
+final class ClassSelector {
+
+    private static final String CLASS_EXTENSION = ".class";
+
+    private final List<String> packages;
+    private final Set<String> annotations;
+    private final Set<String> classes;
+
+    ClassSelector(Collection<String> packages, Collection<String> annotations, Collection<String> classes) {
+        this.packages = new ArrayList<String>(nonNull(packages));
+        this.annotations = new LinkedHashSet<String>(nonNull(annotations));
+        this.classes = new LinkedHashSet<String>(nonNull(classes));
+    }
+
+    boolean isEmpty() {
+        return packages.isEmpty() && annotations.isEmpty() && classes.isEmpty();
+    }
+
+    /**
+     * @param classesDirectory the directory holding the compiled classes
+     * @param loader the loader of the classes
+     * @return the selected classes, sorted by name
+     * @throws ClassNotFoundException if a class listed by name cannot be found
+     * @throws IOException if the directory cannot be scanned
+     */
+    List<Class<?>> select(File classesDirectory, ClassLoader loader) throws ClassNotFoundException, IOException {
+        Set<Class<?>> selected = new LinkedHashSet<Class<?>>();
+        for (String name : scan(classesDirectory)) {
+            if (classes.contains(name))
+                continue;
+            boolean inPackage = isInPackages(name);
+            if (!inPackage && annotations.isEmpty())
+                continue;
+            Class<?> type;
+            try {
+                type = Class.forName(name, false, loader);
+            } catch (LinkageError e) {
+                continue;
+            }
+            if (isSchemaType(type) && (inPackage || isAnnotated(type)))
+                selected.add(type);
+        }
+        for (String name : classes) {
+            selected.add(Class.forName(name, false, loader));
+        }
+
+        List<Class<?>> sorted = new ArrayList<Class<?>>(selected);
+        Collections.sort(sorted, new Comparator<Class<?>>() {
+            public int compare(Class<?> c1, Class<?> c2) {
+                return c1.getName().compareTo(c2.getName());
+            }
+        });
+        return sorted;
+    }
+
+    /**
+     * @return the binary names of the classes found under the directory
+     */
+    static List<String> scan(File classesDirectory) throws IOException {
+        final Path root = classesDirectory.toPath();
+        final List<String> names = new ArrayList<String>();
+        if (!classesDirectory.isDirectory())
+            return names;
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                String path = root.relativize(file).toString();
+                if (path.endsWith(CLASS_EXTENSION)) {
+                    String name = path.substring(0, path.length() - CLASS_EXTENSION.length())
+                            .replace(File.separatorChar, '.');
+                    if (!name.endsWith("package-info") && !name.equals("module-info"))
+                        names.add(name);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        Collections.sort(names);
+        return names;
+    }
+
+    private boolean isInPackages(String name) {
+        int end = name.lastIndexOf('.');
+        String packageName = end < 0 ? "" : name.substring(0, end);
+        for (String selectedPackage : packages) {
+            if (packageName.equals(selectedPackage) || packageName.startsWith(selectedPackage + "."))
+                return true;
+        }
+        return false;
+    }
+
+    private boolean isAnnotated(Class<?> type) {
+        if (annotations.isEmpty())
+            return false;
+        try {
+            if (hasAnnotation(type))
+                return true;
+            for (AnnotatedElement member : type.getDeclaredFields()) {
+                if (hasAnnotation(member))
+                    return true;
+            }
+            for (AnnotatedElement member : type.getDeclaredMethods()) {
+                if (hasAnnotation(member))
+                    return true;
+            }
+        } catch (LinkageError e) {
+            // Members referring to classes missing from the classpath
+        }
+        return false;
+    }
+
+    private boolean hasAnnotation(AnnotatedElement element) {
+        for (Annotation annotation : element.getAnnotations()) {
+            if (annotations.contains(annotation.annotationType().getName()))
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean isSchemaType(Class<?> type) {
+        return !type.isAnonymousClass() && !type.isLocalClass() && !type.isSynthetic() && !type.isAnnotation();
+    }
+
+    private static Collection<String> nonNull(Collection<String> values) {
+        return values == null ? Collections.<String>emptyList() : values;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.maven;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Records the fingerprint of each generated schema, along with a stamp of the generator and of its configuration,
+ * in a plain text file of {@code <class name> <fingerprint>} lines.
+ *
+ * @author Danilo Reinert
+ */
+
+final class FingerprintManifest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String STAMP_PREFIX = "# ";
+
+    private final File file;
+    private final String stamp;
+    private final Map<String, String> fingerprints = new TreeMap<String, String>();
+
+    /**
+     * Loads the manifest, which is empty if missing or written with another stamp.
+     *
+     * @param file the manifest file
+     * @param stamp the generator and its configuration
+     */
+    FingerprintManifest(File file, String stamp) throws IOException {
+        this.file = file;
+        this.stamp = stamp;
+        if (!file.isFile())
+            return;
+        BufferedReader reader = Files.newBufferedReader(file.toPath(), UTF_8);
+        try {
+            if (!(STAMP_PREFIX + stamp).equals(reader.readLine()))
+                return;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf(' ');
+                if (separator > 0)
+                    fingerprints.put(line.substring(0, separator), line.substring(separator + 1));
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * @return true if the schema of the class was generated with this fingerprint
+     */
+    boolean isUpToDate(String className, String fingerprint) {
+        return fingerprint.equals(fingerprints.get(className));
+    }
+
+    /**
+     * Replaces the manifest with the fingerprints of the schemas just generated or found up to date.
+     */
+    void store(Map<String, String> current) throws IOException {
+        fingerprints.clear();
+        fingerprints.putAll(current);
+        File directory = file.getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Cannot create " + directory);
+        Writer writer = Files.newBufferedWriter(file.toPath(), UTF_8);
+        try {
+            writer.write(STAMP_PREFIX + stamp + "\n");
+            for (Map.Entry<String, String> fingerprint : fingerprints.entrySet()) {
+                writer.write(fingerprint.getKey() + " " + fingerprint.getValue() + "\n");
+            }
+        } finally {
+            writer.close();
+        }
+    }
+}
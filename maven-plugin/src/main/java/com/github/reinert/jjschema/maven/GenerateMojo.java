@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.maven;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.reinert.jjschema.v1.BatchResult;
+import com.github.reinert.jjschema.v1.JsonSchemaFactory;
+import com.github.reinert.jjschema.v1.JsonSchemaV4Factory;
+import com.github.reinert.jjschema.v1.SchemaFingerprint;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Generates the draft-04 schemas of the module's compiled classes with {@link JsonSchemaV4Factory}, in parallel.
+ * <p>
+ * By default the schemas are written where the factory looks for precomputed schemas, so the packaged classes
+ * are served their schema without reflection at runtime.
+ *
+ * @author Danilo Reinert
+ */
+
+@Mojo(name = "generate", defaultPhase = LifecyclePhase.PROCESS_CLASSES, threadSafe = true,
+        requiresDependencyResolution = ResolutionScope.COMPILE)
+public class GenerateMojo extends AbstractMojo {
+
+    // Where the factories look for precomputed schemas, relative to the classes directory
+    private static final String PRECOMPUTED_LOCATION = "META-INF/jjschema";
+
+    /**
+     * The directory holding the compiled classes.
+     */
+    @Parameter(defaultValue = "${project.build.outputDirectory}", required = true)
+    private File classesDirectory;
+
+    /**
+     * The directory the {@code <class name>.json} files are written to, which the goal owns: the files named
+     * after a class which is not selected, or whose schema cannot be generated, are deleted. The default directory is read by the
+     * factories at runtime, so it only takes schemas generated without definitions nor {@code $schema}: the build
+     * fails if {@link #useDefinitions} or {@link #autoPutDollarSchema} is set but the directory is not changed.
+     */
+    @Parameter(defaultValue = "${project.build.outputDirectory}/META-INF/jjschema", required = true)
+    private File outputDirectory;
+
+    @Parameter(defaultValue = "${project.compileClasspathElements}", readonly = true, required = true)
+    private List<String> classpathElements;
+
+    /**
+     * Packages whose classes are selected, subpackages included.
+     */
+    @Parameter
+    private List<String> packages;
+
+    /**
+     * Annotations, by class name, selecting the classes carrying them on the class or on a declared member.
+     */
+    @Parameter
+    private List<String> annotations;
+
+    /**
+     * Classes selected by name.
+     */
+    @Parameter
+    private List<String> classes;
+
+    @Parameter(defaultValue = "false")
+    private boolean useDefinitions;
+
+    @Parameter(defaultValue = "false")
+    private boolean autoPutDollarSchema;
+
+    @Parameter(defaultValue = "false")
+    private boolean prettyPrint;
+
+    /**
+     * The number of threads generating the schemas, the number of processors if not positive.
+     */
+    @Parameter(defaultValue = "0")
+    private int threads;
+
+    /**
+     * Whether a class whose schema cannot be generated fails the build, rather than being skipped with a warning.
+     */
+    @Parameter(defaultValue = "true")
+    private boolean failOnError;
+
+    /**
+     * Whether to regenerate only the schemas whose fingerprint changed, the fingerprint covering the bytecode of
+     * the class and of every class its schema depends on.
+     */
+    @Parameter(defaultValue = "false", property = "jjschema.incremental")
+    private boolean incremental;
+
+    /**
+     * The file recording the fingerprints of the generated schemas, in incremental mode.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/jjschema/fingerprints.txt", required = true)
+    private File manifestFile;
+
+    @Parameter(defaultValue = "false", property = "jjschema.skip")
+    private boolean skip;
+
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (skip) {
+            getLog().info("Skipping schema generation");
+            return;
+        }
+        checkOutputDirectory();
+        ClassSelector selector = new ClassSelector(packages, annotations, classes);
+        if (selector.isEmpty()) {
+            getLog().warn("No packages, annotations nor classes are configured: no schema is generated");
+            return;
+        }
+
+        URLClassLoader classLoader = createClassLoader();
+        try {
+            execute(selector, classLoader);
+        } finally {
+            try {
+                classLoader.close();
+            } catch (IOException e) {
+                getLog().warn("Cannot close the class loader of the compiled classes", e);
+            }
+        }
+    }
+
+    private void execute(ClassSelector selector, ClassLoader classLoader)
+            throws MojoExecutionException, MojoFailureException {
+        List<Class<?>> types;
+        try {
+            types = selector.select(classesDirectory, classLoader);
+        } catch (ClassNotFoundException e) {
+            throw new MojoExecutionException("Cannot load class " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Cannot scan " + classesDirectory, e);
+        }
+
+        Set<String> kept = new HashSet<String>();
+        for (Class<?> type : types) {
+            kept.add(type.getName());
+        }
+        SchemaWriter writer = new SchemaWriter(outputDirectory, prettyPrint);
+        FingerprintManifest manifest = null;
+        Map<String, String> fingerprints = new TreeMap<String, String>();
+        if (incremental) {
+            manifest = loadManifest();
+            List<Class<?>> stale = new ArrayList<Class<?>>();
+            for (Class<?> type : types) {
+                String fingerprint = SchemaFingerprint.of(type);
+                fingerprints.put(type.getName(), fingerprint);
+                if (!manifest.isUpToDate(type.getName(), fingerprint) || !writer.exists(type))
+                    stale.add(type);
+            }
+            getLog().info((types.size() - stale.size()) + " schemas up to date");
+            types = stale;
+        }
+
+        BatchResult result = generate(types);
+        int written = 0;
+        for (Map.Entry<Class<?>, JsonNode> schema : result.getSchemas().entrySet()) {
+            try {
+                if (writer.write(schema.getKey(), schema.getValue()))
+                    written++;
+            } catch (IOException e) {
+                throw new MojoExecutionException("Cannot write the schema of " + schema.getKey().getName(), e);
+            }
+        }
+        getLog().info(result.getSchemas().size() + " schemas generated, " + written + " written to "
+                + outputDirectory);
+
+        for (Map.Entry<Class<?>, Throwable> failure : result.getFailures().entrySet()) {
+            getLog().warn("Cannot generate the schema of " + failure.getKey().getName(), failure.getValue());
+            fingerprints.remove(failure.getKey().getName());
+            kept.remove(failure.getKey().getName());
+        }
+        try {
+            int deleted = writer.deleteAllBut(kept);
+            if (deleted > 0)
+                getLog().info(deleted + " stale schemas deleted from " + outputDirectory);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Cannot delete the stale schemas of " + outputDirectory, e);
+        }
+        if (manifest != null) {
+            try {
+                manifest.store(fingerprints);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Cannot write " + manifestFile, e);
+            }
+        }
+        if (failOnError && result.hasFailures())
+            throw new MojoFailureException(result.getFailures().size() + " schemas could not be generated");
+    }
+
+    /**
+     * Refuses to write schemas differing from the ones the factories generate by default where the factories would
+     * serve them as precomputed.
+     */
+    private void checkOutputDirectory() throws MojoExecutionException {
+        if (!useDefinitions && !autoPutDollarSchema)
+            return;
+        File precomputed = new File(classesDirectory, PRECOMPUTED_LOCATION);
+        if (outputDirectory.getAbsoluteFile().toURI().normalize()
+                .equals(precomputed.getAbsoluteFile().toURI().normalize()))
+            throw new MojoExecutionException("Schemas generated with useDefinitions or autoPutDollarSchema would be"
+                    + " used as precomputed schemas by every factory: set outputDirectory to another directory than "
+                    + outputDirectory);
+    }
+
+    private FingerprintManifest loadManifest() throws MojoExecutionException {
+        try {
+            return new FingerprintManifest(manifestFile, stamp());
+        } catch (IOException e) {
+            throw new MojoExecutionException("Cannot read " + manifestFile, e);
+        }
+    }
+
+    /**
+     * Identifies the generator and its configuration, a change of either invalidating every fingerprint.
+     */
+    private String stamp() {
+        StringBuilder stamp = new StringBuilder();
+        stamp.append("useDefinitions=").append(useDefinitions)
+                .append(";autoPutDollarSchema=").append(autoPutDollarSchema)
+                .append(";prettyPrint=").append(prettyPrint)
+                .append(";outputDirectory=").append(outputDirectory.getAbsolutePath());
+        URL generator = JsonSchemaFactory.class.getProtectionDomain().getCodeSource().getLocation();
+        stamp.append(";generator=").append(generator);
+        if ("file".equals(generator.getProtocol())) {
+            File file = new File(generator.getPath());
+            if (file.isFile())
+                stamp.append(';').append(file.length()).append(';').append(file.lastModified());
+        }
+        return stamp.toString();
+    }
+
+    private BatchResult generate(List<Class<?>> types) {
+        JsonSchemaFactory factory = new JsonSchemaV4Factory();
+        factory.setUseDefinitions(useDefinitions);
+        factory.setAutoPutDollarSchema(autoPutDollarSchema);
+        // The schemas in the output directory must not be read back as the ones to generate
+        factory.setUsePrecomputedSchemas(false);
+        ForkJoinPool pool = threads > 0 ? new ForkJoinPool(threads) : null;
+        if (pool != null)
+            factory.setPool(pool);
+        try {
+            return factory.createSchemas(types);
+        } finally {
+            if (pool != null)
+                pool.shutdown();
+        }
+    }
+
+    private URLClassLoader createClassLoader() throws MojoExecutionException {
+        List<URL> urls = new ArrayList<URL>();
+        try {
+            urls.add(classesDirectory.toURI().toURL());
+            for (String element : classpathElements) {
+                urls.add(new File(element).toURI().toURL());
+            }
+        } catch (MalformedURLException e) {
+            throw new MojoExecutionException("Invalid classpath element", e);
+        }
+        return new URLClassLoader(urls.toArray(new URL[urls.size()]), getClass().getClassLoader());
+    }
+}
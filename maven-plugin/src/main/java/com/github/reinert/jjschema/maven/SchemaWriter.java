@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.maven;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.reinert.jjschema.v1.SchemaWrapperFactory;
+
+import javax.lang.model.SourceVersion;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Writes schemas to {@code <class name>.json} files, leaving alone the files whose content is unchanged so their
+ * timestamps keep incremental builds from repackaging them.
+ *
+ * @author Danilo Reinert
+ */
+
+final class SchemaWriter {
+
+    static final String EXTENSION = ".json";
+
+    private final File outputDirectory;
+    private final boolean prettyPrint;
+
+    SchemaWriter(File outputDirectory, boolean prettyPrint) {
+        this.outputDirectory = outputDirectory;
+        this.prettyPrint = prettyPrint;
+    }
+
+    boolean exists(Class<?> type) {
+        return file(type).isFile();
+    }
+
+    /**
+     * @return true if the file was written, false if it already had this content
+     */
+    boolean write(Class<?> type, JsonNode schema) throws IOException {
+        File file = file(type);
+        byte[] content = prettyPrint
+                ? SchemaWrapperFactory.MAPPER.writerWithDefaultPrettyPrinter().writeValueAsBytes(schema)
+                : SchemaWrapperFactory.MAPPER.writeValueAsBytes(schema);
+        if (file.length() == content.length && file.isFile()
+                && Arrays.equals(content, Files.readAllBytes(file.toPath()))) {
+            return false;
+        }
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs())
+            throw new IOException("Cannot create " + outputDirectory);
+        Files.write(file.toPath(), content);
+        return true;
+    }
+
+    /**
+     * Deletes the schemas of the classes other than the given ones, which would otherwise keep being served as
+     * precomputed. Only files named after a class are considered.
+     *
+     * @param classNames the names of the classes whose schema is kept
+     * @return the number of files deleted
+     */
+    int deleteAllBut(Set<String> classNames) throws IOException {
+        File[] files = outputDirectory.listFiles();
+        if (files == null)
+            return 0;
+        int deleted = 0;
+        for (File file : files) {
+            String name = file.getName();
+            if (!file.isFile() || !name.endsWith(EXTENSION))
+                continue;
+            String className = name.substring(0, name.length() - EXTENSION.length());
+            if (SourceVersion.isName(className) && !classNames.contains(className)) {
+                Files.delete(file.toPath());
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    private File file(Class<?> type) {
+        return new File(outputDirectory, type.getName() + EXTENSION);
+    }
+}
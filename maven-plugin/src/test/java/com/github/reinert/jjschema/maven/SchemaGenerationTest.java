@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.maven;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.reinert.jjschema.maven.sample.Annotated;
+import com.github.reinert.jjschema.maven.sample.Plain;
+import com.github.reinert.jjschema.maven.sample.nested.Deep;
+import com.github.reinert.jjschema.v1.JsonSchemaFactory;
+import com.github.reinert.jjschema.v1.JsonSchemaV4Factory;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Danilo Reinert
+ */
+
+public class SchemaGenerationTest extends TestCase {
+
+    private static final String SAMPLE = "com.github.reinert.jjschema.maven.sample";
+
+    private final List<String> none = Collections.emptyList();
+    private File classesDirectory;
+    private File output;
+
+    @Override
+    protected void setUp() throws Exception {
+        classesDirectory = new File(getClass().getProtectionDomain().getCodeSource().getLocation().toURI());
+        output = Files.createTempDirectory("jjschema-plugin").toFile();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        File[] files = output.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        output.delete();
+    }
+
+    public void testSelectsByPackage() throws Exception {
+        assertEquals(Arrays.<Class<?>>asList(Annotated.class, Plain.class, Deep.class),
+                select(Arrays.asList(SAMPLE), none, none));
+        assertEquals(Arrays.<Class<?>>asList(Deep.class), select(Arrays.asList(SAMPLE + ".nested"), none, none));
+        assertTrue(select(Arrays.asList(SAMPLE + ".nest"), none, none).isEmpty());
+    }
+
+    public void testSelectsByAnnotation() throws Exception {
+        assertEquals(Arrays.<Class<?>>asList(Annotated.class),
+                select(none, Arrays.asList("com.github.reinert.jjschema.Attributes"), none));
+    }
+
+    public void testSelectsByName() throws Exception {
+        assertEquals(Arrays.<Class<?>>asList(Plain.class, String.class),
+                select(none, none, Arrays.asList("java.lang.String", Plain.class.getName())));
+        assertTrue(new ClassSelector(null, null, null).isEmpty());
+    }
+
+    public void testWritesOnlyChangedSchemas() throws Exception {
+        JsonSchemaFactory factory = new JsonSchemaV4Factory();
+        SchemaWriter writer = new SchemaWriter(output, false);
+        JsonNode schema = factory.createSchema(Annotated.class);
+        File file = new File(output, Annotated.class.getName() + SchemaWriter.EXTENSION);
+
+        assertTrue(writer.write(Annotated.class, schema));
+        assertTrue(file.setLastModified(0));
+        assertFalse(writer.write(Annotated.class, schema));
+        assertEquals(0, file.lastModified());
+
+        factory.setAutoPutDollarSchema(true);
+        assertTrue(writer.write(Annotated.class, factory.createSchema(Annotated.class)));
+        assertTrue(file.lastModified() > 0);
+    }
+
+    public void testFingerprintManifest() throws Exception {
+        File file = new File(output, "fingerprints.txt");
+        FingerprintManifest manifest = new FingerprintManifest(file, "stamp");
+        assertFalse(manifest.isUpToDate(Plain.class.getName(), "a"));
+        manifest.store(Collections.singletonMap(Plain.class.getName(), "a"));
+
+        manifest = new FingerprintManifest(file, "stamp");
+        assertTrue(manifest.isUpToDate(Plain.class.getName(), "a"));
+        assertFalse(manifest.isUpToDate(Plain.class.getName(), "b"));
+        assertFalse(manifest.isUpToDate(Deep.class.getName(), "a"));
+        assertFalse(new FingerprintManifest(file, "other stamp").isUpToDate(Plain.class.getName(), "a"));
+    }
+
+    private List<Class<?>> select(List<String> packages, List<String> annotations, List<String> classes)
+            throws Exception {
+        return new ClassSelector(packages, annotations, classes).select(classesDirectory, getClass().getClassLoader());
+    }
+}
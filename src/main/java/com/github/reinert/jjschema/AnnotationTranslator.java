@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.lang.annotation.Annotation;
+
+/**
+ * Translates a custom annotation of a property into schema keywords. Translators are registered on a
+ * {@link com.github.reinert.jjschema.v1.JsonSchemaFactory} or through {@link SchemaGeneratorBuilder}, and run for
+ * every property annotated with their annotation type, after its {@link Attributes}.
+ * <p>
+ * Translators may be used by many generations at once, so they must be thread-safe.
+ *
+ * @param <A> the annotation type
+ * @author Danilo Reinert
+ */
+
+public interface AnnotationTranslator<A extends Annotation> {
+
+    /**
+     * @return the annotation type this translator handles
+     */
+    Class<A> getAnnotationType();
+
+    /**
+     * Puts the keywords matching an annotation into the schema of a property.
+     *
+     * @param annotation the annotation of the property
+     * @param schema the schema of the property
+     */
+    void translate(A annotation, ObjectNode schema);
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.fge.jsonschema.SchemaVersion;
+import com.google.common.collect.MapMaker;
+
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The schema keywords of an {@link Attributes} annotation, computed once per annotation instance and merged into
+ * schemas in a single step, instead of checking every attribute on every generation.
+ * <p>
+ * Fragments are kept in a map with weak, identity compared keys, so an annotation read again from its member hits
+ * the same fragment and unloaded classes do not leak. Fragments are immutable and safe to use from many threads.
+ *
+ * @author Danilo Reinert
+ */
+
+public final class AttributesFragment {
+
+    private static final ConcurrentMap<Attributes, AttributesFragment> FRAGMENTS =
+            new MapMaker().weakKeys().makeMap();
+
+    private static final String TAG_ENUM = "enum";
+
+    private final ObjectNode keywords;
+    private final ObjectNode legacyKeywords;
+    private final ObjectNode versionedLegacyKeywords;
+    private final ArrayNode enums;
+    private final boolean required;
+
+    public static AttributesFragment of(Attributes attributes) {
+        AttributesFragment fragment = FRAGMENTS.get(attributes);
+        if (fragment == null) {
+            fragment = new AttributesFragment(attributes);
+            AttributesFragment existing = FRAGMENTS.putIfAbsent(attributes, fragment);
+            if (existing != null)
+                fragment = existing;
+        }
+        return fragment;
+    }
+
+    private AttributesFragment(Attributes attributes) {
+        JsonNodeFactory nodeFactory = JsonNodeFactory.instance;
+        this.required = attributes.required();
+        if (attributes.enums().length > 0) {
+            enums = nodeFactory.arrayNode();
+            for (String v : attributes.enums()) {
+                enums.add(v);
+            }
+        } else {
+            enums = null;
+        }
+
+        keywords = nodeFactory.objectNode();
+        putIdentity(keywords, attributes);
+        putConstraints(keywords, attributes);
+
+        legacyKeywords = nodeFactory.objectNode();
+        versionedLegacyKeywords = nodeFactory.objectNode();
+        if (!attributes.$ref().isEmpty()) {
+            legacyKeywords.put("$ref", attributes.$ref());
+            versionedLegacyKeywords.put("$ref", attributes.$ref());
+        }
+        versionedLegacyKeywords.put("$schema", SchemaVersion.DRAFTV4.getLocation().toString());
+        for (ObjectNode node : new ObjectNode[]{legacyKeywords, versionedLegacyKeywords}) {
+            if (!attributes.id().isEmpty()) {
+                node.put("id", attributes.id());
+            }
+            if (attributes.required()) {
+                node.put("selfRequired", true);
+            }
+            if (!attributes.description().isEmpty()) {
+                node.put("description", attributes.description());
+            }
+            if (!attributes.pattern().isEmpty()) {
+                node.put("pattern", attributes.pattern());
+            }
+            if (!attributes.format().isEmpty()) {
+                node.put("format", attributes.format());
+            }
+            if (!attributes.title().isEmpty()) {
+                node.put("title", attributes.title());
+            }
+            putConstraints(node, attributes);
+        }
+    }
+
+    /**
+     * @return whether the annotation marks its property or type as required
+     */
+    public boolean isRequired() {
+        return required;
+    }
+
+    /**
+     * Puts the keywords of the annotation into a schema, as {@link com.github.reinert.jjschema.v1.JsonSchemaFactory}
+     * generates them: {@code $ref}, {@code format} and {@code required} are not keywords there.
+     */
+    public void applyTo(ObjectNode schema) {
+        apply(keywords, schema);
+    }
+
+    /**
+     * Puts the keywords of the annotation into a schema, as the legacy {@link JsonSchemaGeneratorV4} generates them.
+     *
+     * @param putVersion whether {@code $schema} is put as well
+     */
+    public void applyLegacyTo(ObjectNode schema, boolean putVersion) {
+        apply(putVersion ? versionedLegacyKeywords : legacyKeywords, schema);
+    }
+
+    private void apply(ObjectNode fragment, ObjectNode schema) {
+        schema.setAll(fragment);
+        // Schemas may be changed afterwards, so they never share the only container of the fragment
+        if (enums != null)
+            schema.put(TAG_ENUM, enums.deepCopy());
+    }
+
+    private static void putIdentity(ObjectNode node, Attributes attributes) {
+        if (!attributes.id().isEmpty()) {
+            node.put("id", attributes.id());
+        }
+        if (!attributes.description().isEmpty()) {
+            node.put("description", attributes.description());
+        }
+        if (!attributes.pattern().isEmpty()) {
+            node.put("pattern", attributes.pattern());
+        }
+        if (!attributes.title().isEmpty()) {
+            node.put("title", attributes.title());
+        }
+    }
+
+    private void putConstraints(ObjectNode node, Attributes attributes) {
+        if (attributes.maximum() > -1) {
+            node.put("maximum", attributes.maximum());
+        }
+        if (attributes.exclusiveMaximum()) {
+            node.put("exclusiveMaximum", true);
+        }
+        if (attributes.minimum() > -1) {
+            node.put("minimum", attributes.minimum());
+        }
+        if (attributes.exclusiveMinimum()) {
+            node.put("exclusiveMinimum", true);
+        }
+        if (enums != null) {
+            node.put(TAG_ENUM, enums);
+        }
+        if (attributes.uniqueItems()) {
+            node.put("uniqueItems", true);
+        }
+        if (attributes.minItems() > 0) {
+            node.put("minItems", attributes.minItems());
+        }
+        if (attributes.maxItems() > -1) {
+            node.put("maxItems", attributes.maxItems());
+        }
+        if (attributes.multipleOf() > 0) {
+            node.put("multipleOf", attributes.multipleOf());
+        }
+        if (attributes.minLength() > 0) {
+            node.put("minLength", attributes.minLength());
+        }
+        if (attributes.maxLength() > -1) {
+            node.put("maxLength", attributes.maxLength());
+        }
+        if (attributes.readonly()) {
+            node.put("readonly", true);
+        }
+    }
+}
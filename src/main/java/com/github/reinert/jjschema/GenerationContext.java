@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema;
+
+import com.github.reinert.jjschema.metrics.GenerationListener;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Holds the state of a single schema generation run of a {@link JsonSchemaGenerator}.
+ * <p>
+ * A new context is created for each call to {@link JsonSchemaGenerator#generateSchema(Class)} and is confined to
+ * the calling thread, so generators themselves keep only their configuration. Subclasses of the generator may
+ * create their own to call its extension points. It also forwards the events of the
+ * run to the {@link GenerationListener} of the generator, if any.
+ *
+ * @author Danilo Reinert
+ */
+
+public final class GenerationContext {
+
+    private final Set<ManagedReference> forwardReferences = new LinkedHashSet<ManagedReference>();
+    private final Set<ManagedReference> backReferences = new LinkedHashSet<ManagedReference>();
+    private final GenerationListener listener;
+    private int depth;
+
+    public GenerationContext() {
+        this(null);
+    }
+
+    /**
+     * @param listener the listener notified of the events of the run, or null
+     */
+    public GenerationContext(GenerationListener listener) {
+        this.listener = listener;
+    }
+
+    GenerationListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Marks the start of the generation of a custom type.
+     *
+     * @return the start time to pass to {@link #typeGenerated(Class, long, int)}
+     */
+    long typeStarted() {
+        depth++;
+        return listener == null ? 0 : System.nanoTime();
+    }
+
+    void typeGenerated(Class<?> type, long startTime, int properties) {
+        depth--;
+        if (listener != null)
+            listener.typeGenerated(type, System.nanoTime() - startTime, properties, depth);
+    }
+
+    void referenceCycle(Class<?> type) {
+        if (listener != null)
+            listener.referenceCycle(type);
+    }
+
+    Set<ManagedReference> getForwardReferences() {
+        return forwardReferences;
+    }
+
+    void pushFowardReference(ManagedReference fowardReference) {
+        forwardReferences.add(fowardReference);
+    }
+
+    boolean isFowardReferencePiled(ManagedReference fowardReference) {
+        return forwardReferences.contains(fowardReference);
+    }
+
+    boolean pullFowardReference(ManagedReference fowardReference) {
+        return forwardReferences.remove(fowardReference);
+    }
+
+    Set<ManagedReference> getBackwardReferences() {
+        return backReferences;
+    }
+
+    void pushBackwardReference(ManagedReference backReference) {
+        backReferences.add(backReference);
+    }
+
+    boolean isBackwardReferencePiled(ManagedReference backReference) {
+        return backReferences.contains(backReference);
+    }
+
+    boolean pullBackwardReference(ManagedReference backReference) {
+        return backReferences.remove(backReference);
+    }
+}
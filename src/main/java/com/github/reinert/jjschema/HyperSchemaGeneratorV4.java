@@ -51,7 +51,7 @@ public class HyperSchemaGeneratorV4 extends JsonSchemaGenerator {
         this.jsonSchemaGenerator = jsonSchemaGenerator;
     }
 
-    private ObjectNode generateLink(Method method) throws InvalidLinkMethod, TypeException {
+    private ObjectNode generateLink(Method method, GenerationContext context) throws InvalidLinkMethod, TypeException {
         String href = null, rel = null, httpMethod = null;
         boolean isLink = false;
 
@@ -99,7 +99,7 @@ public class HyperSchemaGeneratorV4 extends JsonSchemaGenerator {
         link.put("rel", rel);
 
         // TODO: by default use a Prototype containing only the $id or $ref for the TargetSchema
-        ObjectNode tgtSchema = generateSchema(method.getReturnType());
+        ObjectNode tgtSchema = generateSchema(method.getReturnType(), context);
         if (tgtSchema != null)
             link.put("targetSchema", tgtSchema);
 
@@ -126,7 +126,7 @@ public class HyperSchemaGeneratorV4 extends JsonSchemaGenerator {
                             schema.put("type", "object");
                         }
                         QueryParam q = (QueryParam) a;
-                        schema.put(q.value(), jsonSchemaGenerator.generateSchema(paramTypes[i]));
+                        schema.put(q.value(), jsonSchemaGenerator.generateSchema(paramTypes[i], context));
                         prop = q.value();
                         hasParam = true;
                         isBodyParam = false;
@@ -138,7 +138,7 @@ public class HyperSchemaGeneratorV4 extends JsonSchemaGenerator {
                         }
                         FormParam q = (FormParam) a;
 
-                        schema.put(q.value(), jsonSchemaGenerator.generateSchema(paramTypes[i]));
+                        schema.put(q.value(), jsonSchemaGenerator.generateSchema(paramTypes[i], context));
                         prop = q.value();
                         hasParam = true;
                         isBodyParam = false;
@@ -189,7 +189,7 @@ public class HyperSchemaGeneratorV4 extends JsonSchemaGenerator {
                 }
                 if (isBodyParam) {
                     hasBodyParam = true;
-                    schema = generateSchema(paramTypes[i]);
+                    schema = generateSchema(paramTypes[i], context);
                     if (media != null) {
                         schema.put(MEDIA_TYPE, media.type());
                         schema.put(BINARY_ENCODING, media.binaryEncoding());
@@ -214,7 +214,7 @@ public class HyperSchemaGeneratorV4 extends JsonSchemaGenerator {
         return link;
     }
 
-    private <T> ObjectNode generateHyperSchemaFromResource(Class<T> type) throws TypeException  {
+    private <T> ObjectNode generateHyperSchemaFromResource(Class<T> type, GenerationContext context) throws TypeException  {
         ObjectNode schema = null;
 
         Annotation[] ans = type.getAnnotations();
@@ -244,7 +244,7 @@ public class HyperSchemaGeneratorV4 extends JsonSchemaGenerator {
 
         for (Method method : type.getDeclaredMethods()) {
             try {
-                ObjectNode link = generateLink(method);
+                ObjectNode link = generateLink(method, context);
                 if ("GET".equals(link.get("method").asText()) && "#".equals(link.get("href").asText())) {
                     jsonSchemaGenerator.mergeSchema(schema, (ObjectNode) link.get("targetSchema"), true);
                 } else {
@@ -277,6 +277,8 @@ public class HyperSchemaGeneratorV4 extends JsonSchemaGenerator {
                     } else {
                         hyperProp.put("type", "string");
                     }
+                    // Binary content, e.g. a byte array, is encoded into a string
+                    hyperProp.remove("items");
                     properties.put(prop, hyperProp);
                 }
             } catch (NoSuchFieldException e) {
@@ -289,13 +291,13 @@ public class HyperSchemaGeneratorV4 extends JsonSchemaGenerator {
     }
 
     @Override
-    public <T> ObjectNode generateSchema(Class<T> type) throws TypeException {
+    protected <T> ObjectNode generateSchema(Class<T> type, GenerationContext context) throws TypeException {
         ObjectNode hyperSchema = null;
         Annotation path = type.getAnnotation(Path.class);
         if (path != null) {
-            hyperSchema = generateHyperSchemaFromResource(type);
+            hyperSchema = generateHyperSchemaFromResource(type, context);
         } else {
-            ObjectNode jsonSchema = (ObjectNode) jsonSchemaGenerator.generateSchema(type);
+            ObjectNode jsonSchema = (ObjectNode) jsonSchemaGenerator.generateSchema(type, context);
             if (jsonSchema != null) {
                 if ("array".equals(jsonSchema.get("type").asText())) {
                     if (!Collection.class.isAssignableFrom(type)) {
@@ -23,16 +23,14 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
-import java.math.BigDecimal;
 import java.util.AbstractCollection;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -45,6 +43,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.github.reinert.jjschema.exception.TypeException;
+import com.github.reinert.jjschema.introspection.ClassModel;
+import com.github.reinert.jjschema.introspection.EnumModel;
+import com.github.reinert.jjschema.introspection.MemberAnnotations;
+import com.github.reinert.jjschema.introspection.TypeClassifier;
+import com.github.reinert.jjschema.introspection.TypeKind;
+import com.github.reinert.jjschema.introspection.TypeResolver;
+import com.github.reinert.jjschema.metrics.GenerationListener;
 
 /**
  * Generates JSON schema from Java Types
@@ -58,54 +63,43 @@ public abstract class JsonSchemaGenerator {
     private static final String TAG_REQUIRED = "required";
     private static final String TAG_TYPE = "type";
     private static final String TAG_ARRAY = "array";
+
+    private static final Set<String> LEGACY_EXTENSION_POINTS = new HashSet<String>(Arrays.asList(
+            "checkAndProcessType", "processCustomType", "processProperties", "processFields",
+            "generatePropertySchema", "mergeWithParent"));
+
+    /**
+     * The names of the extension points whose signature without a {@link GenerationContext} a generator class
+     * overrides, so that the generation keeps calling them.
+     */
+    private static final ClassValue<Set<String>> LEGACY_OVERRIDES = new ClassValue<Set<String>>() {
+        @Override
+        protected Set<String> computeValue(Class<?> type) {
+            Set<String> overrides = new HashSet<String>();
+            for (Class<?> current = type; current != JsonSchemaGenerator.class; current = current.getSuperclass()) {
+                for (Method method : current.getDeclaredMethods()) {
+                    Class<?>[] parameters = method.getParameterTypes();
+                    if (!method.isBridge() && LEGACY_EXTENSION_POINTS.contains(method.getName())
+                            && parameters.length > 0 && parameters[parameters.length - 1] != GenerationContext.class)
+                        overrides.add(method.getName());
+                }
+            }
+            return overrides;
+        }
+    };
+    private static final ThreadLocal<GenerationContext> CURRENT_CONTEXT = new ThreadLocal<GenerationContext>();
     
     final ObjectMapper mapper = new ObjectMapper();
     boolean autoPutVersion = true;
     boolean sortProperties = true;
     boolean processFieldsOnly = false;
     boolean processAnnotatedOnly = false;
-    private Set<ManagedReference> forwardReferences;
-    private Set<ManagedReference> backReferences;
+    GenerationListener listener;
+    final List<AnnotationTranslator<?>> translators = new ArrayList<AnnotationTranslator<?>>();
     
     protected JsonSchemaGenerator() {
     }
 
-    Set<ManagedReference> getForwardReferences() {
-        if (forwardReferences == null)
-            forwardReferences = new LinkedHashSet<ManagedReference>();
-        return forwardReferences;
-    }
-
-    <T> void pushFowardReference(ManagedReference fowardReference) {
-        getForwardReferences().add(fowardReference);
-    }
-
-    <T> boolean isFowardReferencePiled(ManagedReference fowardReference) {
-        return getForwardReferences().contains(fowardReference);
-    }
-
-    <T> boolean pullFowardReference(ManagedReference fowardReference) {
-        return getForwardReferences().remove(fowardReference);
-    }
-
-    Set<ManagedReference> getBackwardReferences() {
-        if (backReferences == null)
-            backReferences = new LinkedHashSet<ManagedReference>();
-        return backReferences;
-    }
-
-    <T> void pushBackwardReference(ManagedReference backReference) {
-        getBackwardReferences().add(backReference);
-    }
-
-    <T> boolean isBackwardReferencePiled(ManagedReference backReference) {
-        return getBackwardReferences().contains(backReference);
-    }
-
-    <T> boolean pullBackwardReference(ManagedReference backReference) {
-        return getBackwardReferences().remove(backReference);
-    }
-
 //    void resetProcessedReferences() {
 //    	processedReferences = null;
 //    }
@@ -158,47 +152,135 @@ public abstract class JsonSchemaGenerator {
         return this;
     }
 
+    public GenerationListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Sets the listener notified of the generations of this generator, e.g. a
+     * {@link com.github.reinert.jjschema.metrics.GenerationMetrics}.
+     *
+     * @param listener the listener, or null for none (the default)
+     * @return the actual instance of JsonSchemaGenerator
+     */
+    public JsonSchemaGenerator setListener(GenerationListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * Generates the schema of a Java type. All the state of a generation run is kept in a
+     * {@link GenerationContext} created for each call, so a configured generator may be shared among threads.
+     *
+     * @param type
+     * @return the schema of the type
+     */
     public <T> ObjectNode generateSchema(Class<T> type) throws TypeException {
+        long startTime = listener == null ? 0 : System.nanoTime();
+        GenerationContext context = new GenerationContext(listener);
+        GenerationContext previousContext = CURRENT_CONTEXT.get();
+        CURRENT_CONTEXT.set(context);
+        ObjectNode schema;
+        try {
+            schema = generateSchema(type, context);
+        } finally {
+            if (previousContext == null)
+                CURRENT_CONTEXT.remove();
+            else
+                CURRENT_CONTEXT.set(previousContext);
+        }
+        if (listener != null)
+            listener.schemaGenerated(type, System.nanoTime() - startTime, schema);
+        return schema;
+    }
+
+    /**
+     * @return the context of the generation running on this thread, or a new one if none is
+     */
+    private GenerationContext currentContext() {
+        GenerationContext context = CURRENT_CONTEXT.get();
+        return context != null ? context : new GenerationContext(listener);
+    }
+
+    /**
+     * @return whether the class of this generator overrides the signature of an extension point without a context
+     */
+    private boolean overridesLegacy(String extensionPoint) {
+        return LEGACY_OVERRIDES.get(getClass()).contains(extensionPoint);
+    }
+
+    protected <T> ObjectNode generateSchema(Class<T> type, GenerationContext context) throws TypeException {
         ObjectNode schema = createInstance();
-        schema = checkAndProcessType(type, schema);
+        if (overridesLegacy("checkAndProcessType"))
+            schema = checkAndProcessType(type, schema);
+        else
+            schema = checkAndProcessType(type, schema, context);
         return schema;
     }
 
+    /**
+     * @deprecated overrides keep being called, but should override
+     * {@link #checkAndProcessType(Class, ObjectNode, GenerationContext)} instead
+     */
+    @Deprecated
+    protected <T> ObjectNode checkAndProcessType(Class<T> type, ObjectNode schema) throws TypeException {
+        return checkAndProcessType(type, schema, currentContext());
+    }
+
     /**
      * Checks whether the type is SimpleType (mapped by
-     * {@link SimpleTypeMappings}), Collection or Iterable (for mapping arrays),
-     * Void type (returning null), or custom Class (for mapping objects).
+     * {@link SimpleTypeMappings} or registered to {@link TypeClassifier}), Collection or Iterable (for mapping
+     * arrays), Void type (returning null), raw Optional or AtomicReference (leaving the schema open), or custom
+     * Class (for mapping objects).
      *
      * @param type
      * @param schema
      * @return the full schema represented as an ObjectNode.
      */
-    protected <T> ObjectNode checkAndProcessType(Class<T> type, ObjectNode schema) throws TypeException {
-        String s = SimpleTypeMappings.forClass(type);
+    protected <T> ObjectNode checkAndProcessType(Class<T> type, ObjectNode schema, GenerationContext context) throws TypeException {
+        TypeKind kind = TypeClassifier.kindOf(type);
         // If it is a simple type, then just put the type
-        if (s != null) {
-            schema.put(TAG_TYPE, s);
+        if (kind == TypeKind.SIMPLE) {
+            ObjectNode registeredSchema = TypeClassifier.getFixedSchema(type);
+            if (registeredSchema != null)
+                schema.setAll(registeredSchema);
+            else
+                schema.put(TAG_TYPE, SimpleTypeMappings.forClass(type));
         }
         // If it is a Collection or Iterable the generate the schema as an array
-        else if (Iterable.class.isAssignableFrom(type)
-                || Collection.class.isAssignableFrom(type)) {
-            checkAndProcessCollection(type, schema);
+        else if (kind == TypeKind.COLLECTION || kind == TypeKind.CUSTOM_COLLECTION || kind == TypeKind.ITERABLE) {
+            checkAndProcessCollection(type, schema, context);
         }
         // If it is void then return null
-        else if (type == Void.class || type == void.class) {
+        else if (kind == TypeKind.VOID) {
             schema = null;
         }
         // If it is an Enum than process like enum
-        else if (type.isEnum()) {
+        else if (kind == TypeKind.ENUM) {
             processEnum(type, schema);
         }
+        // A raw Optional or AtomicReference may hold anything
+        else if (kind == TypeKind.WRAPPER) {
+            return schema;
+        }
         // If none of the above possibilities were true, then it is a custom object
-        else {
+        else if (overridesLegacy("processCustomType")) {
             schema = processCustomType(type, schema);
+        } else {
+            schema = processCustomType(type, schema, context);
         }
         return schema;
     }
 
+    /**
+     * @deprecated overrides keep being called, but should override
+     * {@link #processCustomType(Class, ObjectNode, GenerationContext)} instead
+     */
+    @Deprecated
+    protected <T> ObjectNode processCustomType(Class<T> type, ObjectNode schema) throws TypeException {
+        return processCustomType(type, schema, currentContext());
+    }
+
     /**
      * Generates the schema of custom java types
      *
@@ -206,21 +288,32 @@ public abstract class JsonSchemaGenerator {
      * @param schema
      * @return the full schema of custom java types
      */
-    protected <T> ObjectNode processCustomType(Class<T> type, ObjectNode schema) throws TypeException {
+    protected <T> ObjectNode processCustomType(Class<T> type, ObjectNode schema, GenerationContext context) throws TypeException {
+        long startTime = context.typeStarted();
         schema.put(TAG_TYPE, "object");
         // fill root object properties
         processRootAttributes(type, schema);
 
         if (this.processFieldsOnly) {
             // Process fields only
-            processFields(type,schema);
+            if (overridesLegacy("processFields"))
+                processFields(type, schema);
+            else
+                processFields(type, schema, context);
         } else {
             // Generate the schemas of type's properties
-            processProperties(type, schema);
+            if (overridesLegacy("processProperties"))
+                processProperties(type, schema);
+            else
+                processProperties(type, schema, context);
         }
         // Merge the actual type's schema with a parent type's schema (if it exists!)
-        schema = mergeWithParent(type, schema);
+        if (overridesLegacy("mergeWithParent"))
+            schema = mergeWithParent(type, schema);
+        else
+            schema = mergeWithParent(type, schema, context);
 
+        context.typeGenerated(type, startTime, schema.path(TAG_PROPERTIES).size());
         return schema;
     }
 
@@ -230,7 +323,7 @@ public abstract class JsonSchemaGenerator {
      * @param type
      * @param schema
      */
-    private <T> void checkAndProcessCollection(Class<T> type, ObjectNode schema) throws TypeException {
+    private <T> void checkAndProcessCollection(Class<T> type, ObjectNode schema, GenerationContext context) throws TypeException {
         // If the type extends from AbstracctCollection, then it is considered
         // as a simple array type
         if (AbstractCollection.class.isAssignableFrom(type)) {
@@ -241,59 +334,80 @@ public abstract class JsonSchemaGenerator {
             processRootAttributes(type, schema);
             // NOTE: Customized Iterable/Collection Wrapper Class must declare
             // the intended Collection as the first field
-            processCustomCollection(type, schema);
+            processCustomCollection(type, schema, context);
         }
     }
 
-    private <T> void processCustomCollection(Class<T> type, ObjectNode schema) throws TypeException {
+    private <T> void processCustomCollection(Class<T> type, ObjectNode schema, GenerationContext context) throws TypeException {
         schema.put(TAG_TYPE, TAG_ARRAY);
         Field field = type.getDeclaredFields()[0];
         ParameterizedType genericType = (ParameterizedType) field
                 .getGenericType();
         Class<?> genericClass = (Class<?>) genericType.getActualTypeArguments()[0];
-        ObjectNode itemsSchema = generateSchema(genericClass);
+        ObjectNode itemsSchema = generateSchema(genericClass, context);
         itemsSchema.remove("$schema");
         schema.put("items", itemsSchema);
     }
 
     private <T> void processEnum(Class<T> type, ObjectNode schema) {
-        ArrayNode enumArray = schema.putArray("enum");
-        for (T constant : type.getEnumConstants()) {
-            String value = constant.toString();
-            // Check if value is numeric
-            try {
-                // First verifies if it is an integer
-                Long integer = Long.parseLong(value);
-                enumArray.add(integer);
-            }
-            // If not then verifies if it is an floating point number
-            catch (NumberFormatException e) {
-                try {
-                    BigDecimal number = new BigDecimal(value);
-                    enumArray.add(number);
-                }
-                // Otherwise add as String
-                catch (NumberFormatException e1) {
-                    enumArray.add(value);
-                }
-            }
-        }
+        schema.put("enum", EnumModel.of(type).getValues());
     }
 
-    private void processPropertyCollection(Method method, Field field, ObjectNode schema) throws TypeException {
+    /**
+     * Generates the schema of an array, a collection or a map, resolved against the type declaring the property.
+     * Arrays and collections have the schema of their items as {@code items}, maps the schema of their values as
+     * {@code additionalProperties}.
+     */
+    private ObjectNode processPropertyContainer(Type type, String property, GenerationContext context) throws TypeException {
+        ObjectNode schema = createInstance();
+        Class<?> rawType = TypeResolver.rawClass(type);
+        if (Map.class.isAssignableFrom(rawType)) {
+            schema.put(TAG_TYPE, "object");
+            Type valueType = TypeResolver.valueType(type);
+            if (valueType != null)
+                schema.put("additionalProperties", generatePropertyTypeSchema(valueType, property, context));
+            return schema;
+        }
         schema.put(TAG_TYPE, TAG_ARRAY);
-        Class<?> genericClass = null;
-        if (method != null) {
-            Type methodType = method.getGenericReturnType();
-            if (!ParameterizedType.class.isAssignableFrom(methodType.getClass())) {
-                throw new TypeException("Collection property must be parameterized: " + method.getName());
-            }
-            ParameterizedType genericType = (ParameterizedType)methodType;
-            genericClass = (Class<?>) genericType.getActualTypeArguments()[0];
-        } else {
-            genericClass = field.getClass();
+        Type itemsType = TypeResolver.itemsType(type);
+        if (itemsType == null)
+            throw new TypeException("Collection property must be parameterized: " + property);
+        schema.put("items", generatePropertyTypeSchema(itemsType, property, context));
+        return schema;
+    }
+
+    private ObjectNode generatePropertyTypeSchema(Type type, String property, GenerationContext context) throws TypeException {
+        type = unwrap(type);
+        if (isContainer(TypeResolver.rawClass(type)))
+            return processPropertyContainer(type, property, context);
+        return generateSchema(TypeResolver.rawClass(type), context);
+    }
+
+    /**
+     * @return the type held by an Optional or AtomicReference, however deeply wrapped, or the type itself
+     */
+    private static Type unwrap(Type type) {
+        while (TypeClassifier.kindOf(TypeResolver.rawClass(type)) == TypeKind.WRAPPER) {
+            Type wrappedType = TypeClassifier.wrappedType(type);
+            if (wrappedType == null)
+                break;
+            type = wrappedType;
         }
-        schema.put("items", generateSchema(genericClass));
+        return type;
+    }
+
+    private static boolean isContainer(Class<?> type) {
+        TypeKind kind = TypeClassifier.kindOf(type);
+        return kind == TypeKind.ARRAY || kind == TypeKind.COLLECTION || kind == TypeKind.CUSTOM_COLLECTION
+                || kind == TypeKind.MAP;
+    }
+
+    /**
+     * @return the class of the items of a resolved collection type, or null if it is raw
+     */
+    private static Class<?> itemsClass(Type collectionType) {
+        Type itemsType = TypeResolver.itemsType(collectionType);
+        return itemsType == null ? null : TypeResolver.rawClass(itemsType);
     }
 
     protected <T> void processRootAttributes(Class<T> type, ObjectNode schema) {
@@ -302,88 +416,115 @@ public abstract class JsonSchemaGenerator {
             processSchemaProperty(schema, sProp);
     }
 
-    protected <T> void processProperties(Class<T> type, ObjectNode schema) throws TypeException {
+    protected <T> void processProperties(Class<T> type, ObjectNode schema, GenerationContext context) throws TypeException {
         HashMap<Method, Field> props = findProperties(type);
         for (Map.Entry<Method, Field> entry : props.entrySet()) {
             Field field = entry.getValue();
             Method method = entry.getKey();
-            ObjectNode prop = generatePropertySchema(type, method, field);
+            ObjectNode prop = overridesLegacy("generatePropertySchema")
+                    ? generatePropertySchema(type, method, field)
+                    : generatePropertySchema(type, method, field, context);
             if (prop != null && field != null) {
                 addPropertyToSchema(schema, field, method, prop);
             }
         }
     }
+
+    /**
+     * @deprecated overrides keep being called, but should override
+     * {@link #processProperties(Class, ObjectNode, GenerationContext)} instead
+     */
+    @Deprecated
+    protected <T> void processProperties(Class<T> type, ObjectNode schema) throws TypeException {
+        processProperties(type, schema, currentContext());
+    }
     
-    protected <T> void processFields(Class<T> type, ObjectNode schema) throws TypeException {
+    protected <T> void processFields(Class<T> type, ObjectNode schema, GenerationContext context) throws TypeException {
         List<Field> props = findFields(type);
         
         for (Field field : props) {
-            ObjectNode prop = generatePropertySchema(type, null, field);
+            ObjectNode prop = overridesLegacy("generatePropertySchema")
+                    ? generatePropertySchema(type, null, field)
+                    : generatePropertySchema(type, null, field, context);
             if (prop != null && field != null) {
                 addPropertyToSchema(schema, field, null, prop);
             }
         }
     }
 
+    /**
+     * @deprecated overrides keep being called, but should override
+     * {@link #processFields(Class, ObjectNode, GenerationContext)} instead
+     */
+    @Deprecated
+    protected <T> void processFields(Class<T> type, ObjectNode schema) throws TypeException {
+        processFields(type, schema, currentContext());
+    }
+
+    /**
+     * @deprecated overrides keep being called, but should override
+     * {@link #generatePropertySchema(Class, Method, Field, GenerationContext)} instead
+     */
+    @Deprecated
     protected <T> ObjectNode generatePropertySchema(Class<T> type, Method method, Field field) throws TypeException {
-        Class<?> returnType = method != null ? method.getReturnType() : field.getType();
+        return generatePropertySchema(type, method, field, currentContext());
+    }
+
+    protected <T> ObjectNode generatePropertySchema(Class<T> type, Method method, Field field, GenerationContext context) throws TypeException {
+        Type genericType = unwrap(TypeResolver.resolve(type,
+                method != null ? method.getGenericReturnType() : field.getGenericType()));
+        Class<?> returnType = TypeResolver.rawClass(genericType);
         
         AccessibleObject propertyReflection = field != null ? field : method;
+        MemberAnnotations annotations = MemberAnnotations.of(propertyReflection);
 
-        SchemaIgnore ignoreAnn = propertyReflection.getAnnotation(SchemaIgnore.class);
-        if (ignoreAnn != null)
+        if (annotations.isIgnored())
             return null;
 
         ObjectNode schema = createInstance();
 
-        JsonManagedReference refAnn = propertyReflection.getAnnotation(JsonManagedReference.class);
+        JsonManagedReference refAnn = annotations.getManagedReference();
         if (refAnn != null) {
             ManagedReference fowardReference;
             Class<?> genericClass;
             Class<?> collectionClass;
             if (Collection.class.isAssignableFrom(returnType)) {
-                if (method != null) {
-                    ParameterizedType genericType = (ParameterizedType) method.getGenericReturnType();
-                    genericClass = (Class<?>) genericType.getActualTypeArguments()[0];
-                } else {
-                    genericClass = field.getClass();
-                }
+                genericClass = itemsClass(genericType);
                 collectionClass = returnType;
             } else {
                 genericClass = returnType;
             }
             fowardReference = new ManagedReference(type, refAnn.value(), genericClass);
 
-            if (!isFowardReferencePiled(fowardReference)) {
-                pushFowardReference(fowardReference);
+            if (!context.isFowardReferencePiled(fowardReference)) {
+                context.pushFowardReference(fowardReference);
             } else
 //        	if (isBackwardReferencePiled(fowardReference)) 
             {
-                boolean a = pullFowardReference(fowardReference);
-                boolean b = pullBackwardReference(fowardReference);
+                context.pullFowardReference(fowardReference);
+                context.pullBackwardReference(fowardReference);
+                context.referenceCycle(genericClass);
                 //return null;
                 return createRefSchema("#");
             }
         }
 
-        JsonBackReference backRefAnn = propertyReflection.getAnnotation(JsonBackReference.class);
+        JsonBackReference backRefAnn = annotations.getBackReference();
         if (backRefAnn != null) {
             ManagedReference backReference;
             Class<?> genericClass;
             Class<?> collectionClass;
             if (Collection.class.isAssignableFrom(returnType)) {
-                ParameterizedType genericType = (ParameterizedType) method
-                        .getGenericReturnType();
-                genericClass = (Class<?>) genericType.getActualTypeArguments()[0];
+                genericClass = itemsClass(genericType);
                 collectionClass = returnType;
             } else {
                 genericClass = returnType;
             }
             backReference = new ManagedReference(genericClass, backRefAnn.value(), type);
 
-            if (isFowardReferencePiled(backReference) &&
-                    !isBackwardReferencePiled(backReference)) {
-                pushBackwardReference(backReference);
+            if (context.isFowardReferencePiled(backReference) &&
+                    !context.isBackwardReferencePiled(backReference)) {
+                context.pushBackwardReference(backReference);
             } else {
 //        		pullFowardReference(backReference);
 //        		pullBackwardReference(backReference);
@@ -392,28 +533,29 @@ public abstract class JsonSchemaGenerator {
         }
 
 
-        if (Collection.class.isAssignableFrom(returnType)) {
-            processPropertyCollection(method, field, schema);
+        if (isContainer(returnType)) {
+            schema = processPropertyContainer(genericType, method != null ? method.getName() : field.getName(), context);
         } else {
-            schema = generateSchema(returnType);
+            schema = generateSchema(returnType, context);
         }
 
         // Check the field annotations, if the get method references a field, or the
         // method annotations on the other hand, and processSchemaProperty them to
         // the JsonSchema object
-        Attributes attrs = propertyReflection.getAnnotation(Attributes.class);
+        Attributes attrs = annotations.getAttributes();
         if (attrs != null) {
             processSchemaProperty(schema, attrs);
             // The declaration of $schema is only necessary at the root object
             schema.remove("$schema");
         }
+        if (!translators.isEmpty())
+            annotations.translate(translators, schema);
 
         // Check if the Nullable annotation is present, and if so, add 'null' to type attr
-        Nullable nullable = propertyReflection.getAnnotation(Nullable.class);
-        if (nullable != null) {
+        if (annotations.isNullable()) {
             if (returnType.isEnum()) {
                 ((ArrayNode) schema.get("enum")).add("null");
-            } else {
+            } else if (schema.has(TAG_TYPE)) {
                 String oldType = schema.get(TAG_TYPE).asText();
                 ArrayNode typeArray = schema.putArray(TAG_TYPE);
                 typeArray.add(oldType);
@@ -458,15 +600,24 @@ public abstract class JsonSchemaGenerator {
      * @param schema
      * @return The actual schema merged with its parent schema (if it exists)
      */
-    protected <T> ObjectNode mergeWithParent(Class<T> type, ObjectNode schema) throws TypeException {
+    protected <T> ObjectNode mergeWithParent(Class<T> type, ObjectNode schema, GenerationContext context) throws TypeException {
         Class<? super T> superclass = type.getSuperclass();
         if (superclass != null && superclass != Object.class) {
-            ObjectNode parentSchema = generateSchema(superclass);
+            ObjectNode parentSchema = generateSchema(superclass, context);
             schema = mergeSchema(parentSchema, schema, false);
         }
         return schema;
     }
 
+    /**
+     * @deprecated overrides keep being called, but should override
+     * {@link #mergeWithParent(Class, ObjectNode, GenerationContext)} instead
+     */
+    @Deprecated
+    protected <T> ObjectNode mergeWithParent(Class<T> type, ObjectNode schema) throws TypeException {
+        return mergeWithParent(type, schema, currentContext());
+    }
+
     /**
      * Merges two schemas.
      *
@@ -532,60 +683,24 @@ public abstract class JsonSchemaGenerator {
      * @return
      */
     private <T> HashMap<Method, Field> findProperties(Class<T> type) {
-        Field[] fields = type.getDeclaredFields();
-        Method[] methods = type.getMethods();
-        if (this.sortProperties) {
-            // Ordering the properties
-            Arrays.sort(methods, new Comparator<Method>() {
-                public int compare(Method m1, Method m2) {
-                    return m1.getName().compareTo(m2.getName());
-                }
-            });
-        }
+        ClassModel model = ClassModel.of(type);
+        List<Method> methods = this.sortProperties ? model.getSortedGetters() : model.getGetters();
 
         LinkedHashMap<Method, Field> props = new LinkedHashMap<Method, Field>();
         // get valid properties (get method and respective field (if exists))
         for (Method method : methods) {
-            Class<?> declaringClass = method.getDeclaringClass();
-            if (declaringClass.equals(Object.class)
-                    || Collection.class.isAssignableFrom(declaringClass)) {
-                continue;
-            }
-
-            if (isGetter(method)) {
-                boolean hasField = false;
-                for (Field field : fields) {
-                    String name = getNameFromGetter(method);
-                    Attributes attribs = field.getAnnotation(Attributes.class);
-                    boolean process = true;
-                    if (this.processAnnotatedOnly && attribs == null) {
-                        process = false;
-                    }
-                            
-                    if (process && field.getName().equalsIgnoreCase(name)) {
-                        props.put(method, field);
-                        hasField = true;
-                        break;
-                    }
-                }
-                if (!hasField) {
-                    props.put(method, null);
-                }
+            Field field = model.findField(getNameFromGetter(method));
+            if (field != null && this.processAnnotatedOnly && MemberAnnotations.of(field).getAttributes() == null) {
+                field = null;
             }
+            props.put(method, field);
         }
         return props;
     }
     
     private <T> List<Field> findFields(Class<T> type) {
-        Field[] fields = type.getDeclaredFields();
-        if (this.sortProperties) {
-            // Order the fields
-            Arrays.sort(fields, new Comparator<Field>() {
-                public int compare(Field m1, Field m2) {
-                    return m1.getName().compareTo(m2.getName());
-                }
-            });
-        }
+        ClassModel model = ClassModel.of(type);
+        List<Field> fields = this.sortProperties ? model.getSortedDeclaredFields() : model.getDeclaredFields();
         List<Field> props = new ArrayList<Field>();
         // get fields
         for (Field field : fields) {
@@ -595,13 +710,10 @@ public abstract class JsonSchemaGenerator {
                 continue;
             }
 
-            String name = field.getName();
-            if (field.getName().equalsIgnoreCase(name)) {
-                Attributes attrs = field.getAnnotation(Attributes.class);
-                // Only process annotated fields if processAnnotatedOnly set
-                if (attrs != null || !this.processAnnotatedOnly) {
-                    props.add(field);
-                }
+            Attributes attrs = MemberAnnotations.of(field).getAttributes();
+            // Only process annotated fields if processAnnotatedOnly set
+            if (attrs != null || !this.processAnnotatedOnly) {
+                props.add(field);
             }
         }
         return props;
@@ -612,10 +724,6 @@ public abstract class JsonSchemaGenerator {
                 + (string.length() > 1 ? string.substring(1) : "");
     }
 
-    private boolean isGetter(final Method method) {
-        return method.getName().startsWith("get") || method.getName().startsWith("is");
-    }
-
     private String getNameFromGetter(final Method getter) {
         String[] getterPrefixes = {"get", "is"};
         String methodName = getter.getName();
@@ -626,7 +734,7 @@ public abstract class JsonSchemaGenerator {
             }
         }
 
-        if (fieldName == null) {
+        if (fieldName == null || fieldName.isEmpty()) {
             return null;
         }
 
@@ -18,6 +18,7 @@
 
 package com.github.reinert.jjschema;
 
+import com.github.reinert.jjschema.metrics.GenerationListener;
 
 /**
  * A SchemaGenerator builder for creating SchemaGenerators considering some options.
@@ -63,6 +64,24 @@ public class SchemaGeneratorBuilder {
             return this;
         }
         
+        public ConfigurationStep setListener(GenerationListener listener) {
+            generator.listener = listener;
+            return this;
+        }
+
+        /**
+         * Registers a translator of a custom property annotation, run after those already registered.
+         */
+        public ConfigurationStep addAnnotationTranslator(AnnotationTranslator<?> translator) {
+            if (translator == null)
+                throw new NullPointerException("translator");
+            generator.translators.add(translator);
+            // A hyper-schema generator has the schemas of its types generated by the generator it wraps
+            if (generator instanceof HyperSchemaGeneratorV4)
+                ((HyperSchemaGeneratorV4) generator).jsonSchemaGenerator.translators.add(translator);
+            return this;
+        }
+
         public final JsonSchemaGenerator build() {
             return generator;
         }
@@ -82,9 +82,10 @@ public enum SimpleTypeMappings {
      * @return the primitive type if found, {@code null} otherwise
      */
     public static String forClass(final Class<?> c) {
-        if (AbstractCollection.class.isAssignableFrom(c))
+        String schemaType = MAPPINGS.get(c);
+        if (schemaType == null && AbstractCollection.class.isAssignableFrom(c))
             return "array";
-        return MAPPINGS.get(c);
+        return schemaType;
     }
 
     /**
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.introspection;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The reflective model of a Java type, as needed for generating its schema.
+ * <p>
+ * A model is built only once per class and is kept in a {@link ClassValue}, so it is shared by every generator
+ * and goes away together with its class. Models are immutable and safe to use from many threads.
+ *
+ * @author Danilo Reinert
+ */
+
+public final class ClassModel {
+
+    private static final ClassValue<ClassModel> MODELS = new ClassValue<ClassModel>() {
+        @Override
+        protected ClassModel computeValue(Class<?> type) {
+            return new ClassModel(type);
+        }
+    };
+
+    private static final String[] NO_ENUMS = new String[0];
+    private static final String ENUM_SUFFIX = "Enum";
+
+    private final Class<?> type;
+    private final List<Field> declaredFields;
+    private final List<Field> sortedDeclaredFields;
+    private final Map<String, Field> fieldsByName;
+    private final List<Method> getters;
+    private final List<Method> sortedGetters;
+    private final Set<Method> gettersWithSetter;
+    private final Map<String, String[]> enumsByFieldName;
+    private final Map<AccessibleObject, MemberAnnotations> annotations;
+
+    public static ClassModel of(Class<?> type) {
+        return MODELS.get(type);
+    }
+
+    private ClassModel(Class<?> type) {
+        this.type = type;
+
+        Field[] fields = type.getDeclaredFields();
+        this.declaredFields = Collections.unmodifiableList(Arrays.asList(fields.clone()));
+        Arrays.sort(fields, new Comparator<Field>() {
+            public int compare(Field f1, Field f2) {
+                return f1.getName().compareTo(f2.getName());
+            }
+        });
+        this.sortedDeclaredFields = Collections.unmodifiableList(Arrays.asList(fields));
+
+        // The first declared field wins when names differ only by case
+        Map<String, Field> byName = new HashMap<String, Field>();
+        for (Field field : declaredFields) {
+            String key = toKey(field.getName());
+            if (!byName.containsKey(key))
+                byName.put(key, field);
+        }
+        this.fieldsByName = byName;
+
+        Method[] methods = type.getMethods();
+        Set<String> methodNames = new HashSet<String>();
+        List<Method> getterList = new ArrayList<Method>();
+        for (Method method : methods) {
+            methodNames.add(toKey(method.getName()));
+            Class<?> declaringClass = method.getDeclaringClass();
+            if (declaringClass.equals(Object.class)
+                    || Collection.class.isAssignableFrom(declaringClass)) {
+                continue;
+            }
+            if (isGetter(method))
+                getterList.add(method);
+        }
+        this.getters = Collections.unmodifiableList(getterList);
+
+        Method[] sorted = getterList.toArray(new Method[getterList.size()]);
+        Arrays.sort(sorted, new Comparator<Method>() {
+            public int compare(Method m1, Method m2) {
+                return m1.getName().compareTo(m2.getName());
+            }
+        });
+        this.sortedGetters = Collections.unmodifiableList(Arrays.asList(sorted));
+
+        Set<Method> withSetter = new HashSet<Method>();
+        for (Method getter : getterList) {
+            if (methodNames.contains(toKey(getter.getName().replaceFirst("get", "set"))))
+                withSetter.add(getter);
+        }
+        this.gettersWithSetter = withSetter;
+
+        this.enumsByFieldName = collectEnums(type);
+
+        Map<AccessibleObject, MemberAnnotations> annotations = new HashMap<AccessibleObject, MemberAnnotations>();
+        for (Field field : declaredFields) {
+            annotations.put(field, new MemberAnnotations(field));
+        }
+        for (Method getter : getterList) {
+            if (getter.getDeclaringClass() == type)
+                annotations.put(getter, new MemberAnnotations(getter));
+        }
+        this.annotations = annotations;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * @return the declared fields, in declaration order
+     */
+    public List<Field> getDeclaredFields() {
+        return declaredFields;
+    }
+
+    /**
+     * @return the declared fields, ordered by name
+     */
+    public List<Field> getSortedDeclaredFields() {
+        return sortedDeclaredFields;
+    }
+
+    /**
+     * Finds a declared field by name, ignoring case.
+     *
+     * @param name the field name
+     * @return the field, or null if there is no such field
+     */
+    public Field findField(String name) {
+        return name == null ? null : fieldsByName.get(toKey(name));
+    }
+
+    /**
+     * @return the public getter methods not declared by Object nor by a Collection, in reflection order
+     */
+    public List<Method> getGetters() {
+        return getters;
+    }
+
+    /**
+     * @return the public getter methods not declared by Object nor by a Collection, ordered by name
+     */
+    public List<Method> getSortedGetters() {
+        return sortedGetters;
+    }
+
+    /**
+     * Checks whether a getter has a matching public set method.
+     *
+     * @param getter a getter of this type
+     * @return true if a set method exists
+     */
+    public boolean hasSetter(Method getter) {
+        return gettersWithSetter.contains(getter);
+    }
+
+    /**
+     * Returns the constants declared by the nested {@code <fieldName>Enum} class, if it exists.
+     *
+     * @param fieldName the name of the field
+     * @return the constant values, or an empty array
+     */
+    public String[] getEnums(String fieldName) {
+        String[] enums = enumsByFieldName.get(fieldName);
+        return enums == null ? NO_ENUMS : enums.clone();
+    }
+
+    /**
+     * @param member a member declared by this type
+     * @return the annotations of the member if it is a declared field or a getter, null otherwise
+     */
+    MemberAnnotations getAnnotations(AccessibleObject member) {
+        return annotations.get(member);
+    }
+
+    /**
+     * Collects the constants of the nested {@code <fieldName>Enum} holder classes: their static String fields.
+     * Java enums named alike are no holders, and are left to {@link EnumModel}.
+     */
+    private static Map<String, String[]> collectEnums(Class<?> type) {
+        Map<String, String[]> enums = null;
+        for (Class<?> nested : type.getDeclaredClasses()) {
+            String name = nested.getName();
+            name = name.substring(name.lastIndexOf('$') + 1);
+            if (!name.endsWith(ENUM_SUFFIX) || nested.isEnum())
+                continue;
+            List<String> values = new ArrayList<String>();
+            for (Field field : nested.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) || field.getType() != String.class)
+                    continue;
+                String value = constantOf(field);
+                if (value != null)
+                    values.add(value);
+            }
+            if (values.isEmpty())
+                continue;
+            if (enums == null)
+                enums = new HashMap<String, String[]>();
+            enums.put(name.substring(0, name.length() - ENUM_SUFFIX.length()), values.toArray(new String[values.size()]));
+        }
+        return enums == null ? Collections.<String, String[]>emptyMap() : enums;
+    }
+
+    /**
+     * @return the value of a static String field, or null if it is null or cannot be read
+     */
+    private static String constantOf(Field field) {
+        try {
+            if (!field.isAccessible())
+                field.setAccessible(true);
+            return (String) field.get(null);
+        } catch (IllegalAccessException e) {
+            return null;
+        } catch (RuntimeException e) {
+            // Fields of classes the module system or a security manager keeps closed
+            return null;
+        }
+    }
+
+    private static boolean isGetter(final Method method) {
+        return method.getName().startsWith("get") || method.getName().startsWith("is");
+    }
+
+    private static String toKey(String name) {
+        return name.toLowerCase(Locale.ENGLISH);
+    }
+}
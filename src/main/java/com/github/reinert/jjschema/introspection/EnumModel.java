@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.introspection;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+import java.math.BigDecimal;
+
+/**
+ * The values of the constants of an enum type, as they appear in its schema.
+ * <p>
+ * Constants reading as a {@code long} are integers, those reading as a decimal number are numbers and the others
+ * are strings. They are classified by scanning their text, so that no exception is thrown even for enums of many
+ * string constants. As with {@link ClassModel}, a model is built only once per class and kept in a
+ * {@link ClassValue}.
+ *
+ * @author Danilo Reinert
+ */
+
+public final class EnumModel {
+
+    public static final String INTEGER = "integer";
+    public static final String NUMBER = "number";
+    public static final String STRING = "string";
+
+    private static final ClassValue<EnumModel> MODELS = new ClassValue<EnumModel>() {
+        @Override
+        protected EnumModel computeValue(Class<?> type) {
+            return new EnumModel(type);
+        }
+    };
+
+    private static final String LONG_MAX_DIGITS = String.valueOf(Long.MAX_VALUE);
+    private static final String LONG_MIN_DIGITS = String.valueOf(Long.MIN_VALUE).substring(1);
+    private static final int MAX_EXPONENT_DIGITS = 10;
+
+    private final ArrayNode values;
+    private final String type;
+
+    /**
+     * @param type an enum type
+     */
+    public static EnumModel of(Class<?> type) {
+        if (!type.isEnum())
+            throw new IllegalArgumentException("Not an enum: " + type.getName());
+        return MODELS.get(type);
+    }
+
+    private EnumModel(Class<?> type) {
+        ArrayNode values = JsonNodeFactory.instance.arrayNode();
+        String lastType = null;
+        for (Object constant : type.getEnumConstants()) {
+            String value = constant.toString();
+            lastType = classify(value);
+            if (INTEGER.equals(lastType))
+                values.add(Long.parseLong(value));
+            else if (NUMBER.equals(lastType))
+                values.add(new BigDecimal(value));
+            else
+                values.add(value);
+        }
+        this.values = values;
+        this.type = lastType;
+    }
+
+    /**
+     * @return a copy of the values of the constants, in declaration order, sharing their value nodes
+     */
+    public ArrayNode getValues() {
+        return values.deepCopy();
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * @return the JSON type of the last constant, which is the type given to the whole enum, or null if the enum
+     * has no constants
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Classifies a value as {@link Long#parseLong(String)} and {@link BigDecimal#BigDecimal(String)} would accept
+     * it, without parsing it.
+     *
+     * @return {@link #INTEGER}, {@link #NUMBER} or {@link #STRING}
+     */
+    static String classify(String value) {
+        int length = value.length();
+        int i = 0;
+        boolean negative = false;
+        if (i < length && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+            negative = value.charAt(i) == '-';
+            i++;
+        }
+        int significandStart = i;
+        int digits = 0;
+        while (i < length && isDigit(value.charAt(i))) {
+            i++;
+            digits++;
+        }
+        if (i == length)
+            return digits == 0 ? STRING : fitsLong(value, significandStart, negative) ? INTEGER : NUMBER;
+
+        int fractionDigits = 0;
+        if (value.charAt(i) == '.') {
+            i++;
+            while (i < length && isDigit(value.charAt(i))) {
+                i++;
+                fractionDigits++;
+            }
+        }
+        if (digits + fractionDigits == 0)
+            return STRING;
+        if (i == length)
+            return NUMBER;
+
+        if (value.charAt(i) != 'e' && value.charAt(i) != 'E')
+            return STRING;
+        i++;
+        boolean negativeExponent = false;
+        if (i < length && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+            negativeExponent = value.charAt(i) == '-';
+            i++;
+        }
+        while (i < length - 1 && Character.digit(value.charAt(i), 10) == 0)
+            i++;
+        int exponentDigits = 0;
+        long exponent = 0;
+        while (i < length && isDigit(value.charAt(i)) && exponentDigits <= MAX_EXPONENT_DIGITS) {
+            exponent = exponent * 10 + Character.digit(value.charAt(i), 10);
+            i++;
+            exponentDigits++;
+        }
+        if (i != length || exponentDigits == 0 || exponentDigits > MAX_EXPONENT_DIGITS)
+            return STRING;
+        // Both the exponent and the resulting scale must fit an int
+        if (negativeExponent)
+            exponent = -exponent;
+        long scale = fractionDigits - exponent;
+        return fitsInt(exponent) && fitsInt(scale) ? NUMBER : STRING;
+    }
+
+    private static boolean fitsInt(long value) {
+        return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+    }
+
+    private static boolean isDigit(char c) {
+        return Character.digit(c, 10) >= 0;
+    }
+
+    private static boolean fitsLong(String value, int start, boolean negative) {
+        int i = start;
+        while (i < value.length() - 1 && Character.digit(value.charAt(i), 10) == 0)
+            i++;
+        String limit = negative ? LONG_MIN_DIGITS : LONG_MAX_DIGITS;
+        int digits = value.length() - i;
+        if (digits != limit.length())
+            return digits < limit.length();
+        for (int j = 0; j < digits; j++) {
+            int digit = Character.digit(value.charAt(i + j), 10);
+            int limitDigit = limit.charAt(j) - '0';
+            if (digit != limitDigit)
+                return digit < limitDigit;
+        }
+        return true;
+    }
+}
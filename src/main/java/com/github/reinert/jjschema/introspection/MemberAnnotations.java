@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.introspection;
+
+import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.reinert.jjschema.AnnotationTranslator;
+import com.github.reinert.jjschema.Attributes;
+import com.github.reinert.jjschema.Nullable;
+import com.github.reinert.jjschema.SchemaIgnore;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Member;
+import java.util.List;
+
+/**
+ * The annotations of a field or a method, read in a single {@link AccessibleObject#getAnnotations()} pass.
+ * <p>
+ * The annotations known to the generators are kept apart, and any other annotation is found by a scan of the
+ * member's annotations, with no further reflective lookup, e.g. by {@link AnnotationTranslator}s. The records of
+ * the declared fields and of the getters of a class are built together with its {@link ClassModel}.
+ *
+ * @author Danilo Reinert
+ */
+
+public final class MemberAnnotations {
+
+    private final Annotation[] annotations;
+    private final Attributes attributes;
+    private final boolean nullable;
+    private final boolean ignored;
+    private final JsonManagedReference managedReference;
+    private final JsonBackReference backReference;
+
+    /**
+     * @param member a field or a method
+     * @return the record of the member, shared if the member is a declared field or a getter of its class
+     */
+    public static MemberAnnotations of(AccessibleObject member) {
+        Class<?> declaringClass = ((Member) member).getDeclaringClass();
+        MemberAnnotations annotations = ClassModel.of(declaringClass).getAnnotations(member);
+        return annotations != null ? annotations : new MemberAnnotations(member);
+    }
+
+    MemberAnnotations(AccessibleObject member) {
+        this.annotations = member.getAnnotations();
+        Attributes attributes = null;
+        boolean nullable = false;
+        boolean ignored = false;
+        JsonManagedReference managedReference = null;
+        JsonBackReference backReference = null;
+        for (Annotation annotation : annotations) {
+            Class<? extends Annotation> type = annotation.annotationType();
+            if (type == Attributes.class)
+                attributes = (Attributes) annotation;
+            else if (type == Nullable.class)
+                nullable = true;
+            else if (type == SchemaIgnore.class)
+                ignored = true;
+            else if (type == JsonManagedReference.class)
+                managedReference = (JsonManagedReference) annotation;
+            else if (type == JsonBackReference.class)
+                backReference = (JsonBackReference) annotation;
+        }
+        this.attributes = attributes;
+        this.nullable = nullable;
+        this.ignored = ignored;
+        this.managedReference = managedReference;
+        this.backReference = backReference;
+    }
+
+    /**
+     * @return the {@link Attributes} of the member, or null
+     */
+    public Attributes getAttributes() {
+        return attributes;
+    }
+
+    public boolean isNullable() {
+        return nullable;
+    }
+
+    public boolean isIgnored() {
+        return ignored;
+    }
+
+    public JsonManagedReference getManagedReference() {
+        return managedReference;
+    }
+
+    public JsonBackReference getBackReference() {
+        return backReference;
+    }
+
+    /**
+     * @return the annotation of the given type, or null if the member has none
+     */
+    public <A extends Annotation> A get(Class<A> annotationType) {
+        for (Annotation annotation : annotations) {
+            if (annotation.annotationType() == annotationType)
+                return annotationType.cast(annotation);
+        }
+        return null;
+    }
+
+    /**
+     * Runs the translators whose annotation the member has.
+     *
+     * @param translators the translators, in the order they run
+     * @param schema the schema of the member
+     */
+    public void translate(List<AnnotationTranslator<?>> translators, ObjectNode schema) {
+        for (AnnotationTranslator<?> translator : translators) {
+            translate(translator, schema);
+        }
+    }
+
+    private <A extends Annotation> void translate(AnnotationTranslator<A> translator, ObjectNode schema) {
+        A annotation = get(translator.getAnnotationType());
+        if (annotation != null)
+            translator.translate(annotation, schema);
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.introspection;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * How Jackson tells apart the subtypes of a class: the subtypes it lists with {@link JsonSubTypes}, and the
+ * property holding the type id, if the nearest {@link JsonTypeInfo} of its hierarchy includes the id as a
+ * property.
+ * <p>
+ * Subtypes are followed through the {@link JsonSubTypes} of the listed subtypes, keeping the concrete ones only.
+ * A concrete class listing subtypes is among them, first. As with {@link ClassModel}, a model is built only once
+ * per class and kept in a {@link ClassValue}.
+ *
+ * @author Danilo Reinert
+ */
+
+public final class PolymorphicModel {
+
+    private static final ClassValue<PolymorphicModel> MODELS = new ClassValue<PolymorphicModel>() {
+        @Override
+        protected PolymorphicModel computeValue(Class<?> type) {
+            return new PolymorphicModel(type);
+        }
+    };
+
+    private final List<Class<?>> subtypes;
+    private final String typeProperty;
+    private final String typeId;
+
+    public static PolymorphicModel of(Class<?> type) {
+        return MODELS.get(type);
+    }
+
+    private PolymorphicModel(Class<?> type) {
+        Set<Class<?>> subtypes = new LinkedHashSet<Class<?>>();
+        if (type.isAnnotationPresent(JsonSubTypes.class))
+            collectSubtypes(type, subtypes);
+        this.subtypes = subtypes.size() > 1 || (subtypes.size() == 1 && !subtypes.contains(type))
+                ? Collections.unmodifiableList(new ArrayList<Class<?>>(subtypes))
+                : Collections.<Class<?>>emptyList();
+
+        Class<?> base = findTypeInfo(type);
+        JsonTypeInfo typeInfo = base == null ? null : base.getAnnotation(JsonTypeInfo.class);
+        if (typeInfo != null && typeInfo.include() == JsonTypeInfo.As.PROPERTY
+                && typeInfo.use() != JsonTypeInfo.Id.NONE && typeInfo.use() != JsonTypeInfo.Id.CUSTOM) {
+            this.typeProperty = typeInfo.property().isEmpty() ? typeInfo.use().getDefaultPropertyName()
+                    : typeInfo.property();
+            this.typeId = isConcrete(type) ? typeIdOf(type, base, typeInfo.use()) : null;
+        } else {
+            this.typeProperty = null;
+            this.typeId = null;
+        }
+    }
+
+    /**
+     * @return whether the class lists subtypes other than itself
+     */
+    public boolean isPolymorphic() {
+        return !subtypes.isEmpty();
+    }
+
+    /**
+     * @return the concrete subtypes, the class itself included if it is concrete, or an empty list if the class
+     * is not polymorphic
+     */
+    public List<Class<?>> getSubtypes() {
+        return subtypes;
+    }
+
+    /**
+     * @return the name of the property holding the type id, or null if the id is not written as a property
+     */
+    public String getTypeProperty() {
+        return typeProperty;
+    }
+
+    /**
+     * @return the type id of the class, or null if it has no property holding it or it is abstract
+     */
+    public String getTypeId() {
+        return typeId;
+    }
+
+    private static void collectSubtypes(Class<?> type, Set<Class<?>> subtypes) {
+        if (isConcrete(type))
+            subtypes.add(type);
+        JsonSubTypes annotation = type.getAnnotation(JsonSubTypes.class);
+        if (annotation == null)
+            return;
+        for (JsonSubTypes.Type subtype : annotation.value()) {
+            if (subtype.value() != type && !subtypes.contains(subtype.value()))
+                collectSubtypes(subtype.value(), subtypes);
+        }
+    }
+
+    private static boolean isConcrete(Class<?> type) {
+        return !type.isInterface() && !Modifier.isAbstract(type.getModifiers());
+    }
+
+    /**
+     * @return the nearest class of the hierarchy annotated with {@link JsonTypeInfo}, superclasses first, or null
+     */
+    private static Class<?> findTypeInfo(Class<?> type) {
+        if (type == null || type == Object.class)
+            return null;
+        if (type.isAnnotationPresent(JsonTypeInfo.class))
+            return type;
+        Class<?> base = findTypeInfo(type.getSuperclass());
+        for (int i = 0; base == null && i < type.getInterfaces().length; i++) {
+            base = findTypeInfo(type.getInterfaces()[i]);
+        }
+        return base;
+    }
+
+    /**
+     * Mirrors the type id resolvers of Jackson.
+     */
+    private static String typeIdOf(Class<?> type, Class<?> base, JsonTypeInfo.Id use) {
+        String name = type.getName();
+        if (use == JsonTypeInfo.Id.CLASS)
+            return name;
+        if (use == JsonTypeInfo.Id.MINIMAL_CLASS) {
+            String basePackage = base.getName().substring(0, base.getName().lastIndexOf('.') + 1);
+            return !basePackage.isEmpty() && name.startsWith(basePackage) ? name.substring(basePackage.length() - 1)
+                    : name;
+        }
+        String listedName = findListedName(type, type);
+        if (listedName != null)
+            return listedName;
+        JsonTypeName typeName = type.getAnnotation(JsonTypeName.class);
+        if (typeName != null && !typeName.value().isEmpty())
+            return typeName.value();
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * @return the name given to a type where a class of its hierarchy lists it as a subtype, or null if none does
+     */
+    private static String findListedName(Class<?> type, Class<?> current) {
+        if (current == null || current == Object.class)
+            return null;
+        JsonSubTypes annotation = current.getAnnotation(JsonSubTypes.class);
+        if (annotation != null) {
+            for (JsonSubTypes.Type subtype : annotation.value()) {
+                if (subtype.value() == type && !subtype.name().isEmpty())
+                    return subtype.name();
+            }
+        }
+        String name = findListedName(type, current.getSuperclass());
+        for (int i = 0; name == null && i < current.getInterfaces().length; i++) {
+            name = findListedName(type, current.getInterfaces()[i]);
+        }
+        return name;
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.introspection;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.reinert.jjschema.SimpleTypeMappings;
+
+import java.lang.reflect.Type;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Computes the {@link TypeKind} of each class once and keeps it in a {@link ClassValue}, so that generators
+ * dispatch on it instead of checking assignability on every visit.
+ * <p>
+ * Common JDK value types, such as dates, times, URIs, locales and atomic numbers, have a builtin schema, a string
+ * with a {@code format} when there is a fitting one, instead of being described by their getters. They are known
+ * by name, so the ones missing from older JDKs are simply never met. Byte arrays are base64 strings rather than
+ * arrays. {@code Optional} and {@code AtomicReference} are described by the type they hold.
+ * <p>
+ * Value types of an application, e.g. {@code Money}, may be registered with a fixed schema, which is then used
+ * wherever the type is found. Registration is global and meant to happen at startup: schemas generated before
+ * are not regenerated, although the registrations take part in the keys of
+ * {@link com.github.reinert.jjschema.v1.SchemaCache}s, and schemas precomputed at build time are no longer used
+ * once a type is registered.
+ *
+ * @author Danilo Reinert
+ */
+
+public final class TypeClassifier {
+
+    private static final ConcurrentMap<Class<?>, ObjectNode> REGISTERED = new ConcurrentHashMap<Class<?>, ObjectNode>();
+    private static final AtomicInteger VERSION = new AtomicInteger();
+    private static final Map<String, ObjectNode> BUILTIN = new HashMap<String, ObjectNode>();
+    private static final Map<String, Class<?>> WRAPPERS = new HashMap<String, Class<?>>();
+
+    static {
+        for (String name : new String[]{"java.util.Date", "java.util.Calendar", "java.util.GregorianCalendar",
+                "java.sql.Timestamp", "java.time.Instant", "java.time.OffsetDateTime", "java.time.ZonedDateTime"}) {
+            builtin(name, "string", "date-time");
+        }
+        for (String name : new String[]{"java.sql.Date", "java.time.LocalDate"}) {
+            builtin(name, "string", "date");
+        }
+        for (String name : new String[]{"java.sql.Time", "java.time.LocalTime", "java.time.OffsetTime"}) {
+            builtin(name, "string", "time");
+        }
+        // Durations and periods are ISO-8601 strings, for which draft-04 defines no format
+        for (String name : new String[]{"java.time.Duration", "java.time.Period"}) {
+            builtin(name, "string", null);
+        }
+        for (String name : new String[]{"java.net.URI", "java.net.URL"}) {
+            builtin(name, "string", "uri");
+        }
+        builtin("java.util.regex.Pattern", "string", "regex");
+        // Binary content is written as a base64 string
+        builtin(byte[].class.getName(), "string", null);
+        builtin(Byte[].class.getName(), "string", null);
+        for (String name : new String[]{"java.time.LocalDateTime", "java.time.YearMonth", "java.time.MonthDay",
+                "java.time.ZoneId", "java.time.ZoneOffset", "java.util.TimeZone", "java.util.Locale",
+                "java.util.Currency", "java.nio.charset.Charset", "java.io.File", "java.net.InetAddress",
+                "java.net.Inet4Address", "java.net.Inet6Address"}) {
+            builtin(name, "string", null);
+        }
+        for (String name : new String[]{"java.time.Year", "java.util.concurrent.atomic.AtomicInteger",
+                "java.util.concurrent.atomic.AtomicLong", "java.util.concurrent.atomic.LongAdder",
+                "java.util.OptionalInt", "java.util.OptionalLong"}) {
+            builtin(name, "integer", null);
+        }
+        for (String name : new String[]{"java.util.concurrent.atomic.DoubleAdder", "java.util.OptionalDouble"}) {
+            builtin(name, "number", null);
+        }
+        builtin("java.util.concurrent.atomic.AtomicBoolean", "boolean", null);
+
+        WRAPPERS.put(AtomicReference.class.getName(), AtomicReference.class);
+        try {
+            Class<?> optional = Class.forName("java.util.Optional");
+            WRAPPERS.put(optional.getName(), optional);
+        } catch (ClassNotFoundException e) {
+            // Older JDKs have no Optional, and thus no properties of its type
+        }
+    }
+
+    private static final ClassValue<TypeKind> KINDS = new ClassValue<TypeKind>() {
+        @Override
+        protected TypeKind computeValue(Class<?> type) {
+            return classify(type);
+        }
+    };
+
+    private TypeClassifier() {
+    }
+
+    public static TypeKind kindOf(Class<?> type) {
+        return KINDS.get(type);
+    }
+
+    /**
+     * Maps a type to a fixed schema, replacing its builtin mapping or a previous registration, if any.
+     *
+     * @param type the type, which may not be a primitive
+     * @param schema the schema of the type, copied
+     */
+    public static void register(Class<?> type, ObjectNode schema) {
+        if (type.isPrimitive())
+            throw new IllegalArgumentException("Primitive types cannot be registered: " + type);
+        REGISTERED.put(type, schema.deepCopy());
+        VERSION.incrementAndGet();
+        KINDS.remove(type);
+    }
+
+    /**
+     * Removes the registration of a type, which goes back to its builtin kind.
+     *
+     * @return true if the type was registered
+     */
+    public static boolean unregister(Class<?> type) {
+        if (REGISTERED.remove(type) == null)
+            return false;
+        VERSION.incrementAndGet();
+        KINDS.remove(type);
+        return true;
+    }
+
+    /**
+     * @return a copy of the schema registered for a type or of its builtin schema, or null if it has none
+     */
+    public static ObjectNode getFixedSchema(Class<?> type) {
+        ObjectNode schema = REGISTERED.isEmpty() ? null : REGISTERED.get(type);
+        if (schema == null)
+            schema = BUILTIN.get(type.getName());
+        return schema == null ? null : schema.deepCopy();
+    }
+
+    /**
+     * @param className the binary name of a JDK class
+     * @return a copy of the builtin schema of the class, or null if it has none
+     */
+    public static ObjectNode getBuiltinSchema(String className) {
+        ObjectNode schema = BUILTIN.get(className);
+        return schema == null ? null : schema.deepCopy();
+    }
+
+    /**
+     * @param type a resolved type of the {@link TypeKind#WRAPPER} kind
+     * @return the type it holds, or null if it is raw
+     */
+    public static Type wrappedType(Type type) {
+        Class<?> wrapper = TypeResolver.rawClass(type);
+        while (!WRAPPERS.containsKey(wrapper.getName())) {
+            wrapper = wrapper.getSuperclass();
+        }
+        return TypeResolver.argumentOf(type, wrapper);
+    }
+
+    public static boolean hasRegisteredTypes() {
+        return !REGISTERED.isEmpty();
+    }
+
+    /**
+     * @return the number of registrations made so far, which changes whenever a registration may change schemas
+     */
+    public static int getVersion() {
+        return VERSION.get();
+    }
+
+    private static void builtin(String className, String type, String format) {
+        ObjectNode schema = JsonNodeFactory.instance.objectNode().put("type", type);
+        if (format != null)
+            schema.put("format", format);
+        BUILTIN.put(className, schema);
+    }
+
+    private static TypeKind classify(Class<?> type) {
+        if (REGISTERED.containsKey(type))
+            return TypeKind.SIMPLE;
+        if (type == void.class || type == Void.class)
+            return TypeKind.VOID;
+        if (BUILTIN.containsKey(type.getName()))
+            return TypeKind.SIMPLE;
+        if (type.isArray())
+            return TypeKind.ARRAY;
+        if (type.isEnum())
+            return TypeKind.ENUM;
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            if (WRAPPERS.containsKey(current.getName()))
+                return TypeKind.WRAPPER;
+        }
+        if (AbstractCollection.class.isAssignableFrom(type))
+            return TypeKind.COLLECTION;
+        if (SimpleTypeMappings.isSimpleType(type))
+            return TypeKind.SIMPLE;
+        if (Collection.class.isAssignableFrom(type))
+            return TypeKind.CUSTOM_COLLECTION;
+        if (Map.class.isAssignableFrom(type))
+            return TypeKind.MAP;
+        if (Iterable.class.isAssignableFrom(type))
+            return TypeKind.ITERABLE;
+        return TypeKind.CUSTOM;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.introspection;
+
+/**
+ * The kinds of Java classes the generators tell apart, as computed once per class by {@link TypeClassifier}.
+ *
+ * @author Danilo Reinert
+ */
+
+public enum TypeKind {
+    /**
+     * {@code void} and {@link Void}.
+     */
+    VOID,
+    /**
+     * The builtin types of {@link com.github.reinert.jjschema.SimpleTypeMappings}, the JDK value types known to
+     * {@link TypeClassifier} and the types registered by
+     * {@link TypeClassifier#register(Class, com.fasterxml.jackson.databind.node.ObjectNode)}.
+     */
+    SIMPLE,
+    ENUM,
+    /**
+     * Java arrays.
+     */
+    ARRAY,
+    /**
+     * Subclasses of {@link java.util.AbstractCollection}, as the collections of the JDK.
+     */
+    COLLECTION,
+    /**
+     * Other implementations of {@link java.util.Collection}.
+     */
+    CUSTOM_COLLECTION,
+    /**
+     * Implementations of {@link Iterable} which are no {@link java.util.Collection}.
+     */
+    ITERABLE,
+    MAP,
+    /**
+     * {@code java.util.Optional} and {@link java.util.concurrent.atomic.AtomicReference}, described by the type they
+     * hold.
+     */
+    WRAPPER,
+    /**
+     * Any other class, described by its properties.
+     */
+    CUSTOM
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.introspection;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves the generic types of members as seen from the type using them: type variables are replaced by the
+ * arguments the use site, or a subclass, binds them to, and by the erasure of their bound otherwise.
+ * <p>
+ * The bindings of a class hierarchy are computed once per class, and every resolved {@code (owner, type)} pair is
+ * memoized, both in {@link ClassValue}s of the owner class, so they go away together with it.
+ *
+ * @author Danilo Reinert
+ */
+
+public final class TypeResolver {
+
+    private static final TypeVariable<?> COLLECTION_ELEMENT = Collection.class.getTypeParameters()[0];
+    private static final TypeVariable<?> MAP_VALUE = Map.class.getTypeParameters()[1];
+
+    private static final ClassValue<Map<TypeVariable<?>, Type>> BINDINGS =
+            new ClassValue<Map<TypeVariable<?>, Type>>() {
+                @Override
+                protected Map<TypeVariable<?>, Type> computeValue(Class<?> type) {
+                    Map<TypeVariable<?>, Type> bindings = new HashMap<TypeVariable<?>, Type>();
+                    collectBindings(type, bindings);
+                    return Collections.unmodifiableMap(bindings);
+                }
+            };
+
+    private static final ClassValue<ConcurrentMap<UseSite, Type>> RESOLVED =
+            new ClassValue<ConcurrentMap<UseSite, Type>>() {
+                @Override
+                protected ConcurrentMap<UseSite, Type> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<UseSite, Type>();
+                }
+            };
+
+    private TypeResolver() {
+    }
+
+    /**
+     * Resolves the type of a member declared by a type or by one of its supertypes.
+     *
+     * @param owner the type using the member, a class or a parameterized type
+     * @param type the generic type of the member
+     * @return the type with no type variables nor wildcards left
+     */
+    public static Type resolve(Type owner, Type type) {
+        if (type instanceof Class)
+            return type;
+        ConcurrentMap<UseSite, Type> resolved = RESOLVED.get(rawClass(owner));
+        UseSite useSite = new UseSite(owner, type);
+        Type result = resolved.get(useSite);
+        if (result == null) {
+            result = substitute(owner, type);
+            resolved.putIfAbsent(useSite, result);
+        }
+        return result;
+    }
+
+    /**
+     * @return the class a resolved type erases to
+     */
+    public static Class<?> rawClass(Type type) {
+        if (type instanceof Class)
+            return (Class<?>) type;
+        if (type instanceof ParameterizedType)
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        if (type instanceof GenericArrayType)
+            return Array.newInstance(rawClass(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+        if (type instanceof TypeVariable)
+            return rawClass(((TypeVariable<?>) type).getBounds()[0]);
+        if (type instanceof WildcardType)
+            return rawClass(((WildcardType) type).getUpperBounds()[0]);
+        throw new IllegalArgumentException("Unsupported type: " + type);
+    }
+
+    /**
+     * @param type a resolved array or {@link Collection} type
+     * @return the type of its items, or null if the collection is raw
+     */
+    public static Type itemsType(Type type) {
+        if (type instanceof GenericArrayType)
+            return ((GenericArrayType) type).getGenericComponentType();
+        Class<?> rawType = rawClass(type);
+        if (rawType.isArray())
+            return rawType.getComponentType();
+        return bind(type, COLLECTION_ELEMENT);
+    }
+
+    /**
+     * @param type a resolved {@link Map} type
+     * @return the type of its values, or null if the map is raw
+     */
+    public static Type valueType(Type type) {
+        return bind(type, MAP_VALUE);
+    }
+
+    /**
+     * @param type a resolved type
+     * @param genericClass a generic class the type is or extends, e.g. {@link java.util.concurrent.atomic.AtomicReference}
+     * @return what the type binds the first type parameter of the generic class to, or null if it is raw
+     */
+    public static Type argumentOf(Type type, Class<?> genericClass) {
+        return bind(type, genericClass.getTypeParameters()[0]);
+    }
+
+    private static Type bind(Type owner, TypeVariable<?> variable) {
+        Type bound = lookup(owner, variable);
+        while (bound instanceof TypeVariable) {
+            bound = lookup(owner, (TypeVariable<?>) bound);
+        }
+        return bound == null ? null : resolve(owner, bound);
+    }
+
+    /**
+     * @return what the owner binds a variable to, possibly in terms of other variables, or null if it is unbound
+     */
+    private static Type lookup(Type owner, TypeVariable<?> variable) {
+        Class<?> rawOwner = rawClass(owner);
+        if (owner instanceof ParameterizedType && variable.getGenericDeclaration() == rawOwner) {
+            int index = Arrays.asList(rawOwner.getTypeParameters()).indexOf(variable);
+            return ((ParameterizedType) owner).getActualTypeArguments()[index];
+        }
+        return BINDINGS.get(rawOwner).get(variable);
+    }
+
+    private static Type substitute(Type owner, Type type) {
+        if (type instanceof TypeVariable) {
+            Type bound = lookup(owner, (TypeVariable<?>) type);
+            return bound == null ? rawClass(type) : substitute(owner, bound);
+        }
+        if (type instanceof WildcardType) {
+            Type[] lowerBounds = ((WildcardType) type).getLowerBounds();
+            return substitute(owner, lowerBounds.length > 0 ? lowerBounds[0] : ((WildcardType) type).getUpperBounds()[0]);
+        }
+        if (type instanceof GenericArrayType) {
+            Type componentType = substitute(owner, ((GenericArrayType) type).getGenericComponentType());
+            if (componentType instanceof Class)
+                return Array.newInstance((Class<?>) componentType, 0).getClass();
+            return new ResolvedArrayType(componentType);
+        }
+        if (type instanceof ParameterizedType) {
+            ParameterizedType parameterizedType = (ParameterizedType) type;
+            Type[] arguments = parameterizedType.getActualTypeArguments().clone();
+            boolean changed = false;
+            for (int i = 0; i < arguments.length; i++) {
+                Type argument = substitute(owner, arguments[i]);
+                changed |= argument != arguments[i];
+                arguments[i] = argument;
+            }
+            if (!changed)
+                return type;
+            return new ResolvedParameterizedType(parameterizedType.getOwnerType(),
+                    (Class<?>) parameterizedType.getRawType(), arguments);
+        }
+        return type;
+    }
+
+    /**
+     * Binds the type variables of the supertypes of a class, walking up from the class, so that the arguments of
+     * each supertype may refer to variables already bound below it.
+     */
+    private static void collectBindings(Class<?> type, Map<TypeVariable<?>, Type> bindings) {
+        if (type.getGenericSuperclass() != null)
+            collectBindings(type.getGenericSuperclass(), bindings);
+        for (Type genericInterface : type.getGenericInterfaces()) {
+            collectBindings(genericInterface, bindings);
+        }
+    }
+
+    private static void collectBindings(Type supertype, Map<TypeVariable<?>, Type> bindings) {
+        if (supertype instanceof ParameterizedType) {
+            Class<?> rawType = (Class<?>) ((ParameterizedType) supertype).getRawType();
+            TypeVariable<?>[] variables = rawType.getTypeParameters();
+            Type[] arguments = ((ParameterizedType) supertype).getActualTypeArguments();
+            for (int i = 0; i < variables.length; i++) {
+                if (!bindings.containsKey(variables[i]))
+                    bindings.put(variables[i], arguments[i]);
+            }
+            collectBindings(rawType, bindings);
+        } else if (supertype instanceof Class) {
+            collectBindings((Class<?>) supertype, bindings);
+        }
+    }
+
+    private static final class UseSite {
+        final Type owner;
+        final Type type;
+
+        UseSite(Type owner, Type type) {
+            this.owner = owner;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof UseSite))
+                return false;
+            UseSite other = (UseSite) obj;
+            return owner.equals(other.owner) && type.equals(other.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * owner.hashCode() + type.hashCode();
+        }
+    }
+
+    /**
+     * Equal to, and hashed as, the parameterized types of the platform.
+     */
+    private static final class ResolvedParameterizedType implements ParameterizedType {
+        private final Type ownerType;
+        private final Class<?> rawType;
+        private final Type[] arguments;
+
+        ResolvedParameterizedType(Type ownerType, Class<?> rawType, Type[] arguments) {
+            this.ownerType = ownerType;
+            this.rawType = rawType;
+            this.arguments = arguments;
+        }
+
+        public Type[] getActualTypeArguments() {
+            return arguments.clone();
+        }
+
+        public Type getRawType() {
+            return rawType;
+        }
+
+        public Type getOwnerType() {
+            return ownerType;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ParameterizedType))
+                return false;
+            ParameterizedType other = (ParameterizedType) obj;
+            return rawType.equals(other.getRawType())
+                    && (ownerType == null ? other.getOwnerType() == null : ownerType.equals(other.getOwnerType()))
+                    && Arrays.equals(arguments, other.getActualTypeArguments());
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(arguments) ^ (ownerType == null ? 0 : ownerType.hashCode()) ^ rawType.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder(rawType.getName()).append('<');
+            for (int i = 0; i < arguments.length; i++) {
+                if (i > 0)
+                    builder.append(", ");
+                builder.append(arguments[i] instanceof Class ? ((Class<?>) arguments[i]).getName() : arguments[i]);
+            }
+            return builder.append('>').toString();
+        }
+    }
+
+    private static final class ResolvedArrayType implements GenericArrayType {
+        private final Type componentType;
+
+        ResolvedArrayType(Type componentType) {
+            this.componentType = componentType;
+        }
+
+        public Type getGenericComponentType() {
+            return componentType;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof GenericArrayType
+                    && componentType.equals(((GenericArrayType) obj).getGenericComponentType());
+        }
+
+        @Override
+        public int hashCode() {
+            return componentType.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return componentType + "[]";
+        }
+    }
+}
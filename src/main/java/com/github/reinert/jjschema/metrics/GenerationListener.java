@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.reinert.jjschema.v1.GenerationBudget;
+
+/**
+ * Receives the events of schema generations, from {@link com.github.reinert.jjschema.v1.JsonSchemaFactory} and
+ * from the legacy {@link com.github.reinert.jjschema.JsonSchemaGenerator}s.
+ * <p>
+ * Events are sent synchronously by the generating thread, and generations may run concurrently, so
+ * implementations must be thread-safe and quick. {@link GenerationMetrics} is a ready to use implementation.
+ *
+ * @author Danilo Reinert
+ */
+
+public interface GenerationListener {
+
+    /**
+     * A custom type has been generated within a schema.
+     *
+     * @param type the type
+     * @param nanos the generation time, including the types nested in it
+     * @param properties the number of properties of the type
+     * @param depth the number of custom types being generated around it, 0 for the root type
+     */
+    void typeGenerated(Class<?> type, long nanos, int properties, int depth);
+
+    /**
+     * A reference was put instead of generating again a type already being generated, such as a recursive type
+     * or the target of a back reference.
+     *
+     * @param type the referenced type
+     */
+    void referenceCycle(Class<?> type);
+
+    /**
+     * A budget of the generation ran out, so a type was replaced by an open schema or a reference instead of
+     * being generated.
+     *
+     * @param type the type cut from the schema
+     * @param budget the budget which ran out
+     */
+    void budgetExceeded(Class<?> type, GenerationBudget budget);
+
+    /**
+     * The schema of a type was found in the cache of the factory.
+     */
+    void cacheHit(Class<?> type);
+
+    /**
+     * The schema of a type was not found in the cache of the factory, and is to be generated.
+     */
+    void cacheMiss(Class<?> type);
+
+    /**
+     * The whole schema of a type has been generated.
+     *
+     * @param type the type
+     * @param nanos the generation time
+     * @param schema the schema, which must not be modified
+     */
+    void schemaGenerated(Class<?> type, long nanos, JsonNode schema);
+
+    /**
+     * The whole schema of a type has been streamed without building its tree.
+     *
+     * @param type the type
+     * @param nanos the generation time, writing included
+     * @param nodes the number of JSON nodes written, as {@link GenerationMetrics#countNodes(JsonNode)} counts them
+     */
+    void schemaStreamed(Class<?> type, long nanos, int nodes);
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.reinert.jjschema.v1.GenerationBudget;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link GenerationListener} keeping counters and histograms, to be read by a metrics system or logged.
+ * <p>
+ * All the counters are updated without locking. Types are tracked by name, so the metrics never keep a class
+ * reachable.
+ *
+ * @author Danilo Reinert
+ */
+
+public class GenerationMetrics implements GenerationListener {
+
+    private static final Comparator<TypeMetrics> SLOWEST_FIRST = new Comparator<TypeMetrics>() {
+        public int compare(TypeMetrics t1, TypeMetrics t2) {
+            long n1 = t1.getMaxNanos();
+            long n2 = t2.getMaxNanos();
+            return n1 < n2 ? 1 : n1 == n2 ? 0 : -1;
+        }
+    };
+
+    private final ConcurrentMap<String, TypeMetrics> types = new ConcurrentHashMap<String, TypeMetrics>();
+    private final Histogram typeNanos = new Histogram();
+    private final Histogram schemaNanos = new Histogram();
+    private final Histogram schemaNodes = new Histogram();
+    private final AtomicLong referenceCycles = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final AtomicLongArray exceededBudgets = new AtomicLongArray(GenerationBudget.values().length);
+
+    public void typeGenerated(Class<?> type, long nanos, int properties, int depth) {
+        typeNanos.record(nanos);
+        metricsOf(type).recordGeneration(nanos, properties, depth);
+    }
+
+    public void referenceCycle(Class<?> type) {
+        referenceCycles.incrementAndGet();
+        metricsOf(type).recordReferenceCycle();
+    }
+
+    public void budgetExceeded(Class<?> type, GenerationBudget budget) {
+        exceededBudgets.incrementAndGet(budget.ordinal());
+    }
+
+    public void cacheHit(Class<?> type) {
+        cacheHits.incrementAndGet();
+    }
+
+    public void cacheMiss(Class<?> type) {
+        cacheMisses.incrementAndGet();
+    }
+
+    public void schemaGenerated(Class<?> type, long nanos, JsonNode schema) {
+        schemaNanos.record(nanos);
+        schemaNodes.record(countNodes(schema));
+    }
+
+    public void schemaStreamed(Class<?> type, long nanos, int nodes) {
+        schemaNanos.record(nanos);
+        schemaNodes.record(nodes);
+    }
+
+    /**
+     * @return the metrics of every type generated so far, by type name
+     */
+    public Map<String, TypeMetrics> getTypeMetrics() {
+        return Collections.unmodifiableMap(types);
+    }
+
+    /**
+     * @param limit the maximum number of types returned
+     * @return the types with the longest single generation time, slowest first
+     */
+    public List<TypeMetrics> getSlowestTypes(int limit) {
+        List<TypeMetrics> slowest = new ArrayList<TypeMetrics>(types.values());
+        Collections.sort(slowest, SLOWEST_FIRST);
+        return slowest.size() > limit ? new ArrayList<TypeMetrics>(slowest.subList(0, limit)) : slowest;
+    }
+
+    /**
+     * @return the generation times of custom types, in nanoseconds
+     */
+    public Histogram getTypeNanos() {
+        return typeNanos;
+    }
+
+    /**
+     * @return the generation times of whole schemas, in nanoseconds
+     */
+    public Histogram getSchemaNanos() {
+        return schemaNanos;
+    }
+
+    /**
+     * @return the number of JSON nodes of the generated schemas, streamed ones included
+     */
+    public Histogram getSchemaNodes() {
+        return schemaNodes;
+    }
+
+    public long getReferenceCycles() {
+        return referenceCycles.get();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    /**
+     * @return the number of types cut from the schemas because the budget ran out
+     */
+    public long getExceededBudgets(GenerationBudget budget) {
+        return exceededBudgets.get(budget.ordinal());
+    }
+
+    private TypeMetrics metricsOf(Class<?> type) {
+        String name = type.getName();
+        TypeMetrics metrics = types.get(name);
+        if (metrics == null) {
+            TypeMetrics created = new TypeMetrics(name);
+            metrics = types.putIfAbsent(name, created);
+            if (metrics == null)
+                metrics = created;
+        }
+        return metrics;
+    }
+
+    /**
+     * @return the number of nodes of a JSON tree, its root, containers and values alike
+     */
+    public static int countNodes(JsonNode node) {
+        int count = 1;
+        for (JsonNode child : node) {
+            count += countNodes(child);
+        }
+        return count;
+    }
+}
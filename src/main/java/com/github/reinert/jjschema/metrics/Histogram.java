@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of non negative values, counted in buckets of powers of two.
+ * <p>
+ * Recording is wait-free but for the maximum, and never allocates. Percentiles are approximated by the upper
+ * bound of their bucket, so they are at most twice the exact value.
+ *
+ * @author Danilo Reinert
+ */
+
+public final class Histogram {
+
+    private static final int BUCKETS = Long.SIZE + 1;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param value the value, negative ones being recorded as 0
+     */
+    public void record(long value) {
+        if (value < 0)
+            value = 0;
+        buckets.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getSum() {
+        return sum.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return the mean of the recorded values, 0 if there is none
+     */
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    /**
+     * @param quantile the quantile, between 0 and 1
+     * @return an upper bound of the quantile of the recorded values, 0 if there is none
+     */
+    public long getPercentile(double quantile) {
+        if (quantile < 0 || quantile > 1)
+            throw new IllegalArgumentException("Quantile must be between 0 and 1: " + quantile);
+        long n = count.get();
+        if (n == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(quantile * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank)
+                return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    /**
+     * @return the number of values recorded in each bucket; bucket 0 holds zeros and bucket i the values from
+     * 2<sup>i-1</sup> to 2<sup>i</sup>-1
+     */
+    public long[] getBuckets() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return counts;
+    }
+
+    private static int bucketOf(long value) {
+        return Long.SIZE - Long.numberOfLeadingZeros(value);
+    }
+
+    private static long upperBound(int bucket) {
+        return bucket >= Long.SIZE - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount() + ", mean=" + (long) getMean() + ", p50=" + getPercentile(0.5)
+                + ", p99=" + getPercentile(0.99) + ", max=" + getMax();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The generation counters of one type, updated without locking by {@link GenerationMetrics}.
+ *
+ * @author Danilo Reinert
+ */
+
+public final class TypeMetrics {
+
+    private final String typeName;
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLong referenceCycles = new AtomicLong();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private volatile int properties;
+
+    TypeMetrics(String typeName) {
+        this.typeName = typeName;
+    }
+
+    void recordGeneration(long nanos, int properties, int depth) {
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        long currentNanos = maxNanos.get();
+        while (nanos > currentNanos && !maxNanos.compareAndSet(currentNanos, nanos)) {
+            currentNanos = maxNanos.get();
+        }
+        int currentDepth = maxDepth.get();
+        while (depth > currentDepth && !maxDepth.compareAndSet(currentDepth, depth)) {
+            currentDepth = maxDepth.get();
+        }
+        this.properties = properties;
+    }
+
+    void recordReferenceCycle() {
+        referenceCycles.incrementAndGet();
+    }
+
+    public String getTypeName() {
+        return typeName;
+    }
+
+    /**
+     * @return the number of times the type was generated
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.get();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * @return the number of references put to the type instead of generating it again
+     */
+    public long getReferenceCycles() {
+        return referenceCycles.get();
+    }
+
+    /**
+     * @return the deepest the type was generated, 0 if only as the root type
+     */
+    public int getMaxDepth() {
+        return maxDepth.get();
+    }
+
+    /**
+     * @return the number of properties of the type, as last generated
+     */
+    public int getProperties() {
+        return properties;
+    }
+
+    @Override
+    public String toString() {
+        return typeName + ": count=" + getCount() + ", totalNanos=" + getTotalNanos() + ", maxNanos="
+                + getMaxNanos() + ", properties=" + getProperties() + ", maxDepth=" + getMaxDepth()
+                + ", referenceCycles=" + getReferenceCycles();
+    }
+}
@@ -20,7 +20,9 @@ package com.github.reinert.jjschema.v1;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.github.reinert.jjschema.ManagedReference;
+import com.github.reinert.jjschema.introspection.TypeResolver;
 
+import java.lang.reflect.Type;
 import java.util.Collection;
 import java.util.Set;
 
@@ -33,16 +35,23 @@ public class ArraySchemaWrapper extends SchemaWrapper {
     final SchemaWrapper itemsSchemaWrapper;
 
     public ArraySchemaWrapper(Class<?> type, Class<?> parametrizedType, Set<ManagedReference> managedReferences, String relativeId) {
+        this(type, parametrizedType, managedReferences, relativeId, null);
+    }
+
+    public ArraySchemaWrapper(Class<?> type, Class<?> parametrizedType, Set<ManagedReference> managedReferences, String relativeId,
+                              GenerationContext context) {
         super(type);
         setType("array");
         if (parametrizedType != null) {
             if (!Collection.class.isAssignableFrom(type))
                 throw new RuntimeException("Cannot instantiate a SchemaWrapper of a non Collection class with a Parametrized Type.");
-            if (managedReferences == null)
+            if (context != null)
+                this.itemsSchemaWrapper = SchemaWrapperFactory.createWrapper(parametrizedType, managedReferences, relativeId, context);
+            else if (managedReferences == null)
                 this.itemsSchemaWrapper = SchemaWrapperFactory.createWrapper(parametrizedType);
             else
                 this.itemsSchemaWrapper = SchemaWrapperFactory.createWrapper(parametrizedType, managedReferences, relativeId);
-            setItems(this.itemsSchemaWrapper.asJson());
+            setItems(this.itemsSchemaWrapper.getNode());
         } else {
             this.itemsSchemaWrapper = null;
         }
@@ -56,11 +65,34 @@ public class ArraySchemaWrapper extends SchemaWrapper {
         this(type, parametrizedType, null);
     }
 
+    /**
+     * Creates the wrapper of a resolved array or collection type within a generation.
+     *
+     * @param relativeId the relative id of the array, its items being at {@code <relativeId>/items}
+     */
+    public ArraySchemaWrapper(Type type, Set<ManagedReference> managedReferences, String relativeId,
+                              GenerationContext context) {
+        super(TypeResolver.rawClass(type));
+        setType("array");
+        Type itemsType = TypeResolver.itemsType(type);
+        if (itemsType != null) {
+            this.itemsSchemaWrapper = SchemaWrapperFactory.createWrapper(itemsType, managedReferences,
+                    relativeId + "/" + SchemaWrapperFactory.TAG_ITEMS, context);
+            setItems(this.itemsSchemaWrapper.getNode());
+        } else {
+            this.itemsSchemaWrapper = null;
+        }
+    }
+
     public ArraySchemaWrapper(Class<?> type, RefSchemaWrapper refSchemaWrapper) {
+        this(type, (SchemaWrapper) refSchemaWrapper);
+    }
+
+    ArraySchemaWrapper(Class<?> type, SchemaWrapper itemsSchemaWrapper) {
         super(type);
         setType("array");
-        this.itemsSchemaWrapper = refSchemaWrapper;
-        setItems(this.itemsSchemaWrapper.asJson());
+        this.itemsSchemaWrapper = itemsSchemaWrapper;
+        setItems(this.itemsSchemaWrapper.getNode());
     }
 
     public Class<?> getJavaParametrizedType() {
@@ -71,6 +103,12 @@ public class ArraySchemaWrapper extends SchemaWrapper {
         return itemsSchemaWrapper;
     }
 
+    @Override
+    void materialize() {
+        if (itemsSchemaWrapper != null)
+            itemsSchemaWrapper.materialize();
+    }
+
     @Override
     public boolean isArrayWrapper() {
         return true;
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Generates the schemas of a slice of a batch, splitting it in halves until it is small enough.
+ * Each task writes only its own slots of the shared result arrays. A class failing with an exception, a linkage
+ * error or a stack overflow is recorded in its slot; other errors of the virtual machine abort the batch.
+ *
+ * @author Danilo Reinert
+ */
+
+class BatchGenerationTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+    static final int THRESHOLD = 4;
+
+    private final JsonSchemaFactory factory;
+    private final Class<?>[] types;
+    private final JsonNode[] schemas;
+    private final Throwable[] failures;
+    private final int from;
+    private final int to;
+
+    BatchGenerationTask(JsonSchemaFactory factory, Class<?>[] types, JsonNode[] schemas, Throwable[] failures,
+                        int from, int to) {
+        this.factory = factory;
+        this.types = types;
+        this.schemas = schemas;
+        this.failures = failures;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= THRESHOLD) {
+            for (int i = from; i < to; i++) {
+                try {
+                    schemas[i] = factory.createSchema(types[i]);
+                } catch (RuntimeException e) {
+                    failures[i] = e;
+                } catch (LinkageError e) {
+                    // A property type missing from the classpath fails its class only
+                    failures[i] = e;
+                } catch (StackOverflowError e) {
+                    failures[i] = e;
+                }
+            }
+        } else {
+            int middle = (from + to) >>> 1;
+            invokeAll(new BatchGenerationTask(factory, types, schemas, failures, from, middle),
+                    new BatchGenerationTask(factory, types, schemas, failures, middle, to));
+        }
+    }
+}
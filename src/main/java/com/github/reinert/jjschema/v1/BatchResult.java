@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The outcome of {@link JsonSchemaFactory#createSchemas(java.util.Collection)}.
+ * Both maps follow the order in which the classes were given.
+ *
+ * @author Danilo Reinert
+ */
+
+public final class BatchResult {
+
+    private final Map<Class<?>, JsonNode> schemas;
+    private final Map<Class<?>, Throwable> failures;
+
+    BatchResult(Map<Class<?>, JsonNode> schemas, Map<Class<?>, Throwable> failures) {
+        this.schemas = Collections.unmodifiableMap(schemas);
+        this.failures = Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * @return the schemas of the classes generated successfully
+     */
+    public Map<Class<?>, JsonNode> getSchemas() {
+        return schemas;
+    }
+
+    /**
+     * @return the error raised for each class whose schema could not be generated
+     */
+    public Map<Class<?>, Throwable> getFailures() {
+        return failures;
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+}
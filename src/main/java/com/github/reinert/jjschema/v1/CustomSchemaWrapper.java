@@ -18,20 +18,30 @@
 
 package com.github.reinert.jjschema.v1;
 
+import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.github.reinert.jjschema.Attributes;
+import com.github.reinert.jjschema.AttributesFragment;
 import com.github.reinert.jjschema.ManagedReference;
+import com.github.reinert.jjschema.introspection.ClassModel;
+import com.github.reinert.jjschema.introspection.PolymorphicModel;
+import com.github.reinert.jjschema.introspection.TypeResolver;
 import com.google.common.collect.Lists;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Type;
 import java.util.*;
 import java.util.Map.Entry;
-import java.util.Arrays;
 
 
 /**
+ * The schema of a custom type, whose properties are generated along with it, or only once they are iterated or
+ * the JSON is asked for if its {@link GenerationContext} is lazy.
+ *
  * @author Danilo Reinert
  */
 
@@ -39,11 +49,29 @@ public class CustomSchemaWrapper extends SchemaWrapper implements Iterable<Prope
 
     public static final String TAG_REQUIRED = "required";
     public static final String TAG_PROPERTIES = "properties";
-    
+
+    private static final ClassValue<Boolean> SELF_CONTAINED = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            for (Class<?> dependency : SchemaFingerprint.dependencies(type)) {
+                if (usesManagedReferences(dependency) || PolymorphicModel.of(dependency).isPolymorphic())
+                    return false;
+            }
+            return true;
+        }
+    };
+
     private final List<PropertyWrapper> propertyWrappers;
     private boolean required;
     private final Set<ManagedReference> managedReferences;
     private String relativeId = "#";
+    private final GenerationContext context;
+    private final Type genericType;
+    private boolean pending;
+    // Whether the whole subtree is generated, which a type generating its own properties eagerly does not imply
+    private boolean materialized;
+    private int depth;
+    private List<String> headFields;
 
     public CustomSchemaWrapper(Class<?> type) {
         this(type, new HashSet<ManagedReference>());
@@ -54,16 +82,52 @@ public class CustomSchemaWrapper extends SchemaWrapper implements Iterable<Prope
     }
 
     public CustomSchemaWrapper(Class<?> type, Set<ManagedReference> managedReferences, String relativeId) {
-        super(type);
+        this(type, managedReferences, relativeId, new GenerationContext());
+    }
+
+    public CustomSchemaWrapper(Class<?> type, Set<ManagedReference> managedReferences, String relativeId,
+                               GenerationContext context) {
+        this((Type) type, managedReferences, relativeId, context);
+    }
+
+    /**
+     * @param type the class, or a parameterized type binding the type variables its properties use
+     */
+    public CustomSchemaWrapper(Type type, Set<ManagedReference> managedReferences, String relativeId,
+                               GenerationContext context) {
+        super(TypeResolver.rawClass(type));
+        this.context = context;
+        if (context.startRoot())
+            setRootOf(context);
+        this.genericType = type;
         setType("object");
         processNullable();
-        processAttributes(getNode(), type);
-        propertyWrappers = Lists.newArrayListWithExpectedSize(type.getDeclaredFields().length);
+        processAttributes(getNode(), getJavaType());
+        propertyWrappers = Lists.newArrayListWithExpectedSize(ClassModel.of(getJavaType()).getDeclaredFields().size());
         this.managedReferences = managedReferences;
         if (relativeId != null) {
             addTokenToRelativeId(relativeId);
         }
-        processProperties();
+        // The arguments of a parameterized type are dependencies too, but are not worth following
+        if (context.isDeferring() && type instanceof Class && SELF_CONTAINED.get(getJavaType())) {
+            pending = true;
+            depth = context.getDepth();
+            headFields = Lists.newArrayList(getNode().fieldNames());
+        } else {
+            generateProperties();
+            materialized = !context.isDeferring();
+        }
+    }
+
+    public GenerationContext getContext() {
+        return context;
+    }
+
+    /**
+     * @return the type the types of the properties are resolved against
+     */
+    public Type getGenericType() {
+        return genericType;
     }
 
     public String getRelativeId() {
@@ -78,12 +142,13 @@ public class CustomSchemaWrapper extends SchemaWrapper implements Iterable<Prope
     }
 
     public void addProperty(PropertyWrapper propertyWrapper) {
+        processPendingProperties();
         this.propertyWrappers.add(propertyWrapper);
 
         if (!getNode().has(TAG_PROPERTIES))
             getNode().putObject(TAG_PROPERTIES);
 
-        ((ObjectNode) getNode().get(TAG_PROPERTIES)).put(propertyWrapper.getName(), propertyWrapper.asJson());
+        ((ObjectNode) getNode().get(TAG_PROPERTIES)).put(propertyWrapper.getName(), propertyWrapper.getNode());
 
         if (propertyWrapper.isRequired())
             addRequired(propertyWrapper.getName());
@@ -102,6 +167,7 @@ public class CustomSchemaWrapper extends SchemaWrapper implements Iterable<Prope
     }
 
     public void addRequired(String name) {
+        processPendingProperties();
         if (!getNode().has(TAG_REQUIRED))
             getNode().putArray(TAG_REQUIRED);
         ArrayNode requiredNode = (ArrayNode) getNode().get(TAG_REQUIRED);
@@ -131,79 +197,135 @@ public class CustomSchemaWrapper extends SchemaWrapper implements Iterable<Prope
      */
     @Override
     public Iterator<PropertyWrapper> iterator() {
+        processPendingProperties();
         return propertyWrappers.iterator();
     }
 
+    /**
+     * @return whether the properties are deferred until iterated or until the JSON is asked for
+     */
+    boolean isPending() {
+        return pending;
+    }
+
+    @Override
+    void materialize() {
+        if (materialized)
+            return;
+        materialized = true;
+        processPendingProperties();
+        for (PropertyWrapper propertyWrapper : propertyWrappers) {
+            propertyWrapper.materialize();
+        }
+    }
+
+    private void generateProperties() {
+        long startTime = context.typeStarted();
+        processProperties();
+        context.typeGenerated(getJavaType(), startTime, propertyWrappers.size());
+    }
+
+    /**
+     * Generates the deferred properties, at the depth the type was found at. The keywords the owning property put
+     * meanwhile are moved after them, where eager generation puts them.
+     */
+    private void processPendingProperties() {
+        if (!pending)
+            return;
+        pending = false;
+        ObjectNode node = getNode();
+        Map<String, JsonNode> decorations = new LinkedHashMap<String, JsonNode>();
+        Iterator<Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            Entry<String, JsonNode> field = fields.next();
+            if (!headFields.contains(field.getKey()))
+                decorations.put(field.getKey(), field.getValue());
+        }
+        headFields = null;
+        node.remove(decorations.keySet());
+
+        int resumedDepth = context.resume(depth);
+        generateProperties();
+        context.resume(resumedDepth);
+        node.putAll(decorations);
+    }
+
+    /**
+     * Managed and back references pair properties through state shared by the whole generation, so the types
+     * reaching them must be generated in order.
+     */
+    private static boolean usesManagedReferences(Class<?> type) {
+        for (Field field : type.getDeclaredFields()) {
+            if (field.isAnnotationPresent(JsonManagedReference.class)
+                    || field.isAnnotationPresent(JsonBackReference.class))
+                return true;
+        }
+        for (Method method : type.getDeclaredMethods()) {
+            if (method.isAnnotationPresent(JsonManagedReference.class)
+                    || method.isAnnotationPresent(JsonBackReference.class))
+                return true;
+        }
+        return false;
+    }
+
     protected void processProperties() {
+        ClassModel model = ClassModel.of(getJavaType());
         HashMap<Method, Field> properties = findProperties();
         for (Entry<Method, Field> prop : properties.entrySet()) {
-            String[] enums = getEnumsForField(prop.getValue());
-            boolean readonly = !hasSetMethod(prop.getKey());
+            String[] enums = model.getEnums(prop.getValue().getName());
+            boolean readonly = !model.hasSetter(prop.getKey());
+            context.nodeGenerated();
             PropertyWrapper propertyWrapper = new PropertyWrapper(this, managedReferences, 
                     prop.getKey(), prop.getValue(), enums, readonly);
             if (!propertyWrapper.isEmptyWrapper())
                 addProperty(propertyWrapper);
         }
-    }
-
-    private boolean hasSetMethod(Method getMethod) {
-        Method[] methods = getJavaType().getMethods();
-        String setMethodName = getMethod.getName().replaceFirst("get", "set");
-        for (Method method: methods) {
-            if (method.getName().equalsIgnoreCase(setMethodName)) {
-                return true;
-            }
+        PolymorphicModel polymorphicModel = PolymorphicModel.of(getJavaType());
+        String typeProperty = polymorphicModel.getTypeProperty();
+        if (typeProperty != null && !getNode().path(TAG_PROPERTIES).has(typeProperty)) {
+            if (!getNode().has(TAG_PROPERTIES))
+                getNode().putObject(TAG_PROPERTIES);
+            ((ObjectNode) getNode().get(TAG_PROPERTIES)).put(typeProperty,
+                    typeIdSchema(polymorphicModel.getTypeId()));
+            addRequired(typeProperty);
         }
-        return false;
     }
 
+    /**
+     * @param typeId the type id of a concrete type, or null for an abstract one
+     * @return the schema of the property holding the type id, which Jackson writes besides the properties
+     */
+    static ObjectNode typeIdSchema(String typeId) {
+        ObjectNode schema = SchemaWrapperFactory.MAPPER.createObjectNode().put("type", "string");
+        if (typeId != null)
+            schema.putArray("enum").add(typeId);
+        return schema;
+    }
 
     private HashMap<Method, Field> findProperties() {
-        Field[] fields = getJavaType().getDeclaredFields();
-        Method[] methods = getJavaType().getMethods();
-        // Ordering the properties
-        Arrays.sort(methods, new Comparator<Method>() {
-            public int compare(Method m1, Method m2) {
-                return m1.getName().compareTo(m2.getName());
-            }
-        });
-
+        ClassModel model = ClassModel.of(getJavaType());
         LinkedHashMap<Method, Field> props = new LinkedHashMap<Method, Field>();
         // get valid properties (get method and respective field (if exists))
-        for (Method method : methods) {
-            Class<?> declaringClass = method.getDeclaringClass();
-            if (declaringClass.equals(Object.class)
-                    || Collection.class.isAssignableFrom(declaringClass)) {
-                continue;
-            }
-
-            if (isGetter(method)) {
-                boolean hasField = false;
-                for (Field field : fields) {
-                    String name = getNameFromGetter(method);
-                    if (field.getName().equalsIgnoreCase(name)) {
-                        props.put(method, field);
-                        hasField = true;
-                        break;
-                    }
-                }
-                /*if (!hasField) {
-                    props.put(method, null);
-                }*/
+        for (Method method : model.getSortedGetters()) {
+            Field field = model.findField(getNameFromGetter(method));
+            if (field != null) {
+                props.put(method, field);
             }
         }
         return props;
     }
 
 
-    private boolean isGetter(final Method method) {
-        return method.getName().startsWith("get") || method.getName().startsWith("is");
+    static String getNameFromGetter(final Method getter) {
+        return getNameFromGetter(getter.getName());
     }
 
-
-    private String getNameFromGetter(final Method getter) {
+    /**
+     * @param methodName the name of a getter
+     * @return the name of the field the getter reads, or null if the method is not named as a getter
+     */
+    public static String getNameFromGetter(final String methodName) {
         String[] getterPrefixes = {"get", "is", "get_"};
-        String methodName = getter.getName();
         String fieldName = null;
         for (String prefix : getterPrefixes) {
             if (methodName.startsWith(prefix)) {
@@ -227,84 +349,21 @@ public class CustomSchemaWrapper extends SchemaWrapper implements Iterable<Prope
         this.required = required;
     }
 
-    private String[] getEnumsForField(Field field) {
-        Class[] classes = getJavaType().getDeclaredClasses();
-        String enumName = "$" + field.getName() + "Enum";
-        List<String> enums = new ArrayList<String>();
-        try {
-            for (Class clz : classes ) {
-                if (clz.getName().endsWith(enumName)){
-                    Field[] enumFields = clz.getDeclaredFields();
-                    for (Field eF : enumFields) {
-                        enums.add((String)eF.get(null));
-                    }
-                }
-            }
-        } catch (Exception e) {
-            System.out.println("Caught exception " + e.getMessage() + " while getting enum");
+    protected void processAttributes(ObjectNode node, Class<?> type) {
+        final Attributes attributes = type.getAnnotation(Attributes.class);
+        if (attributes != null && putAttributes(node, attributes)) {
+            setRequired(true);
         }
-
-        return enums.toArray(new String[0]);
     }
 
-    protected void processAttributes(ObjectNode node, Class<?> type) {
-        final Attributes attributes = type.getAnnotation(Attributes.class);
-        if (attributes != null) {
-            //node.put("$schema", SchemaVersion.DRAFTV4.getLocation().toString());
-            if (!attributes.id().isEmpty()) {
-                node.put("id", attributes.id());
-            }
-            if (!attributes.description().isEmpty()) {
-                node.put("description", attributes.description());
-            }
-            if (!attributes.pattern().isEmpty()) {
-                node.put("pattern", attributes.pattern());
-            }
-            if (!attributes.title().isEmpty()) {
-                node.put("title", attributes.title());
-            }
-            if (attributes.maximum() > -1) {
-                node.put("maximum", attributes.maximum());
-            }
-            if (attributes.exclusiveMaximum()) {
-                node.put("exclusiveMaximum", true);
-            }
-            if (attributes.minimum() > -1) {
-                node.put("minimum", attributes.minimum());
-            }
-            if (attributes.exclusiveMinimum()) {
-                node.put("exclusiveMinimum", true);
-            }
-            if (attributes.enums().length > 0) {
-                ArrayNode enumArray = node.putArray("enum");
-                String[] enums = attributes.enums();
-                for (String v : enums) {
-                    enumArray.add(v);
-                }
-            }
-            if (attributes.uniqueItems()) {
-                node.put("uniqueItems", true);
-            }
-            if (attributes.minItems() > 0) {
-                node.put("minItems", attributes.minItems());
-            }
-            if (attributes.maxItems() > -1) {
-                node.put("maxItems", attributes.maxItems());
-            }
-            if (attributes.multipleOf() > 0) {
-                node.put("multipleOf", attributes.multipleOf());
-            }
-            if (attributes.minLength() > 0) {
-                node.put("minLength", attributes.minItems());
-            }
-            if (attributes.maxLength() > -1) {
-                node.put("maxLength", attributes.maxItems());
-            }
-            if (attributes.required()) {
-                setRequired(true);
-            }
-            if (attributes.readonly()) {
-            	node.put("readonly", attributes.readonly());
-            }
-        } }
+    /**
+     * Puts the values of a class level {@link Attributes} annotation into a schema node.
+     *
+     * @return true if the annotation marks the type as required
+     */
+    static boolean putAttributes(ObjectNode node, Attributes attributes) {
+        AttributesFragment fragment = AttributesFragment.of(attributes);
+        fragment.applyTo(node);
+        return fragment.isRequired();
+    }
 }
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The compile time counterpart of {@link com.github.reinert.jjschema.introspection.ClassModel}, built from the
+ * language model instead of reflection.
+ * <p>
+ * Whatever reflection would see differently from the language model, such as bridge methods, makes the type
+ * unsupported rather than risking a schema that differs from the one generated at runtime.
+ *
+ * @author Danilo Reinert
+ */
+
+final class ElementModel {
+
+    private static final String ENUM_SUFFIX = "Enum";
+    private static final String[] NO_ENUMS = new String[0];
+    private static final String INTROSPECTION_PACKAGE = "com.github.reinert.jjschema.introspection";
+
+    private final Map<String, VariableElement> fieldsByName = new HashMap<String, VariableElement>();
+    private final List<ExecutableElement> sortedGetters = new ArrayList<ExecutableElement>();
+    private final Set<String> methodNames = new HashSet<String>();
+    private final Map<String, String[]> enumsByFieldName = new HashMap<String, String[]>();
+
+    ElementModel(TypeElement type, Elements elements, Types types) throws UnsupportedTypeException {
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            String key = toKey(field.getSimpleName().toString());
+            if (!fieldsByName.containsKey(key))
+                fieldsByName.put(key, field);
+        }
+
+        TypeMirror collectionType = types.erasure(elements.getTypeElement("java.util.Collection").asType());
+        Set<String> getterNames = new HashSet<String>();
+        for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+            if (!method.getModifiers().contains(Modifier.PUBLIC))
+                continue;
+            String name = method.getSimpleName().toString();
+            methodNames.add(toKey(name));
+            TypeElement declaringType = (TypeElement) method.getEnclosingElement();
+            if (declaringType.getQualifiedName().contentEquals("java.lang.Object")
+                    || types.isAssignable(types.erasure(declaringType.asType()), collectionType)) {
+                continue;
+            }
+            if (!name.startsWith("get") && !name.startsWith("is"))
+                continue;
+            if (!getterNames.add(name))
+                throw new UnsupportedTypeException(type, "overloaded getter " + name);
+            checkBridge(type, method, elements, types);
+            sortedGetters.add(method);
+        }
+        Collections.sort(sortedGetters, new Comparator<ExecutableElement>() {
+            public int compare(ExecutableElement m1, ExecutableElement m2) {
+                return m1.getSimpleName().toString().compareTo(m2.getSimpleName().toString());
+            }
+        });
+
+        collectEnums(type);
+    }
+
+    VariableElement findField(String name) {
+        return name == null ? null : fieldsByName.get(toKey(name));
+    }
+
+    List<ExecutableElement> getSortedGetters() {
+        return sortedGetters;
+    }
+
+    boolean hasSetter(ExecutableElement getter) {
+        return methodNames.contains(toKey(getter.getSimpleName().toString().replaceFirst("get", "set")));
+    }
+
+    String[] getEnums(String fieldName) {
+        String[] enums = enumsByFieldName.get(fieldName);
+        return enums == null ? NO_ENUMS : enums.clone();
+    }
+
+    /**
+     * A getter overriding a method with another erased return type gets a bridge method, which reflection lists
+     * as a second getter of the same name.
+     */
+    private static void checkBridge(TypeElement type, ExecutableElement getter, Elements elements, Types types)
+            throws UnsupportedTypeException {
+        List<TypeMirror> pending = new ArrayList<TypeMirror>(types.directSupertypes(type.asType()));
+        while (!pending.isEmpty()) {
+            TypeMirror supertype = pending.remove(pending.size() - 1);
+            if (supertype.getKind() != TypeKind.DECLARED)
+                continue;
+            TypeElement superElement = (TypeElement) ((DeclaredType) supertype).asElement();
+            for (ExecutableElement method : ElementFilter.methodsIn(superElement.getEnclosedElements())) {
+                if (method.equals(getter) || !method.getSimpleName().equals(getter.getSimpleName()))
+                    continue;
+                if (elements.overrides(getter, method, type)
+                        && !types.isSameType(types.erasure(getter.getReturnType()),
+                        types.erasure(method.getReturnType()))) {
+                    throw new UnsupportedTypeException(type, "bridge method for " + getter.getSimpleName());
+                }
+            }
+            pending.addAll(types.directSupertypes(supertype));
+        }
+    }
+
+    /**
+     * Mirrors the reflective reading of the {@code <fieldName>Enum} constants: values are read in declaration
+     * order until a field cannot be read as a String.
+     */
+    private void collectEnums(TypeElement type) throws UnsupportedTypeException {
+        boolean samePackage = packageOf(type).equals(INTROSPECTION_PACKAGE);
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            String name = nested.getSimpleName().toString();
+            if (!name.endsWith(ENUM_SUFFIX))
+                continue;
+            if (nested.getKind() == ElementKind.CLASS && !nested.getModifiers().contains(Modifier.STATIC))
+                throw new UnsupportedTypeException(type, "inner class " + name);
+            boolean nestedPublic = nested.getModifiers().contains(Modifier.PUBLIC);
+            boolean nestedPrivate = nested.getModifiers().contains(Modifier.PRIVATE);
+            List<String> values = new ArrayList<String>();
+            for (VariableElement field : ElementFilter.fieldsIn(nested.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                if (field.getKind() != ElementKind.FIELD || !modifiers.contains(Modifier.STATIC)
+                        || !isAccessible(samePackage, nestedPublic, nestedPrivate, modifiers)
+                        || field.asType().getKind().isPrimitive()) {
+                    break;
+                }
+                Object value = field.getConstantValue();
+                if (!(value instanceof String))
+                    throw new UnsupportedTypeException(type, "non constant value of " + name + "." + field.getSimpleName());
+                values.add((String) value);
+            }
+            enumsByFieldName.put(name.substring(0, name.length() - ENUM_SUFFIX.length()),
+                    values.toArray(new String[values.size()]));
+        }
+    }
+
+    private static boolean isAccessible(boolean samePackage, boolean nestedPublic, boolean nestedPrivate,
+                                        Set<Modifier> modifiers) {
+        if (nestedPublic && modifiers.contains(Modifier.PUBLIC))
+            return true;
+        return samePackage && !nestedPrivate && !modifiers.contains(Modifier.PRIVATE);
+    }
+
+    private static String packageOf(Element element) {
+        while (element.getKind() != ElementKind.PACKAGE) {
+            element = element.getEnclosingElement();
+        }
+        return element.toString();
+    }
+
+    private static String toKey(String name) {
+        return name.toLowerCase(Locale.ENGLISH);
+    }
+}
@@ -0,0 +1,403 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.reinert.jjschema.Attributes;
+import com.github.reinert.jjschema.Nullable;
+import com.github.reinert.jjschema.SchemaIgnore;
+import com.github.reinert.jjschema.SimpleTypeMappings;
+import com.github.reinert.jjschema.introspection.TypeClassifier;
+
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds at compile time the schema {@link JsonSchemaV4Factory} generates by reflection, walking the language
+ * model the same way {@link SchemaStreamWriter} walks the classes. The schema is built without {@code $schema}
+ * nor definitions, which the factory adds at runtime.
+ *
+ * @author Danilo Reinert
+ */
+
+final class ElementSchemaBuilder {
+
+    /**
+     * Deeper schemas are left to the runtime, where they would most likely overflow the stack.
+     */
+    static final int MAX_DEPTH = 64;
+
+    private static final String PROPERTIES_STR = "/properties/";
+    private static final String ITEMS_STR = "/items";
+    private static final Map<TypeKind, Class<?>> PRIMITIVES = new EnumMap<TypeKind, Class<?>>(TypeKind.class);
+
+    static {
+        PRIMITIVES.put(TypeKind.BOOLEAN, boolean.class);
+        PRIMITIVES.put(TypeKind.BYTE, byte.class);
+        PRIMITIVES.put(TypeKind.SHORT, short.class);
+        PRIMITIVES.put(TypeKind.INT, int.class);
+        PRIMITIVES.put(TypeKind.LONG, long.class);
+        PRIMITIVES.put(TypeKind.CHAR, char.class);
+        PRIMITIVES.put(TypeKind.FLOAT, float.class);
+        PRIMITIVES.put(TypeKind.DOUBLE, double.class);
+    }
+
+    private final Elements elements;
+    private final Types types;
+    private final TypeMirror collectionType;
+    private final TypeMirror abstractCollectionType;
+    private final TypeMirror mapType;
+    private final Map<TypeElement, ElementModel> models = new HashMap<TypeElement, ElementModel>();
+
+    ElementSchemaBuilder(Elements elements, Types types) {
+        this.elements = elements;
+        this.types = types;
+        this.collectionType = erasure("java.util.Collection");
+        this.abstractCollectionType = erasure("java.util.AbstractCollection");
+        this.mapType = erasure("java.util.Map");
+    }
+
+    ObjectNode build(TypeElement type) throws UnsupportedTypeException {
+        return describe(type, types.erasure(type.asType()), new HashSet<List<String>>(), "#", 0);
+    }
+
+    private ObjectNode describe(TypeElement owner, TypeMirror type, Set<List<String>> managedReferences,
+                                String relativeId, int depth) throws UnsupportedTypeException {
+        ObjectNode node = SchemaWrapperFactory.MAPPER.createObjectNode();
+        if (type.getKind() == TypeKind.VOID) {
+            node.put("type", "null");
+            return node;
+        } else if (type.getKind().isPrimitive()) {
+            node.put("type", SimpleTypeMappings.forClass(PRIMITIVES.get(type.getKind())));
+            return node;
+        } else if (isBinary(type)) {
+            node.put("type", "string");
+            return node;
+        } else if (type.getKind() == TypeKind.ARRAY) {
+            throw new UnsupportedTypeException(owner, "array type " + type);
+        } else if (type.getKind() != TypeKind.DECLARED) {
+            throw new UnsupportedTypeException(owner, "unsupported type " + type);
+        }
+
+        TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+        String name = element.getQualifiedName().toString();
+        if (name.equals("java.lang.Void")) {
+            node.put("type", "null");
+            return node;
+        }
+        String simpleType = simpleType(element, type);
+        ObjectNode builtinSchema = TypeClassifier.getBuiltinSchema(elements.getBinaryName(element).toString());
+        if (simpleType != null) {
+            node.put("type", simpleType);
+        } else if (builtinSchema != null) {
+            node.setAll(builtinSchema);
+        } else if (element.getKind() == ElementKind.ENUM) {
+            putEnum(node, element);
+        } else if (name.equals("java.lang.Object")) {
+            node.put("type", "object");
+        } else if (name.startsWith("java.") || name.startsWith("javax.")) {
+            throw new UnsupportedTypeException(owner, "platform type " + name);
+        } else if (types.isAssignable(type, mapType)) {
+            throw new UnsupportedTypeException(owner, "map type " + name);
+        } else if (depth > MAX_DEPTH) {
+            throw new UnsupportedTypeException(owner, "schema deeper than " + MAX_DEPTH);
+        } else if (isPolymorphic(element)) {
+            // Subtypes are not known to the hierarchy at compile time, and type ids need their definitions
+            throw new UnsupportedTypeException(owner, "polymorphic type " + name);
+        } else {
+            node.put("type", "object");
+            Attributes attributes = element.getAnnotation(Attributes.class);
+            if (attributes != null)
+                CustomSchemaWrapper.putAttributes(node, attributes);
+            putProperties(node, element, managedReferences, relativeId, depth);
+        }
+        return node;
+    }
+
+    private String simpleType(TypeElement element, TypeMirror type) throws UnsupportedTypeException {
+        String name = element.getQualifiedName().toString();
+        if (types.isAssignable(type, abstractCollectionType)) {
+            // Reflection finds the items type of collections binding it
+            if (!name.startsWith("java."))
+                throw new UnsupportedTypeException(element, "collection subclass " + name);
+            return "array";
+        }
+        if (!name.startsWith("java."))
+            return null;
+        try {
+            return SimpleTypeMappings.forClass(Class.forName(elements.getBinaryName(element).toString(), false,
+                    ElementSchemaBuilder.class.getClassLoader()));
+        } catch (ClassNotFoundException e) {
+            throw new UnsupportedTypeException(element, "platform type unavailable to the processor");
+        }
+    }
+
+    /**
+     * Mirrors {@link EnumSchemaWrapper}. Constants are named by their declaration, so they never read as numbers.
+     */
+    private void putEnum(ObjectNode node, TypeElement element) throws UnsupportedTypeException {
+        if (!element.getModifiers().contains(Modifier.FINAL))
+            throw new UnsupportedTypeException(element, "enum constants with a body");
+        for (ExecutableElement method : ElementFilter.methodsIn(element.getEnclosedElements())) {
+            if (method.getSimpleName().contentEquals("toString") && method.getParameters().isEmpty())
+                throw new UnsupportedTypeException(element, "enum overriding toString");
+        }
+        ArrayNode enumArray = node.putArray("enum");
+        for (VariableElement constant : ElementFilter.fieldsIn(element.getEnclosedElements())) {
+            if (constant.getKind() == ElementKind.ENUM_CONSTANT) {
+                enumArray.add(constant.getSimpleName().toString());
+                node.put("type", "string");
+            }
+        }
+    }
+
+    /**
+     * Mirrors {@link SchemaStreamWriter}, itself mirroring {@link PropertyWrapper}.
+     */
+    private void putProperties(ObjectNode node, TypeElement ownerType, Set<List<String>> managedReferences,
+                               String ownerRelativeId, int depth) throws UnsupportedTypeException {
+        ElementModel model = model(ownerType);
+        String ownerName = binaryName(ownerType);
+        ObjectNode properties = null;
+        ArrayNode required = null;
+
+        for (ExecutableElement method : model.getSortedGetters()) {
+            VariableElement field = model.findField(CustomSchemaWrapper.getNameFromGetter(method.getSimpleName().toString()));
+            if (field == null)
+                continue;
+
+            String name = field.getSimpleName().toString();
+            String relativeId;
+            checkResolved(ownerType, method);
+            TypeMirror returnType = types.erasure(method.getReturnType());
+            TypeMirror propertyType = returnType;
+            boolean collection = returnType.getKind() == TypeKind.ARRAY && !isBinary(returnType)
+                    || returnType.getKind() == TypeKind.DECLARED && types.isAssignable(returnType, collectionType);
+            if (collection) {
+                propertyType = itemsType(ownerType, method);
+                relativeId = PROPERTIES_STR + name + ITEMS_STR;
+            } else {
+                relativeId = PROPERTIES_STR + name;
+            }
+            String propertyName = typeName(propertyType);
+
+            List<String> managedReference = null;
+            boolean backward = false;
+            JsonManagedReference refAnn = field.getAnnotation(JsonManagedReference.class);
+            if (refAnn != null)
+                managedReference = Arrays.asList(ownerName, refAnn.value(), propertyName);
+            JsonBackReference backRefAnn = field.getAnnotation(JsonBackReference.class);
+            if (backRefAnn != null) {
+                if (managedReference != null)
+                    throw new UnsupportedTypeException(ownerType, name + " is both a managed and a back reference");
+                managedReference = Arrays.asList(propertyName, backRefAnn.value(), ownerName);
+                backward = true;
+            }
+
+            ObjectNode schema;
+            if (field.getAnnotation(SchemaIgnore.class) != null) {
+                continue;
+            } else if (backward) {
+                String ref;
+                Attributes returnTypeAttributes = returnType.getKind() == TypeKind.DECLARED
+                        ? ((DeclaredType) returnType).asElement().getAnnotation(Attributes.class) : null;
+                if (returnTypeAttributes != null && !returnTypeAttributes.id().isEmpty()) {
+                    ref = returnTypeAttributes.id();
+                    managedReferences.remove(managedReference);
+                } else if (managedReferences.remove(managedReference)) {
+                    ref = backReference(ownerType, ownerRelativeId);
+                } else {
+                    continue;
+                }
+                schema = ref(ref, collection);
+            } else if (types.isSameType(types.erasure(ownerType.asType()), propertyType)) {
+                schema = ref(ownerRelativeId, collection);
+            } else {
+                if (managedReference != null)
+                    managedReferences.add(managedReference);
+                String propertyRelativeId = ownerRelativeId + relativeId;
+                ObjectNode child = describe(ownerType, propertyType, managedReferences, propertyRelativeId, depth + 1);
+                boolean enumWrapper = false;
+                if (collection) {
+                    schema = SchemaWrapperFactory.MAPPER.createObjectNode();
+                    schema.put("type", "array");
+                    schema.put("items", child);
+                } else {
+                    schema = child;
+                    enumWrapper = isEnum(propertyType);
+                }
+                boolean readonly = !model.hasSetter(method);
+                if (PropertyWrapper.putAttributes(schema, field.getAnnotation(Attributes.class),
+                        model.getEnums(name), readonly)) {
+                    if (required == null)
+                        required = SchemaWrapperFactory.MAPPER.createArrayNode();
+                    required.add(name);
+                }
+                if (field.getAnnotation(Nullable.class) != null)
+                    PropertyWrapper.putNullable(schema, enumWrapper);
+            }
+
+            if (properties == null)
+                properties = node.putObject(CustomSchemaWrapper.TAG_PROPERTIES);
+            properties.put(name, schema);
+        }
+
+        if (required != null)
+            node.put(CustomSchemaWrapper.TAG_REQUIRED, required);
+    }
+
+    /**
+     * Only items of a primitive or of a non parameterized declared type are mirrored: reflection resolves raw,
+     * wildcard, variable, parameterized and nested items types, where the language model only sees erasures.
+     */
+    private TypeMirror itemsType(TypeElement ownerType, ExecutableElement method) throws UnsupportedTypeException {
+        TypeMirror genericType = method.getReturnType();
+        if (genericType.getKind() == TypeKind.ARRAY) {
+            TypeMirror componentType = ((ArrayType) genericType).getComponentType();
+            if (componentType.getKind().isPrimitive() || componentType.getKind() == TypeKind.DECLARED
+                    && ((DeclaredType) componentType).getTypeArguments().isEmpty()) {
+                return componentType;
+            }
+        } else if (genericType.getKind() == TypeKind.DECLARED) {
+            List<? extends TypeMirror> arguments = ((DeclaredType) genericType).getTypeArguments();
+            if (!arguments.isEmpty() && arguments.get(0).getKind() == TypeKind.DECLARED
+                    && ((DeclaredType) arguments.get(0)).getTypeArguments().isEmpty()) {
+                return arguments.get(0);
+            }
+        }
+        throw new UnsupportedTypeException(ownerType, "items type of " + method.getSimpleName() + " is not a class");
+    }
+
+    /**
+     * Reflection resolves type variables against the type using them, and describes the type arguments of
+     * parameterized custom types, where the language model only sees erasures.
+     */
+    private void checkResolved(TypeElement ownerType, ExecutableElement method) throws UnsupportedTypeException {
+        TypeMirror returnType = method.getReturnType();
+        if (returnType.getKind() == TypeKind.TYPEVAR)
+            throw new UnsupportedTypeException(ownerType, method.getSimpleName() + " returns a type variable");
+        if (returnType.getKind() == TypeKind.DECLARED && !((DeclaredType) returnType).getTypeArguments().isEmpty()
+                && !types.isAssignable(types.erasure(returnType), collectionType)) {
+            throw new UnsupportedTypeException(ownerType, method.getSimpleName() + " returns a parameterized type");
+        }
+    }
+
+    private String backReference(TypeElement ownerType, String ownerRelativeId) throws UnsupportedTypeException {
+        String ref = ownerRelativeId;
+        try {
+            if (ref.endsWith(ITEMS_STR)) {
+                return ref.substring(0, ref.substring(0, ref.length() - ITEMS_STR.length()).lastIndexOf("/") - (PROPERTIES_STR.length() - 1));
+            } else {
+                return ref.substring(0, ref.lastIndexOf("/") - (PROPERTIES_STR.length() - 1));
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new UnsupportedTypeException(ownerType, "back reference from the root");
+        }
+    }
+
+    private static ObjectNode ref(String ref, boolean array) {
+        ObjectNode node = SchemaWrapperFactory.MAPPER.createObjectNode();
+        if (array) {
+            node.put("type", "array");
+            node.putObject("items").put("$ref", ref);
+        } else {
+            node.put("$ref", ref);
+        }
+        return node;
+    }
+
+    private boolean isEnum(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED
+                && ((DeclaredType) type).asElement().getKind() == ElementKind.ENUM;
+    }
+
+    /**
+     * Mirrors the byte arrays known to {@link TypeClassifier}, which are strings.
+     */
+    private boolean isBinary(TypeMirror type) {
+        if (type.getKind() != TypeKind.ARRAY)
+            return false;
+        TypeMirror componentType = ((ArrayType) type).getComponentType();
+        return componentType.getKind() == TypeKind.BYTE || componentType.getKind() == TypeKind.DECLARED
+                && ((TypeElement) ((DeclaredType) componentType).asElement()).getQualifiedName()
+                .contentEquals("java.lang.Byte");
+    }
+
+    /**
+     * @return whether a class lists subtypes or belongs to a hierarchy writing type ids
+     */
+    private boolean isPolymorphic(TypeElement element) {
+        if (element.getAnnotation(JsonTypeInfo.class) != null || element.getAnnotation(JsonSubTypes.class) != null)
+            return true;
+        for (TypeMirror supertype : types.directSupertypes(element.asType())) {
+            if (supertype.getKind() == TypeKind.DECLARED
+                    && isPolymorphic((TypeElement) ((DeclaredType) supertype).asElement()))
+                return true;
+        }
+        return false;
+    }
+
+    private ElementModel model(TypeElement type) throws UnsupportedTypeException {
+        ElementModel model = models.get(type);
+        if (model == null) {
+            model = new ElementModel(type, elements, types);
+            models.put(type, model);
+        }
+        return model;
+    }
+
+    /**
+     * Names a type for managed references, which only compare names with each other.
+     */
+    private String typeName(TypeMirror type) {
+        if (type.getKind() == TypeKind.DECLARED)
+            return binaryName((TypeElement) ((DeclaredType) type).asElement());
+        return type.toString();
+    }
+
+    private String binaryName(TypeElement type) {
+        return elements.getBinaryName(type).toString();
+    }
+
+    private TypeMirror erasure(String name) {
+        return types.erasure(elements.getTypeElement(name).asType());
+    }
+}
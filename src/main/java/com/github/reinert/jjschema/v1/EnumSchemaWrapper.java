@@ -20,8 +20,7 @@ package com.github.reinert.jjschema.v1;
 
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.github.reinert.jjschema.Nullable;
-
-import java.math.BigDecimal;
+import com.github.reinert.jjschema.introspection.EnumModel;
 
 /**
  * @author Danilo Reinert
@@ -49,30 +48,10 @@ public class EnumSchemaWrapper extends SchemaWrapper {
         }
     }
 
-    private <T> void processEnum(Class<T> type) {
-        ArrayNode enumArray = getNode().putArray("enum");
-        for (T constant : type.getEnumConstants()) {
-            String value = constant.toString();
-            // Check if value is numeric
-            try {
-                // First verifies if it is an integer
-                Long integer = Long.parseLong(value);
-                enumArray.add(integer);
-                setType("integer");
-            }
-            // If not then verifies if it is an floating point number
-            catch (NumberFormatException e) {
-                try {
-                    BigDecimal number = new BigDecimal(value);
-                    enumArray.add(number);
-                    setType("number");
-                }
-                // Otherwise add as String
-                catch (NumberFormatException e1) {
-                    enumArray.add(value);
-                    setType("string");
-                }
-            }
-        }
+    private void processEnum(Class<?> type) {
+        EnumModel model = EnumModel.of(type);
+        getNode().put("enum", model.getValues());
+        if (model.getType() != null)
+            setType(model.getType());
     }
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+/**
+ * The budgets which may cut a schema generation short, set with {@link JsonSchemaFactory#setMaxDepth(int)},
+ * {@link JsonSchemaFactory#setMaxNodes(int)} and {@link JsonSchemaFactory#setTimeout(long, java.util.concurrent.TimeUnit)}.
+ *
+ * @author Danilo Reinert
+ */
+
+public enum GenerationBudget {
+    /** Custom types nested too deep */
+    DEPTH,
+    /** Too many subschemas generated before reaching a custom type */
+    NODES,
+    /** Generation running for too long */
+    DEADLINE
+}
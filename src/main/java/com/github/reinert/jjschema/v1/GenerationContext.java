@@ -0,0 +1,363 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.reinert.jjschema.AnnotationTranslator;
+import com.github.reinert.jjschema.ManagedReference;
+import com.github.reinert.jjschema.introspection.EnumModel;
+import com.github.reinert.jjschema.introspection.MemberAnnotations;
+import com.github.reinert.jjschema.introspection.PolymorphicModel;
+import com.github.reinert.jjschema.metrics.GenerationListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the options and the state of a single schema generation, shared by all the wrappers built for it.
+ * <p>
+ * When definitions are enabled, the first custom type created becomes the root. Every other custom type is
+ * generated only once, under the root {@code definitions} keyword, and referenced by {@code $ref} wherever it
+ * is used. So are enums of at least {@link #LARGE_ENUM_SIZE} constants, which are not worth repeating.
+ * <p>
+ * Types listing their subtypes with {@link com.fasterxml.jackson.annotation.JsonSubTypes} are described as one of
+ * references to definitions of the subtypes, even when definitions are disabled, so that each subtype is
+ * generated once per schema however many properties use the hierarchy.
+ * <p>
+ * The context also forwards the events of the generation to its {@link GenerationListener}, if any, and keeps the
+ * {@link GenerationBudget}s: a nested custom type found once a budget has run out is replaced by an open schema,
+ * or by a reference to its definition if it already has one.
+ * <p>
+ * A lazy context lets custom types defer their properties until they are iterated or the JSON of the type is
+ * asked for, provided that deferring cannot change the result: definitions and budgets depend on the order types
+ * are generated in, and so do managed and back references and the definitions of subtypes, hence types using
+ * them are still generated eagerly.
+ *
+ * @author Danilo Reinert
+ */
+
+public final class GenerationContext {
+
+    public static final String TAG_DEFINITIONS = "definitions";
+    /**
+     * The number of constants from which an enum is referenced instead of inlined, when definitions are enabled,
+     * however many properties use it.
+     */
+    public static final int LARGE_ENUM_SIZE = 16;
+    private static final String DEFINITIONS_PREFIX = "#/" + TAG_DEFINITIONS + "/";
+
+    private final boolean useDefinitions;
+    private final GenerationListener listener;
+    private boolean lazy;
+    private List<AnnotationTranslator<?>> translators = Collections.emptyList();
+    private OpaqueTypes opaqueTypes = OpaqueTypes.NONE;
+    private int depth;
+    private int nodes;
+    private int maxDepth = Integer.MAX_VALUE;
+    private int maxNodes = Integer.MAX_VALUE;
+    private boolean hasDeadline;
+    private long deadline;
+    private GenerationBudget exceededBudget;
+    private Class<?> rootType;
+    private boolean started;
+    private final Map<Class<?>, String> definitionNames = new HashMap<Class<?>, String>();
+    private final Map<String, SchemaWrapper> definitions = new LinkedHashMap<String, SchemaWrapper>();
+
+    public GenerationContext() {
+        this(false);
+    }
+
+    public GenerationContext(boolean useDefinitions) {
+        this(useDefinitions, null);
+    }
+
+    /**
+     * @param listener the listener of the generation, or null
+     */
+    public GenerationContext(boolean useDefinitions, GenerationListener listener) {
+        this.useDefinitions = useDefinitions;
+        this.listener = listener;
+    }
+
+    public GenerationListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Sets the budgets of the generation, the deadline starting from now.
+     *
+     * @param maxDepth how deep custom types may nest below the root type
+     * @param maxNodes how many subschemas, custom types and properties, may be generated
+     * @param timeoutNanos how long the generation may run, 0 for no deadline
+     */
+    void limit(int maxDepth, int maxNodes, long timeoutNanos) {
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+        this.hasDeadline = timeoutNanos > 0;
+        this.deadline = System.nanoTime() + timeoutNanos;
+    }
+
+    /**
+     * @param translators the translators run on every property, after its {@link com.github.reinert.jjschema.Attributes}
+     */
+    void setTranslators(List<AnnotationTranslator<?>> translators) {
+        this.translators = translators;
+    }
+
+    void setOpaqueTypes(OpaqueTypes opaqueTypes) {
+        this.opaqueTypes = opaqueTypes;
+    }
+
+    /**
+     * Creates the placeholder of a nested custom type the generation must not descend into. The root type is
+     * always generated.
+     *
+     * @return the placeholder, or null if the type is to be generated
+     */
+    SchemaWrapper opaqueWrapper(Class<?> type) {
+        if (depth == 0 || opaqueTypes.isEmpty())
+            return null;
+        return opaqueTypes.wrapperOf(type);
+    }
+
+    /**
+     * Runs the translators of the generation on a property.
+     */
+    void translate(MemberAnnotations annotations, ObjectNode schema) {
+        if (!translators.isEmpty())
+            annotations.translate(translators, schema);
+    }
+
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    /**
+     * @param lazy whether custom types may defer their properties, false by default
+     */
+    public void setLazy(boolean lazy) {
+        this.lazy = lazy;
+    }
+
+    /**
+     * @return whether custom types may defer their properties, which requires neither definitions nor budgets
+     */
+    boolean isDeferring() {
+        return lazy && !useDefinitions && maxDepth == Integer.MAX_VALUE && maxNodes == Integer.MAX_VALUE
+                && !hasDeadline;
+    }
+
+    /**
+     * @return the first budget which ran out, or null if the schema is complete
+     */
+    public GenerationBudget getExceededBudget() {
+        return exceededBudget;
+    }
+
+    public boolean isUseDefinitions() {
+        return useDefinitions;
+    }
+
+    /**
+     * Tells whether a custom type must be referenced instead of inlined. The first type asked for becomes the root.
+     */
+    boolean isReferenced(Class<?> type) {
+        if (!useDefinitions)
+            return false;
+        if (rootType == null) {
+            rootType = type;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Creates a reference to the schema of a custom type, generating its definition on the first use.
+     * The definition is registered before being generated, so cyclic types end up referencing it.
+     *
+     * @param type the custom type
+     * @return a reference to the root, if type is the root type, or to the definition of type, or an open schema
+     * if the definition is yet to be generated but a budget ran out
+     */
+    SchemaWrapper reference(Class<?> type) {
+        if (type == rootType) {
+            referenceCycle(type);
+            return new RefSchemaWrapper(type, "#");
+        }
+        return referenceDefinition(type);
+    }
+
+    /**
+     * Creates the schema of a type listing its subtypes, whatever the definitions setting: one of references to
+     * the definitions of the subtypes, each generated on its first use. The type becomes the root if none was
+     * asked for yet, but even as the root it is referenced as a subtype by its definition.
+     *
+     * @return the references, or an open schema if the definition of a subtype is yet to be generated but a
+     * budget ran out
+     */
+    SchemaWrapper referenceSubtypes(Class<?> type) {
+        if (useDefinitions && rootType == null)
+            rootType = type;
+        List<SchemaWrapper> alternatives = new ArrayList<SchemaWrapper>();
+        for (Class<?> subtype : PolymorphicModel.of(type).getSubtypes()) {
+            SchemaWrapper alternative = subtype == type ? referenceDefinition(subtype) : reference(subtype);
+            if (!alternative.isRefWrapper())
+                return new OpenSchemaWrapper(type);
+            alternatives.add(alternative);
+        }
+        return new OneOfSchemaWrapper(type, alternatives);
+    }
+
+    private SchemaWrapper referenceDefinition(Class<?> type) {
+        String name = definitionNames.get(type);
+        if (name != null && definitions.get(name) == null) {
+            referenceCycle(type);
+        } else if (name == null) {
+            if (checkBudgets(type) != null)
+                return new OpenSchemaWrapper(type);
+            name = nameOf(type);
+            definitionNames.put(type, name);
+            definitions.put(name, null);
+            definitions.put(name, new CustomSchemaWrapper(type, new HashSet<ManagedReference>(),
+                    DEFINITIONS_PREFIX + name, this));
+        }
+        return new RefSchemaWrapper(type, DEFINITIONS_PREFIX + name);
+    }
+
+    /**
+     * Tells whether an enum must be referenced instead of inlined, which is the case of large enums used by a type
+     * other than the root.
+     */
+    boolean isReferencedEnum(Class<?> type) {
+        return useDefinitions && rootType != null && EnumModel.of(type).size() >= LARGE_ENUM_SIZE;
+    }
+
+    /**
+     * Creates a reference to the schema of an enum, generating its definition on the first use. Enums are never
+     * cut by a budget.
+     */
+    SchemaWrapper referenceEnum(Class<?> type) {
+        String name = definitionNames.get(type);
+        if (name == null) {
+            name = nameOf(type);
+            definitionNames.put(type, name);
+            definitions.put(name, new EnumSchemaWrapper(type));
+        }
+        return new RefSchemaWrapper(type, DEFINITIONS_PREFIX + name);
+    }
+
+    /**
+     * Marks the start of the generation of a custom type.
+     *
+     * @return the start time to pass to {@link #typeGenerated(Class, long, int)}
+     */
+    long typeStarted() {
+        depth++;
+        nodes++;
+        return listener == null ? 0 : System.nanoTime();
+    }
+
+    void typeGenerated(Class<?> type, long startTime, int properties) {
+        depth--;
+        if (listener != null)
+            listener.typeGenerated(type, System.nanoTime() - startTime, properties, depth);
+    }
+
+    int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Resumes the generation of a deferred type at the depth it was found at.
+     *
+     * @return the depth to resume afterwards
+     */
+    int resume(int depth) {
+        int current = this.depth;
+        this.depth = depth;
+        return current;
+    }
+
+    void nodeGenerated() {
+        nodes++;
+    }
+
+    /**
+     * Checks the budgets before generating a nested custom type. The root type is always generated.
+     *
+     * @return the budget which ran out, or null if the type may be generated
+     */
+    GenerationBudget checkBudgets(Class<?> type) {
+        GenerationBudget exceeded = null;
+        if (depth == 0)
+            return null;
+        if (depth > maxDepth)
+            exceeded = GenerationBudget.DEPTH;
+        else if (nodes >= maxNodes)
+            exceeded = GenerationBudget.NODES;
+        else if (hasDeadline && System.nanoTime() - deadline > 0)
+            exceeded = GenerationBudget.DEADLINE;
+        if (exceeded != null) {
+            if (exceededBudget == null)
+                exceededBudget = exceeded;
+            if (listener != null)
+                listener.budgetExceeded(type, exceeded);
+        }
+        return exceeded;
+    }
+
+    void referenceCycle(Class<?> type) {
+        if (listener != null)
+            listener.referenceCycle(type);
+    }
+
+    /**
+     * Tells whether the wrapper about to be created is the first one of the generation, hence its root.
+     */
+    boolean startRoot() {
+        if (started)
+            return false;
+        started = true;
+        return true;
+    }
+
+    /**
+     * Puts the generated definitions, if any, into the root schema node, replacing the ones put before.
+     */
+    void putDefinitions(ObjectNode node) {
+        if (definitions.isEmpty())
+            return;
+        ObjectNode definitionsNode = node.putObject(TAG_DEFINITIONS);
+        for (Map.Entry<String, SchemaWrapper> definition : definitions.entrySet()) {
+            definitionsNode.put(definition.getKey(), definition.getValue().asJson());
+        }
+    }
+
+    private String nameOf(Class<?> type) {
+        String name = type.getSimpleName();
+        if (name.isEmpty() || definitions.containsKey(name))
+            name = type.getName();
+        return name;
+    }
+}
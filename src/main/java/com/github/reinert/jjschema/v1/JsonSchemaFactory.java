@@ -18,7 +18,27 @@
 
 package com.github.reinert.jjschema.v1;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.reinert.jjschema.AnnotationTranslator;
+import com.github.reinert.jjschema.introspection.TypeClassifier;
+import com.github.reinert.jjschema.metrics.GenerationListener;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created with IntelliJ IDEA.
@@ -32,9 +52,118 @@ import com.fasterxml.jackson.databind.JsonNode;
 public abstract class JsonSchemaFactory {
 
     private boolean autoPutDollarSchema;
+    private boolean useDefinitions;
+    private boolean usePrecomputedSchemas = true;
+    private SchemaCache cache;
+    private ForkJoinPool pool;
+    private GenerationListener listener;
+    private int maxDepth = Integer.MAX_VALUE;
+    private int maxNodes = Integer.MAX_VALUE;
+    private long timeoutNanos;
+    private final List<AnnotationTranslator<?>> translators = new CopyOnWriteArrayList<AnnotationTranslator<?>>();
+    private OpaqueTypes opaqueTypes = OpaqueTypes.NONE;
 
     public abstract JsonNode createSchema(Class<?> type);
 
+    /**
+     * Creates the schema of a class within a context made by {@link #createContext()}, which then tells whether a
+     * budget cut the schema. This implementation ignores the context; factories generating within one override it.
+     *
+     * @param type the class
+     * @param context the context, used for this schema only
+     */
+    public JsonNode createSchema(Class<?> type, GenerationContext context) {
+        return createSchema(type);
+    }
+
+    /**
+     * Writes the schema of a class to a generator. This implementation writes the tree returned by
+     * {@link #createSchema(Class)}; factories able to stream the schema override it.
+     *
+     * @param type the class
+     * @param generator the generator, left open
+     */
+    public void writeSchema(Class<?> type, JsonGenerator generator) throws IOException {
+        SchemaWrapperFactory.MAPPER.writeTree(generator, createSchema(type));
+    }
+
+    /**
+     * Writes the schema of a class to a generator within a context made by {@link #createContext()}, as
+     * {@link #createSchema(Class, GenerationContext)} creates it. This implementation writes the tree it returns;
+     * factories able to stream the schema override it.
+     *
+     * @param type the class
+     * @param generator the generator, left open
+     * @param context the context, used for this schema only
+     */
+    public void writeSchema(Class<?> type, JsonGenerator generator, GenerationContext context) throws IOException {
+        SchemaWrapperFactory.MAPPER.writeTree(generator, createSchema(type, context));
+    }
+
+    /**
+     * Writes the schema of a class to a stream as UTF-8 encoded JSON.
+     *
+     * @param type the class
+     * @param out the stream, flushed but left open
+     */
+    public void writeSchema(Class<?> type, OutputStream out) throws IOException {
+        JsonGenerator generator = createGenerator(out);
+        try {
+            writeSchema(type, generator);
+        } finally {
+            generator.close();
+        }
+    }
+
+    /**
+     * Writes the schema of a class to a stream as UTF-8 encoded JSON, within a context made by
+     * {@link #createContext()}.
+     *
+     * @param type the class
+     * @param out the stream, flushed but left open
+     * @param context the context, used for this schema only
+     */
+    public void writeSchema(Class<?> type, OutputStream out, GenerationContext context) throws IOException {
+        JsonGenerator generator = createGenerator(out);
+        try {
+            writeSchema(type, generator, context);
+        } finally {
+            generator.close();
+        }
+    }
+
+    private static JsonGenerator createGenerator(OutputStream out) throws IOException {
+        JsonGenerator generator = SchemaWrapperFactory.MAPPER.getFactory().createJsonGenerator(out, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+
+    /**
+     * Generates the schemas of many classes in parallel, on the pool set by {@link #setPool(ForkJoinPool)}.
+     * Each schema is the same as the one returned by {@link #createSchema(Class)}; a class which fails, even with a
+     * linkage error such as a {@link NoClassDefFoundError}, does not stop the others and is reported in
+     * {@link BatchResult#getFailures()}.
+     *
+     * @param types the classes, duplicates being generated once
+     * @return the schemas and the failures, in the order of the given classes
+     */
+    public BatchResult createSchemas(Collection<? extends Class<?>> types) {
+        Class<?>[] distinct = new LinkedHashSet<Class<?>>(types).toArray(new Class<?>[0]);
+        JsonNode[] schemas = new JsonNode[distinct.length];
+        Throwable[] failures = new Throwable[distinct.length];
+        getPool().invoke(new BatchGenerationTask(this, distinct, schemas, failures, 0, distinct.length));
+
+        Map<Class<?>, JsonNode> schemaMap = new LinkedHashMap<Class<?>, JsonNode>();
+        Map<Class<?>, Throwable> failureMap = new LinkedHashMap<Class<?>, Throwable>();
+        for (int i = 0; i < distinct.length; i++) {
+            if (failures[i] != null)
+                failureMap.put(distinct[i], failures[i]);
+            else
+                schemaMap.put(distinct[i], schemas[i]);
+        }
+        return new BatchResult(schemaMap, failureMap);
+    }
+
     public boolean isAutoPutDollarSchema() {
         return autoPutDollarSchema;
     }
@@ -42,4 +171,235 @@ public abstract class JsonSchemaFactory {
     public void setAutoPutDollarSchema(boolean autoPutDollarSchema) {
         this.autoPutDollarSchema = autoPutDollarSchema;
     }
+
+    public boolean isUseDefinitions() {
+        return useDefinitions;
+    }
+
+    /**
+     * If true, each custom type is generated once into the root {@code definitions} and referenced by
+     * {@code $ref} wherever it is used, instead of being inlined at every use.
+     *
+     * @param useDefinitions whether to use definitions, false by default
+     */
+    public void setUseDefinitions(boolean useDefinitions) {
+        this.useDefinitions = useDefinitions;
+    }
+
+    public boolean isUsePrecomputedSchemas() {
+        return usePrecomputedSchemas;
+    }
+
+    /**
+     * If true, the schemas written at build time by {@link SchemaProcessor} are used instead of generating them
+     * by reflection. They are never used together with definitions.
+     *
+     * @param usePrecomputedSchemas whether to use precomputed schemas, true by default
+     */
+    public void setUsePrecomputedSchemas(boolean usePrecomputedSchemas) {
+        this.usePrecomputedSchemas = usePrecomputedSchemas;
+    }
+
+    public SchemaCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Sets the cache used to store the generated schemas. The same cache may be shared by many factories,
+     * since entries are keyed by the factory configuration as well.
+     *
+     * @param cache the cache, or null for disabling caching (the default)
+     */
+    public void setCache(SchemaCache cache) {
+        this.cache = cache;
+    }
+
+    public GenerationListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Sets the listener notified of the generations of this factory, e.g. a
+     * {@link com.github.reinert.jjschema.metrics.GenerationMetrics}.
+     *
+     * @param listener the listener, or null for none (the default)
+     */
+    public void setListener(GenerationListener listener) {
+        this.listener = listener;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Limits how deep custom types may nest below the root type. Deeper types are replaced by an open schema, or
+     * by a reference to their definition if they already have one, and the listener is notified of the
+     * {@link GenerationBudget#DEPTH} budget running out.
+     *
+     * @param maxDepth the maximum depth, 0 for generating the root type alone, unlimited by default
+     */
+    public void setMaxDepth(int maxDepth) {
+        if (maxDepth < 0)
+            throw new IllegalArgumentException("Negative depth: " + maxDepth);
+        this.maxDepth = maxDepth;
+    }
+
+    public int getMaxNodes() {
+        return maxNodes;
+    }
+
+    /**
+     * Limits how many subschemas, custom types and properties, a generation may produce. The budget only stops the
+     * expansion of custom types: those found once it has run out are cut as with {@link #setMaxDepth(int)}, while
+     * the properties of the types already being generated are all kept, so a wide type may exceed it.
+     *
+     * @param maxNodes the maximum number of subschemas, unlimited by default
+     */
+    public void setMaxNodes(int maxNodes) {
+        if (maxNodes < 1)
+            throw new IllegalArgumentException("Node budget must be positive: " + maxNodes);
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * @return the time a single generation may run, 0 if unlimited
+     */
+    public long getTimeout(TimeUnit unit) {
+        return unit.convert(timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Limits the time a single generation may run. Custom types found after the deadline are cut as with
+     * {@link #setMaxDepth(int)}. Schemas cut by any budget are never cached.
+     *
+     * @param timeout the time, 0 for no deadline (the default)
+     */
+    public void setTimeout(long timeout, TimeUnit unit) {
+        if (timeout < 0)
+            throw new IllegalArgumentException("Negative timeout: " + timeout);
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    public List<AnnotationTranslator<?>> getAnnotationTranslators() {
+        return Collections.unmodifiableList(translators);
+    }
+
+    /**
+     * Registers a translator of a custom property annotation. Precomputed schemas are not used once a translator
+     * is registered, since they do not know about it.
+     *
+     * @param translator the translator, run after those already registered
+     */
+    public void addAnnotationTranslator(AnnotationTranslator<?> translator) {
+        if (translator == null)
+            throw new NullPointerException("translator");
+        translators.add(translator);
+    }
+
+    /**
+     * Marks the classes of a package and of its subpackages as opaque: wherever they are nested, they are
+     * replaced by a placeholder instead of being generated.
+     *
+     * @param packageName the package, e.g. {@code org.hibernate}
+     * @param placeholder the schema replacing the classes, a reference if it holds nothing but {@code $ref}, or
+     *                    null for an open schema
+     */
+    public void addOpaquePackage(String packageName, ObjectNode placeholder) {
+        if (packageName == null)
+            throw new NullPointerException("packageName");
+        opaqueTypes = opaqueTypes.withPackage(packageName, placeholder);
+    }
+
+    /**
+     * Marks a type and its subtypes as opaque, as {@link #addOpaquePackage(String, ObjectNode)} does.
+     */
+    public void addOpaqueType(Class<?> type, ObjectNode placeholder) {
+        if (type == null)
+            throw new NullPointerException("type");
+        opaqueTypes = opaqueTypes.withType(type, placeholder);
+    }
+
+    /**
+     * Marks the types bearing an annotation as opaque, as {@link #addOpaquePackage(String, ObjectNode)} does. The
+     * annotation must be retained at runtime.
+     */
+    public void addOpaqueAnnotation(Class<? extends Annotation> annotation, ObjectNode placeholder) {
+        if (annotation == null)
+            throw new NullPointerException("annotation");
+        opaqueTypes = opaqueTypes.withAnnotation(annotation, placeholder);
+    }
+
+    /**
+     * @return whether some types are opaque
+     */
+    protected boolean hasOpaqueTypes() {
+        return !opaqueTypes.isEmpty();
+    }
+
+    /**
+     * @return whether a depth or a node budget may cut the generated schemas
+     */
+    protected boolean isSizeLimited() {
+        return maxDepth != Integer.MAX_VALUE || maxNodes != Integer.MAX_VALUE;
+    }
+
+    /**
+     * Creates the context of a single generation with the options of this factory, to be passed to
+     * {@link #createSchema(Class, GenerationContext)} or {@link #writeSchema(Class, JsonGenerator, GenerationContext)}.
+     * Afterwards, {@link GenerationContext#getExceededBudget()} tells whether a budget cut the schema.
+     */
+    public GenerationContext createContext() {
+        return createContext(useDefinitions);
+    }
+
+    /**
+     * Creates the context of a single generation, holding the budgets and the listener of this factory.
+     */
+    protected GenerationContext createContext(boolean useDefinitions) {
+        GenerationContext context = new GenerationContext(useDefinitions, listener);
+        context.limit(maxDepth, maxNodes, timeoutNanos);
+        if (!translators.isEmpty())
+            context.setTranslators(new ArrayList<AnnotationTranslator<?>>(translators));
+        context.setOpaqueTypes(opaqueTypes);
+        return context;
+    }
+
+    /**
+     * @return the pool running {@link #createSchemas(Collection)}, a pool shared by all factories if none was set
+     */
+    public ForkJoinPool getPool() {
+        return pool != null ? pool : DefaultPool.INSTANCE;
+    }
+
+    /**
+     * Sets the pool running {@link #createSchemas(Collection)}.
+     *
+     * @param pool the pool, or null for using the shared one sized by the available processors
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Identifies the options which affect the generated schemas, so that a {@link SchemaCache} shared by
+     * differently configured factories never mixes their outputs.
+     *
+     * @return the configuration key of this factory
+     */
+    protected String getConfigurationKey() {
+        String key = getClass().getName() + ";autoPutDollarSchema=" + autoPutDollarSchema
+                + ";useDefinitions=" + useDefinitions;
+        for (AnnotationTranslator<?> translator : translators) {
+            key += ";translator=" + translator.getClass().getName();
+        }
+        key += opaqueTypes.getKey();
+        if (TypeClassifier.getVersion() > 0)
+            key += ";registeredTypes=" + TypeClassifier.getVersion();
+        return isSizeLimited() ? key + ";maxDepth=" + maxDepth + ";maxNodes=" + maxNodes : key;
+    }
+
+    private static final class DefaultPool {
+        static final ForkJoinPool INSTANCE = new ForkJoinPool();
+    }
 }
@@ -18,7 +18,14 @@
 
 package com.github.reinert.jjschema.v1;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.fge.jsonschema.SchemaVersion;
+import com.github.reinert.jjschema.introspection.TypeClassifier;
+import com.github.reinert.jjschema.metrics.GenerationListener;
+
+import java.io.IOException;
 
 /**
  * Created with IntelliJ IDEA.
@@ -33,9 +40,128 @@ public class JsonSchemaV4Factory extends JsonSchemaFactory {
 
     @Override
     public JsonNode createSchema(Class<?> type) {
-        SchemaWrapper schemaWrapper = SchemaWrapperFactory.createWrapper(type);
+        return findOrGenerate(type, null);
+    }
+
+    /**
+     * Precomputed and cached schemas are never cut, leaving the context untouched.
+     */
+    @Override
+    public JsonNode createSchema(Class<?> type, GenerationContext context) {
+        if (context == null)
+            throw new NullPointerException("context");
+        return findOrGenerate(type, context);
+    }
+
+    /**
+     * @param context the context, or null for creating one only if the schema is generated
+     */
+    private JsonNode findOrGenerate(Class<?> type, GenerationContext context) {
+        JsonNode precomputed = findPrecomputedSchema(type);
+        if (precomputed != null)
+            return precomputed;
+
+        SchemaCache cache = getCache();
+        if (cache == null)
+            return context == null ? generateSchema(type) : generateSchema(type, context);
+
+        String configurationKey = getConfigurationKey();
+        JsonNode schema = cache.get(type, configurationKey);
+        notifyCacheLookup(type, schema != null);
+        if (schema == null) {
+            if (context == null)
+                context = createContext(isUseDefinitions());
+            schema = generateSchema(type, context);
+            if (context.getExceededBudget() == null)
+                cache.put(type, configurationKey, schema.deepCopy());
+        }
+        return schema;
+    }
+
+    /**
+     * Streams the schema to the generator without building its tree, unless it is precomputed, already cached or
+     * definitions are used. A schema written this way is not put into the cache.
+     */
+    @Override
+    public void writeSchema(Class<?> type, JsonGenerator generator) throws IOException {
+        streamOrWrite(type, generator, null);
+    }
+
+    @Override
+    public void writeSchema(Class<?> type, JsonGenerator generator, GenerationContext context) throws IOException {
+        if (context == null)
+            throw new NullPointerException("context");
+        streamOrWrite(type, generator, context);
+    }
+
+    /**
+     * @param context the context, or null for creating one only if the schema is generated
+     */
+    private void streamOrWrite(Class<?> type, JsonGenerator generator, GenerationContext context)
+            throws IOException {
+        if (isUseDefinitions() || context != null && context.isUseDefinitions()) {
+            SchemaWrapperFactory.MAPPER.writeTree(generator, findOrGenerate(type, context));
+            return;
+        }
+        JsonNode precomputed = findPrecomputedSchema(type);
+        SchemaCache cache = getCache();
+        JsonNode cached = precomputed != null || cache == null ? precomputed : cache.get(type, getConfigurationKey());
+        if (precomputed == null && cache != null)
+            notifyCacheLookup(type, cached != null);
+        if (cached != null) {
+            SchemaWrapperFactory.MAPPER.writeTree(generator, cached);
+            return;
+        }
+        GenerationListener listener = getListener();
+        long startTime = listener == null ? 0 : System.nanoTime();
+        SchemaStreamWriter writer = new SchemaStreamWriter(generator, context == null ? createContext(false) : context);
+        writer.write(type, isAutoPutDollarSchema());
+        if (listener != null)
+            listener.schemaStreamed(type, System.nanoTime() - startTime, writer.getNodes());
+    }
+
+    /**
+     * @return the schema written for the type by {@link SchemaProcessor}, or null if it has none or precomputed
+     * schemas are not used, which is also the case when a depth or a node budget is set, annotation translators
+     * are registered, types are registered to {@link TypeClassifier} or some types are opaque
+     */
+    protected JsonNode findPrecomputedSchema(Class<?> type) {
+        if (!isUsePrecomputedSchemas() || isUseDefinitions() || isSizeLimited()
+                || !getAnnotationTranslators().isEmpty() || TypeClassifier.hasRegisteredTypes() || hasOpaqueTypes())
+            return null;
+        JsonNode schema = PrecomputedSchemas.find(type);
+        if (schema != null && schema.isObject() && isAutoPutDollarSchema())
+            ((ObjectNode) schema).put("$schema", SchemaVersion.DRAFTV4.getLocation().toString());
+        return schema;
+    }
+
+    protected JsonNode generateSchema(Class<?> type) {
+        return generateSchema(type, createContext(isUseDefinitions()));
+    }
+
+    /**
+     * Generates the schema of a type within the given context, which tells afterwards whether a budget cut it.
+     */
+    protected JsonNode generateSchema(Class<?> type, GenerationContext context) {
+        GenerationListener listener = context.getListener();
+        long startTime = listener == null ? 0 : System.nanoTime();
+        SchemaWrapper schemaWrapper = SchemaWrapperFactory.createWrapper(type, null, null, context);
+        // The root wrapper puts the definitions, which come before $schema
+        JsonNode schema = schemaWrapper.asJson();
         if (isAutoPutDollarSchema())
             schemaWrapper.putDollarSchema();
-        return schemaWrapper.asJson();
+        if (listener != null)
+            listener.schemaGenerated(type, System.nanoTime() - startTime, schema);
+        return schema;
+    }
+
+    private void notifyCacheLookup(Class<?> type, boolean hit) {
+        GenerationListener listener = getListener();
+        if (listener == null)
+            return;
+        if (hit)
+            listener.cacheHit(type);
+        else
+            listener.cacheMiss(type);
     }
 }
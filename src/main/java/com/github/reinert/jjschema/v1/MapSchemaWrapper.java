@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.github.reinert.jjschema.ManagedReference;
+import com.github.reinert.jjschema.introspection.TypeResolver;
+
+import java.lang.reflect.Type;
+import java.util.Set;
+
+/**
+ * The schema of a {@link java.util.Map}: an object whose properties are all described by the schema of the map
+ * values. Keys are not described, JSON names being strings.
+ *
+ * @author Danilo Reinert
+ */
+
+public class MapSchemaWrapper extends SchemaWrapper {
+
+    final SchemaWrapper valuesSchemaWrapper;
+
+    /**
+     * Creates the wrapper of a resolved map type within a generation.
+     *
+     * @param relativeId the relative id of the map, its values being at {@code <relativeId>/additionalProperties}
+     */
+    public MapSchemaWrapper(Type type, Set<ManagedReference> managedReferences, String relativeId,
+                            GenerationContext context) {
+        super(TypeResolver.rawClass(type));
+        setType("object");
+        Type valueType = TypeResolver.valueType(type);
+        if (valueType != null) {
+            this.valuesSchemaWrapper = SchemaWrapperFactory.createWrapper(valueType, managedReferences,
+                    relativeId + "/" + SchemaWrapperFactory.TAG_ADDITIONAL_PROPERTIES, context);
+            getNode().put(SchemaWrapperFactory.TAG_ADDITIONAL_PROPERTIES, this.valuesSchemaWrapper.getNode());
+        } else {
+            this.valuesSchemaWrapper = null;
+        }
+    }
+
+    MapSchemaWrapper(Class<?> type, SchemaWrapper valuesSchemaWrapper) {
+        super(type);
+        setType("object");
+        this.valuesSchemaWrapper = valuesSchemaWrapper;
+        getNode().put(SchemaWrapperFactory.TAG_ADDITIONAL_PROPERTIES, this.valuesSchemaWrapper.getNode());
+    }
+
+    /**
+     * @return the schema of the values, or null if the map is raw
+     */
+    public SchemaWrapper getValuesSchema() {
+        return valuesSchemaWrapper;
+    }
+
+    @Override
+    void materialize() {
+        if (valuesSchemaWrapper != null)
+            valuesSchemaWrapper.materialize();
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+import java.util.List;
+
+/**
+ * The schema of a type listing its subtypes: one of the schemas of the subtypes, references to their definitions.
+ *
+ * @author Danilo Reinert
+ */
+
+public class OneOfSchemaWrapper extends SchemaWrapper {
+
+    public static final String TAG_ONE_OF = "oneOf";
+
+    public OneOfSchemaWrapper(Class<?> type, List<SchemaWrapper> alternatives) {
+        super(type);
+        ArrayNode oneOf = getNode().putArray(TAG_ONE_OF);
+        for (SchemaWrapper alternative : alternatives) {
+            oneOf.add(alternative.asJson());
+        }
+    }
+
+    @Override
+    protected void processNullable() {
+        // Nullable properties add null to the alternatives
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The types a generation does not descend into, each replaced by a placeholder schema. Types are matched by
+ * package, subpackages included, by supertype or by annotation, the first matching rule giving the placeholder.
+ * <p>
+ * Instances are immutable, and remember the placeholder of each class they are asked about.
+ *
+ * @author Danilo Reinert
+ */
+
+final class OpaqueTypes {
+
+    static final OpaqueTypes NONE = new OpaqueTypes(Collections.<Rule>emptyList());
+
+    private static final String REF = "$ref";
+    private static final ObjectNode TRANSPARENT = SchemaWrapperFactory.MAPPER.createObjectNode();
+
+    private final List<Rule> rules;
+    private final ClassValue<ObjectNode> placeholders = new ClassValue<ObjectNode>() {
+        @Override
+        protected ObjectNode computeValue(Class<?> type) {
+            for (Rule rule : rules) {
+                if (rule.matches(type))
+                    return rule.placeholder;
+            }
+            return TRANSPARENT;
+        }
+    };
+
+    private OpaqueTypes(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    OpaqueTypes withPackage(final String packageName, ObjectNode placeholder) {
+        final String prefix = packageName + ".";
+        return with(new Rule("package=" + packageName, placeholder) {
+            @Override
+            boolean matches(Class<?> type) {
+                return type.getName().startsWith(prefix);
+            }
+        });
+    }
+
+    OpaqueTypes withType(final Class<?> supertype, ObjectNode placeholder) {
+        return with(new Rule("type=" + supertype.getName(), placeholder) {
+            @Override
+            boolean matches(Class<?> type) {
+                return supertype.isAssignableFrom(type);
+            }
+        });
+    }
+
+    OpaqueTypes withAnnotation(final Class<? extends Annotation> annotation, ObjectNode placeholder) {
+        return with(new Rule("annotation=" + annotation.getName(), placeholder) {
+            @Override
+            boolean matches(Class<?> type) {
+                return type.isAnnotationPresent(annotation);
+            }
+        });
+    }
+
+    /**
+     * Creates the wrapper of an opaque type.
+     *
+     * @return a reference, if the placeholder holds nothing but {@code $ref}, or else a copy of the placeholder,
+     * or null if the type is not opaque
+     */
+    SchemaWrapper wrapperOf(Class<?> type) {
+        ObjectNode placeholder = placeholders.get(type);
+        if (placeholder == TRANSPARENT)
+            return null;
+        if (isRef(placeholder))
+            return new RefSchemaWrapper(type, placeholder.get(REF).asText());
+        OpenSchemaWrapper wrapper = new OpenSchemaWrapper(type);
+        wrapper.getNode().setAll(placeholder.deepCopy());
+        return wrapper;
+    }
+
+    /**
+     * @return whether a placeholder is a reference, to be decorated as such
+     */
+    static boolean isRef(ObjectNode placeholder) {
+        return placeholder.size() == 1 && placeholder.path(REF).isTextual();
+    }
+
+    /**
+     * @return the rules and their placeholders, for telling configurations apart
+     */
+    String getKey() {
+        StringBuilder key = new StringBuilder();
+        for (Rule rule : rules) {
+            key.append(";opaque.").append(rule.name).append('=').append(rule.placeholder);
+        }
+        return key.toString();
+    }
+
+    private OpaqueTypes with(Rule rule) {
+        List<Rule> rules = new ArrayList<Rule>(this.rules);
+        rules.add(rule);
+        return new OpaqueTypes(Collections.unmodifiableList(rules));
+    }
+
+    private abstract static class Rule {
+        final String name;
+        final ObjectNode placeholder;
+
+        Rule(String name, ObjectNode placeholder) {
+            this.name = name;
+            this.placeholder = placeholder == null ? SchemaWrapperFactory.MAPPER.createObjectNode()
+                    : placeholder.deepCopy();
+        }
+
+        abstract boolean matches(Class<?> type);
+    }
+}
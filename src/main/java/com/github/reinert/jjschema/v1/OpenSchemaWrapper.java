@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+/**
+ * A schema without any type constraint, {@code {}} unless keywords are put into it, describing a value which may
+ * be anything. It stands for a raw {@code Optional} or {@code AtomicReference}, for the placeholder of an opaque
+ * type, and for a custom type whose generation was cut by a {@link GenerationBudget}.
+ *
+ * @author Danilo Reinert
+ */
+
+public class OpenSchemaWrapper extends SchemaWrapper {
+
+    public OpenSchemaWrapper(Class<?> type) {
+        super(type);
+    }
+
+    @Override
+    protected void processNullable() {
+        // An open schema accepts null already
+    }
+}
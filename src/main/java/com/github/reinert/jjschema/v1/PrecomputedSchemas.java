@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Loads the schemas written at build time by {@link SchemaProcessor}. Each class is looked up once, through its
+ * own class loader, and the outcome is kept together with the class.
+ *
+ * @author Danilo Reinert
+ */
+
+final class PrecomputedSchemas {
+
+    static final String LOCATION = "META-INF/jjschema/";
+    static final String EXTENSION = ".json";
+
+    private static final ClassValue<JsonNode> SCHEMAS = new ClassValue<JsonNode>() {
+        @Override
+        protected JsonNode computeValue(Class<?> type) {
+            return load(type);
+        }
+    };
+
+    private PrecomputedSchemas() {
+    }
+
+    /**
+     * @param type the class
+     * @return a copy of the precomputed schema of the class, or null if it has none
+     */
+    static JsonNode find(Class<?> type) {
+        JsonNode schema = SCHEMAS.get(type);
+        return schema.isMissingNode() ? null : schema.deepCopy();
+    }
+
+    private static JsonNode load(Class<?> type) {
+        ClassLoader loader = type.getClassLoader();
+        InputStream in = loader == null ? null : loader.getResourceAsStream(LOCATION + type.getName() + EXTENSION);
+        if (in == null)
+            return MissingNode.getInstance();
+        try {
+            try {
+                JsonNode schema = SchemaWrapperFactory.MAPPER.readTree(in);
+                return schema == null ? MissingNode.getInstance() : schema;
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            // An unreadable schema is generated by reflection instead
+            return MissingNode.getInstance();
+        }
+    }
+}
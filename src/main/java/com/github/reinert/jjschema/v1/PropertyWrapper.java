@@ -24,15 +24,18 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.github.reinert.jjschema.Attributes;
+import com.github.reinert.jjschema.AttributesFragment;
 import com.github.reinert.jjschema.ManagedReference;
-import com.github.reinert.jjschema.Nullable;
-import com.github.reinert.jjschema.SchemaIgnore;
+import com.github.reinert.jjschema.introspection.MemberAnnotations;
+import com.github.reinert.jjschema.introspection.PolymorphicModel;
+import com.github.reinert.jjschema.introspection.TypeResolver;
 
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.lang.reflect.ParameterizedType;
-import java.util.Collection;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -43,10 +46,13 @@ public class PropertyWrapper extends SchemaWrapper {
 
     enum ReferenceType {NONE, FORWARD, BACKWARD}
 
+    private static final String PROPERTIES_STR = "/properties/";
+
     final CustomSchemaWrapper ownerSchemaWrapper;
     final SchemaWrapper schemaWrapper;
     final Field field;
     final Method method;
+    final MemberAnnotations annotations;
     String name;
     boolean required;
     ManagedReference managedReference;
@@ -63,31 +69,19 @@ public class PropertyWrapper extends SchemaWrapper {
         this.ownerSchemaWrapper = ownerSchemaWrapper;
         this.field = field;
         this.method = method;
+        this.annotations = MemberAnnotations.of(getAccessibleObject());
         this.enums = enums;
         this.readonly = readonly;
 
-
-
-        String relativeId;
-
-        Class<?> propertyType = method.getReturnType();
-        Class<?> collectionType = null;
-        final String propertiesStr = "/properties/";
-        String itemsStr = "/items";
-        if (Collection.class.isAssignableFrom(propertyType)) {
-            collectionType = method.getReturnType();
-            ParameterizedType genericType = (ParameterizedType) method
-                    .getGenericReturnType();
-            propertyType = (Class<?>) genericType.getActualTypeArguments()[0];
-
-            relativeId = propertiesStr + getName() + itemsStr;
-        } else {
-            relativeId = propertiesStr + getName();
-        }
+        // The property may be a container of containers or wrappers: the innermost type is the one its references are about
+        Type genericType = TypeResolver.resolve(ownerSchemaWrapper.getGenericType(), method.getGenericReturnType());
+        List<String> containers = new ArrayList<String>();
+        Type innermostType = SchemaWrapperFactory.innermostType(genericType, containers);
+        Class<?> propertyType = innermostType == null ? null : TypeResolver.rawClass(innermostType);
 
         processReference(propertyType);
 
-        if (getAccessibleObject().getAnnotation(SchemaIgnore.class) != null) {
+        if (annotations.isIgnored()) {
             this.schemaWrapper = new EmptySchemaWrapper();
         } else if (getReferenceType() == ReferenceType.BACKWARD) {
             SchemaWrapper schemaWrapperLocal;
@@ -95,41 +89,41 @@ public class PropertyWrapper extends SchemaWrapper {
             if (id != null) {
                 schemaWrapperLocal = new RefSchemaWrapper(propertyType, id);
                 ownerSchemaWrapper.pushReference(getManagedReference());
+            } else if (ownerSchemaWrapper.getContext().isUseDefinitions()) {
+                // Definitions do not depend on where they are used, so back references always point to them
+                ownerSchemaWrapper.pushReference(getManagedReference());
+                schemaWrapperLocal = ownerSchemaWrapper.getContext().reference(propertyType);
             } else {
-                if (ownerSchemaWrapper.pushReference(getManagedReference())) {
-                    String relativeId1 = ownerSchemaWrapper.getRelativeId();
-                    if (relativeId1.endsWith(itemsStr)) {
-                        relativeId1 = relativeId1.substring(0, relativeId1.substring(0, relativeId1.length() - itemsStr.length()).lastIndexOf("/") - (propertiesStr.length() - 1));
-                    } else {
-                        relativeId1 = relativeId1.substring(0, relativeId1.lastIndexOf("/") - (propertiesStr.length() - 1));
-                    }
-                    schemaWrapperLocal = new RefSchemaWrapper(propertyType, relativeId1);
-                } else
+                if (ownerSchemaWrapper.pushReference(getManagedReference()))
+                    schemaWrapperLocal = new RefSchemaWrapper(propertyType, ownerIdOf(ownerSchemaWrapper.getRelativeId()));
+                else
                     schemaWrapperLocal = new EmptySchemaWrapper();
             }
-            if (schemaWrapperLocal.isRefWrapper() && collectionType != null)
-                this.schemaWrapper = SchemaWrapperFactory.createArrayRefWrapper((RefSchemaWrapper) schemaWrapperLocal);
+            if (schemaWrapperLocal.isRefWrapper() && !ownerSchemaWrapper.getContext().isUseDefinitions())
+                ownerSchemaWrapper.getContext().referenceCycle(propertyType);
+            if (schemaWrapperLocal.isRefWrapper())
+                this.schemaWrapper = SchemaWrapperFactory.createContainerWrapper(schemaWrapperLocal, containers);
             else
                 this.schemaWrapper = schemaWrapperLocal;
-        } else if (ownerSchemaWrapper.getJavaType() == propertyType) {
+        } else if (ownerSchemaWrapper.getJavaType() == propertyType && !PolymorphicModel.of(propertyType).isPolymorphic()) {
+            ownerSchemaWrapper.getContext().referenceCycle(propertyType);
             SchemaWrapper schemaWrapperLocal = new RefSchemaWrapper(propertyType, ownerSchemaWrapper.getRelativeId());
-            if (collectionType != null) {
-                this.schemaWrapper = SchemaWrapperFactory.createArrayRefWrapper((RefSchemaWrapper) schemaWrapperLocal);
-            } else {
-                this.schemaWrapper = schemaWrapperLocal;
-            }
+            this.schemaWrapper = SchemaWrapperFactory.createContainerWrapper(schemaWrapperLocal, containers);
         } else {
             if (getReferenceType() == ReferenceType.FORWARD) {
                 ownerSchemaWrapper.pullReference(getManagedReference());
             }
-            String relativeId1 = ownerSchemaWrapper.getRelativeId() + relativeId;
-            if (collectionType != null) {
-                this.schemaWrapper = SchemaWrapperFactory.createArrayWrapper(collectionType, propertyType, managedReferences, relativeId1);
+            String relativeId = ownerSchemaWrapper.getRelativeId() + PROPERTIES_STR + getName();
+            this.schemaWrapper = SchemaWrapperFactory.createWrapper(genericType, managedReferences, relativeId,
+                    ownerSchemaWrapper.getContext());
+            if (this.schemaWrapper.isRefWrapper()) {
+                ObjectNode decorations = SchemaWrapperFactory.MAPPER.createObjectNode();
+                processAttributes(decorations, getAccessibleObject());
+                ((RefSchemaWrapper) this.schemaWrapper).decorate(decorations, annotations.isNullable());
             } else {
-                this.schemaWrapper = SchemaWrapperFactory.createWrapper(propertyType, managedReferences, relativeId1);
+                processAttributes(getNode(), getAccessibleObject());
+                processNullable();
             }
-            processAttributes(getNode(), getAccessibleObject());
-            processNullable();
         }
     }
     public PropertyWrapper(CustomSchemaWrapper ownerSchemaWrapper, Set<ManagedReference> managedReferences, Method method, Field fields) {
@@ -175,6 +169,11 @@ public class PropertyWrapper extends SchemaWrapper {
         return schemaWrapper.asJson();
     }
 
+    @Override
+    void materialize() {
+        schemaWrapper.materialize();
+    }
+
     @Override
     public String getDollarSchema() {
         return schemaWrapper.getDollarSchema();
@@ -257,88 +256,72 @@ public class PropertyWrapper extends SchemaWrapper {
     }
 
     protected void processAttributes(ObjectNode node, AccessibleObject accessibleObject) {
-        final Attributes attributes = accessibleObject.getAnnotation(Attributes.class);
+        MemberAnnotations memberAnnotations = accessibleObject == getAccessibleObject()
+                ? annotations : MemberAnnotations.of(accessibleObject);
+        if (putAttributes(node, memberAnnotations.getAttributes(), this.enums, this.readonly)) {
+            setRequired(true);
+        }
+        ownerSchemaWrapper.getContext().translate(memberAnnotations, node);
+    }
+
+    /**
+     * Puts the values of a property level {@link Attributes} annotation, the property enums and its readonly flag
+     * into the schema node of the property.
+     *
+     * @param attributes the annotation of the property, or null
+     * @return true if the annotation marks the property as required
+     */
+    static boolean putAttributes(ObjectNode node, Attributes attributes, String[] enums, boolean readonly) {
+        boolean required = false;
         if (attributes != null) {
             //node.put("$schema", SchemaVersion.DRAFTV4.getLocation().toString());
             node.remove("$schema");
-            if (!attributes.id().isEmpty()) {
-                node.put("id", attributes.id());
-            }
-            if (!attributes.description().isEmpty()) {
-                node.put("description", attributes.description());
-            }
-            if (!attributes.pattern().isEmpty()) {
-                node.put("pattern", attributes.pattern());
-            }
-            if (!attributes.title().isEmpty()) {
-                node.put("title", attributes.title());
-            }
-            if (attributes.maximum() > -1) {
-                node.put("maximum", attributes.maximum());
-            }
-            if (attributes.exclusiveMaximum()) {
-                node.put("exclusiveMaximum", true);
-            }
-            if (attributes.minimum() > -1) {
-                node.put("minimum", attributes.minimum());
-            }
-            if (attributes.exclusiveMinimum()) {
-                node.put("exclusiveMinimum", true);
-            }
-            if (attributes.enums().length > 0) {
-                ArrayNode enumArray = node.putArray("enum");
-                String[] enums = attributes.enums();
-                for (String v : enums) {
-                    enumArray.add(v);
-                }
-            }
-            if (attributes.uniqueItems()) {
-                node.put("uniqueItems", true);
-            }
-            if (attributes.minItems() > 0) {
-                node.put("minItems", attributes.minItems());
-            }
-            if (attributes.maxItems() > -1) {
-                node.put("maxItems", attributes.maxItems());
-            }
-            if (attributes.multipleOf() > 0) {
-                node.put("multipleOf", attributes.multipleOf());
-            }
-            if (attributes.minLength() > 0) {
-                node.put("minLength", attributes.minLength());
-            }
-            if (attributes.maxLength() > -1) {
-                node.put("maxLength", attributes.maxLength());
-            }
-            if (attributes.required()) {
-                setRequired(true);
-            }
-            if (attributes.readonly()) {
-                node.put("readonly", true);
-            }
+            AttributesFragment fragment = AttributesFragment.of(attributes);
+            fragment.applyTo(node);
+            required = fragment.isRequired();
         }
-        if (this.enums.length > 0) {
+        if (enums.length > 0) {
            ArrayNode enumArray = node.putArray("enum");
-           for (String v : this.enums) {
+           for (String v : enums) {
                 enumArray.add(v);
            }
         }
-        if (this.readonly) {
+        if (readonly) {
            node.put("readonly", true);
         }
+        return required;
+    }
+
+    /**
+     * @param relativeId the relative id of a custom type, e.g. {@code #/properties/children/items}
+     * @return the relative id of the custom type owning the property the type is found in, e.g. {@code #}
+     */
+    static String ownerIdOf(String relativeId) {
+        int slash;
+        while ((slash = relativeId.lastIndexOf('/')) > 0) {
+            String token = relativeId.substring(slash + 1);
+            String prefix = relativeId.substring(0, slash);
+            boolean container = token.equals(SchemaWrapperFactory.TAG_ITEMS)
+                    || token.equals(SchemaWrapperFactory.TAG_ADDITIONAL_PROPERTIES);
+            // A property may be named like a container keyword
+            if (!container || prefix.endsWith(PROPERTIES_STR.substring(0, PROPERTIES_STR.length() - 1)))
+                break;
+            relativeId = prefix;
+        }
+        return relativeId.substring(0, relativeId.lastIndexOf("/") - (PROPERTIES_STR.length() - 1));
     }
 
     protected void processReference(Class<?> propertyType) {
         boolean referenceExists = false;
 
-        JsonManagedReference refAnn = getAccessibleObject().getAnnotation(JsonManagedReference.class);
+        JsonManagedReference refAnn = annotations.getManagedReference();
         if (refAnn != null) {
             referenceExists = true;
             managedReference = new ManagedReference(getOwnerSchema().getJavaType(), refAnn.value(), propertyType);
             referenceType = ReferenceType.FORWARD;
         }
 
-        JsonBackReference backRefAnn = getAccessibleObject().getAnnotation(JsonBackReference.class);
+        JsonBackReference backRefAnn = annotations.getBackReference();
         if (backRefAnn != null) {
             if (referenceExists)
                 throw new RuntimeException("Error at " + getOwnerSchema().getJavaType().getName() + ": Cannot reference " + propertyType.getName() + " both as Managed and Back Reference.");
@@ -354,16 +337,25 @@ public class PropertyWrapper extends SchemaWrapper {
 
     @Override
     protected void processNullable() {
-        final Nullable nullable = getAccessibleObject().getAnnotation(Nullable.class);
-        if (nullable != null) {
-            if (isEnumWrapper()) {
-                ((ArrayNode) getNode().get("enum")).add("null");
-            } else {
-                String oldType = getType();
-                ArrayNode typeArray = getNode().putArray("type");
-                typeArray.add(oldType);
-                typeArray.add("null");
-            }
+        if (annotations.isNullable()) {
+            putNullable(getNode(), isEnumWrapper());
+        }
+    }
+
+    static void putNullable(ObjectNode node, boolean enumWrapper) {
+        if (enumWrapper) {
+            ((ArrayNode) node.get("enum")).add("null");
+        } else if (node.has(OneOfSchemaWrapper.TAG_ONE_OF)) {
+            ((ArrayNode) node.get(OneOfSchemaWrapper.TAG_ONE_OF)).addObject().put("type", "null");
+        } else if (node.has("type")) {
+            JsonNode oldType = node.get("type");
+            // Registered schemas may already list many types
+            ArrayNode typeArray = node.putArray("type");
+            if (oldType.isArray())
+                typeArray.addAll((ArrayNode) oldType);
+            else
+                typeArray.add(oldType.textValue());
+            typeArray.add("null");
         }
     }
 
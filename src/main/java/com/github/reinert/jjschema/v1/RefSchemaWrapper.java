@@ -18,6 +18,9 @@
 
 package com.github.reinert.jjschema.v1;
 
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
 /**
  * @author Danilo Reinert
  */
@@ -42,4 +45,30 @@ public class RefSchemaWrapper extends SchemaWrapper {
     public void setRef(String ref) {
         getNode().put("$ref", ref);
     }
+
+    /**
+     * Applies the keywords of the property using this reference. Since keywords beside {@code $ref} are ignored,
+     * the reference is moved into an {@code allOf}, or into an {@code anyOf} with null if the property is nullable.
+     *
+     * @param decorations the keywords of the property
+     * @param nullable whether the property is nullable
+     */
+    void decorate(ObjectNode decorations, boolean nullable) {
+        decorate(getNode(), decorations, nullable);
+    }
+
+    /**
+     * Decorates a node holding a {@code $ref} as {@link #decorate(ObjectNode, boolean)} does.
+     */
+    static void decorate(ObjectNode node, ObjectNode decorations, boolean nullable) {
+        if (decorations.size() == 0 && !nullable)
+            return;
+        String ref = node.get("$ref").textValue();
+        node.removeAll();
+        ArrayNode schemas = node.putArray(nullable ? "anyOf" : "allOf");
+        schemas.addObject().put("$ref", ref);
+        if (nullable)
+            schemas.addObject().put("type", "null");
+        node.setAll(decorations);
+    }
 }
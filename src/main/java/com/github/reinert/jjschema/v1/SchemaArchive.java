@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read-only set of schemas in the format written by {@link SchemaArchiveWriter}, usually memory-mapped.
+ * <p>
+ * Opening an archive only checks its header. A lookup is a binary search over the UTF-8 keys of an index, done
+ * in place, and schemas are decoded only when asked for, so neither the time to open an archive nor the heap it
+ * takes depend on the number of schemas it holds. Archives are safe to use from many threads.
+ *
+ * @author Danilo Reinert
+ */
+
+public final class SchemaArchive {
+
+    private final ByteBuffer buffer;
+    private final int schemaCount;
+    private final int idCount;
+    private final int nameIndexOffset;
+    private final int idIndexOffset;
+
+    private SchemaArchive(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < SchemaArchiveWriter.HEADER_SIZE || buffer.getInt(0) != SchemaArchiveWriter.MAGIC)
+            throw new IOException("Not a schema archive");
+        if (buffer.getInt(4) != SchemaArchiveWriter.VERSION)
+            throw new IOException("Unsupported schema archive version " + buffer.getInt(4));
+        this.schemaCount = buffer.getInt(8);
+        this.idCount = buffer.getInt(12);
+        this.nameIndexOffset = buffer.getInt(16);
+        this.idIndexOffset = buffer.getInt(20);
+        if (nameIndexOffset + schemaCount * SchemaArchiveWriter.ENTRY_SIZE > buffer.capacity()
+                || idIndexOffset + idCount * SchemaArchiveWriter.ENTRY_SIZE > buffer.capacity())
+            throw new IOException("Truncated schema archive");
+    }
+
+    /**
+     * Memory-maps an archive file. The file is not held open once mapped.
+     */
+    public static SchemaArchive open(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            return new SchemaArchive(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Reads an archive from a buffer, from its first byte regardless of its position.
+     */
+    public static SchemaArchive wrap(ByteBuffer buffer) throws IOException {
+        return new SchemaArchive(buffer.duplicate());
+    }
+
+    public int size() {
+        return schemaCount;
+    }
+
+    public boolean contains(String className) {
+        return find(nameIndexOffset, schemaCount, className) >= 0;
+    }
+
+    /**
+     * @return the UTF-8 JSON of the schema of a class, as a read-only buffer, or null if the archive lacks it
+     */
+    public ByteBuffer getBytes(String className) {
+        return slice(find(nameIndexOffset, schemaCount, className));
+    }
+
+    /**
+     * @return the UTF-8 JSON of the schema with this id, as a read-only buffer, or null if the archive lacks it
+     */
+    public ByteBuffer getBytesById(String id) {
+        return slice(find(idIndexOffset, idCount, id));
+    }
+
+    /**
+     * @return a parser positioned before the schema of a class, or null if the archive lacks it
+     */
+    public JsonParser getParser(String className) throws IOException {
+        ByteBuffer bytes = getBytes(className);
+        if (bytes == null)
+            return null;
+        return SchemaWrapperFactory.MAPPER.getFactory().createJsonParser(new BufferInputStream(bytes));
+    }
+
+    /**
+     * @return the schema of a class, decoded on each call, or null if the archive lacks it
+     */
+    public JsonNode getSchema(Class<?> type) throws IOException {
+        return getSchema(type.getName());
+    }
+
+    /**
+     * @return the schema of a class, decoded on each call, or null if the archive lacks it
+     */
+    public JsonNode getSchema(String className) throws IOException {
+        return decode(getBytes(className));
+    }
+
+    /**
+     * @return the schema with this id, decoded on each call, or null if the archive lacks it
+     */
+    public JsonNode getSchemaById(String id) throws IOException {
+        return decode(getBytesById(id));
+    }
+
+    private static JsonNode decode(ByteBuffer bytes) throws IOException {
+        return bytes == null ? null : SchemaWrapperFactory.MAPPER.readTree(new BufferInputStream(bytes));
+    }
+
+    private ByteBuffer slice(int entry) {
+        if (entry < 0)
+            return null;
+        ByteBuffer slice = buffer.duplicate();
+        int offset = buffer.getInt(entry + 8);
+        slice.limit(offset + buffer.getInt(entry + 12)).position(offset);
+        return slice.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * @return the offset of the index entry of the key, or -1 if absent
+     */
+    private int find(int indexOffset, int count, String key) {
+        byte[] bytes = key.getBytes(SchemaArchiveWriter.UTF_8);
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entry = indexOffset + middle * SchemaArchiveWriter.ENTRY_SIZE;
+            int comparison = compareKey(buffer.getInt(entry), buffer.getInt(entry + 4), bytes);
+            if (comparison < 0)
+                low = middle + 1;
+            else if (comparison > 0)
+                high = middle - 1;
+            else
+                return entry;
+        }
+        return -1;
+    }
+
+    private int compareKey(int offset, int length, byte[] key) {
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int difference = (buffer.get(offset + i) & 0xFF) - (key[i] & 0xFF);
+            if (difference != 0)
+                return difference;
+        }
+        return length - key.length;
+    }
+
+    /**
+     * Compares keys as unsigned bytes, the order of the archive indexes.
+     */
+    static int compare(byte[] k1, byte[] k2) {
+        int common = Math.min(k1.length, k2.length);
+        for (int i = 0; i < common; i++) {
+            int difference = (k1[i] & 0xFF) - (k2[i] & 0xFF);
+            if (difference != 0)
+                return difference;
+        }
+        return k1.length - k2.length;
+    }
+
+    private static final class BufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining())
+                return -1;
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Writes a set of schemas into the binary format read by {@link SchemaArchive}.
+ * <p>
+ * The archive starts with a fixed header, followed by two indexes of fixed size entries, one by class name and one
+ * by the {@code id} of the schemas, both sorted by the UTF-8 bytes of their keys. The keys and the schemas, as
+ * compact UTF-8 JSON, come last. All integers are big endian.
+ *
+ * @author Danilo Reinert
+ */
+
+public final class SchemaArchiveWriter {
+
+    static final int MAGIC = 0x4A4A5341; // "JJSA"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int ENTRY_SIZE = 16;
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final Map<String, byte[]> schemas = new TreeMap<String, byte[]>();
+    private final Map<String, String> ids = new TreeMap<String, String>();   // by class name
+
+    /**
+     * Adds the schema of a class, replacing any schema previously added for it.
+     */
+    public SchemaArchiveWriter add(Class<?> type, JsonNode schema) throws IOException {
+        return add(type.getName(), schema);
+    }
+
+    /**
+     * Adds the schema of a class, replacing any schema previously added for it. A schema with an {@code id} is
+     * indexed by it as well; when many schemas share an id, the first class by name wins.
+     *
+     * @param className the binary name of the class
+     * @param schema the schema
+     */
+    public SchemaArchiveWriter add(String className, JsonNode schema) throws IOException {
+        schemas.put(className, SchemaWrapperFactory.MAPPER.writeValueAsBytes(schema));
+        JsonNode id = schema.get("id");
+        if (id != null && id.isTextual())
+            ids.put(className, id.textValue());
+        else
+            ids.remove(className);
+        return this;
+    }
+
+    public int size() {
+        return schemas.size();
+    }
+
+    public void write(File file) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            write(out);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * @param out the stream, flushed but left open
+     */
+    public void write(OutputStream out) throws IOException {
+        List<byte[]> names = sortedKeys(schemas.keySet());
+        Map<String, String> idIndex = new TreeMap<String, String>();
+        for (Map.Entry<String, String> id : ids.entrySet()) {
+            if (!idIndex.containsKey(id.getValue()))
+                idIndex.put(id.getValue(), id.getKey());
+        }
+        List<byte[]> idKeys = sortedKeys(idIndex.keySet());
+
+        int nameIndexOffset = HEADER_SIZE;
+        int idIndexOffset = nameIndexOffset + names.size() * ENTRY_SIZE;
+        int keysOffset = idIndexOffset + idKeys.size() * ENTRY_SIZE;
+        int dataOffset = keysOffset;
+        for (byte[] key : names) {
+            dataOffset += key.length;
+        }
+        for (byte[] key : idKeys) {
+            dataOffset += key.length;
+        }
+
+        // Data offsets of the schemas, by class name
+        Map<String, int[]> locations = new TreeMap<String, int[]>();
+        int position = dataOffset;
+        for (byte[] name : names) {
+            byte[] schema = schemas.get(new String(name, UTF_8));
+            locations.put(new String(name, UTF_8), new int[]{position, schema.length});
+            position += schema.length;
+        }
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(names.size());
+        data.writeInt(idKeys.size());
+        data.writeInt(nameIndexOffset);
+        data.writeInt(idIndexOffset);
+        data.writeInt(keysOffset);
+        data.writeInt(dataOffset);
+
+        int keyPosition = keysOffset;
+        for (byte[] name : names) {
+            keyPosition = writeEntry(data, keyPosition, name, locations.get(new String(name, UTF_8)));
+        }
+        for (byte[] id : idKeys) {
+            keyPosition = writeEntry(data, keyPosition, id, locations.get(idIndex.get(new String(id, UTF_8))));
+        }
+        for (byte[] name : names) {
+            data.write(name);
+        }
+        for (byte[] id : idKeys) {
+            data.write(id);
+        }
+        for (byte[] name : names) {
+            data.write(schemas.get(new String(name, UTF_8)));
+        }
+        data.flush();
+    }
+
+    private static int writeEntry(DataOutputStream data, int keyPosition, byte[] key, int[] location)
+            throws IOException {
+        data.writeInt(keyPosition);
+        data.writeInt(key.length);
+        data.writeInt(location[0]);
+        data.writeInt(location[1]);
+        return keyPosition + key.length;
+    }
+
+    private static List<byte[]> sortedKeys(Iterable<String> keys) {
+        List<byte[]> sorted = new ArrayList<byte[]>();
+        for (String key : keys) {
+            sorted.add(key.getBytes(UTF_8));
+        }
+        Collections.sort(sorted, new Comparator<byte[]>() {
+            public int compare(byte[] k1, byte[] k2) {
+                return SchemaArchive.compare(k1, k2);
+            }
+        });
+        return sorted;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The outcome of {@link SchemaDeduplicator#deduplicate(Map, String)}: the rewritten schemas, in the order they
+ * were given, and the shared schema holding the subschemas they reference.
+ *
+ * @author Danilo Reinert
+ */
+
+public final class SchemaBundle<K> {
+
+    private final Map<K, JsonNode> schemas;
+    private final ObjectNode shared;
+
+    SchemaBundle(Map<K, JsonNode> schemas, ObjectNode shared) {
+        this.schemas = Collections.unmodifiableMap(schemas);
+        this.shared = shared;
+    }
+
+    public Map<K, JsonNode> getSchemas() {
+        return schemas;
+    }
+
+    /**
+     * @return a schema whose {@code definitions} hold the subschemas shared by the bundle
+     */
+    public ObjectNode getShared() {
+        return shared;
+    }
+}
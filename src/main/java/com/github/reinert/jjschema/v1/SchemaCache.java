@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A size-bounded, thread-safe cache of generated schemas keyed by Java type and factory configuration.
+ * <p>
+ * Types are always held through weak references, so a cached schema never keeps its class (nor its
+ * classloader) reachable. Eviction is configured through Guava's {@link CacheBuilder} or its
+ * {@link com.google.common.cache.CacheBuilderSpec} string format (e.g. {@code "maximumSize=500,expireAfterAccess=10m"}),
+ * and is accounted per type.
+ * <p>
+ * Cached schemas are never exposed: {@link #get(Class, String)} always returns a deep copy.
+ *
+ * @author Danilo Reinert
+ */
+
+public class SchemaCache {
+
+    public static final String DEFAULT_SPEC = "maximumSize=1000";
+
+    private static final Callable<ConcurrentMap<String, JsonNode>> NEW_ENTRY = new Callable<ConcurrentMap<String, JsonNode>>() {
+        public ConcurrentMap<String, JsonNode> call() {
+            return new ConcurrentHashMap<String, JsonNode>(4);
+        }
+    };
+
+    private final Cache<Class<?>, ConcurrentMap<String, JsonNode>> cache;
+
+    public SchemaCache() {
+        this(DEFAULT_SPEC);
+    }
+
+    public SchemaCache(long maximumSize) {
+        this(CacheBuilder.newBuilder().maximumSize(maximumSize));
+    }
+
+    /**
+     * @param spec a {@link com.google.common.cache.CacheBuilderSpec} string. It must not set the key strength,
+     *             since keys are always weak.
+     */
+    public SchemaCache(String spec) {
+        this(CacheBuilder.from(spec));
+    }
+
+    /**
+     * @param builder a configured CacheBuilder. It must not set the key strength, since keys are always weak.
+     */
+    public SchemaCache(CacheBuilder<Object, Object> builder) {
+        this.cache = builder.weakKeys().build();
+    }
+
+    /**
+     * Returns a copy of the schema cached for the given type and configuration.
+     *
+     * @param type          the Java type
+     * @param configuration the configuration key of the factory which generated the schema
+     * @return a deep copy of the cached schema, or null if there is none
+     */
+    public JsonNode get(Class<?> type, String configuration) {
+        ConcurrentMap<String, JsonNode> schemas = cache.getIfPresent(type);
+        if (schemas == null)
+            return null;
+        JsonNode schema = schemas.get(configuration);
+        return schema == null ? null : schema.deepCopy();
+    }
+
+    /**
+     * Caches a schema. The cache takes ownership of the node, so callers must not modify it afterwards.
+     *
+     * @param type          the Java type
+     * @param configuration the configuration key of the factory which generated the schema
+     * @param schema        the generated schema
+     */
+    public void put(Class<?> type, String configuration, JsonNode schema) {
+        try {
+            cache.get(type, NEW_ENTRY).putIfAbsent(configuration, schema);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    public void invalidate(Class<?> type) {
+        cache.invalidate(type);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return the approximate number of cached types
+     */
+    public long size() {
+        return cache.size();
+    }
+}
@@ -0,0 +1,414 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lifts subschemas repeated across one or many schemas into shared definitions, replacing every occurrence by a
+ * {@code $ref}.
+ * <p>
+ * Subtrees are compared by a structural hash, computed with the configured {@link HashFunction}, and confirmed
+ * with {@link JsonNode#equals(Object)}, so hash collisions never merge different subschemas. Only subschemas in
+ * schema positions (properties, items, definitions entries and the like) with at least the configured number of
+ * nodes are lifted, largest first. The given schemas are never modified.
+ *
+ * @author Danilo Reinert
+ */
+
+public class SchemaDeduplicator {
+
+    public static final int DEFAULT_MINIMUM_NODES = 4;
+    public static final String SHARED_PREFIX = "shared-";
+
+    private static final String TAG_DEFINITIONS = GenerationContext.TAG_DEFINITIONS;
+    private static final Set<String> SCHEMA_KEYWORDS = new HashSet<String>(Arrays.asList(
+            "items", "additionalItems", "additionalProperties", "not"));
+    private static final Set<String> SCHEMA_MAP_KEYWORDS = new HashSet<String>(Arrays.asList(
+            "properties", "patternProperties", TAG_DEFINITIONS, "dependencies"));
+    private static final Set<String> SCHEMA_ARRAY_KEYWORDS = new HashSet<String>(Arrays.asList(
+            "items", "allOf", "anyOf", "oneOf"));
+
+    private final HashFunction hashFunction;
+    private final int minimumNodes;
+
+    public SchemaDeduplicator() {
+        this(Hashing.murmur3_128(), DEFAULT_MINIMUM_NODES);
+    }
+
+    /**
+     * @param hashFunction the function hashing the subtrees
+     * @param minimumNodes the number of JSON nodes below which a subschema is too small to be lifted
+     */
+    public SchemaDeduplicator(HashFunction hashFunction, int minimumNodes) {
+        this.hashFunction = hashFunction;
+        this.minimumNodes = minimumNodes;
+    }
+
+    /**
+     * Lifts the subschemas repeated inside a single schema into its own {@code definitions}.
+     *
+     * @param schema the schema
+     * @return a deduplicated copy of the schema
+     */
+    public JsonNode deduplicate(JsonNode schema) {
+        JsonNode copy = schema.deepCopy();
+        if (!copy.isObject())
+            return copy;
+
+        ObjectNode root = (ObjectNode) copy;
+        Pass pass = new Pass(false);
+        pass.scan(root);
+        JsonNode existing = root.get(TAG_DEFINITIONS);
+        Set<String> taken = new HashSet<String>();
+        if (existing != null)
+            for (Iterator<String> names = existing.fieldNames(); names.hasNext(); )
+                taken.add(names.next());
+
+        Map<String, JsonNode> lifted = pass.lift("#/" + TAG_DEFINITIONS + "/", taken);
+        if (!lifted.isEmpty()) {
+            ObjectNode definitions = existing != null && existing.isObject()
+                    ? (ObjectNode) existing : root.putObject(TAG_DEFINITIONS);
+            definitions.putAll(lifted);
+        }
+        return root;
+    }
+
+    /**
+     * Lifts the subschemas repeated anywhere in a bundle of schemas into a shared schema. Subschemas holding an
+     * {@code id} or a {@code $ref} relative to their document are never lifted, since they would not resolve
+     * from the shared schema.
+     *
+     * @param schemas the schemas of the bundle
+     * @param sharedUri the URI by which the schemas reference the shared schema, e.g. {@code "shared.json"}
+     * @return the deduplicated copies of the schemas and the shared schema
+     */
+    public <K> SchemaBundle<K> deduplicate(Map<K, ? extends JsonNode> schemas, String sharedUri) {
+        Pass pass = new Pass(true);
+        Map<K, JsonNode> copies = new LinkedHashMap<K, JsonNode>();
+        for (Map.Entry<K, ? extends JsonNode> schema : schemas.entrySet()) {
+            JsonNode copy = schema.getValue().deepCopy();
+            copies.put(schema.getKey(), copy);
+            if (copy.isObject())
+                pass.scan((ObjectNode) copy);
+        }
+
+        ObjectNode shared = SchemaWrapperFactory.MAPPER.createObjectNode();
+        shared.putObject(TAG_DEFINITIONS).putAll(
+                pass.lift(sharedUri + "#/" + TAG_DEFINITIONS + "/", Collections.<String>emptySet()));
+        return new SchemaBundle<K>(copies, shared);
+    }
+
+    /**
+     * A subtree found in a schema position, along with where it hangs from.
+     */
+    private static final class Occurrence {
+        final JsonNode container;
+        final String field;
+        final int index;
+        final JsonNode node;
+        final HashCode hash;
+        final int size;
+        final int order;
+
+        Occurrence(JsonNode container, String field, int index, JsonNode node, HashCode hash, int size, int order) {
+            this.container = container;
+            this.field = field;
+            this.index = index;
+            this.node = node;
+            this.hash = hash;
+            this.size = size;
+            this.order = order;
+        }
+
+        void replace(JsonNode replacement) {
+            if (field != null)
+                ((ObjectNode) container).put(field, replacement);
+            else
+                ((ArrayNode) container).set(index, replacement);
+        }
+    }
+
+    /**
+     * The scanned subtrees of one deduplication, grouped by hash.
+     */
+    private final class Pass {
+        private final boolean portableOnly;
+        private final Map<HashCode, List<Occurrence>> byHash = new LinkedHashMap<HashCode, List<Occurrence>>();
+        private Set<JsonNode> pinned;
+        private int order;
+
+        // Set by scan for its caller, to avoid allocating a result per node
+        private int lastSize;
+        private boolean lastPortable;
+
+        Pass(boolean portableOnly) {
+            this.portableOnly = portableOnly;
+        }
+
+        void scan(ObjectNode root) {
+            pinned = pinPointerTargets(root);
+            scan(root, null, null, -1, false, false);
+        }
+
+        /**
+         * Hashes a subtree, registering it if it is an eligible subschema.
+         */
+        private HashCode scan(JsonNode node, JsonNode container, String field, int index,
+                              boolean schemaPosition, boolean definition) {
+            HashCode hash;
+            int size = 1;
+            boolean portable = true;
+
+            if (node.isObject()) {
+                boolean schema = container == null || schemaPosition;
+                List<HashCode> fields = new ArrayList<HashCode>(node.size());
+                for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext(); ) {
+                    Map.Entry<String, JsonNode> entry = it.next();
+                    String name = entry.getKey();
+                    JsonNode value = entry.getValue();
+                    HashCode valueHash;
+                    if (schema && SCHEMA_MAP_KEYWORDS.contains(name) && value.isObject()) {
+                        valueHash = scanMap((ObjectNode) value, TAG_DEFINITIONS.equals(name));
+                    } else if (schema && SCHEMA_ARRAY_KEYWORDS.contains(name) && value.isArray()) {
+                        valueHash = scanArray((ArrayNode) value, true);
+                    } else {
+                        boolean child = schema && SCHEMA_KEYWORDS.contains(name) && value.isObject();
+                        valueHash = scan(value, node, name, -1, child, false);
+                    }
+                    size += lastSize;
+                    portable &= lastPortable;
+                    if (("id".equals(name) && value.isTextual())
+                            || ("$ref".equals(name) && value.isTextual() && value.textValue().startsWith("#")))
+                        portable = false;
+                    fields.add(Hashing.combineOrdered(Arrays.asList(hashString(name), valueHash)));
+                }
+                hash = fields.isEmpty() ? hashString("{}") : Hashing.combineUnordered(fields);
+
+                if (schemaPosition && !definition && size >= minimumNodes && (portable || !portableOnly)
+                        && !pinned.contains(node)) {
+                    List<Occurrence> occurrences = byHash.get(hash);
+                    if (occurrences == null) {
+                        occurrences = new ArrayList<Occurrence>();
+                        byHash.put(hash, occurrences);
+                    }
+                    occurrences.add(new Occurrence(container, field, index, node, hash, size, order++));
+                }
+            } else if (node.isArray()) {
+                hash = scanArray((ArrayNode) node, false);
+                size = lastSize;
+                portable = lastPortable;
+            } else {
+                hash = hashFunction.newHasher()
+                        .putInt(node.asToken().ordinal())
+                        .putString(node.asText(), Charsets.UTF_8)
+                        .hash();
+            }
+
+            lastSize = size;
+            lastPortable = portable;
+            return hash;
+        }
+
+        private HashCode scanMap(ObjectNode map, boolean definitions) {
+            int size = 1;
+            boolean portable = true;
+            List<HashCode> fields = new ArrayList<HashCode>(map.size());
+            for (Iterator<Map.Entry<String, JsonNode>> it = map.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> entry = it.next();
+                HashCode valueHash = scan(entry.getValue(), map, entry.getKey(), -1,
+                        entry.getValue().isObject(), definitions);
+                size += lastSize;
+                portable &= lastPortable;
+                fields.add(Hashing.combineOrdered(Arrays.asList(hashString(entry.getKey()), valueHash)));
+            }
+            lastSize = size;
+            lastPortable = portable;
+            return fields.isEmpty() ? hashString("{}") : Hashing.combineUnordered(fields);
+        }
+
+        private HashCode scanArray(ArrayNode array, boolean schemas) {
+            int size = 1;
+            boolean portable = true;
+            List<HashCode> elements = new ArrayList<HashCode>(array.size() + 1);
+            elements.add(hashString("[]"));
+            for (int i = 0; i < array.size(); i++) {
+                elements.add(scan(array.get(i), array, null, i, schemas && array.get(i).isObject(), false));
+                size += lastSize;
+                portable &= lastPortable;
+            }
+            lastSize = size;
+            lastPortable = portable;
+            return Hashing.combineOrdered(elements);
+        }
+
+        /**
+         * Replaces every repeated subschema by a reference.
+         *
+         * @param refPrefix the prefix of the references to the lifted subschemas
+         * @param taken the definition names already in use
+         * @return the lifted subschemas by name
+         */
+        Map<String, JsonNode> lift(String refPrefix, Set<String> taken) {
+            List<List<Occurrence>> classes = new ArrayList<List<Occurrence>>();
+            for (List<Occurrence> occurrences : byHash.values()) {
+                if (occurrences.size() < 2)
+                    continue;
+                // Equal hashes must still be confirmed as equal trees
+                List<List<Occurrence>> partitions = new ArrayList<List<Occurrence>>();
+                for (Occurrence occurrence : occurrences) {
+                    List<Occurrence> partition = null;
+                    for (List<Occurrence> candidate : partitions) {
+                        if (candidate.get(0).node.equals(occurrence.node)) {
+                            partition = candidate;
+                            break;
+                        }
+                    }
+                    if (partition == null) {
+                        partition = new ArrayList<Occurrence>();
+                        partitions.add(partition);
+                    }
+                    partition.add(occurrence);
+                }
+                for (List<Occurrence> partition : partitions) {
+                    if (partition.size() > 1)
+                        classes.add(partition);
+                }
+            }
+            Collections.sort(classes, new Comparator<List<Occurrence>>() {
+                public int compare(List<Occurrence> c1, List<Occurrence> c2) {
+                    int bySize = c2.get(0).size - c1.get(0).size;
+                    return bySize != 0 ? bySize : c1.get(0).order - c2.get(0).order;
+                }
+            });
+
+            Map<String, JsonNode> lifted = new LinkedHashMap<String, JsonNode>();
+            Set<JsonNode> covered = Collections.newSetFromMap(new IdentityHashMap<JsonNode, Boolean>());
+            Set<String> names = new HashSet<String>(taken);
+            for (List<Occurrence> occurrences : classes) {
+                List<Occurrence> live = new ArrayList<Occurrence>(occurrences.size());
+                for (Occurrence occurrence : occurrences) {
+                    if (!covered.contains(occurrence.node))
+                        live.add(occurrence);
+                }
+                if (live.size() < 2)
+                    continue;
+
+                String name = uniqueName(names, live.get(0).hash);
+                lifted.put(name, live.get(0).node);
+                for (int i = 0; i < live.size(); i++) {
+                    Occurrence occurrence = live.get(i);
+                    occurrence.replace(SchemaWrapperFactory.MAPPER.createObjectNode().put("$ref", refPrefix + name));
+                    // Subtrees of the lifted copy stay candidates, the ones of the dropped copies are gone
+                    if (i > 0)
+                        cover(occurrence.node, covered);
+                }
+            }
+            return lifted;
+        }
+
+        private String uniqueName(Set<String> names, HashCode hash) {
+            String hex = hash.toString();
+            String name = SHARED_PREFIX + (hex.length() > 16 ? hex.substring(0, 16) : hex);
+            String unique = name;
+            for (int i = 2; names.contains(unique); i++) {
+                unique = name + "-" + i;
+            }
+            names.add(unique);
+            return unique;
+        }
+    }
+
+    private HashCode hashString(String value) {
+        return hashFunction.hashString(value, Charsets.UTF_8);
+    }
+
+    private static void cover(JsonNode node, Set<JsonNode> covered) {
+        covered.add(node);
+        for (JsonNode child : node) {
+            cover(child, covered);
+        }
+    }
+
+    /**
+     * Finds the nodes on the path to the target of every JSON pointer reference in a schema. Moving any of them
+     * would break the reference.
+     */
+    private static Set<JsonNode> pinPointerTargets(ObjectNode root) {
+        Set<JsonNode> pinned = Collections.newSetFromMap(new IdentityHashMap<JsonNode, Boolean>());
+        List<String> pointers = new ArrayList<String>();
+        collectPointers(root, pointers);
+        for (String pointer : pointers) {
+            JsonNode node = root;
+            pinned.add(node);
+            for (String token : pointer.substring(2).split("/")) {
+                token = token.replace("~1", "/").replace("~0", "~");
+                if (node.isArray()) {
+                    try {
+                        node = node.get(Integer.parseInt(token));
+                    } catch (NumberFormatException e) {
+                        node = null;
+                    }
+                } else {
+                    node = node.get(token);
+                }
+                if (node == null)
+                    break;
+                pinned.add(node);
+            }
+        }
+        return pinned;
+    }
+
+    private static void collectPointers(JsonNode node, List<String> pointers) {
+        JsonNode ref = node.get("$ref");
+        if (ref != null && ref.isTextual() && ref.textValue().startsWith("#/")
+                && !isDefinitionPointer(ref.textValue()))
+            pointers.add(ref.textValue());
+        for (JsonNode child : node) {
+            collectPointers(child, pointers);
+        }
+    }
+
+    /**
+     * Pointers to a whole definition stay valid, since definitions entries are never lifted.
+     */
+    private static boolean isDefinitionPointer(String pointer) {
+        String prefix = "#/" + TAG_DEFINITIONS + "/";
+        return pointer.startsWith(prefix) && pointer.indexOf('/', prefix.length()) < 0;
+    }
+}
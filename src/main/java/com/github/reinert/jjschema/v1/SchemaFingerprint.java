@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.github.reinert.jjschema.introspection.ClassModel;
+import com.github.reinert.jjschema.introspection.PolymorphicModel;
+import com.github.reinert.jjschema.introspection.TypeClassifier;
+import com.github.reinert.jjschema.introspection.TypeKind;
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Fingerprints the inputs of the schema of a class: the bytecode of the class and of every type its schema may
+ * depend on, so a schema needs regenerating only when its fingerprint changes.
+ * <p>
+ * The dependencies are the supertypes of the class, whose getters it inherits, the return types of its getters,
+ * its nested {@code <field>Enum} classes and the subtypes it lists, type arguments included and followed
+ * transitively. Platform classes only count by name, and simple types are not followed.
+ *
+ * @author Danilo Reinert
+ */
+
+public final class SchemaFingerprint {
+
+    private static final HashFunction HASH_FUNCTION = Hashing.sha256();
+    private static final String ENUM_SUFFIX = "Enum";
+
+    private static final ClassValue<HashCode> BYTECODE_HASHES = new ClassValue<HashCode>() {
+        @Override
+        protected HashCode computeValue(Class<?> type) {
+            return hashBytecode(type);
+        }
+    };
+
+    private SchemaFingerprint() {
+    }
+
+    /**
+     * @return the hexadecimal fingerprint of the schema of a class
+     */
+    public static String of(Class<?> type) {
+        // Types referencing each other share their dependencies, but not their schema
+        Hasher hasher = HASH_FUNCTION.newHasher().putString(type.getName(), Charsets.UTF_8);
+        for (Class<?> dependency : dependencies(type)) {
+            hasher.putString(dependency.getName(), Charsets.UTF_8);
+            HashCode bytecode = BYTECODE_HASHES.get(dependency);
+            if (bytecode != null)
+                hasher.putBytes(bytecode.asBytes());
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * @return the class and the types its schema depends on, ordered by name
+     */
+    public static List<Class<?>> dependencies(Class<?> type) {
+        Set<Class<?>> visited = new LinkedHashSet<Class<?>>();
+        List<Class<?>> pending = new ArrayList<Class<?>>();
+        pending.add(type);
+        while (!pending.isEmpty()) {
+            Class<?> current = pending.remove(pending.size() - 1);
+            while (current.isArray()) {
+                current = current.getComponentType();
+            }
+            if (current.isPrimitive() || !visited.add(current) || isPlatform(current))
+                continue;
+            // Type arguments of supertypes bind the type variables of inherited getters
+            if (current.getGenericSuperclass() != null)
+                addClasses(current.getGenericSuperclass(), pending);
+            for (Type genericInterface : current.getGenericInterfaces()) {
+                addClasses(genericInterface, pending);
+            }
+            TypeKind kind = TypeClassifier.kindOf(current);
+            if (kind == TypeKind.SIMPLE || kind == TypeKind.ENUM || kind == TypeKind.WRAPPER)
+                continue;
+            pending.addAll(PolymorphicModel.of(current).getSubtypes());
+            for (Class<?> nested : current.getDeclaredClasses()) {
+                if (nested.getSimpleName().endsWith(ENUM_SUFFIX))
+                    pending.add(nested);
+            }
+            for (Method getter : ClassModel.of(current).getGetters()) {
+                pending.add(getter.getReturnType());
+                addClasses(getter.getGenericReturnType(), pending);
+            }
+        }
+
+        List<Class<?>> sorted = new ArrayList<Class<?>>(visited);
+        Collections.sort(sorted, new Comparator<Class<?>>() {
+            public int compare(Class<?> c1, Class<?> c2) {
+                return c1.getName().compareTo(c2.getName());
+            }
+        });
+        return sorted;
+    }
+
+    private static void addClasses(Type type, List<Class<?>> classes) {
+        if (type instanceof Class) {
+            classes.add((Class<?>) type);
+        } else if (type instanceof ParameterizedType) {
+            addClasses(((ParameterizedType) type).getRawType(), classes);
+            for (Type argument : ((ParameterizedType) type).getActualTypeArguments()) {
+                addClasses(argument, classes);
+            }
+        } else if (type instanceof GenericArrayType) {
+            addClasses(((GenericArrayType) type).getGenericComponentType(), classes);
+        } else if (type instanceof WildcardType) {
+            for (Type bound : ((WildcardType) type).getUpperBounds()) {
+                addClasses(bound, classes);
+            }
+            for (Type bound : ((WildcardType) type).getLowerBounds()) {
+                addClasses(bound, classes);
+            }
+        }
+    }
+
+    private static boolean isPlatform(Class<?> type) {
+        return type.getClassLoader() == null || type.getName().startsWith("java.")
+                || type.getName().startsWith("javax.");
+    }
+
+    /**
+     * @return the hash of the class file, or null for platform classes and classes whose file is not found
+     */
+    private static HashCode hashBytecode(Class<?> type) {
+        if (isPlatform(type))
+            return null;
+        String name = type.getName();
+        InputStream in = type.getClassLoader().getResourceAsStream(name.replace('.', '/') + ".class");
+        if (in == null)
+            return null;
+        try {
+            try {
+                return HASH_FUNCTION.hashBytes(ByteStreams.toByteArray(in));
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * An annotation processor generating at build time the schemas {@link JsonSchemaV4Factory} would generate by
+ * reflection. The schema of each class using JJSchema annotations, on the class or on its members, is written
+ * to the {@code META-INF/jjschema/<class name>.json} resource, where the factory looks first.
+ * <p>
+ * The processor is not registered as a service, so it must be enabled explicitly, for instance with
+ * {@code javac -processor com.github.reinert.jjschema.v1.SchemaProcessor}. Classes whose schema could differ
+ * from the runtime one, such as classes with raw collections, bridge methods or platform types other than the
+ * simple ones, are skipped with a note and keep being generated by reflection.
+ *
+ * @author Danilo Reinert
+ */
+
+@SupportedAnnotationTypes({
+        "com.github.reinert.jjschema.Attributes",
+        "com.github.reinert.jjschema.Media",
+        "com.github.reinert.jjschema.Nullable",
+        "com.github.reinert.jjschema.Rel",
+        "com.github.reinert.jjschema.SchemaIgnore"})
+public class SchemaProcessor extends AbstractProcessor {
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> types = new LinkedHashSet<TypeElement>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                Element type = element.getKind().isClass() || element.getKind().isInterface()
+                        ? element : element.getEnclosingElement();
+                if (isProcessable(type))
+                    types.add((TypeElement) type);
+            }
+        }
+
+        ElementSchemaBuilder builder = new ElementSchemaBuilder(processingEnv.getElementUtils(),
+                processingEnv.getTypeUtils());
+        for (TypeElement type : types) {
+            try {
+                write(type, builder.build(type));
+            } catch (UnsupportedTypeException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                        "The schema of " + type.getQualifiedName() + " is left to runtime generation ("
+                                + e.getMessage() + ")", type);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Cannot write the schema: " + e.getMessage(), type);
+            }
+        }
+        return false;
+    }
+
+    private static boolean isProcessable(Element type) {
+        if (type == null || type.getKind() == ElementKind.ANNOTATION_TYPE
+                || !(type.getKind().isClass() || type.getKind().isInterface()))
+            return false;
+        NestingKind nesting = ((TypeElement) type).getNestingKind();
+        return nesting == NestingKind.TOP_LEVEL || nesting == NestingKind.MEMBER;
+    }
+
+    private void write(TypeElement type, ObjectNode schema) throws IOException {
+        String name = processingEnv.getElementUtils().getBinaryName(type).toString();
+        FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                PrecomputedSchemas.LOCATION + name + PrecomputedSchemas.EXTENSION, type);
+        OutputStream out = file.openOutputStream();
+        try {
+            out.write(SchemaWrapperFactory.MAPPER.writeValueAsBytes(schema));
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,353 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.fge.jsonschema.SchemaVersion;
+import com.github.reinert.jjschema.Attributes;
+import com.github.reinert.jjschema.ManagedReference;
+import com.github.reinert.jjschema.Nullable;
+import com.github.reinert.jjschema.introspection.ClassModel;
+import com.github.reinert.jjschema.introspection.MemberAnnotations;
+import com.github.reinert.jjschema.introspection.PolymorphicModel;
+import com.github.reinert.jjschema.introspection.TypeClassifier;
+import com.github.reinert.jjschema.introspection.TypeKind;
+import com.github.reinert.jjschema.introspection.TypeResolver;
+import com.github.reinert.jjschema.metrics.GenerationMetrics;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes the schema of a type straight to a {@link JsonGenerator}, producing the same output as the
+ * {@link SchemaWrapper} tree built by {@link SchemaWrapperFactory} without ever holding that tree.
+ * <p>
+ * Each schema is split into a small head node, holding its scalar keywords in their final order, and the
+ * {@code properties}, {@code required}, {@code items} and {@code additionalProperties} keywords, which are only marked in the head and streamed
+ * when reached. Property schemas are thus generated, written and discarded one at a time, in the same order
+ * the wrappers process them, so managed references resolve exactly as in the tree.
+ *
+ * @author Danilo Reinert
+ */
+
+final class SchemaStreamWriter {
+
+    private static final JsonNode STREAMED = MissingNode.getInstance();
+    private static final String PROPERTIES_STR = "/properties/";
+
+    private final JsonGenerator generator;
+    private final GenerationContext context;
+    private int nodes;
+
+    /**
+     * @param context the context forwarding the events of the generation, definitions being used for the
+     *                subtypes of polymorphic types only
+     */
+    SchemaStreamWriter(JsonGenerator generator, GenerationContext context) {
+        this.generator = generator;
+        this.context = context;
+    }
+
+    void write(Class<?> type, boolean putDollarSchema) throws IOException {
+        // The definitions are written at the end of the root, so no wrapper of the generation is its root
+        context.startRoot();
+        PendingSchema schema = describe(type, new HashSet<ManagedReference>(), "#");
+        schema.root = true;
+        schema.putDollarSchema = putDollarSchema;
+        write(schema);
+    }
+
+    /**
+     * @return the number of JSON nodes written so far, as {@link GenerationMetrics#countNodes(JsonNode)} counts them
+     */
+    int getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Mirrors {@link SchemaWrapperFactory#createWrapper(Type, Set, String, GenerationContext)}.
+     */
+    private PendingSchema describe(Type type, Set<ManagedReference> managedReferences, String relativeId) {
+        Class<?> rawType = type == null ? null : TypeResolver.rawClass(type);
+        TypeKind kind = rawType == null ? TypeKind.VOID : TypeClassifier.kindOf(rawType);
+        String containerKeyword = rawType == null ? null : SchemaWrapperFactory.containerKeyword(rawType);
+        if (kind == TypeKind.VOID) {
+            return new PendingSchema((ObjectNode) new NullSchemaWrapper(rawType).asJson());
+        } else if (kind == TypeKind.SIMPLE) {
+            return new PendingSchema((ObjectNode) new SimpleSchemaWrapper(rawType).asJson());
+        } else if (kind == TypeKind.WRAPPER) {
+            Type wrappedType = TypeClassifier.wrappedType(type);
+            if (wrappedType == null)
+                return new PendingSchema(SchemaWrapperFactory.MAPPER.createObjectNode());
+            return describe(wrappedType, managedReferences, relativeId);
+        } else if (containerKeyword != null) {
+            return describeContainer(type, containerKeyword, managedReferences, relativeId);
+        } else if (kind == TypeKind.ENUM) {
+            PendingSchema schema = new PendingSchema((ObjectNode) new EnumSchemaWrapper(rawType).asJson());
+            schema.enumWrapper = true;
+            return schema;
+        }
+
+        SchemaWrapper opaqueWrapper = context.opaqueWrapper(rawType);
+        if (opaqueWrapper != null) {
+            PendingSchema schema = new PendingSchema(opaqueWrapper.getNode());
+            schema.refWrapper = opaqueWrapper.isRefWrapper();
+            return schema;
+        } else if (PolymorphicModel.of(rawType).isPolymorphic()) {
+            // Definitions of subtypes are few and shared, so they are built as trees and written with the root
+            return new PendingSchema(context.referenceSubtypes(rawType).getNode());
+        }
+        ObjectNode head = SchemaWrapperFactory.MAPPER.createObjectNode();
+        if (context.checkBudgets(rawType) != null)
+            return new PendingSchema(head);
+        head.put("type", "object");
+        if (rawType.getAnnotation(Nullable.class) != null)
+            head.putArray("type").add("object").add("null");
+        Attributes attributes = rawType.getAnnotation(Attributes.class);
+        if (attributes != null)
+            CustomSchemaWrapper.putAttributes(head, attributes);
+        head.put(CustomSchemaWrapper.TAG_PROPERTIES, STREAMED);
+        head.put(CustomSchemaWrapper.TAG_REQUIRED, STREAMED);
+
+        PendingSchema schema = new PendingSchema(head);
+        schema.customType = rawType;
+        schema.genericType = type;
+        schema.managedReferences = managedReferences;
+        schema.relativeId = relativeId;
+        return schema;
+    }
+
+    /**
+     * Mirrors {@link ArraySchemaWrapper} and {@link MapSchemaWrapper}.
+     */
+    private PendingSchema describeContainer(Type type, String keyword, Set<ManagedReference> managedReferences,
+                                            String relativeId) {
+        ObjectNode head = SchemaWrapperFactory.MAPPER.createObjectNode();
+        head.put("type", SchemaWrapperFactory.TAG_ITEMS.equals(keyword) ? "array" : "object");
+        Type containedType = SchemaWrapperFactory.containedType(type);
+        if (containedType != null)
+            head.put(keyword, STREAMED);
+
+        PendingSchema schema = new PendingSchema(head);
+        schema.containedType = containedType;
+        schema.managedReferences = managedReferences;
+        schema.relativeId = relativeId + "/" + keyword;
+        return schema;
+    }
+
+    private PendingSchema describeRef(String ref, List<String> containers) {
+        ObjectNode head = SchemaWrapperFactory.MAPPER.createObjectNode();
+        head.put("$ref", ref);
+        for (int i = containers.size() - 1; i >= 0; i--) {
+            ObjectNode container = SchemaWrapperFactory.MAPPER.createObjectNode();
+            boolean items = SchemaWrapperFactory.TAG_ITEMS.equals(containers.get(i));
+            container.put("type", items ? "array" : "object");
+            container.put(containers.get(i), head);
+            head = container;
+        }
+        return new PendingSchema(head);
+    }
+
+    private void write(PendingSchema schema) throws IOException {
+        List<String> required = null;
+        generator.writeStartObject();
+        nodes++;
+        Iterator<Map.Entry<String, JsonNode>> fields = schema.head.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String name = field.getKey();
+            if (field.getValue() != STREAMED) {
+                generator.writeFieldName(name);
+                writeTree(field.getValue());
+            } else if (CustomSchemaWrapper.TAG_PROPERTIES.equals(name)) {
+                required = writeProperties(schema);
+            } else if (CustomSchemaWrapper.TAG_REQUIRED.equals(name)) {
+                if (required != null && !required.isEmpty()) {
+                    generator.writeArrayFieldStart(name);
+                    for (String property : required) {
+                        generator.writeString(property);
+                    }
+                    generator.writeEndArray();
+                    nodes += 1 + required.size();
+                }
+            } else {
+                generator.writeFieldName(name);
+                write(describe(schema.containedType, schema.managedReferences, schema.relativeId));
+            }
+        }
+        if (schema.root) {
+            ObjectNode tail = SchemaWrapperFactory.MAPPER.createObjectNode();
+            context.putDefinitions(tail);
+            if (schema.putDollarSchema)
+                tail.put("$schema", SchemaVersion.DRAFTV4.getLocation().toString());
+            Iterator<Map.Entry<String, JsonNode>> tailFields = tail.fields();
+            while (tailFields.hasNext()) {
+                Map.Entry<String, JsonNode> field = tailFields.next();
+                generator.writeFieldName(field.getKey());
+                writeTree(field.getValue());
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Mirrors {@link CustomSchemaWrapper#processProperties()} and the {@link PropertyWrapper} constructor.
+     *
+     * @return the names of the required properties
+     */
+    private List<String> writeProperties(PendingSchema owner) throws IOException {
+        Class<?> ownerType = owner.customType;
+        Set<ManagedReference> managedReferences = owner.managedReferences;
+        ClassModel model = ClassModel.of(ownerType);
+        List<String> required = new ArrayList<String>();
+        Set<String> written = new HashSet<String>();
+        boolean started = false;
+        int properties = 0;
+        long startTime = context.typeStarted();
+
+        for (Method method : model.getSortedGetters()) {
+            Field field = model.findField(CustomSchemaWrapper.getNameFromGetter(method));
+            if (field == null)
+                continue;
+            context.nodeGenerated();
+
+            String name = field.getName();
+            Type genericType = TypeResolver.resolve(owner.genericType, method.getGenericReturnType());
+            List<String> containers = new ArrayList<String>();
+            Type innermostType = SchemaWrapperFactory.innermostType(genericType, containers);
+            Class<?> propertyType = innermostType == null ? null : TypeResolver.rawClass(innermostType);
+
+            MemberAnnotations annotations = MemberAnnotations.of(field);
+            ManagedReference managedReference = null;
+            boolean backward = false;
+            JsonManagedReference refAnn = annotations.getManagedReference();
+            if (refAnn != null)
+                managedReference = new ManagedReference(ownerType, refAnn.value(), propertyType);
+            JsonBackReference backRefAnn = annotations.getBackReference();
+            if (backRefAnn != null) {
+                if (managedReference != null)
+                    throw new RuntimeException("Error at " + ownerType.getName() + ": Cannot reference " + propertyType.getName() + " both as Managed and Back Reference.");
+                managedReference = new ManagedReference(propertyType, backRefAnn.value(), ownerType);
+                backward = true;
+            }
+
+            PendingSchema schema;
+            if (annotations.isIgnored()) {
+                continue;
+            } else if (backward) {
+                String ref;
+                Attributes returnTypeAttributes = method.getReturnType().getAnnotation(Attributes.class);
+                if (returnTypeAttributes != null && !returnTypeAttributes.id().isEmpty()) {
+                    ref = returnTypeAttributes.id();
+                    managedReferences.remove(managedReference);
+                } else if (managedReferences.remove(managedReference)) {
+                    ref = PropertyWrapper.ownerIdOf(owner.relativeId);
+                } else {
+                    continue;
+                }
+                context.referenceCycle(propertyType);
+                schema = describeRef(ref, containers);
+            } else if (ownerType == propertyType && !PolymorphicModel.of(propertyType).isPolymorphic()) {
+                context.referenceCycle(propertyType);
+                schema = describeRef(owner.relativeId, containers);
+            } else {
+                if (managedReference != null)
+                    managedReferences.add(managedReference);
+                schema = describe(genericType, managedReferences, owner.relativeId + PROPERTIES_STR + name);
+                boolean readonly = !model.hasSetter(method);
+                ObjectNode decorations = schema.refWrapper ? SchemaWrapperFactory.MAPPER.createObjectNode() : schema.head;
+                if (PropertyWrapper.putAttributes(decorations, annotations.getAttributes(), model.getEnums(name),
+                        readonly)) {
+                    required.add(name);
+                }
+                context.translate(annotations, decorations);
+                if (schema.refWrapper)
+                    RefSchemaWrapper.decorate(schema.head, decorations, annotations.isNullable());
+                else if (annotations.isNullable())
+                    PropertyWrapper.putNullable(schema.head, schema.enumWrapper);
+            }
+
+            if (!started) {
+                generator.writeObjectFieldStart(CustomSchemaWrapper.TAG_PROPERTIES);
+                nodes++;
+                started = true;
+            }
+            generator.writeFieldName(name);
+            write(schema);
+            written.add(name);
+            properties++;
+        }
+
+        PolymorphicModel polymorphicModel = PolymorphicModel.of(ownerType);
+        String typeProperty = polymorphicModel.getTypeProperty();
+        if (typeProperty != null && !written.contains(typeProperty)) {
+            if (!started) {
+                generator.writeObjectFieldStart(CustomSchemaWrapper.TAG_PROPERTIES);
+                nodes++;
+                started = true;
+            }
+            generator.writeFieldName(typeProperty);
+            writeTree(CustomSchemaWrapper.typeIdSchema(polymorphicModel.getTypeId()));
+            required.add(typeProperty);
+        }
+
+        if (started)
+            generator.writeEndObject();
+        context.typeGenerated(ownerType, startTime, properties);
+        return required;
+    }
+
+    private void writeTree(JsonNode tree) throws IOException {
+        SchemaWrapperFactory.MAPPER.writeTree(generator, tree);
+        nodes += GenerationMetrics.countNodes(tree);
+    }
+
+    /**
+     * A schema whose head is known but whose properties or items are yet to be written.
+     */
+    private static final class PendingSchema {
+        final ObjectNode head;
+        boolean enumWrapper;
+        boolean refWrapper;
+        boolean root;
+        boolean putDollarSchema;
+        Class<?> customType;
+        Type genericType;
+        Type containedType;
+        Set<ManagedReference> managedReferences;
+        String relativeId;
+
+        PendingSchema(ObjectNode head) {
+            this.head = head;
+        }
+    }
+}
@@ -31,15 +31,32 @@ import com.github.reinert.jjschema.Nullable;
 public abstract class SchemaWrapper {
     private final Class<?> type;
     private final ObjectNode node = SchemaWrapperFactory.MAPPER.createObjectNode();
+    private GenerationContext rootContext;
 
     public SchemaWrapper(Class<?> type) {
         this.type = type;
     }
 
     public JsonNode asJson() {
+        materialize();
+        if (rootContext != null)
+            rootContext.putDefinitions(node);
         return node;
     }
 
+    /**
+     * Makes the wrapper the root of a generation, whose JSON holds the definitions of the context.
+     */
+    void setRootOf(GenerationContext context) {
+        this.rootContext = context;
+    }
+
+    /**
+     * Builds whatever a lazy wrapper deferred, down to the leaves of its subtree.
+     */
+    void materialize() {
+    }
+
     public String getDollarSchema() {
         return getNodeTextValue(node.get("$schema"));
     }
@@ -20,9 +20,17 @@ package com.github.reinert.jjschema.v1;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.reinert.jjschema.ManagedReference;
-import com.github.reinert.jjschema.SimpleTypeMappings;
+import com.github.reinert.jjschema.introspection.PolymorphicModel;
+import com.github.reinert.jjschema.introspection.TypeClassifier;
+import com.github.reinert.jjschema.introspection.TypeKind;
+import com.github.reinert.jjschema.introspection.TypeResolver;
 
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.util.AbstractCollection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -32,6 +40,9 @@ import java.util.Set;
 public class SchemaWrapperFactory {
 
     public static final ObjectMapper MAPPER = new ObjectMapper();
+
+    static final String TAG_ITEMS = "items";
+    static final String TAG_ADDITIONAL_PROPERTIES = "additionalProperties";
     
     private SchemaWrapperFactory() {}
 
@@ -47,29 +58,136 @@ public class SchemaWrapperFactory {
         return createWrapper(type, managedReferences, null);
     }
 
+    /**
+     * Creates the wrapper of a class within a generation of its own, without definitions.
+     */
     public static SchemaWrapper createWrapper(Class<?> type, Set<ManagedReference> managedReferences, String relativeId) {
-        // If it is void then return null
-        if (type == Void.class || type == void.class || type == null) {
-            return new NullSchemaWrapper(type);
+        return createWrapper(type, managedReferences, relativeId, new GenerationContext());
+    }
+
+    public static SchemaWrapper createWrapper(Class<?> type, Set<ManagedReference> managedReferences, String relativeId,
+                                              GenerationContext context) {
+        return createWrapper((Type) type, managedReferences, relativeId, context);
+    }
+
+    /**
+     * Creates the wrapper of a resolved type within a generation. Arrays and collections become arrays, and maps
+     * objects whose values are described by {@code additionalProperties}. With definitions enabled, custom types
+     * other than the root are replaced by a reference to their definition, unless they are parameterized, since
+     * definitions are named by class, and so are large enums. Custom types found once a budget of the generation
+     * has run out are replaced by an open schema, and opaque types by their placeholder. Types listing their
+     * subtypes become one of references to the definitions of the subtypes. {@code Optional} and
+     * {@code AtomicReference} are described by the type they hold, or by an open schema when raw.
+     * <p>
+     * The first wrapper created within a context is its root, whose JSON holds the definitions generated by the
+     * context, if any.
+     *
+     * @param type a type resolved by {@link TypeResolver}
+     */
+    public static SchemaWrapper createWrapper(Type type, Set<ManagedReference> managedReferences, String relativeId,
+                                              GenerationContext context) {
+        boolean root = context.startRoot();
+        SchemaWrapper schemaWrapper = dispatch(type, managedReferences, relativeId, context);
+        if (root)
+            schemaWrapper.setRootOf(context);
+        return schemaWrapper;
+    }
+
+    private static SchemaWrapper dispatch(Type type, Set<ManagedReference> managedReferences, String relativeId,
+                                          GenerationContext context) {
+        Class<?> rawType = type == null ? null : TypeResolver.rawClass(type);
+        TypeKind kind = rawType == null ? TypeKind.VOID : TypeClassifier.kindOf(rawType);
+        if (kind == TypeKind.VOID) {
+            return new NullSchemaWrapper(rawType);
+        } else if (kind == TypeKind.SIMPLE) {
+            return new SimpleSchemaWrapper(rawType);
+        } else if (kind == TypeKind.WRAPPER) {
+            Type wrappedType = TypeClassifier.wrappedType(type);
+            if (wrappedType == null)
+                return new OpenSchemaWrapper(rawType);
+            return createWrapper(wrappedType, managedReferences, relativeId, context);
+        } else if (TAG_ITEMS.equals(containerKeyword(rawType))) {
+            return new ArraySchemaWrapper(type, managedReferences, relativeId, context);
+        } else if (TAG_ADDITIONAL_PROPERTIES.equals(containerKeyword(rawType))) {
+            return new MapSchemaWrapper(type, managedReferences, relativeId, context);
+        } else if (kind == TypeKind.ENUM) {
+            return context.isReferencedEnum(rawType) ? context.referenceEnum(rawType) : new EnumSchemaWrapper(rawType);
         }
-        // If it is a simple type, then just put the type
-        else if (SimpleTypeMappings.isSimpleType(type)) {
-            return new SimpleSchemaWrapper(type);
+        SchemaWrapper opaqueWrapper = context.opaqueWrapper(rawType);
+        if (opaqueWrapper != null) {
+            return opaqueWrapper;
+        } else if (PolymorphicModel.of(rawType).isPolymorphic()) {
+            return context.referenceSubtypes(rawType);
+        } else if (!(type instanceof ParameterizedType) && context.isReferenced(rawType)) {
+            return context.reference(rawType);
+        } else if (context.checkBudgets(rawType) != null) {
+            return new OpenSchemaWrapper(rawType);
+        } else {
+            if (managedReferences == null)
+                managedReferences = new HashSet<ManagedReference>();
+            return new CustomSchemaWrapper(type, managedReferences, relativeId, context);
+        }
+    }
+
+    /**
+     * @return the keyword describing the contents of a container type, {@code items} for arrays and collections
+     * and {@code additionalProperties} for maps, or null if the type is no container
+     */
+    static String containerKeyword(Class<?> type) {
+        switch (TypeClassifier.kindOf(type)) {
+            case ARRAY:
+            case COLLECTION:
+            case CUSTOM_COLLECTION:
+                return TAG_ITEMS;
+            case MAP:
+                return TAG_ADDITIONAL_PROPERTIES;
+            default:
+                return null;
         }
-        // If it is an Enum than process like enum
-        else if (type.isEnum()) {
-            return new EnumSchemaWrapper(type);
+    }
+
+    /**
+     * @return the type of the items or of the values of a resolved container type, or null if it is raw
+     */
+    static Type containedType(Type type) {
+        if (TAG_ITEMS.equals(containerKeyword(TypeResolver.rawClass(type))))
+            return TypeResolver.itemsType(type);
+        return TypeResolver.valueType(type);
+    }
+
+    /**
+     * Looks through the containers and wrappers of a resolved type for the type its innermost schema describes.
+     *
+     * @param containers receives the keywords of the containers found, the outermost first
+     * @return the innermost type, or null if a container or wrapper on the way is raw
+     */
+    static Type innermostType(Type type, List<String> containers) {
+        while (type != null) {
+            Class<?> rawType = TypeResolver.rawClass(type);
+            String keyword = containerKeyword(rawType);
+            if (keyword != null) {
+                containers.add(keyword);
+                type = containedType(type);
+            } else if (TypeClassifier.kindOf(rawType) == TypeKind.WRAPPER) {
+                type = TypeClassifier.wrappedType(type);
+            } else {
+                break;
+            }
         }
-        // If none of the above possibilities were true, then it is a custom object
-        else {
-            if (managedReferences != null)
-                if (relativeId != null)
-                    return new CustomSchemaWrapper(type, managedReferences, relativeId);
-                else
-                    return new CustomSchemaWrapper(type, managedReferences);
+        return type;
+    }
+
+    /**
+     * Wraps a schema into the given containers, the outermost first.
+     */
+    static SchemaWrapper createContainerWrapper(SchemaWrapper schemaWrapper, List<String> containers) {
+        for (int i = containers.size() - 1; i >= 0; i--) {
+            if (TAG_ITEMS.equals(containers.get(i)))
+                schemaWrapper = new ArraySchemaWrapper(AbstractCollection.class, schemaWrapper);
             else
-                return new CustomSchemaWrapper(type);
+                schemaWrapper = new MapSchemaWrapper(Map.class, schemaWrapper);
         }
+        return schemaWrapper;
     }
 
     public static SchemaWrapper createArrayWrapper(Class<?> type, Class<?> parametrizedType, Set<ManagedReference> managedReferences) {
@@ -80,6 +198,11 @@ public class SchemaWrapperFactory {
         return new ArraySchemaWrapper(type, parametrizedType, managedReferences, relativeId);
     }
 
+    public static SchemaWrapper createArrayWrapper(Class<?> type, Class<?> parametrizedType, Set<ManagedReference> managedReferences,
+                                                   String relativeId, GenerationContext context) {
+        return new ArraySchemaWrapper(type, parametrizedType, managedReferences, relativeId, context);
+    }
+
     public static SchemaWrapper createArrayRefWrapper(RefSchemaWrapper refSchemaWrapper) {
         return new ArraySchemaWrapper(AbstractCollection.class, refSchemaWrapper);
     }
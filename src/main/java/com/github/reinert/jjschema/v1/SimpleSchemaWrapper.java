@@ -18,7 +18,9 @@
 
 package com.github.reinert.jjschema.v1;
 
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.github.reinert.jjschema.SimpleTypeMappings;
+import com.github.reinert.jjschema.introspection.TypeClassifier;
 
 /**
  * @author Danilo Reinert
@@ -28,7 +30,11 @@ public class SimpleSchemaWrapper extends SchemaWrapper {
 
     public SimpleSchemaWrapper(Class<?> type) {
         super(type);
-        setType(SimpleTypeMappings.forClass(type));
+        ObjectNode registeredSchema = TypeClassifier.getFixedSchema(type);
+        if (registeredSchema != null)
+            getNode().setAll(registeredSchema);
+        else
+            setType(SimpleTypeMappings.forClass(type));
         processNullable();
     }
 
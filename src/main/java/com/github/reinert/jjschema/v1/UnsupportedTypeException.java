@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import javax.lang.model.element.TypeElement;
+
+/**
+ * Thrown when the schema of a type cannot be generated at compile time exactly as it would be at runtime.
+ *
+ * @author Danilo Reinert
+ */
+
+class UnsupportedTypeException extends Exception {
+
+    private static final long serialVersionUID = -2917462316380194215L;
+
+    UnsupportedTypeException(TypeElement type, String reason) {
+        super(type.getQualifiedName() + ": " + reason);
+    }
+}
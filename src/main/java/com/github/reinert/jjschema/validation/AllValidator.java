@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.List;
+
+/**
+ * Requires all of its validators to pass: the keywords of a schema, or the schemas of {@code allOf}.
+ *
+ * @author Danilo Reinert
+ */
+
+final class AllValidator extends Validator {
+
+    static final Validator ALWAYS_VALID = new Validator() {
+        @Override
+        boolean validate(JsonNode instance, Report report) {
+            return true;
+        }
+    };
+
+    private final Validator[] validators;
+
+    private AllValidator(Validator[] validators) {
+        this.validators = validators;
+    }
+
+    static Validator of(List<Validator> validators) {
+        if (validators.isEmpty())
+            return ALWAYS_VALID;
+        if (validators.size() == 1)
+            return validators.get(0);
+        return new AllValidator(validators.toArray(new Validator[validators.size()]));
+    }
+
+    @Override
+    boolean validate(JsonNode instance, Report report) {
+        boolean valid = true;
+        for (Validator validator : validators) {
+            if (!validator.validate(instance, report)) {
+                if (report == null)
+                    return false;
+                valid = false;
+            }
+        }
+        return valid;
+    }
+}
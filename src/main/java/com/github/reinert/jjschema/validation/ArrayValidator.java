@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Validates {@code items}, {@code additionalItems}, {@code minItems}, {@code maxItems} and {@code uniqueItems}.
+ *
+ * @author Danilo Reinert
+ */
+
+final class ArrayValidator extends Validator {
+
+    private final int minItems;
+    private final int maxItems;
+    private final boolean uniqueItems;
+    private final Validator items;
+    private final Validator[] tupleItems;
+    private final Validator additionalItems;
+
+    /**
+     * @param items the schema of all items, or null
+     * @param tupleItems the schemas of the first items, or null
+     * @param additionalItems the schema of the items after the first ones, null if they are forbidden
+     */
+    ArrayValidator(JsonNode schema, Validator items, Validator[] tupleItems, Validator additionalItems) {
+        this.minItems = (int) Math.min(Integer.MAX_VALUE, schema.path("minItems").asLong(0));
+        this.maxItems = (int) Math.min(Integer.MAX_VALUE, schema.path("maxItems").asLong(Integer.MAX_VALUE));
+        this.uniqueItems = schema.path("uniqueItems").asBoolean();
+        this.items = items;
+        this.tupleItems = tupleItems;
+        this.additionalItems = additionalItems;
+    }
+
+    static boolean applies(JsonNode schema) {
+        return schema.has("items") || schema.has("minItems") || schema.has("maxItems") || schema.has("uniqueItems");
+    }
+
+    @Override
+    boolean validate(JsonNode instance, Report report) {
+        if (!instance.isArray())
+            return true;
+        int size = instance.size();
+        boolean valid = true;
+        if (size < minItems) {
+            if (report == null)
+                return false;
+            report.error("minItems", "array has less than " + minItems + " items");
+            valid = false;
+        }
+        if (size > maxItems) {
+            if (report == null)
+                return false;
+            report.error("maxItems", "array has more than " + maxItems + " items");
+            valid = false;
+        }
+        if (uniqueItems && size > 1 && !hasUniqueItems(instance)) {
+            if (report == null)
+                return false;
+            report.error("uniqueItems", "array items are not unique");
+            valid = false;
+        }
+        if (items != null || tupleItems != null) {
+            for (int i = 0; i < size; i++) {
+                if (!validateItem(instance.get(i), i, report)) {
+                    if (report == null)
+                        return false;
+                    valid = false;
+                }
+            }
+        }
+        return valid;
+    }
+
+    private boolean validateItem(JsonNode item, int index, Report report) {
+        Validator validator;
+        if (tupleItems == null) {
+            validator = items;
+        } else if (index < tupleItems.length) {
+            validator = tupleItems[index];
+        } else if (additionalItems != null) {
+            validator = additionalItems;
+        } else {
+            if (report != null)
+                report.error("additionalItems", "array has more than " + tupleItems.length + " items");
+            return false;
+        }
+        if (report == null)
+            return validator.validate(item, null);
+        int length = report.push(index);
+        boolean valid = validator.validate(item, report);
+        report.pop(length);
+        return valid;
+    }
+
+    private static boolean hasUniqueItems(JsonNode instance) {
+        Set<Object> seen = new HashSet<Object>();
+        for (JsonNode item : instance) {
+            if (!seen.add(EnumValidator.key(item)))
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.validation;
+
+import com.github.reinert.jjschema.Attributes;
+import com.github.reinert.jjschema.introspection.ClassModel;
+import com.github.reinert.jjschema.introspection.MemberAnnotations;
+import com.github.reinert.jjschema.v1.CustomSchemaWrapper;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Checks Java objects against the constraints declared by the {@link Attributes} of their properties, without
+ * serializing them to JSON first.
+ * <p>
+ * Properties are the ones {@link com.github.reinert.jjschema.v1.JsonSchemaV4Factory} describes, read from the
+ * cached {@link ClassModel} of the type, and their values are checked as the generated schema would check them,
+ * nested objects included. Back references are not followed, as they are not serialized. A null value is taken as
+ * an absent property, so it only fails a required one. Class level attributes do not constrain objects.
+ * <p>
+ * Getters and patterns are resolved once per class, and checking a valid object allocates nothing but the
+ * iterators of non random access collections. Checkers are immutable and may be shared between threads.
+ *
+ * @author Danilo Reinert
+ */
+
+public final class AttributesChecker<T> {
+
+    private static final ClassValue<AttributesChecker<?>> CHECKERS = new ClassValue<AttributesChecker<?>>() {
+        @Override
+        protected AttributesChecker<?> computeValue(Class<?> type) {
+            return new AttributesChecker<Object>(type);
+        }
+    };
+
+    private final PropertyCheck[] properties;
+
+    private AttributesChecker(Class<?> type) {
+        ClassModel model = ClassModel.of(type);
+        List<PropertyCheck> checks = new ArrayList<PropertyCheck>();
+        for (Method getter : model.getSortedGetters()) {
+            Field field = model.findField(CustomSchemaWrapper.getNameFromGetter(getter.getName()));
+            if (field == null || getter.getParameterTypes().length > 0)
+                continue;
+            MemberAnnotations annotations = MemberAnnotations.of(field);
+            if (annotations.isIgnored() || annotations.getBackReference() != null)
+                continue;
+            checks.add(new PropertyCheck(getter, field, annotations.getAttributes(), model.getEnums(field.getName())));
+        }
+        this.properties = checks.toArray(new PropertyCheck[checks.size()]);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> AttributesChecker<T> of(Class<T> type) {
+        return (AttributesChecker<T>) CHECKERS.get(type);
+    }
+
+    static AttributesChecker<?> forType(Class<?> type) {
+        return CHECKERS.get(type);
+    }
+
+    /**
+     * Checks an object, stopping at the first error.
+     */
+    public boolean isValid(T object) {
+        return check(object, null);
+    }
+
+    /**
+     * @return every error found in the object, pointed as in its JSON form, empty if it is valid
+     */
+    public List<ValidationError> validate(T object) {
+        Report report = new Report();
+        check(object, report);
+        return Collections.unmodifiableList(report.getErrors());
+    }
+
+    boolean check(Object object, Report report) {
+        boolean valid = true;
+        for (PropertyCheck property : properties) {
+            if (!property.check(object, report)) {
+                if (report == null)
+                    return false;
+                valid = false;
+            }
+        }
+        return valid;
+    }
+}
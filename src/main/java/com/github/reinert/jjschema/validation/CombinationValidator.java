@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Validates {@code anyOf}, {@code oneOf} and {@code not}. Branches are evaluated without reporting, their
+ * failures being expected, and a single error is reported for the keyword.
+ *
+ * @author Danilo Reinert
+ */
+
+final class CombinationValidator extends Validator {
+
+    static final String ANY_OF = "anyOf";
+    static final String ONE_OF = "oneOf";
+    static final String NOT = "not";
+
+    private final String keyword;
+    private final Validator[] branches;
+
+    CombinationValidator(String keyword, Validator[] branches) {
+        this.keyword = keyword;
+        this.branches = branches;
+    }
+
+    @Override
+    boolean validate(JsonNode instance, Report report) {
+        int matches = 0;
+        for (Validator branch : branches) {
+            if (branch.validate(instance, null)) {
+                matches++;
+                if (keyword == ANY_OF || matches > 1)
+                    break;
+            }
+        }
+        boolean valid;
+        if (keyword == ANY_OF) {
+            valid = matches > 0;
+        } else if (keyword == ONE_OF) {
+            valid = matches == 1;
+        } else {
+            valid = matches == 0;
+        }
+        if (!valid && report != null)
+            report.error(keyword, message(matches));
+        return valid;
+    }
+
+    private String message(int matches) {
+        if (keyword == NOT)
+            return "value matches a forbidden schema";
+        if (matches == 0)
+            return "value matches none of the " + branches.length + " schemas";
+        return "value matches more than one schema";
+    }
+}
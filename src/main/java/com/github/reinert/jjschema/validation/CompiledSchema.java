@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A schema compiled for validating many instances, such as the ones generated by
+ * {@link com.github.reinert.jjschema.v1.JsonSchemaV4Factory}.
+ * <p>
+ * Patterns, required properties, enumerations and references are all resolved once, at compile time. The
+ * validation keywords of draft v4 are supported but {@code format}, which is ignored, and references must point
+ * inside the schema document. A compiled schema is immutable and may be shared between threads.
+ *
+ * @author Danilo Reinert
+ */
+
+public final class CompiledSchema {
+
+    private final Validator validator;
+
+    private CompiledSchema(Validator validator) {
+        this.validator = validator;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the document is not a valid schema or holds an unresolvable reference
+     */
+    public static CompiledSchema compile(JsonNode schema) {
+        return new CompiledSchema(SchemaCompiler.compile(schema));
+    }
+
+    /**
+     * Checks an instance, stopping at the first error.
+     */
+    public boolean isValid(JsonNode instance) {
+        return validator.validate(instance, null);
+    }
+
+    /**
+     * @return every error found in the instance, empty if it is valid
+     */
+    public List<ValidationError> validate(JsonNode instance) {
+        Report report = new Report();
+        validator.validate(instance, report);
+        return Collections.unmodifiableList(report.getErrors());
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Validates the {@code enum} keyword with a hashed lookup. Enums made of strings only, as generated for Java
+ * enums, are looked up by text without any allocation.
+ *
+ * @author Danilo Reinert
+ */
+
+final class EnumValidator extends Validator {
+
+    private final Set<String> strings = new HashSet<String>();
+    private final Set<Object> values;
+    private final String expected;
+
+    EnumValidator(JsonNode enumNode) {
+        Set<Object> others = null;
+        for (JsonNode value : enumNode) {
+            if (value.isTextual()) {
+                strings.add(value.textValue());
+            } else {
+                if (others == null)
+                    others = new HashSet<Object>();
+                others.add(key(value));
+            }
+        }
+        this.values = others;
+        this.expected = enumNode.toString();
+    }
+
+    @Override
+    boolean validate(JsonNode instance, Report report) {
+        boolean valid = instance.isTextual()
+                ? strings.contains(instance.textValue())
+                : values != null && values.contains(key(instance));
+        if (!valid && report != null)
+            report.error("enum", "value " + instance + " is not one of " + expected);
+        return valid;
+    }
+
+    /**
+     * Builds a lookup key equal for equal JSON values, numbers being compared by value.
+     */
+    static Object key(JsonNode value) {
+        if (!value.isNumber())
+            return value;
+        BigDecimal number = value.decimalValue();
+        return number.signum() == 0 ? BigDecimal.ZERO : number.stripTrailingZeros();
+    }
+}
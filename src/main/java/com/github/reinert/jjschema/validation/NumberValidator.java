@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.math.BigDecimal;
+
+/**
+ * Validates {@code minimum}, {@code maximum}, their exclusive flags and {@code multipleOf}. Integral values
+ * checked against integral bounds, the usual case, are compared as longs; other values fall back to exact
+ * decimal arithmetic.
+ *
+ * @author Danilo Reinert
+ */
+
+final class NumberValidator extends Validator {
+
+    private final Bound minimum;
+    private final boolean exclusiveMinimum;
+    private final Bound maximum;
+    private final boolean exclusiveMaximum;
+    private final Bound multipleOf;
+
+    NumberValidator(JsonNode schema) {
+        this.minimum = Bound.of(schema.get("minimum"));
+        this.exclusiveMinimum = schema.path("exclusiveMinimum").asBoolean();
+        this.maximum = Bound.of(schema.get("maximum"));
+        this.exclusiveMaximum = schema.path("exclusiveMaximum").asBoolean();
+        this.multipleOf = Bound.of(schema.get("multipleOf"));
+        if (multipleOf != null && multipleOf.decimal.signum() <= 0)
+            throw new IllegalArgumentException("multipleOf must be strictly positive");
+    }
+
+    static boolean applies(JsonNode schema) {
+        return schema.has("minimum") || schema.has("maximum") || schema.has("multipleOf");
+    }
+
+    @Override
+    boolean validate(JsonNode instance, Report report) {
+        if (!instance.isNumber())
+            return true;
+        boolean valid = true;
+        if (minimum != null) {
+            int comparison = minimum.compareTo(instance);
+            if (comparison > 0 || exclusiveMinimum && comparison == 0) {
+                if (report == null)
+                    return false;
+                report.error("minimum", "value " + instance + " is lower than "
+                        + (exclusiveMinimum ? "or equal to " : "") + minimum.decimal);
+                valid = false;
+            }
+        }
+        if (maximum != null) {
+            int comparison = maximum.compareTo(instance);
+            if (comparison < 0 || exclusiveMaximum && comparison == 0) {
+                if (report == null)
+                    return false;
+                report.error("maximum", "value " + instance + " is greater than "
+                        + (exclusiveMaximum ? "or equal to " : "") + maximum.decimal);
+                valid = false;
+            }
+        }
+        if (multipleOf != null && !multipleOf.divides(instance)) {
+            if (report == null)
+                return false;
+            report.error("multipleOf", "value " + instance + " is not a multiple of " + multipleOf.decimal);
+            valid = false;
+        }
+        return valid;
+    }
+
+    private static boolean isLong(JsonNode instance) {
+        return instance.isInt() || instance.isLong();
+    }
+
+    /**
+     * A numeric keyword value, kept as a long as well when integral.
+     */
+    private static final class Bound {
+        final BigDecimal decimal;
+        final boolean integral;
+        final long longValue;
+
+        private Bound(BigDecimal decimal) {
+            this.decimal = decimal;
+            boolean isLong;
+            long value = 0;
+            try {
+                value = decimal.longValueExact();
+                isLong = true;
+            } catch (ArithmeticException e) {
+                isLong = false;
+            }
+            this.integral = isLong;
+            this.longValue = value;
+        }
+
+        static Bound of(JsonNode node) {
+            if (node == null)
+                return null;
+            if (!node.isNumber())
+                throw new IllegalArgumentException("Not a number: " + node);
+            return new Bound(node.decimalValue());
+        }
+
+        int compareTo(JsonNode instance) {
+            if (integral && isLong(instance)) {
+                long value = instance.longValue();
+                return longValue < value ? -1 : (longValue == value ? 0 : 1);
+            }
+            return decimal.compareTo(instance.decimalValue());
+        }
+
+        boolean divides(JsonNode instance) {
+            if (integral && isLong(instance))
+                return instance.longValue() % longValue == 0;
+            return instance.decimalValue().remainder(decimal).signum() == 0;
+        }
+    }
+}
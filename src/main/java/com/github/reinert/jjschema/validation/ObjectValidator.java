@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Validates {@code properties}, {@code required}, {@code patternProperties}, {@code additionalProperties},
+ * {@code dependencies}, {@code minProperties} and {@code maxProperties}.
+ * <p>
+ * Declared properties are looked up by name in the instance, so its members are only iterated when patterns or
+ * additional properties have to be checked.
+ *
+ * @author Danilo Reinert
+ */
+
+final class ObjectValidator extends Validator {
+
+    private final String[] names;
+    private final Validator[] properties;
+    private final String[] required;
+    private final Pattern[] patterns;
+    private final Validator[] patternProperties;
+    private final boolean additionalAllowed;
+    private final Validator additionalProperties;
+    private final String[] dependents;
+    private final String[][] propertyDependencies;
+    private final Validator[] schemaDependencies;
+    private final int minProperties;
+    private final int maxProperties;
+
+    /**
+     * @param additionalProperties the schema of additional properties, or null if any is allowed
+     * @param additionalAllowed false if {@code additionalProperties} is false
+     * @param propertyDependencies the names required by each dependent, or null where the dependency is a schema
+     * @param schemaDependencies the schema required by each dependent, or null where the dependency is a name list
+     */
+    ObjectValidator(JsonNode schema, String[] names, Validator[] properties, String[] required, Pattern[] patterns,
+                    Validator[] patternProperties, boolean additionalAllowed, Validator additionalProperties,
+                    String[] dependents, String[][] propertyDependencies, Validator[] schemaDependencies) {
+        this.names = names;
+        this.properties = properties;
+        this.required = required;
+        this.patterns = patterns;
+        this.patternProperties = patternProperties;
+        this.additionalAllowed = additionalAllowed;
+        this.additionalProperties = additionalProperties;
+        this.dependents = dependents;
+        this.propertyDependencies = propertyDependencies;
+        this.schemaDependencies = schemaDependencies;
+        this.minProperties = (int) Math.min(Integer.MAX_VALUE, schema.path("minProperties").asLong(0));
+        this.maxProperties = (int) Math.min(Integer.MAX_VALUE, schema.path("maxProperties").asLong(Integer.MAX_VALUE));
+    }
+
+    static boolean applies(JsonNode schema) {
+        return schema.has("properties") || schema.has("required") || schema.has("patternProperties")
+                || schema.has("additionalProperties") || schema.has("dependencies")
+                || schema.has("minProperties") || schema.has("maxProperties");
+    }
+
+    @Override
+    boolean validate(JsonNode instance, Report report) {
+        if (!instance.isObject())
+            return true;
+        boolean valid = true;
+        int size = instance.size();
+        if (size < minProperties || size > maxProperties) {
+            if (report == null)
+                return false;
+            report.error(size < minProperties ? "minProperties" : "maxProperties",
+                    "object has " + size + " properties");
+            valid = false;
+        }
+        for (String name : required) {
+            if (!instance.has(name)) {
+                if (report == null)
+                    return false;
+                report.error("required", "property " + name + " is missing");
+                valid = false;
+            }
+        }
+        for (int i = 0; i < names.length; i++) {
+            JsonNode value = instance.get(names[i]);
+            if (value != null && !validateMember(properties[i], names[i], value, report)) {
+                if (report == null)
+                    return false;
+                valid = false;
+            }
+        }
+        if (patterns.length > 0 || !additionalAllowed || additionalProperties != null) {
+            Iterator<Map.Entry<String, JsonNode>> fields = instance.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (!validateOther(field.getKey(), field.getValue(), report)) {
+                    if (report == null)
+                        return false;
+                    valid = false;
+                }
+            }
+        }
+        for (int i = 0; i < dependents.length; i++) {
+            if (instance.has(dependents[i]) && !validateDependency(i, instance, report)) {
+                if (report == null)
+                    return false;
+                valid = false;
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Validates a member against the pattern properties it matches, or as an additional property if it matches
+     * neither a declared property nor a pattern.
+     */
+    private boolean validateOther(String name, JsonNode value, Report report) {
+        boolean valid = true;
+        boolean matched = isDeclared(name);
+        for (int i = 0; i < patterns.length; i++) {
+            if (patterns[i].matcher(name).find()) {
+                matched = true;
+                if (!validateMember(patternProperties[i], name, value, report)) {
+                    if (report == null)
+                        return false;
+                    valid = false;
+                }
+            }
+        }
+        if (matched)
+            return valid;
+        if (!additionalAllowed) {
+            if (report != null)
+                report.error("additionalProperties", "property " + name + " is not allowed");
+            return false;
+        }
+        return additionalProperties == null || validateMember(additionalProperties, name, value, report);
+    }
+
+    private boolean validateDependency(int index, JsonNode instance, Report report) {
+        if (schemaDependencies[index] != null)
+            return schemaDependencies[index].validate(instance, report);
+        boolean valid = true;
+        for (String name : propertyDependencies[index]) {
+            if (!instance.has(name)) {
+                if (report == null)
+                    return false;
+                report.error("dependencies", "property " + dependents[index] + " requires property " + name);
+                valid = false;
+            }
+        }
+        return valid;
+    }
+
+    private boolean isDeclared(String name) {
+        for (String declared : names) {
+            if (declared.equals(name))
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean validateMember(Validator validator, String name, JsonNode value, Report report) {
+        if (report == null)
+            return validator.validate(value, null);
+        int length = report.push(name);
+        boolean valid = validator.validate(value, report);
+        report.pop(length);
+        return valid;
+    }
+}
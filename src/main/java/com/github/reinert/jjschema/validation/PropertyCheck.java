@@ -0,0 +1,424 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.validation;
+
+import com.github.reinert.jjschema.Attributes;
+import com.github.reinert.jjschema.introspection.TypeClassifier;
+import com.github.reinert.jjschema.introspection.TypeKind;
+import com.google.common.base.Throwables;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks the value of one property against the {@link Attributes} of its field, the way the schema generated for
+ * the property would check its JSON value.
+ * <p>
+ * Integral and floating point getters are read through method handles returning {@code long} and {@code double},
+ * so primitive values are never boxed.
+ *
+ * @author Danilo Reinert
+ */
+
+final class PropertyCheck {
+
+    private static final int OBJECT = 0;
+    private static final int LONG = 1;
+    private static final int DOUBLE = 2;
+    private static final int SMALL_COLLECTION = 8;
+
+    private final String name;
+    private final MethodHandle getter;
+    private final int kind;
+    private final boolean required;
+    private final boolean hasMinimum;
+    private final long minimum;
+    private final BigDecimal decimalMinimum;
+    private final boolean exclusiveMinimum;
+    private final boolean hasMaximum;
+    private final long maximum;
+    private final BigDecimal decimalMaximum;
+    private final boolean exclusiveMaximum;
+    private final long multipleOf;
+    private final BigDecimal decimalMultipleOf;
+    private final int minLength;
+    private final long maxLength;
+    private final ThreadLocal<Matcher> matcher;
+    private final String pattern;
+    private final Set<String> enums;
+    private final String expectedEnums;
+    private final int minItems;
+    private final long maxItems;
+    private final boolean uniqueItems;
+    private final Class<?> nestedType;
+
+    /**
+     * @param enums the enum constants declared for the property, which take precedence over the annotation ones
+     */
+    PropertyCheck(Method method, Field field, Attributes attributes, String[] enums) {
+        this.name = field.getName();
+        Class<?> type = method.getReturnType();
+        if (type == byte.class || type == short.class || type == int.class || type == long.class) {
+            this.kind = LONG;
+        } else if (type == float.class || type == double.class) {
+            this.kind = DOUBLE;
+        } else {
+            this.kind = OBJECT;
+        }
+        this.getter = unreflect(method, kind == LONG ? long.class : kind == DOUBLE ? double.class : Object.class);
+
+        boolean present = attributes != null;
+        this.required = present && attributes.required();
+        this.hasMinimum = present && attributes.minimum() > -1;
+        this.minimum = hasMinimum ? attributes.minimum() : 0;
+        this.decimalMinimum = BigDecimal.valueOf(minimum);
+        this.exclusiveMinimum = present && attributes.exclusiveMinimum();
+        this.hasMaximum = present && attributes.maximum() > -1;
+        this.maximum = hasMaximum ? attributes.maximum() : 0;
+        this.decimalMaximum = BigDecimal.valueOf(maximum);
+        this.exclusiveMaximum = present && attributes.exclusiveMaximum();
+        this.multipleOf = present ? Math.max(0, attributes.multipleOf()) : 0;
+        this.decimalMultipleOf = BigDecimal.valueOf(multipleOf);
+        this.minLength = present ? Math.max(0, attributes.minLength()) : 0;
+        this.maxLength = present && attributes.maxLength() > -1 ? attributes.maxLength() : Long.MAX_VALUE;
+        this.pattern = present && !attributes.pattern().isEmpty() ? attributes.pattern() : null;
+        this.matcher = pattern == null ? null : newMatcher(Pattern.compile(pattern));
+        this.minItems = present ? Math.max(0, attributes.minItems()) : 0;
+        this.maxItems = present && attributes.maxItems() > -1 ? attributes.maxItems() : Long.MAX_VALUE;
+        this.uniqueItems = present && attributes.uniqueItems();
+
+        if (enums.length == 0 && present)
+            enums = attributes.enums();
+        if (enums.length > 0) {
+            this.enums = new HashSet<String>();
+            for (String value : enums) {
+                this.enums.add(value);
+            }
+            this.expectedEnums = this.enums.toString();
+        } else {
+            this.enums = null;
+            this.expectedEnums = null;
+        }
+
+        Class<?> valueType = type;
+        if (Collection.class.isAssignableFrom(type)) {
+            Type generic = method.getGenericReturnType();
+            Type argument = generic instanceof ParameterizedType
+                    ? ((ParameterizedType) generic).getActualTypeArguments()[0] : null;
+            valueType = argument instanceof Class ? (Class<?>) argument : null;
+        }
+        this.nestedType = isCustom(valueType) ? valueType : null;
+    }
+
+    /**
+     * @param bean the object holding the property
+     * @param report where errors are reported, or null for stopping at the first error without reporting it
+     * @return true if the property value is valid
+     */
+    boolean check(Object bean, Report report) {
+        try {
+            if (kind == LONG)
+                return checkNumber((long) getter.invokeExact(bean), report);
+            if (kind == DOUBLE)
+                return checkNumber((double) getter.invokeExact(bean), report);
+            Object value = (Object) getter.invokeExact(bean);
+            if (value == null) {
+                if (required && report != null)
+                    report.error("required", "property " + name + " is missing");
+                return !required;
+            }
+            return checkValue(value, report);
+        } catch (Throwable e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    private boolean checkValue(Object value, Report report) {
+        int length = report == null ? 0 : report.push(name);
+        boolean valid;
+        if (value instanceof Number) {
+            valid = checkNumber((Number) value, report);
+        } else if (value instanceof CharSequence) {
+            valid = checkString((CharSequence) value, report);
+        } else if (value instanceof Character || value instanceof java.util.UUID) {
+            valid = checkString(value.toString(), report);
+        } else if (value instanceof Enum) {
+            valid = checkEnum(((Enum<?>) value).name(), value, report);
+        } else if (value instanceof Collection) {
+            valid = checkCollection((Collection<?>) value, report);
+        } else {
+            valid = checkEnum(null, value, report) & checkNested(value, report);
+        }
+        if (report != null)
+            report.pop(length);
+        return valid;
+    }
+
+    private boolean checkNumber(Number value, Report report) {
+        if (value instanceof BigDecimal)
+            return checkDecimal((BigDecimal) value, report);
+        if (value instanceof Double || value instanceof Float)
+            return checkDouble(value.doubleValue(), report);
+        if (value instanceof BigInteger && ((BigInteger) value).bitLength() >= Long.SIZE)
+            return checkDecimal(new BigDecimal((BigInteger) value), report);
+        return checkLong(value.longValue(), report);
+    }
+
+    private boolean checkNumber(long value, Report report) {
+        int length = report == null ? 0 : report.push(name);
+        boolean valid = checkLong(value, report);
+        if (report != null)
+            report.pop(length);
+        return valid;
+    }
+
+    private boolean checkNumber(double value, Report report) {
+        int length = report == null ? 0 : report.push(name);
+        boolean valid = checkDouble(value, report);
+        if (report != null)
+            report.pop(length);
+        return valid;
+    }
+
+    private boolean checkLong(long value, Report report) {
+        boolean valid = enums == null || checkEnum(null, value, report);
+        if (hasMinimum && (value < minimum || exclusiveMinimum && value == minimum))
+            valid = belowMinimum(value, report);
+        if (hasMaximum && (value > maximum || exclusiveMaximum && value == maximum))
+            valid = aboveMaximum(value, report);
+        if (multipleOf > 0 && value % multipleOf != 0)
+            valid = notMultiple(value, report);
+        return valid;
+    }
+
+    private boolean checkDouble(double value, Report report) {
+        boolean valid = enums == null || checkEnum(null, value, report);
+        if (hasMinimum && (value < minimum || exclusiveMinimum && value == minimum))
+            valid = belowMinimum(value, report);
+        if (hasMaximum && (value > maximum || exclusiveMaximum && value == maximum))
+            valid = aboveMaximum(value, report);
+        if (multipleOf > 0 && value % multipleOf != 0)
+            valid = notMultiple(value, report);
+        return valid;
+    }
+
+    private boolean checkDecimal(BigDecimal value, Report report) {
+        boolean valid = enums == null || checkEnum(null, value, report);
+        int toMinimum = value.compareTo(decimalMinimum);
+        if (hasMinimum && (toMinimum < 0 || exclusiveMinimum && toMinimum == 0))
+            valid = belowMinimum(value, report);
+        int toMaximum = value.compareTo(decimalMaximum);
+        if (hasMaximum && (toMaximum > 0 || exclusiveMaximum && toMaximum == 0))
+            valid = aboveMaximum(value, report);
+        if (multipleOf > 0 && value.remainder(decimalMultipleOf).signum() != 0)
+            valid = notMultiple(value, report);
+        return valid;
+    }
+
+    private boolean checkString(CharSequence value, Report report) {
+        boolean valid = enums == null || checkEnum(value.toString(), value, report);
+        int length = value.length();
+        if (length > maxLength || (length + 1) / 2 < minLength)
+            length = Character.codePointCount(value, 0, length);
+        if (length < minLength) {
+            if (report == null)
+                return false;
+            report.error("minLength", "string " + value + " is shorter than " + minLength);
+            valid = false;
+        }
+        if (length > maxLength) {
+            if (report == null)
+                return false;
+            report.error("maxLength", "string " + value + " is longer than " + maxLength);
+            valid = false;
+        }
+        if (matcher != null) {
+            Matcher current = matcher.get();
+            boolean found = current.reset(value).find();
+            current.reset("");
+            if (!found) {
+                if (report == null)
+                    return false;
+                report.error("pattern", "string " + value + " does not match " + pattern);
+                valid = false;
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * As in the generated schema, the enum constants are strings, so only strings and Java enums may match them.
+     *
+     * @param text the value as a string, null if it is not one
+     */
+    private boolean checkEnum(String text, Object value, Report report) {
+        if (enums == null || text != null && enums.contains(text))
+            return true;
+        if (report != null)
+            report.error("enum", "value " + value + " is not one of " + expectedEnums);
+        return false;
+    }
+
+    private boolean checkCollection(Collection<?> value, Report report) {
+        boolean valid = true;
+        int size = value.size();
+        if (size < minItems) {
+            if (report == null)
+                return false;
+            report.error("minItems", "array has less than " + minItems + " items");
+            valid = false;
+        }
+        if (size > maxItems) {
+            if (report == null)
+                return false;
+            report.error("maxItems", "array has more than " + maxItems + " items");
+            valid = false;
+        }
+        if (uniqueItems && size > 1 && !(value instanceof Set) && !hasUniqueItems(value)) {
+            if (report == null)
+                return false;
+            report.error("uniqueItems", "array items are not unique");
+            valid = false;
+        }
+        if (nestedType == null || size == 0)
+            return valid;
+        AttributesChecker<?> checker = AttributesChecker.forType(nestedType);
+        if (value instanceof List && value instanceof RandomAccess) {
+            List<?> list = (List<?>) value;
+            for (int i = 0; i < size; i++) {
+                if (!checkItem(checker, list.get(i), i, report)) {
+                    if (report == null)
+                        return false;
+                    valid = false;
+                }
+            }
+        } else {
+            int i = 0;
+            for (Iterator<?> it = value.iterator(); it.hasNext(); i++) {
+                if (!checkItem(checker, it.next(), i, report)) {
+                    if (report == null)
+                        return false;
+                    valid = false;
+                }
+            }
+        }
+        return valid;
+    }
+
+    private static boolean checkItem(AttributesChecker<?> checker, Object item, int index, Report report) {
+        if (item == null)
+            return true;
+        if (report == null)
+            return checker.check(item, null);
+        int length = report.push(index);
+        boolean valid = checker.check(item, report);
+        report.pop(length);
+        return valid;
+    }
+
+    private boolean checkNested(Object value, Report report) {
+        return nestedType == null || AttributesChecker.forType(nestedType).check(value, report);
+    }
+
+    private boolean belowMinimum(Object value, Report report) {
+        if (report != null)
+            report.error("minimum", "value " + value + " is lower than " + (exclusiveMinimum ? "or equal to " : "")
+                    + minimum);
+        return false;
+    }
+
+    private boolean aboveMaximum(Object value, Report report) {
+        if (report != null)
+            report.error("maximum", "value " + value + " is greater than " + (exclusiveMaximum ? "or equal to " : "")
+                    + maximum);
+        return false;
+    }
+
+    private boolean notMultiple(Object value, Report report) {
+        if (report != null)
+            report.error("multipleOf", "value " + value + " is not a multiple of " + multipleOf);
+        return false;
+    }
+
+    /**
+     * Items are compared with {@code equals}, pairwise for small collections so that no set is allocated.
+     */
+    private static boolean hasUniqueItems(Collection<?> value) {
+        if (value.size() <= SMALL_COLLECTION && value instanceof List && value instanceof RandomAccess) {
+            List<?> list = (List<?>) value;
+            for (int i = 1; i < list.size(); i++) {
+                Object item = list.get(i);
+                for (int j = 0; j < i; j++) {
+                    Object other = list.get(j);
+                    if (item == null ? other == null : item.equals(other))
+                        return false;
+                }
+            }
+            return true;
+        }
+        return new HashSet<Object>(value).size() == value.size();
+    }
+
+    /**
+     * Mirrors the types the schema generator describes with their own properties.
+     */
+    private static boolean isCustom(Class<?> type) {
+        if (type == null)
+            return false;
+        TypeKind kind = TypeClassifier.kindOf(type);
+        return kind == TypeKind.CUSTOM || kind == TypeKind.ITERABLE;
+    }
+
+    private static ThreadLocal<Matcher> newMatcher(final Pattern pattern) {
+        return new ThreadLocal<Matcher>() {
+            @Override
+            protected Matcher initialValue() {
+                return pattern.matcher("");
+            }
+        };
+    }
+
+    private static MethodHandle unreflect(Method method, Class<?> returnType) {
+        try {
+            method.setAccessible(true);
+        } catch (RuntimeException e) {
+            // Public getters of public types remain accessible
+        }
+        try {
+            return MethodHandles.lookup().unreflect(method).asType(MethodType.methodType(returnType, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot access " + method, e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.validation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the errors of a validation along with the location of the value being validated. Validators skip
+ * building messages and locations altogether when they are given no report.
+ *
+ * @author Danilo Reinert
+ */
+
+final class Report {
+
+    private final List<ValidationError> errors = new ArrayList<ValidationError>();
+    private final StringBuilder pointer = new StringBuilder();
+
+    int push(String token) {
+        int length = pointer.length();
+        pointer.append('/').append(token.replace("~", "~0").replace("/", "~1"));
+        return length;
+    }
+
+    int push(int index) {
+        int length = pointer.length();
+        pointer.append('/').append(index);
+        return length;
+    }
+
+    void pop(int length) {
+        pointer.setLength(length);
+    }
+
+    void error(String keyword, String message) {
+        errors.add(new ValidationError(pointer.toString(), keyword, message));
+    }
+
+    int size() {
+        return errors.size();
+    }
+
+    /**
+     * Drops the errors added since the given size, for keywords where failing branches are expected.
+     */
+    void truncate(int size) {
+        errors.subList(size, errors.size()).clear();
+    }
+
+    List<ValidationError> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles a schema document into a tree of {@link Validator}s.
+ * <p>
+ * References are resolved once, against JSON pointers into the document or the {@code id}s it declares, and
+ * compiled to a {@link RefValidator} linked to their target when the whole document has been compiled, which
+ * allows recursive schemas. Keywords without validation semantics, such as {@code format}, are ignored.
+ *
+ * @author Danilo Reinert
+ */
+
+final class SchemaCompiler {
+
+    private final JsonNode document;
+    private final Map<String, JsonNode> ids = new HashMap<String, JsonNode>();
+    private final Map<String, RefValidator> refs = new HashMap<String, RefValidator>();
+    private final Deque<String> pending = new ArrayDeque<String>();
+    private final Map<String, JsonNode> targets = new HashMap<String, JsonNode>();
+
+    private SchemaCompiler(JsonNode document) {
+        this.document = document;
+        collectIds(document);
+    }
+
+    static Validator compile(JsonNode document) {
+        SchemaCompiler compiler = new SchemaCompiler(document);
+        Validator root = compiler.compileSchema(document);
+        while (!compiler.pending.isEmpty()) {
+            String ref = compiler.pending.poll();
+            compiler.refs.get(ref).link(compiler.compileSchema(compiler.targets.get(ref)));
+        }
+        return root;
+    }
+
+    private Validator compileSchema(JsonNode schema) {
+        if (!schema.isObject())
+            throw new IllegalArgumentException("Not a schema: " + schema);
+        JsonNode ref = schema.get("$ref");
+        if (ref != null && ref.isTextual())
+            return compileRef(ref.textValue());
+
+        List<Validator> validators = new ArrayList<Validator>();
+        if (schema.has("type"))
+            validators.add(new TypeValidator(schema.get("type")));
+        if (schema.path("enum").isArray())
+            validators.add(new EnumValidator(schema.get("enum")));
+        if (NumberValidator.applies(schema))
+            validators.add(new NumberValidator(schema));
+        if (StringValidator.applies(schema))
+            validators.add(new StringValidator(schema));
+        if (ArrayValidator.applies(schema))
+            validators.add(compileArray(schema));
+        if (ObjectValidator.applies(schema))
+            validators.add(compileObject(schema));
+        if (schema.path("allOf").isArray()) {
+            for (JsonNode branch : schema.get("allOf")) {
+                validators.add(compileSchema(branch));
+            }
+        }
+        if (schema.path("anyOf").isArray())
+            validators.add(new CombinationValidator(CombinationValidator.ANY_OF, compileAll(schema.get("anyOf"))));
+        if (schema.path("oneOf").isArray())
+            validators.add(new CombinationValidator(CombinationValidator.ONE_OF, compileAll(schema.get("oneOf"))));
+        if (schema.has("not"))
+            validators.add(new CombinationValidator(CombinationValidator.NOT,
+                    new Validator[]{compileSchema(schema.get("not"))}));
+        return AllValidator.of(validators);
+    }
+
+    private Validator compileRef(String ref) {
+        RefValidator validator = refs.get(ref);
+        if (validator == null) {
+            validator = new RefValidator();
+            refs.put(ref, validator);
+            targets.put(ref, resolve(ref));
+            pending.add(ref);
+        }
+        return validator;
+    }
+
+    private Validator compileArray(JsonNode schema) {
+        JsonNode items = schema.get("items");
+        Validator itemsValidator = null;
+        Validator[] tupleItems = null;
+        Validator additionalItems = AllValidator.ALWAYS_VALID;
+        if (items != null && items.isArray()) {
+            tupleItems = compileAll(items);
+            JsonNode additional = schema.get("additionalItems");
+            if (additional != null && additional.isBoolean()) {
+                additionalItems = additional.booleanValue() ? AllValidator.ALWAYS_VALID : null;
+            } else if (additional != null) {
+                additionalItems = compileSchema(additional);
+            }
+        } else if (items != null) {
+            itemsValidator = compileSchema(items);
+        }
+        return new ArrayValidator(schema, itemsValidator, tupleItems, additionalItems);
+    }
+
+    private Validator compileObject(JsonNode schema) {
+        JsonNode properties = schema.path("properties");
+        String[] names = new String[properties.size()];
+        Validator[] propertyValidators = new Validator[properties.size()];
+        int i = 0;
+        for (Iterator<Map.Entry<String, JsonNode>> it = properties.fields(); it.hasNext(); i++) {
+            Map.Entry<String, JsonNode> property = it.next();
+            names[i] = property.getKey();
+            propertyValidators[i] = compileSchema(property.getValue());
+        }
+
+        JsonNode requiredNode = schema.path("required");
+        String[] required = new String[requiredNode.size()];
+        for (i = 0; i < required.length; i++) {
+            required[i] = requiredNode.get(i).asText();
+        }
+
+        JsonNode patternNode = schema.path("patternProperties");
+        Pattern[] patterns = new Pattern[patternNode.size()];
+        Validator[] patternValidators = new Validator[patternNode.size()];
+        i = 0;
+        for (Iterator<Map.Entry<String, JsonNode>> it = patternNode.fields(); it.hasNext(); i++) {
+            Map.Entry<String, JsonNode> pattern = it.next();
+            patterns[i] = Pattern.compile(pattern.getKey());
+            patternValidators[i] = compileSchema(pattern.getValue());
+        }
+
+        JsonNode additional = schema.get("additionalProperties");
+        boolean additionalAllowed = additional == null || !additional.isBoolean() || additional.booleanValue();
+        Validator additionalValidator = additional != null && additional.isObject() ? compileSchema(additional) : null;
+
+        JsonNode dependencyNode = schema.path("dependencies");
+        String[] dependents = new String[dependencyNode.size()];
+        String[][] propertyDependencies = new String[dependencyNode.size()][];
+        Validator[] schemaDependencies = new Validator[dependencyNode.size()];
+        i = 0;
+        for (Iterator<Map.Entry<String, JsonNode>> it = dependencyNode.fields(); it.hasNext(); i++) {
+            Map.Entry<String, JsonNode> dependency = it.next();
+            dependents[i] = dependency.getKey();
+            if (dependency.getValue().isArray()) {
+                propertyDependencies[i] = new String[dependency.getValue().size()];
+                for (int j = 0; j < propertyDependencies[i].length; j++) {
+                    propertyDependencies[i][j] = dependency.getValue().get(j).asText();
+                }
+            } else {
+                schemaDependencies[i] = compileSchema(dependency.getValue());
+            }
+        }
+
+        return new ObjectValidator(schema, names, propertyValidators, required, patterns, patternValidators,
+                additionalAllowed, additionalValidator, dependents, propertyDependencies, schemaDependencies);
+    }
+
+    private Validator[] compileAll(JsonNode schemas) {
+        Validator[] validators = new Validator[schemas.size()];
+        for (int i = 0; i < validators.length; i++) {
+            validators[i] = compileSchema(schemas.get(i));
+        }
+        return validators;
+    }
+
+    private JsonNode resolve(String ref) {
+        JsonNode target = ids.get(ref);
+        if (target != null)
+            return target;
+        if (!ref.startsWith("#"))
+            throw new IllegalArgumentException("Unresolvable reference " + ref);
+        String pointer = ref.substring(1);
+        if (pointer.isEmpty())
+            return document;
+        if (!pointer.startsWith("/"))
+            throw new IllegalArgumentException("Unresolvable reference " + ref);
+        target = document;
+        for (String token : pointer.substring(1).split("/", -1)) {
+            token = unescape(token);
+            if (target.isArray() && token.matches("\\d+")) {
+                target = target.get(Integer.parseInt(token));
+            } else {
+                target = target.get(token);
+            }
+            if (target == null)
+                throw new IllegalArgumentException("Unresolvable reference " + ref);
+        }
+        return target;
+    }
+
+    private void collectIds(JsonNode node) {
+        if (node.isObject()) {
+            JsonNode id = node.get("id");
+            if (id != null && id.isTextual() && !ids.containsKey(id.textValue()))
+                ids.put(id.textValue(), node);
+        }
+        if (node.isContainerNode()) {
+            for (JsonNode child : node) {
+                collectIds(child);
+            }
+        }
+    }
+
+    private static String unescape(String token) {
+        try {
+            token = URLDecoder.decode(token.replace("+", "%2B"), "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        return token.replace("~1", "/").replace("~0", "~");
+    }
+}
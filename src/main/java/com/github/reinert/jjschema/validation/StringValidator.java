@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.regex.Pattern;
+
+/**
+ * Validates {@code minLength}, {@code maxLength}, counted in code points, and {@code pattern}, compiled once and
+ * searched anywhere in the string as JSON Schema requires.
+ *
+ * @author Danilo Reinert
+ */
+
+final class StringValidator extends Validator {
+
+    private final int minLength;
+    private final int maxLength;
+    private final Pattern pattern;
+
+    StringValidator(JsonNode schema) {
+        this.minLength = clamp(schema.path("minLength").asLong(0));
+        this.maxLength = clamp(schema.path("maxLength").asLong(Integer.MAX_VALUE));
+        this.pattern = schema.has("pattern") ? Pattern.compile(schema.get("pattern").textValue()) : null;
+    }
+
+    private static int clamp(long value) {
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, value));
+    }
+
+    static boolean applies(JsonNode schema) {
+        return schema.has("minLength") || schema.has("maxLength") || schema.has("pattern");
+    }
+
+    @Override
+    boolean validate(JsonNode instance, Report report) {
+        if (!instance.isTextual())
+            return true;
+        String text = instance.textValue();
+        boolean valid = true;
+        int length = text.length();
+        // A string has at most as many code points as chars, and at least half as many
+        if (length > maxLength || (length + 1) / 2 < minLength)
+            length = text.codePointCount(0, length);
+        if (length < minLength) {
+            if (report == null)
+                return false;
+            report.error("minLength", "string " + instance + " is shorter than " + minLength);
+            valid = false;
+        }
+        if (length > maxLength) {
+            if (report == null)
+                return false;
+            report.error("maxLength", "string " + instance + " is longer than " + maxLength);
+            valid = false;
+        }
+        if (pattern != null && !pattern.matcher(text).find()) {
+            if (report == null)
+                return false;
+            report.error("pattern", "string " + instance + " does not match " + pattern.pattern());
+            valid = false;
+        }
+        return valid;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Validates the {@code type} keyword against a precomputed set of primitive types.
+ *
+ * @author Danilo Reinert
+ */
+
+final class TypeValidator extends Validator {
+
+    private static final String[] NAMES = {"array", "boolean", "integer", "null", "number", "object", "string"};
+    private static final int ARRAY = 1;
+    private static final int BOOLEAN = 1 << 1;
+    private static final int INTEGER = 1 << 2;
+    private static final int NULL = 1 << 3;
+    private static final int NUMBER = 1 << 4;
+    private static final int OBJECT = 1 << 5;
+    private static final int STRING = 1 << 6;
+
+    private final int types;
+    private final String expected;
+
+    TypeValidator(JsonNode type) {
+        int mask = 0;
+        if (type.isArray()) {
+            for (JsonNode element : type) {
+                if (element.isTextual())
+                    mask |= typeOf(element.textValue());
+            }
+        } else {
+            mask = typeOf(type.textValue());
+        }
+        this.types = mask;
+        this.expected = type.toString();
+    }
+
+    @Override
+    boolean validate(JsonNode instance, Report report) {
+        if ((types & typeOf(instance)) != 0)
+            return true;
+        if (report != null)
+            report.error("type", "expected " + expected + " but found " + nameOf(instance));
+        return false;
+    }
+
+    /**
+     * @return the types of a value, an integer being a number as well
+     */
+    static int typeOf(JsonNode instance) {
+        if (instance.isObject())
+            return OBJECT;
+        if (instance.isArray())
+            return ARRAY;
+        if (instance.isTextual())
+            return STRING;
+        if (instance.isIntegralNumber())
+            return INTEGER | NUMBER;
+        if (instance.isNumber())
+            return NUMBER;
+        if (instance.isBoolean())
+            return BOOLEAN;
+        return NULL;
+    }
+
+    private static int typeOf(String name) {
+        for (int i = 0; i < NAMES.length; i++) {
+            if (NAMES[i].equals(name))
+                return 1 << i;
+        }
+        throw new IllegalArgumentException("Unknown type " + name);
+    }
+
+    private static String nameOf(JsonNode instance) {
+        int type = typeOf(instance);
+        return NAMES[Integer.numberOfTrailingZeros(type)];
+    }
+}
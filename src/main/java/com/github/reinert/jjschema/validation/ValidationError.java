@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.validation;
+
+/**
+ * A failed constraint, located by the JSON pointer of the offending value.
+ *
+ * @author Danilo Reinert
+ */
+
+public final class ValidationError {
+
+    private final String pointer;
+    private final String keyword;
+    private final String message;
+
+    ValidationError(String pointer, String keyword, String message) {
+        this.pointer = pointer;
+        this.keyword = keyword;
+        this.message = message;
+    }
+
+    /**
+     * @return the JSON pointer of the invalid value, empty for the whole instance
+     */
+    public String getPointer() {
+        return pointer;
+    }
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return (pointer.isEmpty() ? "/" : pointer) + ": " + keyword + ": " + message;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * A compiled keyword, or group of keywords, of a schema.
+ *
+ * @author Danilo Reinert
+ */
+
+abstract class Validator {
+
+    /**
+     * @param instance the value to validate
+     * @param report where errors are reported, or null for stopping at the first error without reporting it
+     * @return true if the value is valid
+     */
+    abstract boolean validate(JsonNode instance, Report report);
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.reinert.jjschema.v1.JsonSchemaV4Factory;
+import junit.framework.TestCase;
+
+/**
+ * @author Danilo Reinert
+ */
+
+public class AttributesFragmentTest extends TestCase {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public void testFragmentIsSharedPerAnnotation() throws Exception {
+        Attributes attributes = Code.class.getDeclaredField("value").getAnnotation(Attributes.class);
+        assertSame(AttributesFragment.of(attributes), AttributesFragment.of(attributes));
+        assertTrue(AttributesFragment.of(attributes).isRequired());
+    }
+
+    public void testKeywords() throws Exception {
+        ObjectNode schema = mapper.createObjectNode().put("type", "string");
+        AttributesFragment.of(Code.class.getDeclaredField("value").getAnnotation(Attributes.class)).applyTo(schema);
+        assertEquals("{\"type\":\"string\",\"description\":\"The code\",\"pattern\":\"[A-Z]+\",\"enum\":[\"A\",\"B\"],"
+                + "\"minLength\":1,\"maxLength\":3}", schema.toString());
+    }
+
+    public void testLegacyKeywords() throws Exception {
+        ObjectNode schema = mapper.createObjectNode();
+        AttributesFragment.of(Code.class.getDeclaredField("value").getAnnotation(Attributes.class))
+                .applyLegacyTo(schema, true);
+        assertEquals("{\"$schema\":\"http://json-schema.org/draft-04/schema#\",\"selfRequired\":true,"
+                + "\"description\":\"The code\",\"pattern\":\"[A-Z]+\",\"format\":\"code\",\"enum\":[\"A\",\"B\"],"
+                + "\"minLength\":1,\"maxLength\":3}", schema.toString());
+    }
+
+    public void testSchemasDoNotShareEnums() throws Exception {
+        AttributesFragment fragment = AttributesFragment.of(Code.class.getDeclaredField("value").getAnnotation(Attributes.class));
+        ObjectNode first = mapper.createObjectNode();
+        fragment.applyTo(first);
+        ((ArrayNode) first.get("enum")).add("null");
+        ObjectNode second = mapper.createObjectNode();
+        fragment.applyTo(second);
+        assertEquals(2, second.get("enum").size());
+    }
+
+    public void testClassLevelLengths() {
+        JsonNode schema = new JsonSchemaV4Factory().createSchema(Code.class);
+        assertEquals(2, schema.get("minLength").asInt());
+        assertEquals(4, schema.get("maxLength").asInt());
+        assertFalse(schema.has("minItems"));
+    }
+
+    @Attributes(minLength = 2, maxLength = 4)
+    static class Code {
+        @Attributes(required = true, description = "The code", pattern = "[A-Z]+", format = "code",
+                enums = {"A", "B"}, minLength = 1, maxLength = 3)
+        private String value;
+
+        public String getValue() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.reinert.jjschema.model.TaskList;
+import com.github.reinert.jjschema.model.User;
+import com.github.reinert.jjschema.model.Users;
+import com.github.reinert.jjschema.rest.UserResource;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * @author Danilo Reinert
+ */
+
+public class ConcurrentGenerationTest extends TestCase {
+
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 50;
+
+    public void testSharedSchemaGenerator() throws Exception {
+        JsonSchemaGenerator shared = SchemaGeneratorBuilder.draftV4Schema().build();
+        assertConsistent(shared, new Class<?>[]{TaskList.class, User.class, Users.class});
+    }
+
+    public void testSharedHyperSchemaGenerator() throws Exception {
+        JsonSchemaGenerator shared = SchemaGeneratorBuilder.draftV4HyperSchema().build();
+        assertConsistent(shared, new Class<?>[]{UserResource.class, TaskList.class, User.class});
+    }
+
+    private void assertConsistent(final JsonSchemaGenerator shared, final Class<?>[] types) throws Exception {
+        final JsonNode[] expected = new JsonNode[types.length];
+        for (int i = 0; i < types.length; i++) {
+            expected[i] = shared.generateSchema(types[i]);
+        }
+
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int t = 0; t < THREADS; t++) {
+                final int offset = t;
+                futures.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        start.await();
+                        for (int r = 0; r < ROUNDS; r++) {
+                            int i = (offset + r) % types.length;
+                            assertEquals(expected[i], shared.generateSchema(types[i]));
+                        }
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
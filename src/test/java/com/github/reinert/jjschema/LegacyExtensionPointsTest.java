@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.reinert.jjschema.exception.TypeException;
+import com.github.reinert.jjschema.model.User;
+import junit.framework.TestCase;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * @author Danilo Reinert
+ */
+
+public class LegacyExtensionPointsTest extends TestCase {
+
+    public void testOverridesWithoutContextAreStillCalled() throws TypeException {
+        ObjectNode schema = new LegacyGenerator().generateSchema(User.class);
+        assertTrue(schema.get("x-custom").asBoolean());
+        assertEquals("name", schema.get("properties").get("name").get("x-property").asText());
+        assertEquals("string", schema.get("properties").get("name").get("type").asText());
+    }
+
+    public void testExtensionPointsCallableWithOwnContext() throws TypeException {
+        JsonSchemaGeneratorV4 generator = new JsonSchemaGeneratorV4();
+        ObjectNode schema = generator.processCustomType(User.class, generator.createInstance(),
+                new GenerationContext());
+        assertEquals(generator.generateSchema(User.class).get("properties"), schema.get("properties"));
+    }
+
+    static class LegacyGenerator extends JsonSchemaGeneratorV4 {
+
+        @Override
+        protected <T> ObjectNode processCustomType(Class<T> type, ObjectNode schema) throws TypeException {
+            schema = super.processCustomType(type, schema);
+            schema.put("x-custom", true);
+            return schema;
+        }
+
+        @Override
+        protected <T> ObjectNode generatePropertySchema(Class<T> type, Method method, Field field)
+                throws TypeException {
+            ObjectNode schema = super.generatePropertySchema(type, method, field);
+            if (schema != null)
+                schema.put("x-property", field.getName());
+            return schema;
+        }
+    }
+}
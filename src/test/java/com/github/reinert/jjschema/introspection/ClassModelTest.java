@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.introspection;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.reinert.jjschema.v1.JsonSchemaV4Factory;
+import junit.framework.TestCase;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Danilo Reinert
+ */
+
+public class ClassModelTest extends TestCase {
+
+    public void testModelIsBuiltOnce() {
+        assertSame(ClassModel.of(Order.class), ClassModel.of(Order.class));
+    }
+
+    public void testSortedGetters() {
+        List<Method> getters = ClassModel.of(Order.class).getSortedGetters();
+        assertEquals(3, getters.size());
+        assertEquals("getCode", getters.get(0).getName());
+        assertEquals("getStatus", getters.get(1).getName());
+        assertEquals("isPaid", getters.get(2).getName());
+    }
+
+    public void testFieldLookupIgnoresCase() {
+        ClassModel model = ClassModel.of(Order.class);
+        assertEquals("code", model.findField("Code").getName());
+        assertNull(model.findField("missing"));
+        assertNull(model.findField(null));
+    }
+
+    public void testSetters() throws NoSuchMethodException {
+        ClassModel model = ClassModel.of(Order.class);
+        assertTrue(model.hasSetter(Order.class.getMethod("getStatus")));
+        assertFalse(model.hasSetter(Order.class.getMethod("getCode")));
+    }
+
+    public void testEnumTables() {
+        ClassModel model = ClassModel.of(Order.class);
+        assertTrue(Arrays.equals(new String[]{"OPEN", "CLOSED"}, model.getEnums("status")));
+        assertEquals(0, model.getEnums("code").length);
+
+        JsonNode schema = new JsonSchemaV4Factory().createSchema(Order.class);
+        assertEquals(2, schema.get("properties").get("status").get("enum").size());
+        assertTrue(schema.get("properties").get("code").get("readonly").asBoolean());
+    }
+
+    public void testEnumTablesReadOnlyStringConstants() {
+        ClassModel model = ClassModel.of(Ticket.class);
+        assertEquals(0, model.getEnums("kind").length);
+        assertTrue(Arrays.equals(new String[]{"LOW"}, model.getEnums("priority")));
+    }
+
+    static class Order {
+        private String code;
+        private String status;
+        private boolean paid;
+
+        public String getCode() {
+            return code;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+
+        public boolean isPaid() {
+            return paid;
+        }
+
+        public void setPaid(boolean paid) {
+            this.paid = paid;
+        }
+
+        static class statusEnum {
+            public static final String OPEN = "OPEN";
+            public static final String CLOSED = "CLOSED";
+        }
+    }
+
+    static class Ticket {
+        private Object kind;
+        private String priority;
+
+        public Object getKind() {
+            return kind;
+        }
+
+        public String getPriority() {
+            return priority;
+        }
+
+        enum kindEnum {
+            BUG, TASK
+        }
+
+        static class priorityEnum {
+            public static final int ORDER = 1;
+            public static final String LOW = "LOW";
+            public final String label = "low";
+        }
+    }
+}
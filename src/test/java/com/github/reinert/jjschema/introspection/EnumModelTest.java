@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.introspection;
+
+import junit.framework.TestCase;
+
+import java.math.BigDecimal;
+
+/**
+ * @author Danilo Reinert
+ */
+
+public class EnumModelTest extends TestCase {
+
+    private static final String[] VALUES = {
+            "0", "-0", "+7", "404", "-404", "007", "9223372036854775807", "-9223372036854775808",
+            "9223372036854775808", "-9223372036854775809", "00009223372036854775807", "123456789012345678901234",
+            "4.04", "-.5", "5.", "+1.0e10", "1E-3", "2e+05", "1e000000001", "1e1234567890", "1e2147483647", "1e-2147483647", "1.5e-2147483647", "1e-2147483648",
+            "1e2147483648", "1e-12345678901", "1e00000000000000000001",
+            "", "-", "+", ".", "e5", "1e", "1e-", "1.2.3", "1,5", " 1", "1 ", "0x1F", "NaN", "Infinity",
+            "GET", "NOT_FOUND", "١٢", "-٣.٤"
+    };
+
+    public void testClassificationMatchesParsing() {
+        for (String value : VALUES) {
+            assertEquals(value, classifyByParsing(value), EnumModel.classify(value));
+        }
+    }
+
+    public void testModelIsBuiltOnce() {
+        assertSame(EnumModel.of(Code.class), EnumModel.of(Code.class));
+    }
+
+    public void testValuesAndType() {
+        EnumModel model = EnumModel.of(Code.class);
+        assertEquals(3, model.size());
+        assertEquals("[404,4.01,\"OTHER\"]", model.getValues().toString());
+        assertEquals(EnumModel.STRING, model.getType());
+        assertEquals(EnumModel.INTEGER, EnumModel.of(Status.class).getType());
+        assertNull(EnumModel.of(Empty.class).getType());
+    }
+
+    public void testValuesAreCopied() {
+        EnumModel.of(Code.class).getValues().add("null");
+        assertEquals(3, EnumModel.of(Code.class).getValues().size());
+    }
+
+    private static String classifyByParsing(String value) {
+        try {
+            Long.parseLong(value);
+            return EnumModel.INTEGER;
+        } catch (NumberFormatException e) {
+            try {
+                new BigDecimal(value);
+                return EnumModel.NUMBER;
+            } catch (NumberFormatException e1) {
+                return EnumModel.STRING;
+            }
+        }
+    }
+
+    enum Code {
+        NOT_FOUND("404"), UNAUTHORIZED("4.01"), OTHER("OTHER");
+
+        private final String text;
+
+        Code(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    enum Status {
+        A, B;
+
+        @Override
+        public String toString() {
+            return String.valueOf(ordinal());
+        }
+    }
+
+    enum Empty {
+    }
+}
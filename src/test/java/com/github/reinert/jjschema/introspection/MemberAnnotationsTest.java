@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.introspection;
+
+import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.github.reinert.jjschema.Attributes;
+import com.github.reinert.jjschema.Nullable;
+import com.github.reinert.jjschema.SchemaIgnore;
+import junit.framework.TestCase;
+
+import java.lang.reflect.Field;
+
+/**
+ * @author Danilo Reinert
+ */
+
+public class MemberAnnotationsTest extends TestCase {
+
+    public void testRecordIsShared() throws Exception {
+        Field field = Account.class.getDeclaredField("name");
+        assertSame(MemberAnnotations.of(field), MemberAnnotations.of(field));
+        assertSame(MemberAnnotations.of(Account.class.getMethod("getName")),
+                MemberAnnotations.of(Account.class.getMethod("getName")));
+    }
+
+    public void testKnownAnnotations() throws Exception {
+        MemberAnnotations name = MemberAnnotations.of(Account.class.getDeclaredField("name"));
+        assertEquals("The name", name.getAttributes().description());
+        assertTrue(name.isNullable());
+        assertFalse(name.isIgnored());
+        assertNull(name.getBackReference());
+
+        MemberAnnotations owner = MemberAnnotations.of(Account.class.getDeclaredField("owner"));
+        assertNull(owner.getAttributes());
+        assertTrue(owner.isIgnored());
+        assertEquals("account", owner.getBackReference().value());
+    }
+
+    public void testOtherAnnotations() throws Exception {
+        MemberAnnotations name = MemberAnnotations.of(Account.class.getDeclaredField("name"));
+        assertSame(Account.class.getDeclaredField("name").getAnnotation(Deprecated.class), name.get(Deprecated.class));
+        assertSame(name.getAttributes(), name.get(Attributes.class));
+        assertNull(name.get(Override.class));
+    }
+
+    public void testInheritedGetter() throws Exception {
+        MemberAnnotations annotations = MemberAnnotations.of(SavingsAccount.class.getMethod("getName"));
+        assertSame(MemberAnnotations.of(Account.class.getMethod("getName")), annotations);
+        assertTrue(annotations.isNullable());
+    }
+
+    static class Account {
+        @Attributes(description = "The name")
+        @Nullable
+        @Deprecated
+        private String name;
+        @SchemaIgnore
+        @JsonBackReference("account")
+        private Object owner;
+
+        @Nullable
+        public String getName() {
+            return name;
+        }
+
+        public Object getOwner() {
+            return owner;
+        }
+    }
+
+    static class SavingsAccount extends Account {
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.introspection;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * @author Danilo Reinert
+ */
+
+public class PolymorphicModelTest extends TestCase {
+
+    public void testSubtypes() {
+        assertTrue(PolymorphicModel.of(Animal.class).isPolymorphic());
+        // Abstract types are left out and listed subtypes followed
+        assertEquals(Arrays.<Class<?>>asList(Dog.class, Cat.class, Lion.class),
+                PolymorphicModel.of(Animal.class).getSubtypes());
+        assertEquals(Arrays.<Class<?>>asList(Cat.class, Lion.class), PolymorphicModel.of(Cat.class).getSubtypes());
+        assertFalse(PolymorphicModel.of(Dog.class).isPolymorphic());
+        assertEquals(Collections.emptyList(), PolymorphicModel.of(Dog.class).getSubtypes());
+    }
+
+    public void testTypeIds() {
+        assertEquals("type", PolymorphicModel.of(Animal.class).getTypeProperty());
+        assertNull(PolymorphicModel.of(Animal.class).getTypeId());
+        assertEquals("doggy", PolymorphicModel.of(Dog.class).getTypeId());
+        assertEquals("feline", PolymorphicModel.of(Cat.class).getTypeId());
+        assertEquals("PolymorphicModelTest$Lion", PolymorphicModel.of(Lion.class).getTypeId());
+    }
+
+    public void testClassIds() {
+        assertEquals("@class", PolymorphicModel.of(Car.class).getTypeProperty());
+        assertEquals(Car.class.getName(), PolymorphicModel.of(Car.class).getTypeId());
+        assertEquals(".PolymorphicModelTest$Bike", PolymorphicModel.of(Bike.class).getTypeId());
+    }
+
+    public void testNoTypeProperty() {
+        assertNull(PolymorphicModel.of(String.class).getTypeProperty());
+        assertNull(PolymorphicModel.of(Boat.class).getTypeProperty());
+        assertNull(PolymorphicModel.of(Boat.class).getTypeId());
+    }
+
+    @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+    @JsonSubTypes({@JsonSubTypes.Type(value = Dog.class, name = "doggy"), @JsonSubTypes.Type(Feline.class)})
+    abstract static class Animal {
+    }
+
+    static class Dog extends Animal {
+    }
+
+    @JsonSubTypes({@JsonSubTypes.Type(Cat.class), @JsonSubTypes.Type(Lion.class)})
+    abstract static class Feline extends Animal {
+    }
+
+    @JsonTypeName("feline")
+    @JsonSubTypes(@JsonSubTypes.Type(Lion.class))
+    static class Cat extends Feline {
+    }
+
+    static class Lion extends Cat {
+    }
+
+    @JsonTypeInfo(use = JsonTypeInfo.Id.CLASS)
+    interface Vehicle {
+    }
+
+    static class Car implements Vehicle {
+    }
+
+    @JsonTypeInfo(use = JsonTypeInfo.Id.MINIMAL_CLASS)
+    static class Bike {
+    }
+
+    @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.WRAPPER_OBJECT)
+    static class Boat {
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.introspection;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.reinert.jjschema.Nullable;
+import com.github.reinert.jjschema.SchemaGeneratorBuilder;
+import com.github.reinert.jjschema.v1.JsonSchemaFactory;
+import com.github.reinert.jjschema.v1.JsonSchemaV4Factory;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Danilo Reinert
+ */
+
+public class TypeClassifierTest extends TestCase {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Override
+    protected void tearDown() {
+        TypeClassifier.unregister(Money.class);
+    }
+
+    public void testKinds() {
+        assertEquals(TypeKind.VOID, TypeClassifier.kindOf(void.class));
+        assertEquals(TypeKind.VOID, TypeClassifier.kindOf(Void.class));
+        assertEquals(TypeKind.SIMPLE, TypeClassifier.kindOf(int.class));
+        assertEquals(TypeKind.SIMPLE, TypeClassifier.kindOf(String.class));
+        assertEquals(TypeKind.ENUM, TypeClassifier.kindOf(TimeUnit.class));
+        assertEquals(TypeKind.ARRAY, TypeClassifier.kindOf(String[].class));
+        assertEquals(TypeKind.COLLECTION, TypeClassifier.kindOf(ArrayList.class));
+        assertEquals(TypeKind.COLLECTION, TypeClassifier.kindOf(AbstractList.class));
+        assertEquals(TypeKind.CUSTOM_COLLECTION, TypeClassifier.kindOf(List.class));
+        assertEquals(TypeKind.CUSTOM_COLLECTION, TypeClassifier.kindOf(Collection.class));
+        assertEquals(TypeKind.MAP, TypeClassifier.kindOf(HashMap.class));
+        assertEquals(TypeKind.ITERABLE, TypeClassifier.kindOf(Pages.class));
+        assertEquals(TypeKind.CUSTOM, TypeClassifier.kindOf(Money.class));
+    }
+
+    public void testRegisteredTypes() throws Exception {
+        assertFalse(TypeClassifier.hasRegisteredTypes());
+        int version = TypeClassifier.getVersion();
+        TypeClassifier.register(Money.class, moneySchema());
+        assertEquals(TypeKind.SIMPLE, TypeClassifier.kindOf(Money.class));
+        assertTrue(TypeClassifier.hasRegisteredTypes());
+        assertTrue(TypeClassifier.getVersion() > version);
+
+        JsonSchemaFactory factory = new JsonSchemaV4Factory();
+        JsonNode schema = factory.createSchema(Invoice.class);
+        assertEquals(moneySchema(), schema.get("properties").get("total"));
+        JsonNode discount = schema.get("properties").get("discount");
+        assertEquals("[\"string\",\"null\"]", discount.get("type").toString());
+        assertEquals("money", discount.get("format").asText());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        factory.writeSchema(Invoice.class, out);
+        assertEquals(mapper.writeValueAsString(schema), out.toString("UTF-8"));
+
+        JsonNode legacy = SchemaGeneratorBuilder.draftV4Schema().build().generateSchema(Invoice.class);
+        assertEquals(moneySchema(), legacy.get("properties").get("total"));
+
+        assertTrue(TypeClassifier.unregister(Money.class));
+        assertEquals(TypeKind.CUSTOM, TypeClassifier.kindOf(Money.class));
+        assertFalse(TypeClassifier.unregister(Money.class));
+    }
+
+    public void testRegisteredSchemaIsCopied() {
+        ObjectNode schema = moneySchema();
+        TypeClassifier.register(Money.class, schema);
+        schema.put("format", "changed");
+        TypeClassifier.getFixedSchema(Money.class).put("format", "changed");
+        assertEquals("money", TypeClassifier.getFixedSchema(Money.class).get("format").asText());
+    }
+
+    public void testPrimitivesCannotBeRegistered() {
+        try {
+            TypeClassifier.register(int.class, moneySchema());
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals(TypeKind.SIMPLE, TypeClassifier.kindOf(int.class));
+        }
+    }
+
+    private ObjectNode moneySchema() {
+        return mapper.createObjectNode().put("type", "string").put("format", "money");
+    }
+
+    static class Money {
+        private BigDecimal amount;
+        private String currency;
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public String getCurrency() {
+            return currency;
+        }
+    }
+
+    static class Invoice {
+        private Money total;
+        @Nullable
+        private Money discount;
+
+        public Money getTotal() {
+            return total;
+        }
+
+        public void setTotal(Money total) {
+            this.total = total;
+        }
+
+        public Money getDiscount() {
+            return discount;
+        }
+
+        public void setDiscount(Money discount) {
+            this.discount = discount;
+        }
+    }
+
+    static class Pages implements Iterable<String> {
+        public Iterator<String> iterator() {
+            return Collections.<String>emptyList().iterator();
+        }
+    }
+}
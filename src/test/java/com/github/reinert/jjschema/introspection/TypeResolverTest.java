@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.introspection;
+
+import junit.framework.TestCase;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Danilo Reinert
+ */
+
+public class TypeResolverTest extends TestCase {
+
+    public void testVariableBoundBySubclass() throws NoSuchMethodException {
+        Type first = Page.class.getMethod("getFirst").getGenericReturnType();
+        assertEquals(String.class, TypeResolver.resolve(StringPage.class, first));
+        assertEquals(Object.class, TypeResolver.resolve(Page.class, first));
+    }
+
+    public void testVariableBoundThroughHierarchy() throws NoSuchMethodException {
+        Type first = Page.class.getMethod("getFirst").getGenericReturnType();
+        assertEquals(List.class, TypeResolver.rawClass(TypeResolver.resolve(NestedPage.class, first)));
+        ParameterizedType resolved = (ParameterizedType) TypeResolver.resolve(NestedPage.class, first);
+        assertEquals(Integer.class, resolved.getActualTypeArguments()[0]);
+    }
+
+    public void testVariableBoundByUseSite() throws NoSuchMethodException {
+        Type useSite = Holder.class.getMethod("getPage").getGenericReturnType();
+        Type content = Page.class.getMethod("getContent").getGenericReturnType();
+        Type resolved = TypeResolver.resolve(useSite, content);
+        assertEquals(Long.class, TypeResolver.itemsType(resolved));
+    }
+
+    public void testResolvedTypesEqualPlatformTypes() throws NoSuchMethodException {
+        Type content = Page.class.getMethod("getContent").getGenericReturnType();
+        Type expected = Holder.class.getMethod("getStrings").getGenericReturnType();
+        Type resolved = TypeResolver.resolve(StringPage.class, content);
+        assertEquals(expected, resolved);
+        assertEquals(resolved, expected);
+        assertEquals(expected.hashCode(), resolved.hashCode());
+    }
+
+    public void testResolutionIsMemoized() throws NoSuchMethodException {
+        Type content = Page.class.getMethod("getContent").getGenericReturnType();
+        assertSame(TypeResolver.resolve(StringPage.class, content), TypeResolver.resolve(StringPage.class, content));
+    }
+
+    public void testContainers() throws NoSuchMethodException {
+        assertEquals(String.class, TypeResolver.itemsType(String[].class));
+        assertEquals(String.class, TypeResolver.itemsType(Tags.class));
+        assertNull(TypeResolver.itemsType(List.class));
+        Type map = Holder.class.getMethod("getCounts").getGenericReturnType();
+        assertEquals(Integer.class, TypeResolver.valueType(map));
+        assertNull(TypeResolver.valueType(Map.class));
+    }
+
+    public void testWildcards() throws NoSuchMethodException {
+        Type wildcards = Holder.class.getMethod("getWildcards").getGenericReturnType();
+        assertEquals(Number.class, TypeResolver.itemsType(TypeResolver.resolve(Holder.class, wildcards)));
+    }
+
+    static class Page<T> {
+        public T getFirst() {
+            return null;
+        }
+
+        public List<T> getContent() {
+            return null;
+        }
+    }
+
+    static class StringPage extends Page<String> {
+    }
+
+    static class ListPage<E> extends Page<List<E>> {
+    }
+
+    static class NestedPage extends ListPage<Integer> {
+    }
+
+    static class Tags extends ArrayList<String> {
+    }
+
+    static class Holder {
+        public Page<Long> getPage() {
+            return null;
+        }
+
+        public List<String> getStrings() {
+            return null;
+        }
+
+        public Map<String, Integer> getCounts() {
+            return null;
+        }
+
+        public List<? extends Number> getWildcards() {
+            return null;
+        }
+    }
+}
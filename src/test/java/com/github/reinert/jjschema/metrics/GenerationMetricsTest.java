@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.reinert.jjschema.JsonSchemaGenerator;
+import com.github.reinert.jjschema.SchemaGeneratorBuilder;
+import com.github.reinert.jjschema.exception.TypeException;
+import com.github.reinert.jjschema.model.Task;
+import com.github.reinert.jjschema.model.TaskList;
+import com.github.reinert.jjschema.v1.JsonSchemaFactory;
+import com.github.reinert.jjschema.v1.JsonSchemaV4Factory;
+import com.github.reinert.jjschema.v1.SchemaCache;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * @author Danilo Reinert
+ */
+
+public class GenerationMetricsTest extends TestCase {
+
+    private final GenerationMetrics metrics = new GenerationMetrics();
+
+    public void testFactoryEvents() {
+        JsonSchemaFactory factory = new JsonSchemaV4Factory();
+        factory.setUsePrecomputedSchemas(false);
+        factory.setListener(metrics);
+        JsonNode schema = factory.createSchema(TaskList.class);
+
+        TypeMetrics taskList = metrics.getTypeMetrics().get(TaskList.class.getName());
+        assertEquals(1, taskList.getCount());
+        assertEquals(0, taskList.getMaxDepth());
+        assertEquals(1, taskList.getProperties());
+        assertEquals(1, taskList.getReferenceCycles());
+
+        TypeMetrics task = metrics.getTypeMetrics().get(Task.class.getName());
+        assertEquals(1, task.getCount());
+        assertEquals(1, task.getMaxDepth());
+        assertEquals(2, task.getProperties());
+        assertTrue(task.getMaxNanos() <= taskList.getMaxNanos());
+
+        assertEquals(1, metrics.getReferenceCycles());
+        assertEquals(1, metrics.getSchemaNanos().getCount());
+        assertEquals(GenerationMetrics.countNodes(schema), metrics.getSchemaNodes().getMax());
+        assertEquals(TaskList.class.getName(), metrics.getSlowestTypes(1).get(0).getTypeName());
+    }
+
+    public void testStreamingReportsTheSameTypes() throws IOException {
+        JsonSchemaFactory factory = new JsonSchemaV4Factory();
+        factory.setUsePrecomputedSchemas(false);
+        factory.setListener(metrics);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        factory.writeSchema(TaskList.class, out);
+
+        assertEquals(2, metrics.getTypeMetrics().size());
+        assertEquals(2, metrics.getTypeMetrics().get(Task.class.getName()).getProperties());
+        assertEquals(1, metrics.getReferenceCycles());
+        assertEquals(1, metrics.getSchemaNanos().getCount());
+        assertEquals(1, metrics.getSchemaNodes().getCount());
+        JsonNode streamed = new ObjectMapper().readTree(out.toByteArray());
+        assertEquals(GenerationMetrics.countNodes(streamed), metrics.getSchemaNodes().getMax());
+        assertEquals(GenerationMetrics.countNodes(factory.createSchema(TaskList.class)),
+                metrics.getSchemaNodes().getMax());
+    }
+
+    public void testDefinitionsReportCycles() {
+        JsonSchemaFactory factory = new JsonSchemaV4Factory();
+        factory.setUseDefinitions(true);
+        factory.setListener(metrics);
+        factory.createSchema(Task.class);
+
+        assertEquals(1, metrics.getTypeMetrics().get(Task.class.getName()).getReferenceCycles());
+    }
+
+    public void testCacheEvents() {
+        JsonSchemaFactory factory = new JsonSchemaV4Factory();
+        factory.setUsePrecomputedSchemas(false);
+        factory.setCache(new SchemaCache());
+        factory.setListener(metrics);
+        factory.createSchema(Task.class);
+        factory.createSchema(Task.class);
+        factory.createSchema(Task.class);
+
+        assertEquals(1, metrics.getCacheMisses());
+        assertEquals(2, metrics.getCacheHits());
+        assertEquals(1, metrics.getSchemaNanos().getCount());
+    }
+
+    public void testLegacyGeneratorEvents() throws TypeException {
+        JsonSchemaGenerator generator = SchemaGeneratorBuilder.draftV4Schema().setListener(metrics).build();
+        generator.generateSchema(TaskList.class);
+
+        // The legacy generator expands the back reference of Task before cutting the cycle
+        assertEquals(2, metrics.getTypeMetrics().get(TaskList.class.getName()).getCount());
+        assertEquals(1, metrics.getTypeMetrics().get(Task.class.getName()).getMaxDepth());
+        assertEquals(1, metrics.getReferenceCycles());
+        assertEquals(1, metrics.getSchemaNanos().getCount());
+        assertTrue(metrics.getSchemaNodes().getMax() > 1);
+    }
+
+    public void testHistogram() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getPercentile(0.5));
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        histogram.record(-5);
+
+        assertEquals(101, histogram.getCount());
+        assertEquals(5050, histogram.getSum());
+        assertEquals(100, histogram.getMax());
+        long median = histogram.getPercentile(0.5);
+        assertTrue(median >= 50 && median < 100);
+        assertEquals(100, histogram.getPercentile(1));
+        assertEquals(0, histogram.getPercentile(0));
+        assertEquals(1, histogram.getBuckets()[0]);
+        assertEquals(1, histogram.getBuckets()[1]);
+        assertEquals(2, histogram.getBuckets()[2]);
+    }
+
+    public void testConcurrentRecording() throws InterruptedException {
+        final Histogram histogram = new Histogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final long offset = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        histogram.record(i + offset);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40000, histogram.getCount());
+        assertEquals(10002, histogram.getMax());
+        long total = 0;
+        for (long bucket : histogram.getBuckets()) {
+            total += bucket;
+        }
+        assertEquals(40000, total);
+    }
+}
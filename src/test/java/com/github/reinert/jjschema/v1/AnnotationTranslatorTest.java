@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.reinert.jjschema.AnnotationTranslator;
+import com.github.reinert.jjschema.Attributes;
+import com.github.reinert.jjschema.SchemaGeneratorBuilder;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * @author Danilo Reinert
+ */
+
+public class AnnotationTranslatorTest extends TestCase {
+
+    private final JsonSchemaFactory factory = new JsonSchemaV4Factory();
+
+    @Override
+    protected void setUp() {
+        factory.addAnnotationTranslator(new FormatTranslator());
+    }
+
+    public void testTranslatedKeywords() {
+        JsonNode properties = factory.createSchema(Contact.class).get("properties");
+        assertEquals("email", properties.get("email").get("format").asText());
+        assertEquals("Email", properties.get("email").get("title").asText());
+        assertFalse(properties.get("phone").has("format"));
+    }
+
+    public void testTranslatedReferences() {
+        factory.setUseDefinitions(true);
+        JsonNode address = factory.createSchema(Contact.class).get("properties").get("address");
+        assertEquals("#/definitions/Address", address.get("allOf").get(0).get("$ref").asText());
+        assertEquals("postal", address.get("format").asText());
+    }
+
+    public void testStreamedSchemaEqualsTree() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        factory.writeSchema(Contact.class, out);
+        assertEquals(SchemaWrapperFactory.MAPPER.writeValueAsString(factory.createSchema(Contact.class)),
+                out.toString("UTF-8"));
+    }
+
+    public void testConfigurationKey() {
+        JsonSchemaFactory plain = new JsonSchemaV4Factory();
+        assertFalse(plain.getConfigurationKey().equals(factory.getConfigurationKey()));
+    }
+
+    public void testLegacyGenerator() throws Exception {
+        JsonNode schema = SchemaGeneratorBuilder.draftV4Schema().addAnnotationTranslator(new FormatTranslator())
+                .build().generateSchema(Contact.class);
+        assertEquals("email", schema.get("properties").get("email").get("format").asText());
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target({ElementType.FIELD, ElementType.METHOD})
+    @interface Format {
+        String value();
+    }
+
+    static class FormatTranslator implements AnnotationTranslator<Format> {
+        public Class<Format> getAnnotationType() {
+            return Format.class;
+        }
+
+        public void translate(Format annotation, ObjectNode schema) {
+            schema.put("format", annotation.value());
+        }
+    }
+
+    static class Address {
+        private String street;
+
+        public String getStreet() {
+            return street;
+        }
+    }
+
+    static class Contact {
+        @Attributes(title = "Email")
+        @Format("email")
+        private String email;
+        private String phone;
+        @Format("postal")
+        private Address address;
+
+        public String getEmail() {
+            return email;
+        }
+
+        public String getPhone() {
+            return phone;
+        }
+
+        public Address getAddress() {
+            return address;
+        }
+    }
+}
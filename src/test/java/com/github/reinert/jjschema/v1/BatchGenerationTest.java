@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.reinert.jjschema.inheritance.MusicItem;
+import com.github.reinert.jjschema.inheritance.WarrantyItem;
+import com.github.reinert.jjschema.model.Person;
+import com.github.reinert.jjschema.model.Task;
+import com.github.reinert.jjschema.model.TaskList;
+import com.github.reinert.jjschema.model.User;
+import com.github.reinert.jjschema.model.Users;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * @author Danilo Reinert
+ */
+
+public class BatchGenerationTest extends TestCase {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final List<Class<?>> types = Arrays.<Class<?>>asList(User.class, Users.class, Person.class, Task.class,
+            TaskList.class, MusicItem.class, WarrantyItem.class, String.class, Integer.class, int[].class);
+
+    public void testBatchMatchesSequentialGeneration() throws Exception {
+        JsonSchemaFactory factory = new JsonSchemaV4Factory();
+        factory.setAutoPutDollarSchema(true);
+        factory.setPool(new ForkJoinPool(4));
+
+        List<Class<?>> batch = new ArrayList<Class<?>>();
+        for (int i = 0; i < 10; i++) {
+            batch.addAll(types);
+        }
+        BatchResult result = factory.createSchemas(batch);
+
+        assertFalse(result.hasFailures());
+        assertEquals(types, new ArrayList<Class<?>>(result.getSchemas().keySet()));
+        for (Map.Entry<Class<?>, JsonNode> entry : result.getSchemas().entrySet()) {
+            assertEquals(mapper.writeValueAsString(factory.createSchema(entry.getKey())),
+                    mapper.writeValueAsString(entry.getValue()));
+        }
+    }
+
+    public void testFailuresDoNotStopTheBatch() {
+        JsonSchemaFactory factory = new JsonSchemaV4Factory() {
+            @Override
+            public JsonNode createSchema(Class<?> type) {
+                if (type == Users.class)
+                    throw new IllegalArgumentException("unsupported");
+                return super.createSchema(type);
+            }
+        };
+
+        BatchResult result = factory.createSchemas(types);
+
+        assertEquals(1, result.getFailures().size());
+        assertTrue(result.getFailures().get(Users.class) instanceof IllegalArgumentException);
+        assertEquals(types.size() - 1, result.getSchemas().size());
+        assertFalse(result.getSchemas().containsKey(Users.class));
+    }
+
+    public void testLinkageErrorsAreRecordedPerClass() {
+        JsonSchemaFactory factory = new JsonSchemaV4Factory() {
+            @Override
+            public JsonNode createSchema(Class<?> type) {
+                if (type == Task.class)
+                    throw new NoClassDefFoundError("com/example/Missing");
+                return super.createSchema(type);
+            }
+        };
+
+        BatchResult result = factory.createSchemas(types);
+
+        assertEquals(1, result.getFailures().size());
+        assertTrue(result.getFailures().get(Task.class) instanceof NoClassDefFoundError);
+        assertEquals(types.size() - 1, result.getSchemas().size());
+    }
+}
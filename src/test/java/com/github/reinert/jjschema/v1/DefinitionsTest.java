@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.reinert.jjschema.Attributes;
+import com.github.reinert.jjschema.Nullable;
+import com.github.reinert.jjschema.model.Task;
+import com.github.reinert.jjschema.model.TaskList;
+import junit.framework.TestCase;
+
+import java.util.List;
+
+/**
+ * @author Danilo Reinert
+ */
+
+public class DefinitionsTest extends TestCase {
+
+    private final JsonSchemaFactory factory = new JsonSchemaV4Factory();
+
+    @Override
+    protected void setUp() {
+        factory.setUseDefinitions(true);
+        factory.setAutoPutDollarSchema(true);
+    }
+
+    public void testTypesAreDefinedOnce() {
+        JsonNode schema = factory.createSchema(Order.class);
+        JsonNode properties = schema.get("properties");
+
+        assertEquals("#/definitions/Customer", properties.get("billing").get("$ref").asText());
+        assertEquals("#/definitions/Customer", properties.get("shipping").get("$ref").asText());
+        assertEquals("#/definitions/Customer", properties.get("contacts").get("items").get("$ref").asText());
+
+        JsonNode definitions = schema.get("definitions");
+        assertEquals(2, definitions.size());
+        assertEquals("object", definitions.get("Customer").get("type").asText());
+        assertEquals("#/definitions/Address", definitions.get("Customer").get("properties").get("address").get("$ref").asText());
+        assertEquals("string", definitions.get("Address").get("properties").get("street").get("type").asText());
+    }
+
+    public void testUseSiteKeywordsWrapTheReference() {
+        JsonNode properties = factory.createSchema(Order.class).get("properties");
+
+        JsonNode referrer = properties.get("referrer");
+        assertEquals("#/definitions/Customer", referrer.get("anyOf").get(0).get("$ref").asText());
+        assertEquals("null", referrer.get("anyOf").get(1).get("type").asText());
+        assertEquals("Who sent the order", referrer.get("description").asText());
+        assertFalse(referrer.has("$ref"));
+
+        JsonNode reviewer = properties.get("reviewer");
+        assertEquals("#/definitions/Customer", reviewer.get("allOf").get(0).get("$ref").asText());
+        assertTrue(reviewer.get("readonly").asBoolean());
+    }
+
+    public void testRootAndCyclesAreReferenced() {
+        JsonNode schema = factory.createSchema(Task.class);
+        assertEquals("#/definitions/TaskList", schema.get("properties").get("list").get("$ref").asText());
+        assertEquals("#", schema.get("definitions").get("TaskList").get("properties").get("taks").get("items").get("$ref").asText());
+
+        schema = factory.createSchema(TaskList.class);
+        assertEquals("#", schema.get("definitions").get("Task").get("properties").get("list").get("$ref").asText());
+        assertTrue(schema.has("$schema"));
+    }
+
+    public void testClashingNamesAreQualified() {
+        JsonNode definitions = factory.createSchema(Shelf.class).get("definitions");
+        assertTrue(definitions.has("Address"));
+        assertTrue(definitions.has(Warehouse.Address.class.getName()));
+    }
+
+    public void testInlineByDefault() {
+        JsonSchemaFactory inline = new JsonSchemaV4Factory();
+        JsonNode schema = inline.createSchema(Order.class);
+        assertFalse(schema.has("definitions"));
+        assertEquals("object", schema.get("properties").get("billing").get("type").asText());
+    }
+
+    static class Order {
+        private Customer billing;
+        private Customer shipping;
+        private List<Customer> contacts;
+        @Nullable
+        @Attributes(description = "Who sent the order")
+        private Customer referrer;
+        private Customer reviewer;
+
+        public Customer getBilling() {
+            return billing;
+        }
+
+        public void setBilling(Customer billing) {
+            this.billing = billing;
+        }
+
+        public Customer getShipping() {
+            return shipping;
+        }
+
+        public void setShipping(Customer shipping) {
+            this.shipping = shipping;
+        }
+
+        public List<Customer> getContacts() {
+            return contacts;
+        }
+
+        public void setContacts(List<Customer> contacts) {
+            this.contacts = contacts;
+        }
+
+        public Customer getReferrer() {
+            return referrer;
+        }
+
+        public void setReferrer(Customer referrer) {
+            this.referrer = referrer;
+        }
+
+        public Customer getReviewer() {
+            return reviewer;
+        }
+    }
+
+    static class Customer {
+        private String name;
+        private Address address;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Address getAddress() {
+            return address;
+        }
+
+        public void setAddress(Address address) {
+            this.address = address;
+        }
+    }
+
+    static class Address {
+        private String street;
+
+        public String getStreet() {
+            return street;
+        }
+
+        public void setStreet(String street) {
+            this.street = street;
+        }
+    }
+
+    static class Shelf {
+        private Address address;
+        private Warehouse.Address location;
+
+        public Address getAddress() {
+            return address;
+        }
+
+        public void setAddress(Address address) {
+            this.address = address;
+        }
+
+        public Warehouse.Address getLocation() {
+            return location;
+        }
+
+        public void setLocation(Warehouse.Address location) {
+            this.location = location;
+        }
+    }
+
+    static class Warehouse {
+        static class Address {
+            private int aisle;
+
+            public int getAisle() {
+                return aisle;
+            }
+
+            public void setAisle(int aisle) {
+                this.aisle = aisle;
+            }
+        }
+    }
+}
@@ -70,6 +70,28 @@ public class EnumTest extends TestCase {
         assertEquals(expected, schema.get("properties").get("result").get("enum"));
     }
 
+    public void testLargeEnumsAreReferencedWithDefinitions() {
+        schemaFactory.setUseDefinitions(true);
+        JsonNode schema = schemaFactory.createSchema(Shipment.class);
+
+        JsonNode definition = schema.get("definitions").get("Country");
+        assertEquals("string", definition.get("type").asText());
+        assertEquals(Country.values().length, definition.get("enum").size());
+        assertEquals("#/definitions/Country", schema.get("properties").get("origin").get("$ref").asText());
+        JsonNode destination = schema.get("properties").get("destination");
+        assertEquals("#/definitions/Country", destination.get("anyOf").get(0).get("$ref").asText());
+        assertEquals("null", destination.get("anyOf").get(1).get("type").asText());
+
+        assertFalse(schema.get("definitions").has("SimpleEnum"));
+        assertEquals(2, schema.get("properties").get("result").get("enum").size());
+    }
+
+    public void testLargeEnumsAreInlinedWithoutDefinitions() {
+        JsonNode schema = schemaFactory.createSchema(Shipment.class);
+        assertEquals(schemaFactory.createSchema(Country.class), schema.get("properties").get("origin"));
+        assertFalse(schema.has("definitions"));
+    }
+
     public enum IntegerEnum {
         NOT_FOUND(404), UNAUTHORIZED(401);
         private int numVal;
@@ -115,6 +137,42 @@ public class EnumTest extends TestCase {
         NOT_FOUND, UNAUTHORIZED
     }
 
+    public enum Country {
+        AR, AU, BR, CA, CL, CN, DE, ES, FR, GB, IN, IT, JP, MX, NL, PT, US, UY
+    }
+
+    static class Shipment {
+
+        private Country origin;
+        @Nullable
+        private Country destination;
+        private SimpleEnum result;
+
+        public Country getOrigin() {
+            return origin;
+        }
+
+        public void setOrigin(Country origin) {
+            this.origin = origin;
+        }
+
+        public Country getDestination() {
+            return destination;
+        }
+
+        public void setDestination(Country destination) {
+            this.destination = destination;
+        }
+
+        public SimpleEnum getResult() {
+            return result;
+        }
+
+        public void setResult(SimpleEnum result) {
+            this.result = result;
+        }
+    }
+
     static class Hyperthing {
 
         @Attributes(enums = {"GET", "POST", "PUT", "DELETE"})
@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.reinert.jjschema.Attributes;
+import com.github.reinert.jjschema.Nullable;
+import com.github.reinert.jjschema.metrics.GenerationMetrics;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Danilo Reinert
+ */
+
+public class GenerationBudgetTest extends TestCase {
+
+    private final JsonSchemaFactory factory = new JsonSchemaV4Factory();
+    private final GenerationMetrics metrics = new GenerationMetrics();
+
+    @Override
+    protected void setUp() {
+        factory.setListener(metrics);
+    }
+
+    public void testUnlimitedByDefault() {
+        JsonNode schema = factory.createSchema(Level1.class);
+        assertEquals("object", path(schema, "next", "next", "next").get("type").asText());
+        assertEquals(0, metrics.getExceededBudgets(GenerationBudget.DEPTH));
+    }
+
+    public void testDepthBudget() throws IOException {
+        factory.setMaxDepth(1);
+        JsonNode schema = factory.createSchema(Level1.class);
+
+        assertEquals("object", path(schema, "next").get("type").asText());
+        JsonNode cut = path(schema, "next", "next");
+        assertEquals(1, cut.size());
+        assertEquals("Third level", cut.get("description").asText());
+        // a reference back to an enclosing type costs nothing and is kept
+        assertEquals("#/properties/next", path(schema, "next", "others").get("items").get("$ref").asText());
+        assertEquals(2, metrics.getExceededBudgets(GenerationBudget.DEPTH));
+
+        assertEquals(schema, stream());
+    }
+
+    public void testRootAloneAtDepthZero() throws IOException {
+        factory.setMaxDepth(0);
+        JsonNode schema = factory.createSchema(Level1.class);
+
+        assertEquals("string", path(schema, "name").get("type").asText());
+        assertEquals(0, path(schema, "next").size());
+        assertEquals(schema, stream());
+    }
+
+    public void testNodeBudget() throws IOException {
+        factory.setMaxNodes(3);
+        JsonNode schema = factory.createSchema(Level1.class);
+
+        // Level1 and its name and next properties already make 3 nodes
+        assertEquals(0, path(schema, "next").size());
+        assertEquals(0, path(schema, "others").get("items").size());
+        assertEquals(2, metrics.getExceededBudgets(GenerationBudget.NODES));
+        assertEquals(schema, stream());
+    }
+
+    public void testDeadline() {
+        factory.setTimeout(1, TimeUnit.NANOSECONDS);
+        JsonNode schema = factory.createSchema(Level1.class);
+
+        assertEquals("string", path(schema, "name").get("type").asText());
+        assertEquals(0, path(schema, "next").size());
+        assertTrue(metrics.getExceededBudgets(GenerationBudget.DEADLINE) > 0);
+    }
+
+    public void testDefinitionsAreStillReferenced() {
+        factory.setUseDefinitions(true);
+        factory.setMaxDepth(1);
+        JsonNode schema = factory.createSchema(Level1.class);
+
+        assertEquals("#/definitions/Level2", path(schema, "next").get("$ref").asText());
+        JsonNode level2 = schema.get("definitions").get("Level2");
+        assertEquals("#/definitions/Level2", level2.get("properties").get("others").get("items").get("$ref").asText());
+        assertEquals("Third level", level2.get("properties").get("next").get("description").asText());
+        assertFalse(level2.get("properties").get("next").has("$ref"));
+        assertFalse(schema.get("definitions").has("Level3"));
+    }
+
+    public void testContextReportsExceededBudget() throws IOException {
+        GenerationContext context = factory.createContext();
+        factory.createSchema(Level1.class, context);
+        assertNull(context.getExceededBudget());
+
+        factory.setMaxDepth(1);
+        context = factory.createContext();
+        JsonNode schema = factory.createSchema(Level1.class, context);
+        assertEquals(GenerationBudget.DEPTH, context.getExceededBudget());
+
+        context = factory.createContext();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        factory.writeSchema(Level1.class, out, context);
+        assertEquals(GenerationBudget.DEPTH, context.getExceededBudget());
+        assertEquals(schema, SchemaWrapperFactory.MAPPER.readTree(out.toByteArray()));
+    }
+
+    public void testNodeBudgetKeepsTheProperties() {
+        factory.setMaxNodes(1);
+        GenerationContext context = factory.createContext();
+        JsonNode schema = factory.createSchema(Level1.class, context);
+
+        assertEquals(GenerationBudget.NODES, context.getExceededBudget());
+        assertEquals("string", path(schema, "name").get("type").asText());
+        assertEquals(0, path(schema, "next").size());
+    }
+
+    public void testCutSchemasAreNotCached() {
+        SchemaCache cache = new SchemaCache();
+        factory.setCache(cache);
+        factory.setMaxDepth(1);
+        factory.createSchema(Level1.class);
+        assertEquals(0, cache.size());
+
+        factory.setMaxDepth(5);
+        factory.createSchema(Level1.class);
+        assertEquals(1, cache.size());
+    }
+
+    public void testInvalidBudgets() {
+        try {
+            factory.setMaxDepth(-1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            factory.setMaxNodes(0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private JsonNode stream() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        factory.writeSchema(Level1.class, out);
+        return SchemaWrapperFactory.MAPPER.readTree(out.toByteArray());
+    }
+
+    private static JsonNode path(JsonNode schema, String... properties) {
+        for (String property : properties) {
+            schema = schema.get("properties").get(property);
+        }
+        return schema;
+    }
+
+    static class Level1 {
+        private String name;
+        private Level2 next;
+        private List<Level2> others;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Level2 getNext() {
+            return next;
+        }
+
+        public void setNext(Level2 next) {
+            this.next = next;
+        }
+
+        public List<Level2> getOthers() {
+            return others;
+        }
+
+        public void setOthers(List<Level2> others) {
+            this.others = others;
+        }
+    }
+
+    static class Level2 {
+        @Nullable
+        @Attributes(description = "Third level")
+        private Level3 next;
+        private List<Level2> others;
+
+        public Level3 getNext() {
+            return next;
+        }
+
+        public void setNext(Level3 next) {
+            this.next = next;
+        }
+
+        public List<Level2> getOthers() {
+            return others;
+        }
+
+        public void setOthers(List<Level2> others) {
+            this.others = others;
+        }
+    }
+
+    static class Level3 {
+        private Level4 next;
+
+        public Level4 getNext() {
+            return next;
+        }
+
+        public void setNext(Level4 next) {
+            this.next = next;
+        }
+    }
+
+    static class Level4 {
+        private int value;
+
+        public int getValue() {
+            return value;
+        }
+
+        public void setValue(int value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.reinert.jjschema.JsonSchemaGenerator;
+import com.github.reinert.jjschema.SchemaGeneratorBuilder;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Danilo Reinert
+ */
+
+public class GenericTypesTest extends TestCase {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final JsonSchemaFactory factory = new JsonSchemaV4Factory();
+
+    public void testNestedCollections() {
+        JsonNode shelves = property(factory.createSchema(Catalog.class), "shelves");
+        assertEquals("array", shelves.get("type").asText());
+        assertEquals("array", shelves.get("items").get("type").asText());
+        assertItem(shelves.get("items").get("items"));
+    }
+
+    public void testMaps() {
+        JsonNode schema = factory.createSchema(Catalog.class);
+        JsonNode byName = property(schema, "byName");
+        assertEquals("object", byName.get("type").asText());
+        assertFalse(byName.has("properties"));
+        assertItem(byName.get("additionalProperties"));
+
+        JsonNode counts = property(schema, "counts").get("additionalProperties");
+        assertEquals("array", counts.get("type").asText());
+        assertEquals("integer", counts.get("items").get("type").asText());
+    }
+
+    public void testArrays() {
+        JsonNode schema = factory.createSchema(Catalog.class);
+        assertItem(property(schema, "featured").get("items"));
+        JsonNode raw = property(factory.createSchema(Bag.class), "raw");
+        assertEquals("array", raw.get("type").asText());
+        assertFalse(raw.has("items"));
+    }
+
+    public void testVariablesBoundByUseSite() {
+        JsonNode page = property(factory.createSchema(Catalog.class), "page");
+        assertItem(property(page, "first"));
+        assertEquals("integer", property(page, "total").get("type").asText());
+    }
+
+    public void testSelfReferencesInContainers() {
+        JsonNode schema = factory.createSchema(Tree.class);
+        JsonNode levels = property(schema, "levels");
+        assertEquals("#", levels.get("items").get("items").get("$ref").asText());
+        assertEquals("#", property(schema, "children").get("additionalProperties").get("$ref").asText());
+    }
+
+    public void testDefinitions() {
+        factory.setUseDefinitions(true);
+        JsonNode schema = factory.createSchema(Catalog.class);
+        assertEquals("#/definitions/Item", property(schema, "byName").get("additionalProperties").get("$ref").asText());
+        // Definitions are named by class, so parameterized types are inlined
+        JsonNode page = property(schema, "page");
+        assertEquals("#/definitions/Item", property(page, "content").get("items").get("$ref").asText());
+        assertFalse(schema.get("definitions").has("Page"));
+    }
+
+    public void testStreamedSchemaEqualsTree() throws Exception {
+        for (Class<?> type : new Class<?>[]{Catalog.class, Bag.class, Tree.class, String[].class}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            factory.writeSchema(type, out);
+            assertEquals(type.getName(), mapper.writeValueAsString(factory.createSchema(type)), out.toString("UTF-8"));
+        }
+    }
+
+    public void testLegacyGenerator() throws Exception {
+        JsonSchemaGenerator generator = SchemaGeneratorBuilder.draftV4Schema().build();
+        JsonNode schema = generator.generateSchema(Catalog.class);
+        assertItem(property(schema, "shelves").get("items").get("items"));
+        assertItem(property(schema, "byName").get("additionalProperties"));
+        assertItem(property(schema, "featured").get("items"));
+        assertEquals("integer", property(schema, "counts").get("additionalProperties").get("items").get("type").asText());
+    }
+
+    private static JsonNode property(JsonNode schema, String name) {
+        return schema.get("properties").get(name);
+    }
+
+    private static void assertItem(JsonNode schema) {
+        assertEquals("object", schema.get("type").asText());
+        assertEquals("string", property(schema, "name").get("type").asText());
+    }
+
+    static class Item {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    static class Page<T> {
+        private List<T> content;
+        private T first;
+        private int total;
+
+        public List<T> getContent() {
+            return content;
+        }
+
+        public T getFirst() {
+            return first;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+    }
+
+    static class Catalog {
+        private List<List<Item>> shelves;
+        private Map<String, Item> byName;
+        private Map<String, List<Integer>> counts;
+        private Item[] featured;
+        private Page<Item> page;
+
+        public List<List<Item>> getShelves() {
+            return shelves;
+        }
+
+        public Map<String, Item> getByName() {
+            return byName;
+        }
+
+        public Map<String, List<Integer>> getCounts() {
+            return counts;
+        }
+
+        public Item[] getFeatured() {
+            return featured;
+        }
+
+        public Page<Item> getPage() {
+            return page;
+        }
+    }
+
+    static class Bag {
+        private List raw;
+
+        public List getRaw() {
+            return raw;
+        }
+    }
+
+    static class Tree {
+        private List<List<Tree>> levels;
+        private Map<String, Tree> children;
+
+        public List<List<Tree>> getLevels() {
+            return levels;
+        }
+
+        public Map<String, Tree> getChildren() {
+            return children;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.reinert.jjschema.JsonSchemaGenerator;
+import com.github.reinert.jjschema.SchemaGeneratorBuilder;
+import com.github.reinert.jjschema.introspection.TypeClassifier;
+import com.github.reinert.jjschema.introspection.TypeKind;
+import com.github.reinert.jjschema.model.User;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author Danilo Reinert
+ */
+
+public class JdkValueTypesTest extends TestCase {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final JsonSchemaFactory factory = new JsonSchemaV4Factory();
+
+    public void testValueTypes() {
+        JsonNode schema = factory.createSchema(Event.class);
+        assertFormat("string", "date-time", property(schema, "at"));
+        assertFormat("string", "date", property(schema, "day"));
+        assertFormat("string", "uri", property(schema, "link"));
+        assertFormat("string", null, property(schema, "locale"));
+        assertFormat("integer", null, property(schema, "counter"));
+        assertFormat("string", "date-time", property(schema, "history").get("items"));
+    }
+
+    public void testKnownByName() throws Exception {
+        assertEquals(TypeKind.SIMPLE, TypeClassifier.kindOf(Date.class));
+        assertEquals("date-time", TypeClassifier.getBuiltinSchema("java.util.Date").get("format").asText());
+        assertNull(TypeClassifier.getBuiltinSchema("java.lang.Thread"));
+        assertEquals(TypeKind.WRAPPER, TypeClassifier.kindOf(AtomicReference.class));
+        try {
+            Class<?> optional = Class.forName("java.util.Optional");
+            assertEquals(TypeKind.WRAPPER, TypeClassifier.kindOf(optional));
+            Class<?> instant = Class.forName("java.time.Instant");
+            assertEquals("date-time", TypeClassifier.getFixedSchema(instant).get("format").asText());
+            Class<?> duration = Class.forName("java.time.Duration");
+            assertEquals("{\"type\":\"string\"}", TypeClassifier.getFixedSchema(duration).toString());
+        } catch (ClassNotFoundException e) {
+            // Older JDKs have neither
+        }
+    }
+
+    public void testByteArraysAreStrings() throws Exception {
+        // Jackson writes byte arrays in base64
+        JsonNode photo = property(factory.createSchema(User.class), "photo");
+        assertEquals("[\"string\",\"null\"]", photo.get("type").toString());
+        assertFalse(photo.has("items"));
+        JsonNode legacyPhoto = property(SchemaGeneratorBuilder.draftV4Schema().build().generateSchema(User.class),
+                "photo");
+        assertEquals("[\"string\",\"null\"]", legacyPhoto.get("type").toString());
+        assertFalse(legacyPhoto.has("items"));
+        assertEquals("string", TypeClassifier.getFixedSchema(byte[].class).get("type").asText());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        factory.writeSchema(User.class, out);
+        assertEquals(mapper.writeValueAsString(factory.createSchema(User.class)), out.toString("UTF-8"));
+    }
+
+    public void testClassWrappersMatchTheGeneration() throws Exception {
+        assertEquals(mapper.writeValueAsString(SchemaWrapperFactory.createWrapper(User.class, null, null,
+                new GenerationContext()).asJson()), mapper.writeValueAsString(SchemaWrapperFactory.createWrapper(
+                User.class).asJson()));
+        assertEquals("string", SchemaWrapperFactory.createWrapper(Byte[].class).asJson().get("type").asText());
+    }
+
+    public void testWrappersDescribedByTheirContents() {
+        JsonNode schema = factory.createSchema(Event.class);
+        JsonNode owner = property(schema, "owner");
+        assertEquals("object", owner.get("type").asText());
+        assertEquals("string", property(owner, "name").get("type").asText());
+        assertEquals("string", property(schema, "note").get("type").asText());
+        assertFalse(property(schema, "anything").has("type"));
+    }
+
+    public void testSelfReferenceThroughWrapper() {
+        JsonNode schema = factory.createSchema(Node.class);
+        assertEquals("#", property(schema, "parent").get("$ref").asText());
+        assertEquals("#", property(schema, "children").get("items").get("$ref").asText());
+    }
+
+    public void testStreamedSchemaEqualsTree() throws Exception {
+        for (Class<?> type : new Class<?>[]{Event.class, Node.class}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            factory.writeSchema(type, out);
+            assertEquals(type.getName(), mapper.writeValueAsString(factory.createSchema(type)), out.toString("UTF-8"));
+        }
+    }
+
+    public void testLegacyGenerator() throws Exception {
+        JsonSchemaGenerator generator = SchemaGeneratorBuilder.draftV4Schema().build();
+        JsonNode schema = generator.generateSchema(Event.class);
+        assertFormat("string", "date-time", property(schema, "at"));
+        assertFormat("string", "uri", property(schema, "link"));
+        assertFormat("integer", null, property(schema, "counter"));
+        assertEquals("string", property(property(schema, "owner"), "name").get("type").asText());
+        assertEquals("string", property(schema, "note").get("type").asText());
+    }
+
+    private static JsonNode property(JsonNode schema, String name) {
+        return schema.get("properties").get(name);
+    }
+
+    private static void assertFormat(String type, String format, JsonNode schema) {
+        assertEquals(type, schema.get("type").asText());
+        if (format == null)
+            assertFalse(schema.has("format"));
+        else
+            assertEquals(format, schema.get("format").asText());
+    }
+
+    static class Person {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    static class Event {
+        private Date at;
+        private java.sql.Date day;
+        private URI link;
+        private Locale locale;
+        private AtomicLong counter;
+        private List<Date> history;
+        private AtomicReference<Person> owner;
+        private AtomicReference<AtomicReference<String>> note;
+        @SuppressWarnings("rawtypes")
+        private AtomicReference anything;
+
+        public Date getAt() {
+            return at;
+        }
+
+        public void setAt(Date at) {
+            this.at = at;
+        }
+
+        public java.sql.Date getDay() {
+            return day;
+        }
+
+        public void setDay(java.sql.Date day) {
+            this.day = day;
+        }
+
+        public URI getLink() {
+            return link;
+        }
+
+        public void setLink(URI link) {
+            this.link = link;
+        }
+
+        public Locale getLocale() {
+            return locale;
+        }
+
+        public void setLocale(Locale locale) {
+            this.locale = locale;
+        }
+
+        public AtomicLong getCounter() {
+            return counter;
+        }
+
+        public void setCounter(AtomicLong counter) {
+            this.counter = counter;
+        }
+
+        public List<Date> getHistory() {
+            return history;
+        }
+
+        public void setHistory(List<Date> history) {
+            this.history = history;
+        }
+
+        public AtomicReference<Person> getOwner() {
+            return owner;
+        }
+
+        public void setOwner(AtomicReference<Person> owner) {
+            this.owner = owner;
+        }
+
+        public AtomicReference<AtomicReference<String>> getNote() {
+            return note;
+        }
+
+        public void setNote(AtomicReference<AtomicReference<String>> note) {
+            this.note = note;
+        }
+
+        @SuppressWarnings("rawtypes")
+        public AtomicReference getAnything() {
+            return anything;
+        }
+
+        @SuppressWarnings("rawtypes")
+        public void setAnything(AtomicReference anything) {
+            this.anything = anything;
+        }
+    }
+
+    static class Node {
+        private AtomicReference<Node> parent;
+        private List<AtomicReference<Node>> children;
+
+        public AtomicReference<Node> getParent() {
+            return parent;
+        }
+
+        public void setParent(AtomicReference<Node> parent) {
+            this.parent = parent;
+        }
+
+        public List<AtomicReference<Node>> getChildren() {
+            return children;
+        }
+
+        public void setChildren(List<AtomicReference<Node>> children) {
+            this.children = children;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.reinert.jjschema.inheritance.MusicItem;
+import com.github.reinert.jjschema.inheritance.WarrantyItem;
+import com.github.reinert.jjschema.model.Person;
+import com.github.reinert.jjschema.model.Task;
+import com.github.reinert.jjschema.model.TaskList;
+import com.github.reinert.jjschema.model.User;
+import com.github.reinert.jjschema.model.Users;
+import com.github.reinert.jjschema.v1.SchemaStreamWriterTest.Shipment;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * @author Danilo Reinert
+ */
+
+public class LazySchemaWrapperTest extends TestCase {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final Class<?>[] types = {User.class, Users.class, Person.class, Task.class, TaskList.class,
+            MusicItem.class, WarrantyItem.class, CircularReferenceSimpleTest.Sale.class,
+            SchemaIgnoreTest.Sale.class, EmployeeTest.Employee.class, EnumTest.Hyperthing.class,
+            NullableArrayTest.Something.class, ProductTest.Product.class, ProductTest.ComplexProduct.class,
+            ProductTest.ProductSet.class, SimpleTest.SimpleExample.class, Shipment.class,
+            String.class, EnumTest.FloatingEnum.class, Void.class, Order.class, GenericTypesTest.Catalog.class,
+            GenericTypesTest.Tree.class};
+
+    public void testMaterializedSchemaEqualsEager() throws IOException {
+        JsonSchemaFactory factory = new JsonSchemaV4Factory();
+        for (Class<?> type : types) {
+            assertEquals(type.getName(), mapper.writeValueAsString(factory.createSchema(type)),
+                    mapper.writeValueAsString(createLazyWrapper(type).asJson()));
+        }
+    }
+
+    public void testChildrenOfEagerTypesAreMaterialized() {
+        CustomSchemaWrapper order = createLazyWrapper(Order.class).cast();
+        assertFalse(order.isPending());
+        JsonNode leaf = order.asJson().get("properties").get("leaf");
+        assertEquals("string", leaf.get("properties").get("twig").get("properties").get("name").get("type").asText());
+
+        JsonNode page = createLazyWrapper(GenericTypesTest.Catalog.class).asJson().get("properties").get("page");
+        assertTrue(page.get("properties").get("first").has("properties"));
+        assertTrue(page.get("properties").get("content").get("items").has("properties"));
+    }
+
+    public void testPropertiesAreDeferred() {
+        CustomSchemaWrapper shipment = createLazyWrapper(Shipment.class).cast();
+        assertTrue(shipment.isPending());
+        assertEquals("Shipment", shipment.asJson().get("title").asText());
+        shipment = createLazyWrapper(Shipment.class).cast();
+        assertEquals("object", shipment.getType());
+        assertFalse(shipment.getNode().has(CustomSchemaWrapper.TAG_PROPERTIES));
+
+        Iterator<PropertyWrapper> properties = shipment.iterator();
+        assertFalse(shipment.isPending());
+        PropertyWrapper address = properties.next();
+        assertEquals("address", address.getName());
+        assertTrue(address.isRequired());
+        CustomSchemaWrapper addressSchema = address.cast();
+        assertTrue(addressSchema.isPending());
+        assertEquals("Where it goes", addressSchema.getNode().get("description").asText());
+
+        assertEquals("string", address.asJson().get("properties").get("street").get("type").asText());
+        assertFalse(addressSchema.isPending());
+        properties.next();
+        assertTrue(properties.next().<CustomSchemaWrapper>cast().isPending());
+    }
+
+    public void testManagedReferencesAreNotDeferred() {
+        assertFalse(createLazyWrapper(CircularReferenceSimpleTest.Sale.class).<CustomSchemaWrapper>cast().isPending());
+    }
+
+    public void testDefinitionsAreNotDeferred() {
+        GenerationContext context = new GenerationContext(true);
+        context.setLazy(true);
+        SchemaWrapper wrapper = SchemaWrapperFactory.createWrapper(Shipment.class, null, null, context);
+        assertFalse(wrapper.<CustomSchemaWrapper>cast().isPending());
+    }
+
+    static class Twig {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    static class Leaf {
+        private Twig twig;
+
+        public Twig getTwig() {
+            return twig;
+        }
+
+        public void setTwig(Twig twig) {
+            this.twig = twig;
+        }
+    }
+
+    static class Line {
+        @JsonBackReference("lines")
+        private Order order;
+
+        public Order getOrder() {
+            return order;
+        }
+
+        public void setOrder(Order order) {
+            this.order = order;
+        }
+    }
+
+    static class Order {
+        @JsonManagedReference("lines")
+        private List<Line> lines;
+        private Leaf leaf;
+
+        public List<Line> getLines() {
+            return lines;
+        }
+
+        public void setLines(List<Line> lines) {
+            this.lines = lines;
+        }
+
+        public Leaf getLeaf() {
+            return leaf;
+        }
+
+        public void setLeaf(Leaf leaf) {
+            this.leaf = leaf;
+        }
+    }
+
+    private static SchemaWrapper createLazyWrapper(Class<?> type) {
+        GenerationContext context = new GenerationContext();
+        context.setLazy(true);
+        return SchemaWrapperFactory.createWrapper(type, null, null, context);
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.reinert.jjschema.Attributes;
+import com.github.reinert.jjschema.Nullable;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.List;
+
+/**
+ * @author Danilo Reinert
+ */
+
+public class OpaqueTypesTest extends TestCase {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final JsonSchemaFactory factory = new JsonSchemaV4Factory();
+
+    public void testOpaqueType() {
+        factory.addOpaqueType(Lazy.class, null);
+        JsonNode schema = factory.createSchema(Order.class);
+        // Subtypes are opaque as well, and the default placeholder is an open schema
+        assertEquals("{\"title\":\"Buyer\"}", property(schema, "customer").toString());
+        assertEquals("array", property(schema, "lines").get("type").asText());
+        assertEquals("object", property(schema, "lines").get("items").get("type").asText());
+    }
+
+    public void testPlaceholder() throws Exception {
+        factory.addOpaqueType(Customer.class, (ObjectNode) mapper.readTree("{\"type\":\"string\"}"));
+        JsonNode customer = property(factory.createSchema(Order.class), "customer");
+        assertEquals("[\"string\",\"null\"]", customer.get("type").toString());
+        assertEquals("Buyer", customer.get("title").asText());
+    }
+
+    public void testReferencePlaceholder() throws Exception {
+        factory.addOpaqueType(Customer.class, (ObjectNode) mapper.readTree("{\"$ref\":\"customer.json\"}"));
+        JsonNode customer = property(factory.createSchema(Order.class), "customer");
+        assertEquals("customer.json", customer.get("anyOf").get(0).get("$ref").asText());
+        assertEquals("null", customer.get("anyOf").get(1).get("type").asText());
+        assertEquals("Buyer", customer.get("title").asText());
+    }
+
+    public void testOpaqueAnnotation() {
+        factory.addOpaqueAnnotation(External.class, null);
+        JsonNode schema = factory.createSchema(Order.class);
+        assertFalse(property(schema, "lines").get("items").has("properties"));
+        assertTrue(property(schema, "customer").has("properties"));
+    }
+
+    public void testOpaquePackage() {
+        factory.addOpaquePackage(OpaqueTypesTest.class.getPackage().getName(), null);
+        JsonNode schema = factory.createSchema(Order.class);
+        // The root type is always generated
+        assertEquals("object", schema.get("type").asText());
+        assertFalse(property(schema, "customer").has("properties"));
+    }
+
+    public void testFirstRuleWins() throws Exception {
+        factory.addOpaqueType(Customer.class, (ObjectNode) mapper.readTree("{\"type\":\"string\"}"));
+        factory.addOpaqueType(Lazy.class, (ObjectNode) mapper.readTree("{\"type\":\"integer\"}"));
+        JsonNode customer = property(factory.createSchema(Order.class), "customer");
+        assertEquals("string", customer.get("type").get(0).asText());
+    }
+
+    public void testDefinitions() {
+        factory.setUseDefinitions(true);
+        factory.addOpaqueType(Customer.class, null);
+        JsonNode schema = factory.createSchema(Order.class);
+        assertEquals("#/definitions/Line", property(schema, "lines").get("items").get("$ref").asText());
+        assertFalse(schema.get("definitions").has("Customer"));
+    }
+
+    public void testCacheTellsConfigurationsApart() {
+        factory.setCache(new SchemaCache());
+        assertTrue(property(factory.createSchema(Order.class), "customer").has("properties"));
+        factory.addOpaqueType(Customer.class, null);
+        assertFalse(property(factory.createSchema(Order.class), "customer").has("properties"));
+    }
+
+    public void testStreamedSchemaEqualsTree() throws Exception {
+        factory.addOpaqueType(Customer.class, (ObjectNode) mapper.readTree("{\"$ref\":\"customer.json\"}"));
+        factory.addOpaqueAnnotation(External.class, (ObjectNode) mapper.readTree("{\"type\":\"object\"}"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        factory.writeSchema(Order.class, out);
+        assertEquals(mapper.writeValueAsString(factory.createSchema(Order.class)), out.toString("UTF-8"));
+    }
+
+    private static JsonNode property(JsonNode schema, String name) {
+        return schema.get("properties").get(name);
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.TYPE)
+    @interface External {
+    }
+
+    interface Lazy {
+    }
+
+    static class Customer implements Lazy {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    @External
+    static class Line {
+        private int quantity;
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+    }
+
+    static class Order {
+        @Nullable
+        @Attributes(title = "Buyer")
+        private Customer customer;
+        private List<Line> lines;
+
+        public Customer getCustomer() {
+            return customer;
+        }
+
+        public void setCustomer(Customer customer) {
+            this.customer = customer;
+        }
+
+        public List<Line> getLines() {
+            return lines;
+        }
+
+        public void setLines(List<Line> lines) {
+            this.lines = lines;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.reinert.jjschema.Nullable;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+/**
+ * @author Danilo Reinert
+ */
+
+public class PolymorphicTypesTest extends TestCase {
+
+    private static final String SUBTYPES = "[{\"$ref\":\"#/definitions/Circle\"},{\"$ref\":\"#/definitions/Square\"}]";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final JsonSchemaFactory factory = new JsonSchemaV4Factory();
+
+    public void testOneOfSubtypes() {
+        JsonNode schema = factory.createSchema(Drawing.class);
+        assertEquals(SUBTYPES, property(schema, "main").get("oneOf").toString());
+        assertEquals(SUBTYPES, property(schema, "shapes").get("items").get("oneOf").toString());
+        // Each subtype is generated once
+        assertEquals(2, schema.get("definitions").size());
+        assertEquals("number", property(schema.get("definitions").get("Circle"), "radius").get("type").asText());
+    }
+
+    public void testTypeIds() {
+        JsonNode definitions = factory.createSchema(Drawing.class).get("definitions");
+        JsonNode circle = definitions.get("Circle");
+        assertEquals("[\"circle\"]", property(circle, "kind").get("enum").toString());
+        assertEquals("[\"kind\"]", circle.get("required").toString());
+        assertEquals("[\"sq\"]", property(definitions.get("Square"), "kind").get("enum").toString());
+    }
+
+    public void testNullable() {
+        JsonNode background = property(factory.createSchema(Drawing.class), "background");
+        assertEquals(3, background.get("oneOf").size());
+        assertEquals("null", background.get("oneOf").get(2).get("type").asText());
+    }
+
+    public void testCycles() {
+        JsonNode square = factory.createSchema(Drawing.class).get("definitions").get("Square");
+        assertEquals(SUBTYPES, property(square, "inner").get("oneOf").toString());
+    }
+
+    public void testRootType() {
+        JsonNode schema = factory.createSchema(Shape.class);
+        assertEquals(SUBTYPES, schema.get("oneOf").toString());
+        assertEquals(2, schema.get("definitions").size());
+    }
+
+    public void testDefinitions() {
+        factory.setUseDefinitions(true);
+        JsonNode schema = factory.createSchema(Drawing.class);
+        assertEquals(SUBTYPES, property(schema, "main").get("oneOf").toString());
+        assertEquals(2, schema.get("definitions").size());
+        assertEquals(SUBTYPES, factory.createSchema(Shape.class).get("oneOf").toString());
+    }
+
+    public void testStreamedSchemaEqualsTree() throws Exception {
+        factory.setAutoPutDollarSchema(true);
+        for (Class<?> type : new Class<?>[]{Drawing.class, Shape.class, Circle.class}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            factory.writeSchema(type, out);
+            assertEquals(type.getName(), mapper.writeValueAsString(factory.createSchema(type)), out.toString("UTF-8"));
+        }
+    }
+
+    public void testWrappersHoldTheDefinitions() throws Exception {
+        String expected = mapper.writeValueAsString(factory.createSchema(Drawing.class));
+        SchemaWrapper wrapper = SchemaWrapperFactory.createWrapper(Drawing.class);
+        assertEquals(expected, mapper.writeValueAsString(wrapper.asJson()));
+        assertEquals(expected, mapper.writeValueAsString(wrapper.asJson()));
+
+        GenerationContext context = new GenerationContext();
+        context.setLazy(true);
+        CustomSchemaWrapper lazyWrapper = SchemaWrapperFactory.createWrapper(Drawing.class, null, null, context).cast();
+        for (PropertyWrapper propertyWrapper : lazyWrapper) {
+            // A property holds no definitions of its own
+            assertFalse(propertyWrapper.asJson().has("definitions"));
+        }
+        assertEquals(expected, mapper.writeValueAsString(lazyWrapper.asJson()));
+    }
+
+    private static JsonNode property(JsonNode schema, String name) {
+        return schema.get("properties").get(name);
+    }
+
+    @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "kind")
+    @JsonSubTypes({@JsonSubTypes.Type(value = Circle.class, name = "circle"), @JsonSubTypes.Type(Square.class)})
+    abstract static class Shape {
+    }
+
+    static class Circle extends Shape {
+        private double radius;
+
+        public double getRadius() {
+            return radius;
+        }
+
+        public void setRadius(double radius) {
+            this.radius = radius;
+        }
+    }
+
+    @JsonTypeName("sq")
+    static class Square extends Shape {
+        private double side;
+        private Shape inner;
+
+        public double getSide() {
+            return side;
+        }
+
+        public void setSide(double side) {
+            this.side = side;
+        }
+
+        public Shape getInner() {
+            return inner;
+        }
+
+        public void setInner(Shape inner) {
+            this.inner = inner;
+        }
+    }
+
+    static class Drawing {
+        private Shape main;
+        private List<Shape> shapes;
+        @Nullable
+        private Shape background;
+
+        public Shape getMain() {
+            return main;
+        }
+
+        public void setMain(Shape main) {
+            this.main = main;
+        }
+
+        public List<Shape> getShapes() {
+            return shapes;
+        }
+
+        public void setShapes(List<Shape> shapes) {
+            this.shapes = shapes;
+        }
+
+        public Shape getBackground() {
+            return background;
+        }
+
+        public void setBackground(Shape background) {
+            this.background = background;
+        }
+    }
+}
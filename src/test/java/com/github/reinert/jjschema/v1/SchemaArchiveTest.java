@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.reinert.jjschema.Attributes;
+import com.github.reinert.jjschema.model.Person;
+import com.github.reinert.jjschema.model.TaskList;
+import com.github.reinert.jjschema.model.User;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * @author Danilo Reinert
+ */
+
+public class SchemaArchiveTest extends TestCase {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final JsonSchemaFactory factory = new JsonSchemaV4Factory();
+    private final Class<?>[] types = {User.class, Person.class, TaskList.class, Catalog.class, Catalogue.class};
+
+    public void testMappedArchive() throws IOException {
+        File file = File.createTempFile("schemas", ".jjsa");
+        try {
+            SchemaArchiveWriter writer = new SchemaArchiveWriter();
+            for (Class<?> type : types) {
+                writer.add(type, factory.createSchema(type));
+            }
+            writer.write(file);
+            assertArchive(SchemaArchive.open(file));
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testLookups() throws IOException {
+        SchemaArchiveWriter writer = new SchemaArchiveWriter();
+        for (Class<?> type : types) {
+            writer.add(type, factory.createSchema(type));
+        }
+        writer.add("Ünïcode", mapper.createObjectNode().put("id", "ö"));
+        writer.add("", mapper.createObjectNode());
+        SchemaArchive archive = read(writer);
+
+        assertEquals(types.length + 2, archive.size());
+        assertArchive(archive);
+        assertEquals("ö", archive.getSchema("Ünïcode").get("id").asText());
+        assertEquals(mapper.createObjectNode(), archive.getSchema(""));
+        assertNull(archive.getSchema("Unknown"));
+        assertNull(archive.getSchemaById("urn:unknown"));
+        assertFalse(archive.contains("a"));
+
+        // Many schemas sharing an id: the first class by name wins
+        assertEquals(factory.createSchema(Catalog.class), archive.getSchemaById("urn:catalog"));
+    }
+
+    public void testEmptyArchive() throws IOException {
+        SchemaArchive archive = read(new SchemaArchiveWriter());
+        assertEquals(0, archive.size());
+        assertNull(archive.getSchema(User.class));
+    }
+
+    public void testInvalidArchive() {
+        try {
+            SchemaArchive.wrap(ByteBuffer.wrap(new byte[64]));
+            fail();
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private void assertArchive(SchemaArchive archive) throws IOException {
+        for (Class<?> type : types) {
+            JsonNode expected = factory.createSchema(type);
+            assertTrue(archive.contains(type.getName()));
+            // Compared as text, since decoded numbers may use narrower nodes
+            assertEquals(expected.toString(), archive.getSchema(type).toString());
+
+            ByteBuffer bytes = archive.getBytes(type.getName());
+            byte[] raw = new byte[bytes.remaining()];
+            bytes.get(raw);
+            assertEquals(mapper.writeValueAsString(expected), new String(raw, "UTF-8"));
+
+            JsonParser parser = archive.getParser(type.getName());
+            assertEquals(JsonToken.START_OBJECT, parser.nextToken());
+            parser.close();
+        }
+        assertEquals(factory.createSchema(Catalog.class), archive.getSchemaById("urn:catalog"));
+    }
+
+    private static SchemaArchive read(SchemaArchiveWriter writer) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(out);
+        return SchemaArchive.wrap(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    @Attributes(id = "urn:catalog", title = "Catalog")
+    static class Catalog {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    @Attributes(id = "urn:catalog", title = "Catalogue")
+    static class Catalogue {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.reinert.jjschema.model.Person;
+import com.github.reinert.jjschema.model.User;
+import junit.framework.TestCase;
+
+/**
+ * @author Danilo Reinert
+ */
+
+public class SchemaCacheTest extends TestCase {
+
+    public void testCachedSchemaEqualsGeneratedSchema() {
+        JsonSchemaFactory plain = new JsonSchemaV4Factory();
+        JsonSchemaFactory cached = new JsonSchemaV4Factory();
+        cached.setCache(new SchemaCache());
+
+        assertEquals(plain.createSchema(User.class), cached.createSchema(User.class));
+        assertEquals(plain.createSchema(User.class), cached.createSchema(User.class));
+        assertEquals(plain.createSchema(Person.class), cached.createSchema(Person.class));
+    }
+
+    public void testCallersCannotCorruptCache() {
+        JsonSchemaFactory factory = new JsonSchemaV4Factory();
+        factory.setCache(new SchemaCache());
+
+        JsonNode first = factory.createSchema(User.class);
+        ((ObjectNode) first).put("title", "corrupted");
+        ((ObjectNode) first.get("properties")).remove("name");
+
+        JsonNode second = factory.createSchema(User.class);
+        assertFalse(second.has("title"));
+        assertTrue(second.get("properties").has("name"));
+        assertNotSame(second, factory.createSchema(User.class));
+    }
+
+    public void testSharedCacheSeparatesConfigurations() {
+        SchemaCache cache = new SchemaCache();
+        JsonSchemaFactory withVersion = new JsonSchemaV4Factory();
+        withVersion.setAutoPutDollarSchema(true);
+        withVersion.setCache(cache);
+        JsonSchemaFactory withoutVersion = new JsonSchemaV4Factory();
+        withoutVersion.setCache(cache);
+
+        assertTrue(withVersion.createSchema(User.class).has("$schema"));
+        assertFalse(withoutVersion.createSchema(User.class).has("$schema"));
+        assertEquals(1, cache.size());
+    }
+
+    public void testEviction() {
+        SchemaCache cache = new SchemaCache("maximumSize=1");
+        JsonSchemaFactory factory = new JsonSchemaV4Factory();
+        factory.setCache(cache);
+
+        factory.createSchema(User.class);
+        factory.createSchema(Person.class);
+        assertEquals(1, cache.size());
+
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+    }
+}
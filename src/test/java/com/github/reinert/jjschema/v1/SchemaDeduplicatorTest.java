@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.reinert.jjschema.model.Person;
+import com.github.reinert.jjschema.model.TaskList;
+import com.google.common.hash.Hashing;
+import junit.framework.TestCase;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author Danilo Reinert
+ */
+
+public class SchemaDeduplicatorTest extends TestCase {
+
+    private final JsonSchemaFactory factory = new JsonSchemaV4Factory();
+
+    public void testRepeatedSubschemasAreLifted() {
+        JsonNode schema = factory.createSchema(DefinitionsTest.Order.class);
+        JsonNode original = schema.deepCopy();
+        JsonNode deduplicated = new SchemaDeduplicator().deduplicate(schema);
+
+        assertEquals(original, schema);
+        JsonNode properties = deduplicated.get("properties");
+        String ref = properties.get("billing").get("$ref").asText();
+        assertTrue(ref.startsWith("#/definitions/" + SchemaDeduplicator.SHARED_PREFIX));
+        assertEquals(ref, properties.get("shipping").get("$ref").asText());
+        assertEquals(ref, properties.get("contacts").get("items").get("$ref").asText());
+        assertTrue(deduplicated.toString().length() < original.toString().length());
+
+        JsonNode definitions = deduplicated.get("definitions");
+        assertEquals(original, expand(deduplicated, definitions, "#/definitions/", true));
+    }
+
+    public void testSmallSubschemasAreKept() {
+        JsonNode schema = factory.createSchema(DefinitionsTest.Order.class);
+        JsonNode deduplicated = new SchemaDeduplicator(Hashing.sha256(), 1000).deduplicate(schema);
+        assertEquals(schema, deduplicated);
+    }
+
+    public void testBundleSharesSubschemasAcrossSchemas() {
+        Map<Class<?>, JsonNode> schemas = new LinkedHashMap<Class<?>, JsonNode>();
+        schemas.put(DefinitionsTest.Order.class, factory.createSchema(DefinitionsTest.Order.class));
+        schemas.put(DefinitionsTest.Customer.class, factory.createSchema(DefinitionsTest.Customer.class));
+        schemas.put(TaskList.class, factory.createSchema(TaskList.class));
+        schemas.put(Person.class, factory.createSchema(Person.class));
+
+        SchemaBundle<Class<?>> bundle = new SchemaDeduplicator(Hashing.md5(), 3).deduplicate(schemas, "shared.json");
+
+        JsonNode definitions = bundle.getShared().get("definitions");
+        assertTrue(definitions.size() > 0);
+        assertFalse(definitions.toString().contains("\"$ref\":\"#"));
+        JsonNode address = bundle.getSchemas().get(DefinitionsTest.Customer.class).get("properties").get("address");
+        assertTrue(address.get("$ref").asText().startsWith("shared.json#/definitions/"));
+
+        for (Map.Entry<Class<?>, JsonNode> schema : bundle.getSchemas().entrySet()) {
+            assertEquals(schemas.get(schema.getKey()),
+                    expand(schema.getValue(), definitions, "shared.json#/definitions/", false));
+        }
+    }
+
+    /**
+     * Replaces the references to lifted subschemas by their content.
+     */
+    private static JsonNode expand(JsonNode node, JsonNode definitions, String prefix, boolean dropDefinitions) {
+        JsonNode copy = node.deepCopy();
+        if (dropDefinitions)
+            ((ObjectNode) copy).remove("definitions");
+        return inline(copy, definitions, prefix);
+    }
+
+    private static JsonNode inline(JsonNode node, JsonNode definitions, String prefix) {
+        JsonNode ref = node.get("$ref");
+        if (ref != null && ref.asText().startsWith(prefix + SchemaDeduplicator.SHARED_PREFIX))
+            return inline(definitions.get(ref.asText().substring(prefix.length())).deepCopy(), definitions, prefix);
+        if (node.isObject()) {
+            ObjectNode object = (ObjectNode) node;
+            for (Iterator<String> names = object.fieldNames(); names.hasNext(); ) {
+                String name = names.next();
+                object.put(name, inline(object.get(name), definitions, prefix));
+            }
+        } else if (node.isArray()) {
+            ArrayNode array = (ArrayNode) node;
+            for (int i = 0; i < array.size(); i++) {
+                array.set(i, inline(array.get(i), definitions, prefix));
+            }
+        }
+        return node;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.github.reinert.jjschema.inheritance.BaseItem;
+import com.github.reinert.jjschema.inheritance.MusicItem;
+import com.github.reinert.jjschema.inheritance.WarrantyItem;
+import com.github.reinert.jjschema.model.Person;
+import com.github.reinert.jjschema.model.Task;
+import com.github.reinert.jjschema.model.TaskList;
+import junit.framework.TestCase;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * @author Danilo Reinert
+ */
+
+public class SchemaFingerprintTest extends TestCase {
+
+    public void testDependencies() {
+        List<Class<?>> dependencies = SchemaFingerprint.dependencies(Person.class);
+        assertEquals(Person.class, dependencies.get(0));
+        assertTrue(dependencies.contains(TaskList.class));
+        assertTrue(dependencies.contains(Task.class));
+        assertTrue(dependencies.contains(String.class));
+        assertFalse(dependencies.contains(CharSequence.class));
+
+        dependencies = SchemaFingerprint.dependencies(MusicItem.class);
+        assertTrue(dependencies.contains(BaseItem.class));
+        assertTrue(dependencies.contains(WarrantyItem.class));
+    }
+
+    public void testFingerprint() {
+        assertEquals(SchemaFingerprint.of(Person.class), SchemaFingerprint.of(Person.class));
+        assertEquals(64, SchemaFingerprint.of(Person.class).length());
+        assertFalse(SchemaFingerprint.of(Person.class).equals(SchemaFingerprint.of(Task.class)));
+    }
+
+    /**
+     * The holder class is compiled twice, unchanged, against two versions of the class it references.
+     */
+    public void testFingerprintCoversReferencedClasses() throws Exception {
+        String holder = "package fp; public class Holder { private Item item;"
+                + " public java.util.List<Item> getItems() { return null; } public Item getItem() { return item; } }";
+        String first = fingerprint(holder, "package fp; public class Item { private int a; public int getA() { return a; } }");
+        String same = fingerprint(holder, "package fp; public class Item { private int a; public int getA() { return a; } }");
+        String second = fingerprint(holder, "package fp; public class Item { private String a; public String getA() { return a; } }");
+        if (first == null)
+            return;
+        assertEquals(first, same);
+        assertFalse(first.equals(second));
+    }
+
+    private String fingerprint(String holder, String item) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null)
+            return null;
+        File directory = Files.createTempDirectory("jjschema-fingerprint").toFile();
+        File sources = new File(directory, "fp");
+        assertTrue(sources.mkdir());
+        File holderSource = new File(sources, "Holder.java");
+        File itemSource = new File(sources, "Item.java");
+        Files.write(holderSource.toPath(), holder.getBytes("UTF-8"));
+        Files.write(itemSource.toPath(), item.getBytes("UTF-8"));
+        assertEquals(0, compiler.run(null, null, null, "-d", directory.getPath(), holderSource.getPath(),
+                itemSource.getPath()));
+
+        URLClassLoader loader = new URLClassLoader(new URL[]{directory.toURI().toURL()}, getClass().getClassLoader());
+        try {
+            return SchemaFingerprint.of(Class.forName("fp.Holder", false, loader));
+        } finally {
+            loader.close();
+            for (File file : new File[]{holderSource, itemSource, new File(sources, "Holder.class"),
+                    new File(sources, "Item.class"), sources, directory}) {
+                file.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import junit.framework.TestCase;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Danilo Reinert
+ */
+
+public class SchemaProcessorTest extends TestCase {
+
+    private static final String ORDER_SOURCE = ""
+            + "package processed;\n"
+            + "import com.fasterxml.jackson.annotation.*;\n"
+            + "import com.github.reinert.jjschema.*;\n"
+            + "import java.util.*;\n"
+            + "@Attributes(title = \"Order\", description = \"An order\")\n"
+            + "public class Order {\n"
+            + "    @Attributes(required = true, minLength = 3) private String code;\n"
+            + "    @Nullable private Status status;\n"
+            + "    @JsonManagedReference private List<Line> lines;\n"
+            + "    @SchemaIgnore private String secret;\n"
+            + "    private Order parent;\n"
+            + "    private String kind;\n"
+            + "    private byte[] signature;\n"
+            + "    public static class kindEnum { public static final String A = \"a\"; public static final String B = \"b\"; }\n"
+            + "    public enum Status { OPEN, CLOSED }\n"
+            + "    public static class Line {\n"
+            + "        @JsonBackReference private Order order;\n"
+            + "        @Attributes(minimum = 1) private int quantity;\n"
+            + "        public Order getOrder() { return order; }\n"
+            + "        public int getQuantity() { return quantity; }\n"
+            + "    }\n"
+            + "    public String getCode() { return code; }\n"
+            + "    public void setCode(String code) { this.code = code; }\n"
+            + "    public Status getStatus() { return status; }\n"
+            + "    public List<Line> getLines() { return lines; }\n"
+            + "    public String getSecret() { return secret; }\n"
+            + "    public Order getParent() { return parent; }\n"
+            + "    public String getKind() { return kind; }\n"
+            + "    public byte[] getSignature() { return signature; }\n"
+            + "}\n";
+
+    private static final String SKIPPED_SOURCE = ""
+            + "package processed;\n"
+            + "import com.github.reinert.jjschema.*;\n"
+            + "@Attributes(title = \"Skipped\")\n"
+            + "public class Skipped {\n"
+            + "    private Mode mode;\n"
+            + "    public Mode getMode() { return mode; }\n"
+            + "    public enum Mode { A; public String toString() { return \"a\"; } }\n"
+            + "}\n";
+
+    private static final String LINKED_SOURCE = ""
+            + "package processed;\n"
+            + "import com.github.reinert.jjschema.*;\n"
+            + "public class Linked {\n"
+            + "    @Media(type = \"image/png\", binaryEncoding = \"base64\") private String image;\n"
+            + "    private String next;\n"
+            + "    public String getImage() { return image; }\n"
+            + "    @Rel(\"next\") public String getNext() { return next; }\n"
+            + "}\n";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private File output;
+
+    @Override
+    protected void setUp() throws Exception {
+        output = Files.createTempDirectory("jjschema-processor").toFile();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        delete(output);
+    }
+
+    public void testPrecomputedSchemaEqualsReflection() throws Exception {
+        if (!compile())
+            return;
+        JsonSchemaFactory factory = new JsonSchemaV4Factory();
+        factory.setUsePrecomputedSchemas(false);
+        Class<?> order = load("processed.Order");
+        File schema = schemaFile("processed.Order");
+
+        assertTrue(schema.isFile());
+        assertEquals(mapper.writeValueAsString(factory.createSchema(order)),
+                new String(Files.readAllBytes(schema.toPath()), "UTF-8"));
+        assertEquals("string", mapper.readTree(schema).get("properties").get("signature").get("type").asText());
+        assertFalse(schemaFile("processed.Skipped").exists());
+
+        // The hyper-schema annotations select the class, and are ignored by the factory as well
+        File linked = schemaFile("processed.Linked");
+        assertTrue(linked.isFile());
+        assertEquals(mapper.writeValueAsString(factory.createSchema(load("processed.Linked"))),
+                new String(Files.readAllBytes(linked.toPath()), "UTF-8"));
+    }
+
+    public void testFactoryPrefersPrecomputedSchema() throws Exception {
+        if (!compile())
+            return;
+        ObjectNode marker = mapper.createObjectNode();
+        marker.put("title", "precomputed");
+        OutputStream out = new FileOutputStream(schemaFile("processed.Order"));
+        try {
+            mapper.writeValue(out, marker);
+        } finally {
+            out.close();
+        }
+        Class<?> order = load("processed.Order");
+
+        JsonSchemaFactory factory = new JsonSchemaV4Factory();
+        assertEquals(marker, factory.createSchema(order));
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        factory.writeSchema(order, streamed);
+        assertEquals(marker, mapper.readTree(streamed.toByteArray()));
+
+        factory.setAutoPutDollarSchema(true);
+        JsonNode withDollarSchema = factory.createSchema(order);
+        assertEquals("precomputed", withDollarSchema.get("title").asText());
+        assertTrue(withDollarSchema.has("$schema"));
+
+        factory.setUsePrecomputedSchemas(false);
+        assertEquals("Order", factory.createSchema(order).get("title").asText());
+        factory.setUsePrecomputedSchemas(true);
+        factory.setUseDefinitions(true);
+        assertEquals("Order", factory.createSchema(order).get("title").asText());
+    }
+
+    private boolean compile() throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null)
+            return false;
+        List<JavaFileObject> sources = Arrays.asList(source("processed.Order", ORDER_SOURCE),
+                source("processed.Skipped", SKIPPED_SOURCE), source("processed.Linked", LINKED_SOURCE));
+        String classPath = System.getProperty("surefire.test.class.path", System.getProperty("java.class.path"));
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, null,
+                Arrays.asList("-d", output.getPath(), "-classpath", classPath), null, sources);
+        task.setProcessors(Arrays.asList(new SchemaProcessor()));
+        assertTrue(task.call());
+        return true;
+    }
+
+    private Class<?> load(String name) throws Exception {
+        ClassLoader loader = new URLClassLoader(new URL[]{output.toURI().toURL()}, getClass().getClassLoader());
+        return Class.forName(name, true, loader);
+    }
+
+    private File schemaFile(String name) {
+        return new File(output, PrecomputedSchemas.LOCATION + name + PrecomputedSchemas.EXTENSION);
+    }
+
+    private static JavaFileObject source(String name, final String code) {
+        return new SimpleJavaFileObject(URI.create("string:///" + name.replace('.', '/') + ".java"),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
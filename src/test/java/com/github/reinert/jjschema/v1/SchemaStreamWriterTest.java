@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.v1;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.reinert.jjschema.Attributes;
+import com.github.reinert.jjschema.Nullable;
+import com.github.reinert.jjschema.inheritance.MusicItem;
+import com.github.reinert.jjschema.inheritance.WarrantyItem;
+import com.github.reinert.jjschema.model.Person;
+import com.github.reinert.jjschema.model.Task;
+import com.github.reinert.jjschema.model.TaskList;
+import com.github.reinert.jjschema.model.User;
+import com.github.reinert.jjschema.model.Users;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * @author Danilo Reinert
+ */
+
+public class SchemaStreamWriterTest extends TestCase {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final Class<?>[] types = {User.class, Users.class, Person.class, Task.class, TaskList.class,
+            MusicItem.class, WarrantyItem.class, CircularReferenceSimpleTest.Sale.class,
+            SchemaIgnoreTest.Sale.class, EmployeeTest.Employee.class, EnumTest.Hyperthing.class,
+            NullableArrayTest.Something.class, ProductTest.Product.class, ProductTest.ComplexProduct.class,
+            ProductTest.ProductSet.class, SimpleTest.SimpleExample.class, Shipment.class,
+            String.class, EnumTest.FloatingEnum.class, Void.class};
+
+    public void testStreamedSchemaEqualsTree() throws IOException {
+        JsonSchemaFactory factory = new JsonSchemaV4Factory();
+        assertSameOutput(factory);
+        factory.setAutoPutDollarSchema(true);
+        assertSameOutput(factory);
+    }
+
+    public void testCachedSchemaIsWritten() throws IOException {
+        JsonSchemaFactory factory = new JsonSchemaV4Factory();
+        factory.setCache(new SchemaCache());
+        String expected = mapper.writeValueAsString(factory.createSchema(Shipment.class));
+        assertEquals(expected, stream(factory, Shipment.class));
+    }
+
+    private void assertSameOutput(JsonSchemaFactory factory) throws IOException {
+        for (Class<?> type : types) {
+            assertEquals(type.getName(), mapper.writeValueAsString(factory.createSchema(type)), stream(factory, type));
+        }
+    }
+
+    private String stream(JsonSchemaFactory factory, Class<?> type) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        factory.writeSchema(type, out);
+        return out.toString("UTF-8");
+    }
+
+    @Attributes(title = "Shipment", description = "A shipment")
+    static class Shipment {
+        @Attributes(required = true, description = "Where it goes", minItems = 1)
+        private Address address;
+        @Nullable
+        private Carrier carrier;
+        @Nullable
+        @Attributes(required = true)
+        private Address returnAddress;
+        private List<Address> stops;
+        private String status;
+
+        public Address getAddress() {
+            return address;
+        }
+
+        public Carrier getCarrier() {
+            return carrier;
+        }
+
+        public void setCarrier(Carrier carrier) {
+            this.carrier = carrier;
+        }
+
+        public Address getReturnAddress() {
+            return returnAddress;
+        }
+
+        public List<Address> getStops() {
+            return stops;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public static class statusEnum {
+            public static final String SENT = "SENT";
+            public static final String LOST = "LOST";
+        }
+    }
+
+    @Attributes(description = "An address")
+    static class Address {
+        @Attributes(required = true, maxLength = 80)
+        private String street;
+
+        public String getStreet() {
+            return street;
+        }
+    }
+
+    enum Carrier {
+        POST, COURIER
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.validation;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.reinert.jjschema.Attributes;
+import com.github.reinert.jjschema.SchemaIgnore;
+import com.github.reinert.jjschema.v1.JsonSchemaV4Factory;
+import junit.framework.TestCase;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Danilo Reinert
+ */
+
+public class AttributesCheckerTest extends TestCase {
+
+    private final AttributesChecker<Order> checker = AttributesChecker.of(Order.class);
+
+    public void testValidObject() {
+        assertTrue(checker.isValid(order()));
+        assertTrue(checker.validate(order()).isEmpty());
+    }
+
+    public void testConstraints() {
+        Order order = order();
+        order.setId(0);
+        assertFalse(checker.isValid(order));
+
+        order = order();
+        order.setCustomer(null);
+        assertFalse(checker.isValid(order));
+
+        order = order();
+        order.setCustomer("");
+        assertFalse(checker.isValid(order));
+
+        order = order();
+        order.setStatus("LOST");
+        assertFalse(checker.isValid(order));
+
+        order = order();
+        order.setDiscount(BigDecimal.ONE);
+        assertFalse(checker.isValid(order));
+
+        order = order();
+        order.setTags(Arrays.asList("a", "a"));
+        assertFalse(checker.isValid(order));
+
+        order = order();
+        order.getLines().get(0).setSku("sku-1");
+        assertFalse(checker.isValid(order));
+
+        order = order();
+        order.getLines().get(1).setQuantity(5);
+        assertFalse(checker.isValid(order));
+
+        order = order();
+        order.getLines().clear();
+        assertFalse(checker.isValid(order));
+    }
+
+    public void testErrorsArePointed() {
+        Order order = order();
+        order.setCustomer(null);
+        order.setWeight(0);
+        order.getLines().get(1).setSku("x");
+        order.getLines().get(1).setQuantity(1002);
+
+        List<ValidationError> errors = checker.validate(order);
+        assertEquals(4, errors.size());
+        assertError(errors.get(0), "", "required");
+        assertError(errors.get(1), "/lines/1/quantity", "maximum");
+        assertError(errors.get(2), "/lines/1/sku", "pattern");
+        assertError(errors.get(3), "/weight", "minimum");
+    }
+
+    public void testIgnoredProperties() {
+        Order order = order();
+        order.setInternal("anything");
+        assertTrue(checker.isValid(order));
+    }
+
+    public void testAgreesWithTheGeneratedSchema() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        CompiledSchema schema = CompiledSchema.compile(new JsonSchemaV4Factory().createSchema(Order.class));
+
+        List<Order> orders = new ArrayList<Order>();
+        for (int i = 0; i < 10; i++) {
+            orders.add(order());
+        }
+        orders.get(1).setId(-3);
+        orders.get(2).setCustomer("a very long customer name, longer than the maximum length");
+        orders.get(3).setStatus("PAID");
+        orders.get(4).setStatus("paid");
+        orders.get(5).setWeight(0.5);
+        orders.get(6).setDiscount(new BigDecimal("1.00"));
+        orders.get(7).setTags(Arrays.asList("a", "b", "a"));
+        orders.get(8).getLines().get(0).setQuantity(3);
+        orders.get(9).getLines().get(1).setSku("SKU-");
+
+        for (Order order : orders) {
+            assertEquals(schema.isValid(mapper.valueToTree(order)), checker.isValid(order));
+        }
+    }
+
+    private static Order order() {
+        Order order = new Order();
+        order.setId(7);
+        order.setCustomer("ACME");
+        order.setStatus("OPEN");
+        order.setWeight(2.5);
+        order.setDiscount(new BigDecimal("0.25"));
+        order.setTags(Arrays.asList("a", "b"));
+        List<Line> lines = new ArrayList<Line>();
+        lines.add(line("SKU-1", 2));
+        lines.add(line("SKU-2", 4));
+        order.setLines(lines);
+        return order;
+    }
+
+    private static Line line(String sku, int quantity) {
+        Line line = new Line();
+        line.setSku(sku);
+        line.setQuantity(quantity);
+        return line;
+    }
+
+    private static void assertError(ValidationError error, String pointer, String keyword) {
+        assertEquals(error.toString(), pointer, error.getPointer());
+        assertEquals(error.toString(), keyword, error.getKeyword());
+    }
+
+    static class Order {
+        @Attributes(required = true, minimum = 1)
+        private long id;
+        @Attributes(required = true, minLength = 1, maxLength = 32)
+        private String customer;
+        @Attributes(enums = {"OPEN", "PAID"})
+        private String status;
+        @Attributes(minimum = 1)
+        private double weight;
+        @Attributes(maximum = 1, exclusiveMaximum = true)
+        private BigDecimal discount;
+        @Attributes(uniqueItems = true, maxItems = 5)
+        private List<String> tags;
+        @Attributes(required = true, minItems = 1)
+        private List<Line> lines;
+        @SchemaIgnore
+        @Attributes(maxLength = 1)
+        private String internal;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public String getCustomer() {
+            return customer;
+        }
+
+        public void setCustomer(String customer) {
+            this.customer = customer;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+
+        public double getWeight() {
+            return weight;
+        }
+
+        public void setWeight(double weight) {
+            this.weight = weight;
+        }
+
+        public BigDecimal getDiscount() {
+            return discount;
+        }
+
+        public void setDiscount(BigDecimal discount) {
+            this.discount = discount;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public void setTags(List<String> tags) {
+            this.tags = tags;
+        }
+
+        public List<Line> getLines() {
+            return lines;
+        }
+
+        public void setLines(List<Line> lines) {
+            this.lines = lines;
+        }
+
+        public String getInternal() {
+            return internal;
+        }
+
+        public void setInternal(String internal) {
+            this.internal = internal;
+        }
+    }
+
+    static class Line {
+        @Attributes(required = true, pattern = "^SKU-\\d+$")
+        private String sku;
+        @Attributes(minimum = 1, maximum = 1000, multipleOf = 2)
+        private int quantity;
+
+        public String getSku() {
+            return sku;
+        }
+
+        public void setSku(String sku) {
+            this.sku = sku;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2014, Danilo Reinert (daniloreinert@growbit.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of both licenses is available under the src/resources/ directory of
+ * this project (under the names LGPL-3.0.txt and ASL-2.0.txt respectively).
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.reinert.jjschema.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.reinert.jjschema.Attributes;
+import com.github.reinert.jjschema.model.Task;
+import com.github.reinert.jjschema.v1.JsonSchemaFactory;
+import com.github.reinert.jjschema.v1.JsonSchemaV4Factory;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * @author Danilo Reinert
+ */
+
+public class CompiledSchemaTest extends TestCase {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final JsonSchemaFactory factory = new JsonSchemaV4Factory();
+
+    public void testGeneratedSchema() throws IOException {
+        CompiledSchema schema = CompiledSchema.compile(factory.createSchema(Product.class));
+
+        assertTrue(schema.isValid(json("{'id':1,'name':'Chair','price':10.5,'tags':['a','b'],'code':'AB-12'}")));
+        assertTrue(schema.isValid(json("{'id':1,'name':'Chair','price':1}")));
+
+        assertFalse(schema.isValid(json("{'id':1,'price':1}")));
+        assertFalse(schema.isValid(json("{'id':1.5,'name':'Chair','price':1}")));
+        assertFalse(schema.isValid(json("{'id':1,'name':'Chair','price':0}")));
+        assertFalse(schema.isValid(json("{'id':1,'name':'Chair','price':1,'tags':[]}")));
+        assertFalse(schema.isValid(json("{'id':1,'name':'Chair','price':1,'tags':['a','a']}")));
+        assertFalse(schema.isValid(json("{'id':1,'name':'Chair','price':1,'code':'ab-12'}")));
+        assertFalse(schema.isValid(json("{'id':1,'name':'Chair','price':1,'status':'LOST'}")));
+        assertFalse(schema.isValid(json("[]")));
+    }
+
+    public void testErrorsArePointed() throws IOException {
+        CompiledSchema schema = CompiledSchema.compile(factory.createSchema(Product.class));
+
+        List<ValidationError> errors = schema.validate(json("{'id':'x','price':-1,'tags':['a',2]}"));
+        assertEquals(4, errors.size());
+        assertError(errors.get(0), "", "required");
+        assertError(errors.get(1), "/id", "type");
+        assertError(errors.get(2), "/price", "minimum");
+        assertError(errors.get(3), "/tags/1", "type");
+
+        assertTrue(schema.validate(json("{'id':1,'name':'Chair','price':1}")).isEmpty());
+    }
+
+    public void testRecursiveReferences() throws IOException {
+        factory.setUseDefinitions(true);
+        CompiledSchema schema = CompiledSchema.compile(factory.createSchema(Task.class));
+
+        assertTrue(schema.isValid(json("{'text':'a','list':{'taks':[{'text':'b'},{'list':{'taks':[]}}]}}")));
+        List<ValidationError> errors = schema.validate(json("{'list':{'taks':[{'text':1}]}}"));
+        assertEquals(1, errors.size());
+        assertError(errors.get(0), "/list/taks/0/text", "type");
+    }
+
+    public void testCombinations() throws IOException {
+        CompiledSchema schema = compile("{'oneOf':[{'type':'integer'},{'minimum':2}],'not':{'enum':[5]}}");
+        assertTrue(schema.isValid(json("1")));
+        assertTrue(schema.isValid(json("2.5")));
+        assertFalse(schema.isValid(json("3")));
+        assertFalse(schema.isValid(json("5.0")));
+
+        List<ValidationError> errors = schema.validate(json("3"));
+        assertEquals(1, errors.size());
+        assertError(errors.get(0), "", "oneOf");
+    }
+
+    public void testObjectKeywords() throws IOException {
+        CompiledSchema schema = compile("{'properties':{'a':{}},'patternProperties':{'^x-':{'type':'string'}},"
+                + "'additionalProperties':false,'dependencies':{'a':['x-b']},'maxProperties':2}");
+        assertTrue(schema.isValid(json("{'a':1,'x-b':'c'}")));
+        assertFalse(schema.isValid(json("{'a':1}")));
+        assertFalse(schema.isValid(json("{'x-b':1}")));
+        assertFalse(schema.isValid(json("{'b':1}")));
+        assertFalse(schema.isValid(json("{'a':1,'x-b':'c','x-c':'d'}")));
+    }
+
+    public void testArrayKeywords() throws IOException {
+        CompiledSchema schema = compile("{'items':[{'type':'string'}],'additionalItems':false,'uniqueItems':true}");
+        assertTrue(schema.isValid(json("['a']")));
+        assertFalse(schema.isValid(json("['a',1]")));
+
+        schema = compile("{'uniqueItems':true}");
+        assertTrue(schema.isValid(json("[1,'1',{'a':1}]")));
+        assertFalse(schema.isValid(json("[1,1.0]")));
+    }
+
+    public void testStringKeywords() throws IOException {
+        CompiledSchema schema = compile("{'minLength':2,'maxLength':3,'pattern':'b'}");
+        assertTrue(schema.isValid(json("'ab'")));
+        assertTrue(schema.isValid(mapper.getNodeFactory().textNode("😀b")));
+        assertFalse(schema.isValid(json("'abcb'")));
+        assertFalse(schema.isValid(json("'aa'")));
+    }
+
+    public void testNumberKeywords() throws IOException {
+        CompiledSchema schema = compile("{'maximum':10,'exclusiveMaximum':true,'multipleOf':0.5}");
+        assertTrue(schema.isValid(json("9.5")));
+        assertTrue(schema.isValid(json("-2")));
+        assertFalse(schema.isValid(json("10")));
+        assertFalse(schema.isValid(json("9.25")));
+        assertTrue(schema.isValid(json("'not a number'")));
+    }
+
+    public void testPointerReferences() throws IOException {
+        CompiledSchema schema = compile("{'definitions':{'a/b':{'type':'integer'},'c':{'id':'#c','type':'string'}},"
+                + "'properties':{'x':{'$ref':'#/definitions/a~1b'},'y':{'$ref':'#c'}}}");
+        assertTrue(schema.isValid(json("{'x':1,'y':'z'}")));
+        assertFalse(schema.isValid(json("{'x':'1'}")));
+        assertFalse(schema.isValid(json("{'y':1}")));
+    }
+
+    public void testInvalidSchemas() throws IOException {
+        try {
+            compile("{'$ref':'#/definitions/missing'}");
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            compile("{'items':1}");
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private CompiledSchema compile(String schema) throws IOException {
+        return CompiledSchema.compile(json(schema));
+    }
+
+    private JsonNode json(String text) throws IOException {
+        return mapper.readTree(text.replace('\'', '"'));
+    }
+
+    private static void assertError(ValidationError error, String pointer, String keyword) {
+        assertEquals(error.toString(), pointer, error.getPointer());
+        assertEquals(error.toString(), keyword, error.getKeyword());
+    }
+
+    static class Product {
+        @Attributes(required = true)
+        private long id;
+        @Attributes(required = true, minLength = 1)
+        private String name;
+        @Attributes(required = true, minimum = 0, exclusiveMinimum = true)
+        private double price;
+        @Attributes(minItems = 1, uniqueItems = true)
+        private List<String> tags;
+        @Attributes(pattern = "^[A-Z]{2}-\\d+$")
+        private String code;
+        @Attributes(enums = {"NEW", "SOLD"})
+        private String status;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+
+        public void setPrice(double price) {
+            this.price = price;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public void setTags(List<String> tags) {
+            this.tags = tags;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public void setCode(String code) {
+            this.code = code;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+    }
+}